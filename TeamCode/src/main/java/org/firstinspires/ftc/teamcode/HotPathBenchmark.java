@@ -0,0 +1,143 @@
+package org.firstinspires.ftc.teamcode;
+
+import com.acmerobotics.roadrunner.followers.TrajectoryFollower;
+import com.acmerobotics.roadrunner.geometry.Pose2d;
+import com.acmerobotics.roadrunner.geometry.Vector2d;
+import com.acmerobotics.roadrunner.trajectory.Trajectory;
+import com.acmerobotics.roadrunner.trajectory.TrajectoryBuilder;
+import com.acmerobotics.roadrunner.trajectory.constraints.AngularVelocityConstraint;
+import com.acmerobotics.roadrunner.trajectory.constraints.MinVelocityConstraint;
+import com.acmerobotics.roadrunner.trajectory.constraints.ProfileAccelerationConstraint;
+import com.acmerobotics.roadrunner.trajectory.constraints.TankVelocityConstraint;
+import com.qualcomm.robotcore.eventloop.opmode.LinearOpMode;
+import com.qualcomm.robotcore.eventloop.opmode.TeleOp;
+
+import org.firstinspires.ftc.robotcore.internal.system.AppUtil;
+import org.firstinspires.ftc.teamcode.robots.UGBot.utils.Constants.Target;
+import org.firstinspires.ftc.teamcode.robots.UGBot.utils.TrajectoryCalculator;
+import org.firstinspires.ftc.teamcode.robots.reachRefactor.util.TrikeKinematics;
+import org.firstinspires.ftc.teamcode.robots.taubot.subsystem.Robot;
+import org.firstinspires.ftc.teamcode.util.CloneFollower;
+import org.firstinspires.ftc.teamcode.util.DiffyKinematics;
+import org.firstinspires.ftc.teamcode.util.MicroBenchmark;
+import org.firstinspires.ftc.teamcode.util.PIDController;
+import org.firstinspires.ftc.teamcode.util.utilMethods;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.firstinspires.ftc.teamcode.robots.taubot.util.Constants.MAX_ACCELERATION;
+import static org.firstinspires.ftc.teamcode.robots.taubot.util.Constants.MAX_ANG_VEL;
+import static org.firstinspires.ftc.teamcode.robots.taubot.util.Constants.MAX_VELOCITY;
+import static org.firstinspires.ftc.teamcode.robots.taubot.util.Constants.TRACK_WIDTH;
+
+/**
+ * Times the math we run every loop, on the hub itself, and writes the results to
+ * FIRST/Benchmarks/hot_path.txt. Pull that file (adb pull /sdcard/FIRST/Benchmarks/hot_path.txt) and commit
+ * it alongside a hot-path change so the before/after numbers can be diffed.
+ *
+ * Nothing here moves hardware. The Crane and UnderArm targeting benchmarks run on a simulated taubot Robot
+ * and are skipped if one can't be built.
+ */
+@TeleOp(name = "HotPathBenchmark", group = "diagnostic")
+public class HotPathBenchmark extends LinearOpMode {
+
+    public static final File RESULTS_FILE = new File(AppUtil.ROOT_FOLDER + "/Benchmarks/hot_path.txt");
+
+    @Override
+    public void runOpMode() throws InterruptedException {
+        Robot robot = null;
+        try {
+            robot = new Robot(hardwareMap, true);
+        } catch (Exception e) {
+            telemetry.addLine("no taubot configuration - skipping crane/underarm targeting");
+        }
+        telemetry.addLine("press play to run - takes a minute or so");
+        telemetry.update();
+        waitForStart();
+
+        MicroBenchmark bench = new MicroBenchmark();
+
+        bench.measure("DiffyKinematics.robotToWheelVelocities", i -> {
+            List<Double> wheels = DiffyKinematics.robotToWheelVelocities(new Pose2d(i % 30, 0, (i % 7) * 0.1), TRACK_WIDTH);
+            return wheels.get(0) + wheels.get(1);
+        });
+        bench.measure("DiffyKinematics.wheelToRobotVelocities", i -> {
+            Pose2d vel = DiffyKinematics.wheelToRobotVelocities(Arrays.asList((double) (i % 30), (double) (i % 17)), TRACK_WIDTH);
+            return vel.getX() + vel.getHeading();
+        });
+        bench.measure("TrikeKinematics.robotToWheelVelocities", i -> {
+            List<Double> wheels = TrikeKinematics.robotToWheelVelocities(new Pose2d(i % 30, 0, (i % 7) * 0.1), TRACK_WIDTH, 20);
+            return wheels.get(0) + wheels.get(2);
+        });
+
+        //the primitive variants the drivetrains now call, against the boxed ones above
+        double[] wheelScratch = new double[3];
+        bench.measure("DiffyKinematics.robotToWheelVelocities(double[])", i -> {
+            DiffyKinematics.robotToWheelVelocities(i % 30, (i % 7) * 0.1, TRACK_WIDTH, wheelScratch);
+            return wheelScratch[0] + wheelScratch[1];
+        });
+        bench.measure("DiffyKinematics.wheelToRobotVelocities(double[])", i -> {
+            DiffyKinematics.wheelToRobotVelocities(i % 30, i % 17, TRACK_WIDTH, wheelScratch);
+            return wheelScratch[0] + wheelScratch[2];
+        });
+        bench.measure("TrikeKinematics.robotToWheelVelocities(double[])", i -> {
+            TrikeKinematics.robotToWheelVelocities(i % 30, (i % 7) * 0.1, TRACK_WIDTH, 20, wheelScratch);
+            return wheelScratch[0] + wheelScratch[2];
+        });
+        bench.measure("utilMethods.wrapAngle", i -> utilMethods.wrapAngle(i * 7.3 - 2000));
+
+        PIDController pid = new PIDController(0.05, 0.005, 0.001, angle -> 0.2 * Math.cos(Math.toRadians(angle)));
+        pid.setOutputRange(-1, 1);
+        pid.setIntegralCutIn(10);
+        pid.setSetpoint(45);
+        pid.enable();
+        bench.measure("PIDController.performPID", i -> {
+            pid.setInput(40 + i % 10);
+            return pid.performPID();
+        });
+
+        TrajectoryCalculator calculator = new TrajectoryCalculator(0, 0, Target.HIGH_GOAL);
+        bench.measure("TrajectoryCalculator.getTrajectorySolution", i -> {
+            calculator.updatePos(0.5 + (i % 100) * 0.01, 1);
+            return calculator.getTrajectorySolution().getElevation();
+        });
+
+        Trajectory trajectory = new TrajectoryBuilder(new Pose2d(),
+                new MinVelocityConstraint(Arrays.asList(new AngularVelocityConstraint(MAX_ANG_VEL), new TankVelocityConstraint(MAX_VELOCITY, TRACK_WIDTH))),
+                new ProfileAccelerationConstraint(MAX_ACCELERATION))
+                .splineTo(new Vector2d(48, 24), 0)
+                .build();
+        double duration = trajectory.duration();
+        bench.measure("Trajectory.get", i -> trajectory.get((i % 1000) * duration / 1000).getX());
+
+        TrajectoryFollower follower = new CloneFollower(new com.acmerobotics.roadrunner.control.PIDCoefficients(4, 0, 0),
+                new com.acmerobotics.roadrunner.control.PIDCoefficients(0.001, 0, 0), new Pose2d(0.5, 0.5, Math.toRadians(5)), 1);
+        Pose2d followerVelocity = new Pose2d(10, 0, 0);
+        bench.measure("CloneFollower.internalUpdate", i -> {
+            if (i % 1000 == 0) follower.followTrajectory(trajectory);
+            return follower.update(new Pose2d(i % 48, 0, 0), followerVelocity).getVel().getX();
+        });
+
+        if (robot != null) {
+            Robot r = robot;
+            bench.measure("Crane.calculateFieldTargeting", i -> r.crane.calculateFieldTargeting(24 + i % 24, -12, 30) ? 1 : 0);
+            bench.measure("UnderArm.calculateFieldTargeting", i -> r.underarm.calculateFieldTargeting(-20 - i % 10, 0, 4) ? 1 : 0);
+        }
+
+        for (MicroBenchmark.Result result : bench.getResults())
+            telemetry.addLine(result.toString());
+        try {
+            RESULTS_FILE.getParentFile().mkdirs();
+            bench.writeResults(RESULTS_FILE);
+            telemetry.addLine("wrote " + RESULTS_FILE.getAbsolutePath());
+        } catch (Exception e) {
+            telemetry.addLine("couldn't write results: " + e.getMessage());
+        }
+        telemetry.update();
+
+        while (opModeIsActive())
+            idle();
+    }
+}
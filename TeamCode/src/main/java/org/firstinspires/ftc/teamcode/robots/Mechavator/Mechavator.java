@@ -15,7 +15,7 @@ import com.qualcomm.robotcore.hardware.DcMotorSimple;
 import com.qualcomm.robotcore.hardware.PIDCoefficients;
 import com.qualcomm.robotcore.hardware.Servo;
 
-import org.firstinspires.ftc.teamcode.robots.reachRefactor.util.StickyGamepad;
+import org.firstinspires.ftc.teamcode.util.StickyGamepad;
 import org.firstinspires.ftc.teamcode.util.PIDController;
 
 @Config
@@ -22,6 +22,7 @@ import org.firstinspires.ftc.robotcore.external.navigation.Orientation;
 import org.firstinspires.ftc.teamcode.robots.UGBot.utils.CanvasUtils;
 import org.firstinspires.ftc.teamcode.robots.UGBot.utils.CanvasUtils.Point;
 import org.firstinspires.ftc.teamcode.robots.UGBot.utils.Constants;
+import org.firstinspires.ftc.teamcode.robots.UGBot.utils.FiringTable;
 import org.firstinspires.ftc.teamcode.robots.UGBot.utils.KinematicModel;
 import org.firstinspires.ftc.teamcode.robots.UGBot.utils.TrajectoryCalculator;
 import org.firstinspires.ftc.teamcode.robots.UGBot.utils.TrajectorySolution;
@@ -538,6 +539,11 @@ public class PoseUG {
         packet.put("trajectory calculator bearing to target", trajSol.getBearing());
         packet.put("trajectory calculator flywheel speed output", trajSol.getVelocity());
         packet.put("trajectory calculator launcher elevation output", trajSol.getElevation());
+        FiringTable firingTable = trajCalc.getFiringTable();
+        if (firingTable != null) {
+            packet.put("firing table max elevation error", firingTable.getMaxElevationError());
+            packet.put("firing table max flywheel error", firingTable.getMaxAngularVelocityError());
+        }
 
         packet.put("TurretMotorPos", turret.getTicksPerDegree());
         packet.put("TurretTicksPerDegree", turret.getTicksPerDegree());
@@ -26,6 +26,12 @@ public class Constants {
     public static double LAUNCHER_LENGTH = 9 / INCHES_PER_METER;
     public static double LAUNCHER_VERTICAL_OFFSET = 4.5 / INCHES_PER_METER;
     public static double BASE_LAUNCH_ANGLE = 19.50244851;
+    public static boolean USE_FIRING_TABLES = true; //look launch solutions up in tables built at startup - false iterates every loop
+    public static double FIRING_TABLE_MAX_DISTANCE = 5; //meters - the tables start at ILLEGAL_SHOOTING_DISTANCE
+    public static double FIRING_TABLE_DISTANCE_STEP = 0.1;
+    public static double FIRING_TABLE_MAX_SPEED = 2; //m/s of robot speed toward or away from the target
+    public static double FIRING_TABLE_SPEED_STEP = 0.25;
+    public static double DISC_DRAG = 0; //1/m - Cd * air density * area / (2 * mass), about 0.05 for a ring edge on todo fit from shots - 0 is drag free
     public static double ELBOW_TARGET_ANGLE = 50;
     public static int elbowMaxSafetyOffset = 70;
 
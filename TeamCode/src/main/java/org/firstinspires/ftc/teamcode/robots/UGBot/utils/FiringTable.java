@@ -0,0 +1,150 @@
+package org.firstinspires.ftc.teamcode.robots.UGBot.utils;
+
+import org.firstinspires.ftc.teamcode.util.BilinearTable;
+
+/**
+ * Launch solutions for one target height, worked out ahead of time over a grid of horizontal distance and robot
+ * speed along the shot, so aiming every loop is a few bilinear lookups instead of TrajectoryCalculator's fixed
+ * point iterations. The robot's speed across the shot doesn't need an axis - it only moves the aim point by
+ * speed times flight time, and the caller applies that with the flight time looked up here.
+ *
+ * Every node is filled by solve(), the same iteration TrajectoryCalculator runs. With a drag coefficient the disc
+ * is flown numerically instead of by the drag free closed form - too slow to do every loop, fine to do once here.
+ * After filling, solve() is run again at the middle of every cell, where interpolation is furthest from the
+ * nodes, and the worst differences are kept as a check on the grid spacing.
+ */
+public class FiringTable {
+
+    //solve() out slots
+    public static final int FLIGHT_TIME = 0, ANGULAR_VELOCITY = 1, ELEVATION = 2, VELOCITY = 3;
+
+    private static final double DRAG_TIME_STEP = 0.005; //seconds per integration step
+    private static final int DRAG_PASSES = 20;
+
+    private final double minDistance, maxDistance, maxSpeed;
+    private final BilinearTable flightTimes, angularVelocities, elevations, velocities;
+    private double maxElevationError, maxAngularVelocityError;
+
+    /**
+     * @param targetHeight meters above the field
+     * @param maxSpeed m/s of robot speed toward the target the grid covers, both ways
+     * @param drag quadratic drag per unit mass, 1/m - 0 for the closed form
+     */
+    public FiringTable(double targetHeight, double minDistance, double maxDistance, double distanceStep,
+                       double maxSpeed, double speedStep, double drag) {
+        this.minDistance = minDistance;
+        this.maxDistance = maxDistance;
+        this.maxSpeed = maxSpeed;
+        int distanceCount = (int) Math.ceil((maxDistance - minDistance) / distanceStep) + 1;
+        int speedCount = (int) Math.ceil(2 * maxSpeed / speedStep) + 1;
+        flightTimes = new BilinearTable(minDistance, maxDistance, distanceCount, -maxSpeed, maxSpeed, speedCount);
+        angularVelocities = new BilinearTable(minDistance, maxDistance, distanceCount, -maxSpeed, maxSpeed, speedCount);
+        elevations = new BilinearTable(minDistance, maxDistance, distanceCount, -maxSpeed, maxSpeed, speedCount);
+        velocities = new BilinearTable(minDistance, maxDistance, distanceCount, -maxSpeed, maxSpeed, speedCount);
+
+        double[] solution = new double[4];
+        for (int i = 0; i < distanceCount; i++)
+            for (int j = 0; j < speedCount; j++) {
+                solve(targetHeight, flightTimes.getX(i), flightTimes.getY(j), drag, solution);
+                flightTimes.setNode(i, j, solution[FLIGHT_TIME]);
+                angularVelocities.setNode(i, j, solution[ANGULAR_VELOCITY]);
+                elevations.setNode(i, j, solution[ELEVATION]);
+                velocities.setNode(i, j, solution[VELOCITY]);
+            }
+
+        for (int i = 0; i < distanceCount - 1; i++)
+            for (int j = 0; j < speedCount - 1; j++) {
+                double distance = (flightTimes.getX(i) + flightTimes.getX(i + 1)) / 2;
+                double speed = (flightTimes.getY(j) + flightTimes.getY(j + 1)) / 2;
+                solve(targetHeight, distance, speed, drag, solution);
+                maxElevationError = Math.max(maxElevationError, Math.abs(getElevation(distance, speed) - solution[ELEVATION]));
+                maxAngularVelocityError = Math.max(maxAngularVelocityError, Math.abs(getAngularVelocity(distance, speed) - solution[ANGULAR_VELOCITY]));
+            }
+    }
+
+    /**
+     * The iterative solution the table is built from: the disc peaks at the target, and the launch height follows
+     * the elevation, so it's recomputed from each pass's elevation for Constants.ITERATIONS passes
+     * @param forwardSpeed m/s the robot is moving toward the target
+     * @param out filled at FLIGHT_TIME (s), ANGULAR_VELOCITY (flywheel ticks/s), ELEVATION (degrees), VELOCITY (m/s)
+     */
+    public static void solve(double targetHeight, double distance, double forwardSpeed, double drag, double[] out) {
+        double launchHeight = Constants.LAUNCH_HEIGHT + Constants.STARTING_HEIGHT_OFFSET;
+        for (int i = 0; i < Constants.ITERATIONS; i++) {
+            solveFrom(targetHeight - launchHeight, distance, forwardSpeed, drag, out);
+            launchHeight = Constants.LAUNCH_HEIGHT + getLauncherHeight(out[ELEVATION]);
+        }
+    }
+
+    public static double getLauncherHeight(double elevation) {
+        double c = Math.hypot(Constants.LAUNCHER_VERTICAL_OFFSET, Constants.LAUNCHER_LENGTH);
+        return c * Math.sin(Math.toRadians(elevation) + Math.toRadians(Constants.BASE_LAUNCH_ANGLE));
+    }
+
+    private static void solveFrom(double travelHeight, double distance, double forwardSpeed, double drag, double[] out) {
+        //drag free: rising travelHeight to the peak takes this long, and the disc covers the distance meanwhile
+        double flightTime = Math.sqrt((2 * travelHeight) / Constants.GRAVITY);
+        double horizontal = distance / flightTime, vertical = Constants.GRAVITY * flightTime;
+
+        if (drag > 0) {
+            //fly the disc to its peak and scale the launch velocity toward putting the peak on the target -
+            //height goes about as the square of the vertical velocity, distance about as the horizontal
+            for (int pass = 0; pass < DRAG_PASSES; pass++) {
+                double x = 0, z = 0, vx = horizontal, vz = vertical, t = 0;
+                while (vz > 0) {
+                    double speed = Math.hypot(vx, vz);
+                    vx -= drag * speed * vx * DRAG_TIME_STEP;
+                    vz -= (Constants.GRAVITY + drag * speed * vz) * DRAG_TIME_STEP;
+                    x += vx * DRAG_TIME_STEP;
+                    z += vz * DRAG_TIME_STEP;
+                    t += DRAG_TIME_STEP;
+                }
+                flightTime = t;
+                if (Math.abs(x - distance) < 1e-3 && Math.abs(z - travelHeight) < 1e-3) break;
+                vertical *= Math.sqrt(travelHeight / z);
+                horizontal *= distance / x;
+            }
+        }
+
+        //the robot's motion is already carrying the disc toward the target
+        double velocity = Math.hypot(horizontal - forwardSpeed, vertical);
+        out[FLIGHT_TIME] = flightTime;
+        out[VELOCITY] = velocity;
+        out[ANGULAR_VELOCITY] = velocity / Constants.FLYWHEEL_RADIUS * (Constants.ENCODER_TICKS_PER_REVOLUTION / (2 * Math.PI)) * 2;
+        out[ELEVATION] = Math.toDegrees(Math.asin(vertical / velocity));
+    }
+
+    public boolean contains(double distance, double forwardSpeed) {
+        return distance >= minDistance && distance <= maxDistance && Math.abs(forwardSpeed) <= maxSpeed;
+    }
+
+    public double getFlightTime(double distance, double forwardSpeed) {
+        return flightTimes.get(distance, forwardSpeed);
+    }
+
+    public double getAngularVelocity(double distance, double forwardSpeed) {
+        return angularVelocities.get(distance, forwardSpeed);
+    }
+
+    public double getElevation(double distance, double forwardSpeed) {
+        return elevations.get(distance, forwardSpeed);
+    }
+
+    public double getVelocity(double distance, double forwardSpeed) {
+        return velocities.get(distance, forwardSpeed);
+    }
+
+    /**
+     * @return degrees - the worst difference between a lookup and solve() found at construction
+     */
+    public double getMaxElevationError() {
+        return maxElevationError;
+    }
+
+    /**
+     * @return flywheel ticks/s - the worst difference between a lookup and solve() found at construction
+     */
+    public double getMaxAngularVelocityError() {
+        return maxAngularVelocityError;
+    }
+}
@@ -1,6 +1,14 @@
 package org.firstinspires.ftc.teamcode.robots.UGBot.utils;
 
+import org.firstinspires.ftc.teamcode.util.FrameTree;
+
 public class KinematicModel {
+    //headings here are compass style, clockwise from +y - the frame tree's are counter clockwise from +x
+    private final FrameTree frames = new FrameTree(4);
+    private final int chassisFrame = frames.addFrame(FrameTree.ROOT, FrameTree.JointType.PLANAR, 0, 0, 0);
+    private final int turretFrame = frames.addFrame(chassisFrame, FrameTree.JointType.YAW, -Constants.TURRET_AXIS_OFFSET, 0, 0);
+    private final int muzzleFrame = frames.addFrame(turretFrame, FrameTree.JointType.FIXED, Constants.MUZZLE_RADIUS, 0, 0);
+
     private double x, y;
     private double turretX, turretY;
     private double muzzleX, muzzleY;
@@ -32,15 +40,21 @@ public class KinematicModel {
             rightPower = targetRightPower;
 //        }
 
-        // positions
+        // positions - only what moved since the last update is recomputed
+        frames.setPlanar(chassisFrame, x, y, Math.PI / 2 - heading);
+        frames.setOffset(turretFrame, -Constants.TURRET_AXIS_OFFSET, 0, 0);
+        frames.setOffset(muzzleFrame, Constants.MUZZLE_RADIUS, 0, 0);
+        //the muzzle sits MUZZLE_RAD_OFFSET around from the turret heading
+        frames.setJoint(turretFrame, heading - (Math.toRadians(turretHeading) + Constants.MUZZLE_RAD_OFFSET));
+        frames.update();
+
         //turret
-        turretX = x - Constants.TURRET_AXIS_OFFSET * Math.sin(heading);
-        turretY = y - Constants.TURRET_AXIS_OFFSET * Math.cos(heading);
+        turretX = frames.getX(turretFrame);
+        turretY = frames.getY(turretFrame);
 
         //muzzle
-        double muzzleAngleFieldRad = Math.toRadians(turretHeading)+Constants.MUZZLE_RAD_OFFSET;
-        muzzleX = turretX + Constants.MUZZLE_RADIUS * Math.sin(muzzleAngleFieldRad);
-        muzzleY = turretY + Constants.MUZZLE_RADIUS * Math.cos(muzzleAngleFieldRad);
+        muzzleX = frames.getX(muzzleFrame);
+        muzzleY = frames.getY(muzzleFrame);
     }
 
     public double getX() {
@@ -1,5 +1,7 @@
 package org.firstinspires.ftc.teamcode.robots.UGBot.utils;
 
+import java.util.EnumMap;
+
 public class TrajectoryCalculator {
     private double x;
     private double y;
@@ -7,10 +9,40 @@ public class TrajectoryCalculator {
     private double distance;
     private Constants.Target target;
 
+    //one firing table per target height, shared by targets at the same height
+    private final EnumMap<Constants.Target, FiringTable> firingTables = new EnumMap<>(Constants.Target.class);
+    private final TrajectorySolution solution = new TrajectorySolution();
+
     public TrajectoryCalculator(double x, double y, Constants.Target target) {
         this.x = x;
         this.y = y;
         this.target = target;
+        buildFiringTables();
+    }
+
+    /**
+     * Builds the firing tables from the current Constants - call again after changing the launcher geometry,
+     * table ranges or DISC_DRAG
+     */
+    public void buildFiringTables() {
+        firingTables.clear();
+        for (Constants.Target candidate : Constants.Target.values()) {
+            if (candidate.height <= Constants.LAUNCH_HEIGHT) continue; //NONE, and nothing that can be peaked at
+            FiringTable table = null;
+            for (Constants.Target built : firingTables.keySet())
+                if (built.height == candidate.height) table = firingTables.get(built);
+            if (table == null)
+                table = new FiringTable(candidate.height, Constants.ILLEGAL_SHOOTING_DISTANCE, Constants.FIRING_TABLE_MAX_DISTANCE,
+                        Constants.FIRING_TABLE_DISTANCE_STEP, Constants.FIRING_TABLE_MAX_SPEED, Constants.FIRING_TABLE_SPEED_STEP, Constants.DISC_DRAG);
+            firingTables.put(candidate, table);
+        }
+    }
+
+    /**
+     * @return the table for the current target, null if it doesn't have one
+     */
+    public FiringTable getFiringTable() {
+        return firingTables.get(target);
     }
 
     public void updatePos(double x, double y){
@@ -27,27 +59,42 @@ public class TrajectoryCalculator {
         this.target = target;
     }
 
+    /**
+     * @return the solution for the current position, velocity and target - the same instance every call, updated
+     * in place, so copy what you need to keep
+     */
     public TrajectorySolution getTrajectorySolution() {
+        FiringTable table = Constants.USE_FIRING_TABLES ? firingTables.get(target) : null;
+        if (table != null) {
+            double dy = target.y - y;
+            //the flight time barely moves with distance, so a first look up ignoring the sideways lead is close
+            //enough to place the aim point, and the second is at the led distance
+            double flightTime = table.getFlightTime(Math.max(Math.hypot(target.getX() - x, dy), Constants.ILLEGAL_SHOOTING_DISTANCE), vy);
+            double xOffset = target.getX() - vx * flightTime;
+            distance = Math.max(Math.hypot(xOffset - x, dy), Constants.ILLEGAL_SHOOTING_DISTANCE);
+            if (table.contains(distance, vy)) {
+                xOffset = target.getX() - vx * table.getFlightTime(distance, vy);
+                distance = Math.max(Math.hypot(xOffset - x, dy), Constants.ILLEGAL_SHOOTING_DISTANCE);
+                double bearing = Math.toDegrees(Math.atan2((xOffset - x), dy));
+                return solution.set(table.getAngularVelocity(distance, vy), table.getElevation(distance, vy), distance,
+                        bearing, xOffset, table.getVelocity(distance, vy));
+            }
+        }
+
         // initializing base launch height and distance
         double launchHeight = Constants.LAUNCH_HEIGHT + Constants.STARTING_HEIGHT_OFFSET;
-        TrajectorySolution trajectoryIterationSolution = null;
 
         // performing iterations for convergence
         for(int i = 0; i < Constants.ITERATIONS; i++) {
-            trajectoryIterationSolution = performTrajectoryIteration(launchHeight);
+            performTrajectoryIteration(launchHeight);
 
             // calculating new launch height
-            launchHeight = Constants.LAUNCH_HEIGHT + getLauncherHeight(trajectoryIterationSolution.getElevation());
+            launchHeight = Constants.LAUNCH_HEIGHT + FiringTable.getLauncherHeight(solution.getElevation());
         }
-        return trajectoryIterationSolution;
-    }
-
-    private double getLauncherHeight(double elevation) {
-        double c = Math.hypot(Constants.LAUNCHER_VERTICAL_OFFSET, Constants.LAUNCHER_LENGTH);
-        return c * Math.sin(Math.toRadians(elevation) + Math.toRadians(Constants.BASE_LAUNCH_ANGLE));
+        return solution;
     }
 
-    private TrajectorySolution performTrajectoryIteration(double launchHeight) {
+    private void performTrajectoryIteration(double launchHeight) {
         // vertical distance in meters the disk has to travel
         double travelHeight = target.height - launchHeight;
         // time the disk is in air in seconds
@@ -72,6 +119,6 @@ public class TrajectoryCalculator {
         double elevation = Math.toDegrees(Math.asin((Constants.GRAVITY * flightTime) / velocity));
         double bearing = Math.toDegrees(Math.atan2((xOffset- x), (target.y -y)));
 
-        return new TrajectorySolution(angularVelocity, elevation, distance, bearing, xOffset, velocity);
+        solution.set(angularVelocity, elevation, distance, bearing, xOffset, velocity);
     }
-}
\ No newline at end of file
+}
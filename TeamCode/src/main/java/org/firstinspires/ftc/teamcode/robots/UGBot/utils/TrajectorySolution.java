@@ -8,13 +8,20 @@ public class TrajectorySolution {
     private double xOffset;
     private double velocity;
 
+    public TrajectorySolution() {}
+
     public TrajectorySolution(double angularVelocity, double elevation, double distance, double bearing, double xOffset, double velocity) {
+        set(angularVelocity, elevation, distance, bearing, xOffset, velocity);
+    }
+
+    public TrajectorySolution set(double angularVelocity, double elevation, double distance, double bearing, double xOffset, double velocity) {
         this.angularVelocity = angularVelocity;
         this.elevation = elevation;
         this.distance = distance;
         this.bearing = bearing;
         this.xOffset = xOffset;
         this.velocity = velocity;
+        return this;
     }
 
     public double getAngularVelocity() {
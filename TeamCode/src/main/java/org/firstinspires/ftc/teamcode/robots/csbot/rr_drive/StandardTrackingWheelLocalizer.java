@@ -37,6 +37,8 @@ public class StandardTrackingWheelLocalizer extends ThreeTrackingWheelLocalizer
     public static double LATERAL_DISTANCE = 10; // in; distance between the left and right wheels
     public static double FORWARD_OFFSET = 4; // in; offset of the lateral wheel
 
+    public static boolean REGRESSION_VELOCITY = false; // fitted encoder velocities instead of the hub's 50 ms window
+
     private Encoder leftEncoder, rightEncoder, frontEncoder;
 
     private List<Integer> lastEncPositions, lastEncVels;
@@ -84,14 +86,15 @@ public class StandardTrackingWheelLocalizer extends ThreeTrackingWheelLocalizer
     @NonNull
     @Override
     public List<Double> getWheelVelocities() {
-        int leftVel = (int) leftEncoder.getCorrectedVelocity();
-        int rightVel = (int) rightEncoder.getCorrectedVelocity();
-        int frontVel = (int) frontEncoder.getCorrectedVelocity();
+        boolean regression = REGRESSION_VELOCITY;
+        double leftVel = regression ? leftEncoder.getEstimatedVelocity() : leftEncoder.getCorrectedVelocity();
+        double rightVel = regression ? rightEncoder.getEstimatedVelocity() : rightEncoder.getCorrectedVelocity();
+        double frontVel = regression ? frontEncoder.getEstimatedVelocity() : frontEncoder.getCorrectedVelocity();
 
         lastEncVels.clear();
-        lastEncVels.add(leftVel);
-        lastEncVels.add(rightVel);
-        lastEncVels.add(frontVel);
+        lastEncVels.add((int) leftVel);
+        lastEncVels.add((int) rightVel);
+        lastEncVels.add((int) frontVel);
 
         return Arrays.asList(
                 encoderTicksToInches(leftVel),
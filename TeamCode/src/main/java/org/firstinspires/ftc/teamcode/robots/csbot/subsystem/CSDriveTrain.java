@@ -42,10 +42,12 @@ import com.qualcomm.robotcore.hardware.configuration.typecontainers.MotorConfigu
 
 import org.firstinspires.ftc.robotcore.external.navigation.AngleUnit;
 import org.firstinspires.ftc.teamcode.robots.csbot.rr_drive.DriveConstants;
-import org.firstinspires.ftc.teamcode.robots.csbot.trajectorysequence.TrajectorySequence;
-import org.firstinspires.ftc.teamcode.robots.csbot.trajectorysequence.TrajectorySequenceBuilder;
+import org.firstinspires.ftc.teamcode.util.trajectorysequence.TrajectorySequence;
+import org.firstinspires.ftc.teamcode.util.trajectorysequence.TrajectorySequenceBuilder;
 import org.firstinspires.ftc.teamcode.robots.csbot.trajectorysequence.TrajectorySequenceRunner;
 import org.firstinspires.ftc.teamcode.robots.csbot.util.LynxModuleUtil;
+import org.firstinspires.ftc.teamcode.util.SlipDetector;
+import org.firstinspires.ftc.teamcode.util.VelocityEstimator;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -65,6 +67,9 @@ public class CSDriveTrain extends MecanumDrive implements Subsystem {
     public static double VY_WEIGHT = 1;
     public static double OMEGA_WEIGHT = 1;
 
+    public static boolean REGRESSION_VELOCITY = false; //wheel velocities fitted to the positions instead of the hub's 50 ms window
+    public static boolean SLIP_DETECTION = true; //compare the wheel and imu yaw rates to catch slip and hits - reported, not acted on
+
     public final TrajectorySequenceRunner trajectorySequenceRunner;
 
     private static final TrajectoryVelocityConstraint VEL_CONSTRAINT = getVelocityConstraint(MAX_VEL, MAX_ANG_VEL, TRACK_WIDTH);
@@ -83,6 +88,12 @@ public class CSDriveTrain extends MecanumDrive implements Subsystem {
 
     private final List<Integer> lastEncPositions = new ArrayList<>();
     private final List<Integer> lastEncVels = new ArrayList<>();
+    private final VelocityEstimator[] wheelVelocityEstimators = new VelocityEstimator[4];
+    private final double[] wheelScratch = new double[4];
+    private final double[] wheelVelocities = new double[4]; //what the localizer read this update, in/s
+    //sides are averaged front and back, so strafing cancels and the yaw lever arm is track width plus wheel base
+    private final SlipDetector slipDetector = new SlipDetector(TRACK_WIDTH + TRACK_WIDTH);
+    private long lastUpdateNanos;
     public Pose2d poseEstimate;
 
     public CSDriveTrain(HardwareMap hardwareMap, Robot robot, boolean simulated) {
@@ -112,6 +123,8 @@ public class CSDriveTrain extends MecanumDrive implements Subsystem {
         rightFront = hardwareMap.get(DcMotorEx.class, "rightFront");
 
         motors = Arrays.asList(leftFront, leftRear, rightRear, rightFront);
+        for (int i = 0; i < wheelVelocityEstimators.length; i++)
+            wheelVelocityEstimators[i] = new VelocityEstimator();
 
         for (DcMotorEx motor : motors) {
             MotorConfigurationType motorConfigurationType = motor.getMotorType().clone();
@@ -222,12 +235,37 @@ public class CSDriveTrain extends MecanumDrive implements Subsystem {
     }
 
     private void update() {
+        long now = System.nanoTime();
+        double dt = lastUpdateNanos == 0 ? 0 : (now - lastUpdateNanos) / 1e9;
+        lastUpdateNanos = now;
+
         updatePoseEstimate();
         poseEstimate = getPoseEstimate();
+        if (SLIP_DETECTION)
+            updateSlipDetector(dt);
         DriveSignal signal = trajectorySequenceRunner.update(getPoseEstimate(), getPoseVelocity(), new Canvas());
         if (signal != null) setDriveSignal(signal);
     }
 
+    /**
+     * Feeds the slip detector from what updatePoseEstimate() just read - the localizer's pose velocity heading
+     * is the imu's zRotationRate, so nothing here goes back to the hardware
+     */
+    private void updateSlipDetector(double dt) {
+        Pose2d velocity = getPoseVelocity();
+        if (velocity == null) return;
+        //motor order is leftFront, leftRear, rightRear, rightFront
+        double left = (wheelVelocities[0] + wheelVelocities[1]) / 2;
+        double right = (wheelVelocities[2] + wheelVelocities[3]) / 2;
+        double leftAcceleration = encoderTicksToInches(wheelVelocityEstimators[0].getAcceleration() + wheelVelocityEstimators[1].getAcceleration()) / 2;
+        double rightAcceleration = encoderTicksToInches(wheelVelocityEstimators[2].getAcceleration() + wheelVelocityEstimators[3].getAcceleration()) / 2;
+        slipDetector.update(dt, left, right, leftAcceleration, rightAcceleration, velocity.getHeading());
+    }
+
+    public SlipDetector getSlipDetector() {
+        return slipDetector;
+    }
+
     public void waitForIdle() {
         while (!Thread.currentThread().isInterrupted() && isBusy())
             update();
@@ -280,31 +318,48 @@ public class CSDriveTrain extends MecanumDrive implements Subsystem {
         setDrivePower(vel);
     }
 
-    @NonNull
-    @Override
-    public List<Double> getWheelPositions() {
+    /**
+     * Fills out with the wheel positions in inches, in motor order - no boxing, for callers that poll every loop
+     */
+    public void getWheelPositions(double[] out) {
         lastEncPositions.clear();
-
-        List<Double> wheelPositions = new ArrayList<>();
-        for (DcMotorEx motor : motors) {
-            int position = motor.getCurrentPosition();
+        for (int i = 0; i < motors.size(); i++) {
+            long readStart = System.nanoTime();
+            int position = motors.get(i).getCurrentPosition();
+            //the first read after the cache is cleared does the bulk read - stamp the sample with the middle of it
+            wheelVelocityEstimators[i].update((readStart + System.nanoTime()) / 2 * 1e-9, position);
             lastEncPositions.add(position);
-            wheelPositions.add(encoderTicksToInches(position));
+            out[i] = encoderTicksToInches(position);
         }
-        return wheelPositions;
     }
 
-    @Override
-    public List<Double> getWheelVelocities() {
+    /**
+     * Fills out with the wheel velocities in inches per second, in motor order
+     */
+    public void getWheelVelocities(double[] out) {
         lastEncVels.clear();
-
-        List<Double> wheelVelocities = new ArrayList<>();
-        for (DcMotorEx motor : motors) {
-            int vel = (int) motor.getVelocity();
-            lastEncVels.add(vel);
-            wheelVelocities.add(encoderTicksToInches(vel));
+        boolean regression = REGRESSION_VELOCITY;
+        for (int i = 0; i < motors.size(); i++) {
+            //the estimators are fed by getWheelPositions(), which Road Runner's localizer always calls first
+            double vel = regression ? wheelVelocityEstimators[i].getVelocity() : motors.get(i).getVelocity();
+            lastEncVels.add((int) vel);
+            out[i] = encoderTicksToInches(vel);
         }
-        return wheelVelocities;
+    }
+
+    //Road Runner's MecanumLocalizer wants lists - adapters over the primitive versions
+
+    @NonNull
+    @Override
+    public List<Double> getWheelPositions() {
+        getWheelPositions(wheelScratch);
+        return Arrays.asList(wheelScratch[0], wheelScratch[1], wheelScratch[2], wheelScratch[3]);
+    }
+
+    @Override
+    public List<Double> getWheelVelocities() {
+        getWheelVelocities(wheelVelocities);
+        return Arrays.asList(wheelVelocities[0], wheelVelocities[1], wheelVelocities[2], wheelVelocities[3]);
     }
 
     @Override
@@ -350,6 +405,8 @@ public class CSDriveTrain extends MecanumDrive implements Subsystem {
         telemetryMap.put("x", poseEstimate.getX());
         telemetryMap.put("y", poseEstimate.getY());
         telemetryMap.put("heading", poseEstimate.getHeading());
+        if (SLIP_DETECTION)
+            slipDetector.addTelemetry(telemetryMap);
         return telemetryMap;
     }
 
@@ -1,4 +0,0 @@
-package org.firstinspires.ftc.teamcode.robots.csbot.trajectorysequence;
-
-
-public class EmptySequenceException extends RuntimeException { }
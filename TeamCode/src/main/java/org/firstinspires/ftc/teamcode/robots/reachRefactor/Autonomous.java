@@ -9,7 +9,7 @@ import com.acmerobotics.roadrunner.geometry.Vector2d;
 import org.firstinspires.ftc.teamcode.robots.reachRefactor.subsystem.Crane;
 import org.firstinspires.ftc.teamcode.robots.reachRefactor.subsystem.DriveTrain;
 import org.firstinspires.ftc.teamcode.robots.reachRefactor.subsystem.Robot;
-import org.firstinspires.ftc.teamcode.robots.reachRefactor.trajectorysequence.TrajectorySequence;
+import org.firstinspires.ftc.teamcode.util.trajectorysequence.TrajectorySequence;
 import org.firstinspires.ftc.teamcode.robots.reachRefactor.util.Constants;
 import org.firstinspires.ftc.teamcode.robots.reachRefactor.util.Utils;
 import org.firstinspires.ftc.teamcode.robots.reachRefactor.vision.VisionProvider;
@@ -19,8 +19,8 @@ import com.qualcomm.robotcore.util.Range;
 import org.firstinspires.ftc.teamcode.robots.reachRefactor.subsystem.DriveTrain;
 import org.firstinspires.ftc.teamcode.robots.reachRefactor.subsystem.Gripper;
 import org.firstinspires.ftc.teamcode.robots.reachRefactor.subsystem.Robot;
-import org.firstinspires.ftc.teamcode.robots.reachRefactor.util.ExponentialSmoother;
-import org.firstinspires.ftc.teamcode.robots.reachRefactor.util.StickyGamepad;
+import org.firstinspires.ftc.teamcode.util.ExponentialSmoother;
+import org.firstinspires.ftc.teamcode.util.StickyGamepad;
 import org.firstinspires.ftc.teamcode.robots.reachRefactor.util.TelemetryProvider;
 import org.firstinspires.ftc.teamcode.robots.reachRefactor.util.Utils;
 import org.firstinspires.ftc.teamcode.robots.reachRefactor.vision.VisionProviders;
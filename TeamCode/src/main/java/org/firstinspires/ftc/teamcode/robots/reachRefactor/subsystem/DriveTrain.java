@@ -30,12 +30,12 @@ import org.firstinspires.ftc.robotcore.external.navigation.AxesReference;
 import org.firstinspires.ftc.robotcore.external.navigation.DistanceUnit;
 import org.firstinspires.ftc.robotcore.external.navigation.Orientation;
 import org.firstinspires.ftc.teamcode.robots.reachRefactor.simulation.CRServoSim;
-import org.firstinspires.ftc.teamcode.robots.reachRefactor.util.CloneFollower;
+import org.firstinspires.ftc.teamcode.util.CloneFollower;
 import org.firstinspires.ftc.teamcode.robots.reachRefactor.util.TrikeKinematics;
 import org.firstinspires.ftc.teamcode.robots.reachRefactor.simulation.DcMotorExSim;
 import org.firstinspires.ftc.teamcode.robots.reachRefactor.simulation.DistanceSensorSim;
-import org.firstinspires.ftc.teamcode.robots.reachRefactor.trajectorysequence.TrajectorySequence;
-import org.firstinspires.ftc.teamcode.robots.reachRefactor.trajectorysequence.TrajectorySequenceBuilder;
+import org.firstinspires.ftc.teamcode.util.trajectorysequence.TrajectorySequence;
+import org.firstinspires.ftc.teamcode.util.trajectorysequence.TrajectorySequenceBuilder;
 import org.firstinspires.ftc.teamcode.robots.reachRefactor.trajectorysequence.TrajectorySequenceRunner;
 import org.firstinspires.ftc.teamcode.robots.reachRefactor.util.Utils;
 import org.firstinspires.ftc.teamcode.statemachine.Stage;
@@ -105,6 +105,7 @@ public class DriveTrain extends TrikeDrive implements Subsystem {
     private double leftPosition, rightPosition, leftRelOffset, rightRelOffset, swervePosition, swivelPosition;
     private double swivelAngle, targetSwivelAngle;
     private double leftVelocity, rightVelocity, swerveVelocity;
+    private final double[] frontVelocities = new double[3], backVelocities = new double[3]; //kinematics scratch
     private double targetLeftVelocity, targetRightVelocity, targetSwerveVelocity, swivelPower, duckSpinnerPower;
     private double leftPower, rightPower, swervePower;
     private boolean useMotorPowers;
@@ -377,35 +378,18 @@ public class DriveTrain extends TrikeDrive implements Subsystem {
         if (maintainChassisLengthEnabled && !useMotorPowers) {
             chassisLengthCorrection = getChassisLengthCorrection();
 
-            List<Double> frontVelocities = TrikeKinematics.robotToWheelVelocities(
-                    effectiveDriveVelocity.plus(
-                            new Pose2d(
-                                    chassisLengthMode == ChassisLengthMode.DIFF
-                                            || chassisLengthMode == ChassisLengthMode.BOTH ? chassisLengthCorrection
-                                                    : 0,
-                                    0, 0)),
-                    TRACK_WIDTH, chassisLength);
-            List<Double> backVelocities = TrikeKinematics.robotToWheelVelocities(
-                    effectiveDriveVelocity.plus(
-                            new Pose2d(
-                                    chassisLengthMode == ChassisLengthMode.SWERVE
-                                            || chassisLengthMode == ChassisLengthMode.BOTH ? -chassisLengthCorrection
-                                                    : 0,
-                                    0, 0)),
-                    TRACK_WIDTH, chassisLength);
-            setMotorVelocities(frontVelocities.get(0), frontVelocities.get(1), backVelocities.get(2));
-            if (!approxEquals(frontVelocities.get(0), 0) ||
-                    !approxEquals(frontVelocities.get(1), 0) ||
-                    !approxEquals(backVelocities.get(2), 0))
-                setSwivelAngle(TrikeKinematics.robotToSwivelAngle(
-                        effectiveDriveVelocity.plus(
-                                new Pose2d(
-                                        chassisLengthMode == ChassisLengthMode.SWERVE
-                                                || chassisLengthMode == ChassisLengthMode.BOTH
-                                                        ? -chassisLengthCorrection
-                                                        : 0,
-                                        0, 0)),
-                        chassisLength));
+            double frontCorrection = chassisLengthMode == ChassisLengthMode.DIFF
+                    || chassisLengthMode == ChassisLengthMode.BOTH ? chassisLengthCorrection : 0;
+            double backCorrection = chassisLengthMode == ChassisLengthMode.SWERVE
+                    || chassisLengthMode == ChassisLengthMode.BOTH ? -chassisLengthCorrection : 0;
+            double forward = effectiveDriveVelocity.getX(), angular = effectiveDriveVelocity.getHeading();
+            TrikeKinematics.robotToWheelVelocities(forward + frontCorrection, angular, TRACK_WIDTH, chassisLength, frontVelocities);
+            TrikeKinematics.robotToWheelVelocities(forward + backCorrection, angular, TRACK_WIDTH, chassisLength, backVelocities);
+            setMotorVelocities(frontVelocities[0], frontVelocities[1], backVelocities[2]);
+            if (!approxEquals(frontVelocities[0], 0) ||
+                    !approxEquals(frontVelocities[1], 0) ||
+                    !approxEquals(backVelocities[2], 0))
+                setSwivelAngle(TrikeKinematics.robotToSwivelAngle(forward + backCorrection, angular, chassisLength));
         }
 
         // swerve optimizations
@@ -641,11 +625,11 @@ public class DriveTrain extends TrikeDrive implements Subsystem {
     @Override
     public void setDriveSignal(@NonNull DriveSignal driveSignal) {
         useMotorPowers = false;
-        List<Double> velocities = TrikeKinematics.robotToWheelVelocities(driveSignal.getVel(), TRACK_WIDTH,
-                chassisLength);
+        Pose2d vel = driveSignal.getVel();
+        TrikeKinematics.robotToWheelVelocities(vel.getX(), vel.getHeading(), TRACK_WIDTH, chassisLength, frontVelocities);
 
-        setMotorVelocities(velocities.get(0), velocities.get(1), velocities.get(2));
-        setSwivelAngle(TrikeKinematics.robotToSwivelAngle(driveSignal.getVel(), chassisLength));
+        setMotorVelocities(frontVelocities[0], frontVelocities[1], frontVelocities[2]);
+        setSwivelAngle(TrikeKinematics.robotToSwivelAngle(vel.getX(), vel.getHeading(), chassisLength));
 
         driveVelocity = driveSignal.getVel();
     }
@@ -653,23 +637,23 @@ public class DriveTrain extends TrikeDrive implements Subsystem {
     public void setDriveVelocity(@NonNull Pose2d driveVelocity) {
         useMotorPowers = false;
         this.driveVelocity = driveVelocity;
-        List<Double> velocities = TrikeKinematics.robotToWheelVelocities(driveVelocity, TRACK_WIDTH, chassisLength);
-        setMotorVelocities(velocities.get(0), velocities.get(1), velocities.get(2));
-        if (!approxEquals(velocities.get(0), 0) ||
-                !approxEquals(velocities.get(1), 0) ||
-                !approxEquals(velocities.get(2), 0))
-            setSwivelAngle(TrikeKinematics.robotToSwivelAngle(driveVelocity, chassisLength));
+        TrikeKinematics.robotToWheelVelocities(driveVelocity.getX(), driveVelocity.getHeading(), TRACK_WIDTH, chassisLength, frontVelocities);
+        setMotorVelocities(frontVelocities[0], frontVelocities[1], frontVelocities[2]);
+        if (!approxEquals(frontVelocities[0], 0) ||
+                !approxEquals(frontVelocities[1], 0) ||
+                !approxEquals(frontVelocities[2], 0))
+            setSwivelAngle(TrikeKinematics.robotToSwivelAngle(driveVelocity.getX(), driveVelocity.getHeading(), chassisLength));
     }
 
     @Override
     public void setDrivePower(@NonNull Pose2d drivePower) {
         useMotorPowers = true;
-        List<Double> powers = TrikeKinematics.robotToWheelVelocities(drivePower, TRACK_WIDTH, chassisLength);
-        setMotorPowers(powers.get(0), powers.get(1), powers.get(2));
-        if (!approxEquals(powers.get(0), 0) ||
-                !approxEquals(powers.get(1), 0) ||
-                !approxEquals(powers.get(2), 0))
-            setSwivelAngle(TrikeKinematics.robotToSwivelAngle(drivePower, chassisLength));
+        TrikeKinematics.robotToWheelVelocities(drivePower.getX(), drivePower.getHeading(), TRACK_WIDTH, chassisLength, frontVelocities);
+        setMotorPowers(frontVelocities[0], frontVelocities[1], frontVelocities[2]);
+        if (!approxEquals(frontVelocities[0], 0) ||
+                !approxEquals(frontVelocities[1], 0) ||
+                !approxEquals(frontVelocities[2], 0))
+            setSwivelAngle(TrikeKinematics.robotToSwivelAngle(drivePower.getX(), drivePower.getHeading(), chassisLength));
     }
 
     public void setDrivePowerSafe(Pose2d drivePower) {
@@ -763,19 +747,17 @@ public class DriveTrain extends TrikeDrive implements Subsystem {
     }
 
     @Override
-    public List<Double> getWheelPositions() {
-        return Arrays.asList(
-                leftPosition,
-                rightPosition,
-                swervePosition);
+    public void getWheelPositions(double[] out) {
+        out[0] = leftPosition;
+        out[1] = rightPosition;
+        out[2] = swervePosition;
     }
 
     @Override
-    public List<Double> getWheelVelocities() {
-        return Arrays.asList(
-                leftVelocity,
-                rightVelocity,
-                swerveVelocity);
+    public void getWheelVelocities(double[] out) {
+        out[0] = leftVelocity;
+        out[1] = rightVelocity;
+        out[2] = swerveVelocity;
     }
 
     public void setDuckSpinnerPower(double duckSpinnerPower) {
@@ -54,6 +54,7 @@ public class Robot implements Subsystem {
     private Mat craneMat;
     public static int CB_WIDTH = 320;
     public static int CB_HEIGHT = 240;
+    private final double[] wheelVelocities = new double[3]; //for the dashboard overlay
 
     public Robot(HardwareMap hardwareMap, boolean simulated) {
         hubs = hardwareMap.getAll(LynxModule.class);
@@ -161,7 +162,8 @@ public class Robot implements Subsystem {
 
         Utils.matToBitmap(craneMat, craneBitmap);
 
-        DashboardUtil.drawRobot(fieldOverlay, driveTrain.getPoseEstimate(), driveTrain.getChassisLength(), driveTrain.getSwivelAngle(), driveTrain.getWheelVelocities(), turret.getTargetHeading(), crane.getShoulderTargetAngle(), crane.getElbowTargetAngle(), crane.getWristTargetAngle());
+        driveTrain.getWheelVelocities(wheelVelocities);
+        DashboardUtil.drawRobot(fieldOverlay, driveTrain.getPoseEstimate(), driveTrain.getChassisLength(), driveTrain.getSwivelAngle(), wheelVelocities, turret.getTargetHeading(), crane.getShoulderTargetAngle(), crane.getElbowTargetAngle(), crane.getWristTargetAngle());
     }
 
     public Bitmap getBitmap() {
@@ -9,7 +9,7 @@ import com.acmerobotics.roadrunner.localization.Localizer;
 
 import org.firstinspires.ftc.teamcode.robots.reachRefactor.util.TrikeKinematics;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import static org.firstinspires.ftc.teamcode.robots.reachRefactor.util.Constants.*;
@@ -32,30 +32,29 @@ public abstract class TrikeDrive extends Drive {
         private TrikeDrive drive;
         private Pose2d poseEstimate;
         private Pose2d poseVelocity;
-        private List<Double> lastWheelPositions;
+        private final double[] wheelPositions = new double[3], lastWheelPositions = new double[3];
+        private final double[] wheelVelocities = new double[3];
+        private boolean hasLastWheelPositions;
         private double lastExternalHeading;
         private boolean useExternalHeading;
 
         public TrikeLocalizer(TrikeDrive drive, boolean useExternalHeading) {
             this.drive = drive;
             this.useExternalHeading = useExternalHeading;
-            lastWheelPositions = new ArrayList<>();
         }
 
         @Override
         public void update() {
-            List<Double> wheelPositions = drive.getWheelPositions();
+            drive.getWheelPositions(wheelPositions);
             double externalHeading = useExternalHeading ? drive.getExternalHeading() : Double.NaN;
-            if(!lastWheelPositions.isEmpty()) {
-                List<Double> wheelDeltas = new ArrayList<>();
-                for(int i = 0; i < wheelPositions.size(); i++) {
-                    wheelDeltas.add(wheelPositions.get(i) - lastWheelPositions.get(i));
-                }
+            if(hasLastWheelPositions) {
+                double leftDelta = wheelPositions[0] - lastWheelPositions[0];
+                double rightDelta = wheelPositions[1] - lastWheelPositions[1];
 
-                double displacement = (wheelDeltas.get(0) + wheelDeltas.get(1)) / 2;
+                double displacement = (leftDelta + rightDelta) / 2;
                 double heading = useExternalHeading ?
                         wrapAngleRad(poseEstimate.getHeading() + wrapAngleRad(externalHeading - lastExternalHeading)) :
-                        wrapAngleRad(poseEstimate.getHeading() + wrapAngleRad((-wheelDeltas.get(0) + wheelDeltas.get(1)) / TRACK_WIDTH));
+                        wrapAngleRad(poseEstimate.getHeading() + wrapAngleRad((-leftDelta + rightDelta) / TRACK_WIDTH));
                 poseEstimate = new Pose2d(
                         poseEstimate.getX() + displacement * Math.cos(heading),
                         poseEstimate.getY() + displacement * Math.sin(heading),
@@ -63,15 +62,14 @@ public abstract class TrikeDrive extends Drive {
                 );
             }
 
-            List<Double> wheelVelocities = drive.getWheelVelocities();
+            drive.getWheelVelocities(wheelVelocities);
             double externalHeadingVel = drive.getExternalHeadingVelocity();
-            if(wheelVelocities != null) {
-                    poseVelocity = useExternalHeading ?
-                            new Pose2d((wheelVelocities.get(0) + wheelVelocities.get(1)) / 2, 0, externalHeadingVel) :
-                            new Pose2d((wheelVelocities.get(0) + wheelVelocities.get(1)) / 2, 0, (-wheelVelocities.get(0) + wheelVelocities.get(1)) / TRACK_WIDTH);
-            }
+            poseVelocity = useExternalHeading ?
+                    new Pose2d((wheelVelocities[0] + wheelVelocities[1]) / 2, 0, externalHeadingVel) :
+                    new Pose2d((wheelVelocities[0] + wheelVelocities[1]) / 2, 0, (-wheelVelocities[0] + wheelVelocities[1]) / TRACK_WIDTH);
 
-            lastWheelPositions = wheelPositions;
+            System.arraycopy(wheelPositions, 0, lastWheelPositions, 0, 3);
+            hasLastWheelPositions = true;
             lastExternalHeading = externalHeading;
         }
 
@@ -82,7 +80,7 @@ public abstract class TrikeDrive extends Drive {
         }
 
         public void setPoseEstimate(Pose2d poseEstimate) {
-            lastWheelPositions = new ArrayList<>();
+            hasLastWheelPositions = false;
             lastExternalHeading = Double.NaN;
             if(useExternalHeading)
                 drive.setExternalHeading(poseEstimate.getHeading());
@@ -109,9 +107,29 @@ public abstract class TrikeDrive extends Drive {
 
     public abstract double getChassisLength();
 
-    public abstract List<Double> getWheelPositions();
+    /**
+     * Fills out with the left, right and swerve wheel positions - what the localizer calls every update
+     */
+    public abstract void getWheelPositions(double[] out);
+
+    /**
+     * Fills out with the left, right and swerve wheel velocities - what the localizer calls every update
+     */
+    public abstract void getWheelVelocities(double[] out);
+
+    //boxed adapters for callers that want Road Runner style lists
 
-    public abstract List<Double> getWheelVelocities();
+    public List<Double> getWheelPositions() {
+        double[] positions = new double[3];
+        getWheelPositions(positions);
+        return Arrays.asList(positions[0], positions[1], positions[2]);
+    }
+
+    public List<Double> getWheelVelocities() {
+        double[] velocities = new double[3];
+        getWheelVelocities(velocities);
+        return Arrays.asList(velocities[0], velocities[1], velocities[2]);
+    }
 
     public abstract void setSwivelAngle(double swivelAngle);
 
@@ -1,4 +0,0 @@
-package org.firstinspires.ftc.teamcode.robots.reachRefactor.trajectorysequence;
-
-
-public class EmptySequenceException extends RuntimeException { }
@@ -15,10 +15,11 @@ import com.acmerobotics.roadrunner.trajectory.TrajectoryMarker;
 import com.acmerobotics.roadrunner.util.NanoClock;
 
 import org.firstinspires.ftc.teamcode.robots.reachRefactor.util.DashboardUtil;
-import org.firstinspires.ftc.teamcode.robots.reachRefactor.trajectorysequence.sequencesegment.SequenceSegment;
-import org.firstinspires.ftc.teamcode.robots.reachRefactor.trajectorysequence.sequencesegment.TrajectorySegment;
-import org.firstinspires.ftc.teamcode.robots.reachRefactor.trajectorysequence.sequencesegment.TurnSegment;
-import org.firstinspires.ftc.teamcode.robots.reachRefactor.trajectorysequence.sequencesegment.WaitSegment;
+import org.firstinspires.ftc.teamcode.util.trajectorysequence.TrajectorySequence;
+import org.firstinspires.ftc.teamcode.util.trajectorysequence.sequencesegment.SequenceSegment;
+import org.firstinspires.ftc.teamcode.util.trajectorysequence.sequencesegment.TrajectorySegment;
+import org.firstinspires.ftc.teamcode.util.trajectorysequence.sequencesegment.TurnSegment;
+import org.firstinspires.ftc.teamcode.util.trajectorysequence.sequencesegment.WaitSegment;
 
 import java.util.ArrayList;
 import java.util.Collections;
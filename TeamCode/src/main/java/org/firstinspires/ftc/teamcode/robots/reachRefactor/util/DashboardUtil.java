@@ -74,7 +74,7 @@ public class DashboardUtil {
         canvas.strokeLine(x1, y1, x2, y2);
     }
 
-    public static void drawRobot(Canvas canvas, Pose2d pose, double chassisLength, double swivelAngle, List<Double> wheelVelocities, double turretHeading, double shoulderAngle, double elbowAngle, double wristAngle) {
+    public static void drawRobot(Canvas canvas, Pose2d pose, double chassisLength, double swivelAngle, double[] wheelVelocities, double turretHeading, double shoulderAngle, double elbowAngle, double wristAngle) {
         // calculating wheel positions
         Vector2d position = pose.vec();
         Vector2d leftWheel = new Vector2d(0, Constants.TRACK_WIDTH / 2);
@@ -82,9 +82,9 @@ public class DashboardUtil {
         Vector2d swerveWheel = new Vector2d(-chassisLength, 0);
 
         // calculating wheel vectors
-        Vector2d leftWheelEnd = leftWheel.plus(new Vector2d(VELOCITY_SCALE * wheelVelocities.get(0), 0));
-        Vector2d rightWheelEnd = rightWheel.plus(new Vector2d(VELOCITY_SCALE * wheelVelocities.get(1), 0));
-        Vector2d swerveWheelEnd = swerveWheel.plus(new Vector2d(0, -VELOCITY_SCALE * wheelVelocities.get(2)).rotated(swivelAngle));
+        Vector2d leftWheelEnd = leftWheel.plus(new Vector2d(VELOCITY_SCALE * wheelVelocities[0], 0));
+        Vector2d rightWheelEnd = rightWheel.plus(new Vector2d(VELOCITY_SCALE * wheelVelocities[1], 0));
+        Vector2d swerveWheelEnd = swerveWheel.plus(new Vector2d(0, -VELOCITY_SCALE * wheelVelocities[2]).rotated(swivelAngle));
 
         // rotating points by heading, translating by position
         double heading = pose.getHeading();
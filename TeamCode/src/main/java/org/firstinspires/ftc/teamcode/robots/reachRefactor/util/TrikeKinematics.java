@@ -7,6 +7,9 @@ import java.util.List;
 
 /**
  * Includes utility methods for trike drivetrain inverse kinematics.
+ *
+ * The double[] variants write into a buffer the caller keeps and are what the drivetrain calls every loop;
+ * the Pose2d/List variants are adapters over them.
  * @author Mahesh Natamai
  */
 
@@ -21,11 +24,25 @@ public class TrikeKinematics {
     public static List<Double> robotToWheelVelocities(Pose2d robotVel, double trackWidth, double chassisLength) {
         assert Utils.approxEquals(robotVel.getY(), 0) : "Lateral (robot y) velocity must be zero for trike drives";
 
-        return Arrays.asList(
-                robotVel.getX() - trackWidth / 2 * robotVel.getHeading(),
-                robotVel.getX() + trackWidth / 2 * robotVel.getHeading(),
-                Math.hypot(robotVel.getX(), chassisLength * robotVel.getHeading())
-        );
+        double[] wheels = robotToWheelVelocities(robotVel.getX(), robotVel.getHeading(), trackWidth, chassisLength, new double[3]);
+        return Arrays.asList(wheels[0], wheels[1], wheels[2]);
+    }
+
+    /**
+     * Computes the wheel velocities corresponding to a forward and angular robot velocity.
+     *
+     * @param forward robot x velocity in its reference frame
+     * @param angular robot heading velocity
+     * @param trackWidth lateral distance between the differential wheel pair
+     * @param chassisLength distance between the front (differential) and back (swerve) wheels
+     * @param out receives the left, right and swerve wheel velocities
+     * @return out
+     */
+    public static double[] robotToWheelVelocities(double forward, double angular, double trackWidth, double chassisLength, double[] out) {
+        out[0] = forward - trackWidth / 2 * angular;
+        out[1] = forward + trackWidth / 2 * angular;
+        out[2] = Math.hypot(forward, chassisLength * angular);
+        return out;
     }
 
     /**
@@ -50,7 +67,18 @@ public class TrikeKinematics {
     public static double robotToSwivelAngle(Pose2d robotVel, double chassisLength) {
         assert Utils.approxEquals(robotVel.getY(), 0) : "Lateral (robot y) velocity must be zero for trike drives";
 
-        return Utils.wrapAngleRad(Math.PI / 2 + Math.atan2(-chassisLength * robotVel.getHeading(), robotVel.getX()));
+        return robotToSwivelAngle(robotVel.getX(), robotVel.getHeading(), chassisLength);
+    }
+
+    /**
+     * Computes the swivel module orientation (in radians) corresponding to a forward and angular robot velocity.
+     *
+     * @param forward robot x velocity in its reference frame
+     * @param angular robot heading velocity
+     * @param chassisLength distance between the front (differential) and back (swerve) wheels
+     */
+    public static double robotToSwivelAngle(double forward, double angular, double chassisLength) {
+        return Utils.wrapAngleRad(Math.PI / 2 + Math.atan2(-chassisLength * angular, forward));
     }
 
     /**
@@ -60,12 +88,21 @@ public class TrikeKinematics {
      * @param trackWidth lateral distance between the differential wheel pair
      */
     public static Pose2d wheelToRobotVelocities(List<Double> wheelVelocities, double trackWidth) {
-        double left = wheelVelocities.get(0);
-        double right = wheelVelocities.get(1);
-        return new Pose2d(
-                (left + right) / 2.0,
-                0.0,
-                (-left + right) / trackWidth
-        );
+        double[] robotVel = wheelToRobotVelocities(wheelVelocities.get(0), wheelVelocities.get(1), trackWidth, new double[3]);
+        return new Pose2d(robotVel[0], robotVel[1], robotVel[2]);
+    }
+
+    /**
+     * Computes the robot velocity corresponding to the left and right wheel velocities.
+     *
+     * @param trackWidth lateral distance between the differential wheel pair
+     * @param out receives the robot x, y (always 0) and heading velocities
+     * @return out
+     */
+    public static double[] wheelToRobotVelocities(double left, double right, double trackWidth, double[] out) {
+        out[0] = (left + right) / 2.0;
+        out[1] = 0.0;
+        out[2] = (-left + right) / trackWidth;
+        return out;
     }
 }
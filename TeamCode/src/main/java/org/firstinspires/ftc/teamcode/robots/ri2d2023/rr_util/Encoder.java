@@ -4,6 +4,8 @@ import com.acmerobotics.roadrunner.util.NanoClock;
 import com.qualcomm.robotcore.hardware.DcMotorEx;
 import com.qualcomm.robotcore.hardware.DcMotorSimple;
 
+import org.firstinspires.ftc.teamcode.util.VelocityEstimator;
+
 /**
  * Wraps a motor instance to provide corrected velocity counts and allow reversing independently of the corresponding
  * slot's motor direction
@@ -42,10 +44,7 @@ public class Encoder {
 
     private Direction direction;
 
-    private int lastPosition;
-    private int velocityEstimateIdx;
-    private double[] velocityEstimates;
-    private double lastUpdateTime;
+    private final VelocityEstimator velocityEstimator;
 
     public Encoder(DcMotorEx motor, NanoClock clock) {
         this.motor = motor;
@@ -53,9 +52,7 @@ public class Encoder {
 
         this.direction = Direction.FORWARD;
 
-        this.lastPosition = 0;
-        this.velocityEstimates = new double[3];
-        this.lastUpdateTime = clock.seconds();
+        this.velocityEstimator = new VelocityEstimator();
     }
 
     public Encoder(DcMotorEx motor) {
@@ -80,21 +77,16 @@ public class Encoder {
 
     /**
      * Gets the position from the underlying motor and adjusts for the set direction.
-     * Additionally, this method updates the velocity estimates used for compensated velocity
+     * Additionally, this method feeds the velocity estimator used for estimated and compensated velocity
      *
      * @return encoder position
      */
     public int getCurrentPosition() {
         int multiplier = getMultiplier();
+        double readStart = clock.seconds();
         int currentPosition = motor.getCurrentPosition() * multiplier;
-        if (currentPosition != lastPosition) {
-            double currentTime = clock.seconds();
-            double dt = currentTime - lastUpdateTime;
-            velocityEstimates[velocityEstimateIdx] = (currentPosition - lastPosition) / dt;
-            velocityEstimateIdx = (velocityEstimateIdx + 1) % 3;
-            lastPosition = currentPosition;
-            lastUpdateTime = currentTime;
-        }
+        //the read either hit the bulk cache or did the bulk read itself - stamp it with the middle of the call
+        velocityEstimator.update((readStart + clock.seconds()) / 2, currentPosition);
         return currentPosition;
     }
 
@@ -110,16 +102,30 @@ public class Encoder {
     }
 
     /**
-     * Uses velocity estimates gathered in {@link #getCurrentPosition} to estimate the upper bits of velocity
+     * Uses the velocity estimate gathered in {@link #getCurrentPosition} to estimate the upper bits of velocity
      * that are lost in overflow due to velocity being transmitted as 16 bits.
      * CAVEAT: must regularly call {@link #getCurrentPosition} for the compensation to work correctly.
      *
      * @return corrected velocity
      */
     public double getCorrectedVelocity() {
-        double median = velocityEstimates[0] > velocityEstimates[1]
-                ? Math.max(velocityEstimates[1], Math.min(velocityEstimates[0], velocityEstimates[2]))
-                : Math.max(velocityEstimates[0], Math.min(velocityEstimates[1], velocityEstimates[2]));
-        return inverseOverflow(getRawVelocity(), median);
+        return inverseOverflow(getRawVelocity(), velocityEstimator.getVelocity());
+    }
+
+    /**
+     * Velocity fitted to the positions read by {@link #getCurrentPosition} - not quantized to 20 cps and without
+     * the hub's 50 ms window lag. Never overflows, since it doesn't come from the 16 bit velocity register.
+     *
+     * @return estimated velocity in counts per second
+     */
+    public double getEstimatedVelocity() {
+        return velocityEstimator.getVelocity();
+    }
+
+    /**
+     * @return estimated acceleration in counts per second squared
+     */
+    public double getEstimatedAcceleration() {
+        return velocityEstimator.getAcceleration();
     }
 }
@@ -22,7 +22,7 @@ import org.firstinspires.ftc.teamcode.robots.taubot.subsystem.DriveTrain;
 import org.firstinspires.ftc.teamcode.robots.taubot.subsystem.Robot;
 import org.firstinspires.ftc.teamcode.robots.taubot.subsystem.UnderArm;
 import org.firstinspires.ftc.teamcode.robots.taubot.util.Constants;
-import org.firstinspires.ftc.teamcode.robots.taubot.util.StickyGamepad;
+import org.firstinspires.ftc.teamcode.util.StickyGamepad;
 import org.firstinspires.ftc.teamcode.robots.taubot.vision.VisionProviders;
 
 
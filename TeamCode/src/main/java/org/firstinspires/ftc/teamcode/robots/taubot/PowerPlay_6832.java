@@ -44,13 +44,15 @@ import com.qualcomm.robotcore.util.ElapsedTime;
 
 import org.firstinspires.ftc.robotcore.external.navigation.Orientation;
 import org.firstinspires.ftc.robotcore.internal.system.Misc;
+import org.firstinspires.ftc.teamcode.robots.taubot.simulation.Warmup;
 import org.firstinspires.ftc.teamcode.robots.taubot.subsystem.DriveTrain;
 import org.firstinspires.ftc.teamcode.robots.taubot.subsystem.Robot;
 import org.firstinspires.ftc.teamcode.robots.taubot.subsystem.UnderArm;
 import org.firstinspires.ftc.teamcode.robots.taubot.util.Constants;
-import org.firstinspires.ftc.teamcode.robots.taubot.util.ExponentialSmoother;
+import org.firstinspires.ftc.teamcode.util.ExponentialSmoother;
 import org.firstinspires.ftc.teamcode.robots.taubot.util.TelemetryProvider;
 import org.firstinspires.ftc.teamcode.robots.taubot.vision.VisionProviders;
+import org.firstinspires.ftc.teamcode.robots.taubot.vision.provider.AprilTagProvider;
 import org.firstinspires.ftc.teamcode.util.Vector2;
 
 import java.util.Arrays;
@@ -74,6 +76,7 @@ public class PowerPlay_6832 extends OpMode {
     public static Robot robot;
     public static Autonomous auto;
     private FtcDashboard dashboard;
+    private Warmup warmup;
     ExponentialSmoother forwardSmoother, rotateSmoother;
     public static double FORWARD_SMOOTHING_FACTOR = 0.3;
     public static double ROTATE_SMOOTHING_FACTOR = 0.25;
@@ -262,12 +265,19 @@ public class PowerPlay_6832 extends OpMode {
         telemetry.update();
 
         robot.driveTrain.articulate(DriveTrain.Articulation.unlock);
+
+        //needs vision initialized first - that's what loads OpenCV
+        warmup = new Warmup();
     }
 
     // Code to run REPEATEDLY after the driver hits INIT, but before they hit PLAY
     @Override
     public void init_loop() {
 
+        //a batch of warm-up ticks each init_loop until it's done - it runs its own simulated robot, so the rest of init runs too
+        if (!warmup.step())
+            telemetry.addData("Warm-up", warmup.getProgress() + "/" + Warmup.ITERATIONS);
+
         //run all driver controls needed in init_loop
         dc.init_loop();
 
@@ -293,6 +303,8 @@ public class PowerPlay_6832 extends OpMode {
         // THIS SECTION EXECUTES ONCE RIGHT AFTER START IS PRESSED
         //
 
+        warmup.finish(); //in case start was pressed before warm-up completed
+
         lastLoopClockTime = System.nanoTime();
         startTime = System.currentTimeMillis();
 
@@ -418,6 +430,9 @@ public class PowerPlay_6832 extends OpMode {
                     case TURN:
                         auto.turn.execute();
                 }
+                //field tag poses are only worth the frame processing during the match when localization is on
+                if (visionProviderFinalized && AprilTagProvider.FIELD_LOCALIZATION)
+                    auto.visionProvider.update();
             } else {
                 dc.handlePregameControls();
             }
@@ -531,6 +546,7 @@ public class PowerPlay_6832 extends OpMode {
         if(initializing) {
             opModeTelemetryMap.put("Starting Position", startingPosition);
             opModeTelemetryMap.put("Smoothing Enabled", smoothingEnabled);
+            warmup.addTelemetry(opModeTelemetryMap);
         }
         opModeTelemetryMap.put("Battery Voltage", averageVoltage);
         opModeTelemetryMap.put("Average Loop Time", Misc.formatInvariant("%d ms (%d hz)", (int) (averageLoopTime * 1e-6), (int) (1 / (averageLoopTime * 1e-9))));
@@ -9,13 +9,19 @@ import com.qualcomm.robotcore.hardware.DcMotorSimple;
 import com.qualcomm.robotcore.util.ElapsedTime;
 import com.qualcomm.robotcore.util.ReadWriteFile;
 
+import org.firstinspires.ftc.robotcore.external.navigation.AngleUnit;
 import org.firstinspires.ftc.robotcore.internal.system.AppUtil;
+import org.firstinspires.ftc.teamcode.util.OdometryCalibrator;
 
 import java.io.File;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
  * Created by Sarthak on 6/1/2019.
  * Odometry system calibration. Run this OpMode to generate the necessary constants to calculate the robot's global position on the field.
+ * It drives a turning pattern (or lets the driver drive) and fits the wheel base and horizontal offset to the whole session with
+ * OdometryCalibrator, stopping as soon as the fit has settled.
  * The Global Positioning Algorithm will not function and will throw an error if this program is not run first
  */
 @TeleOp(name = "Odometry System Calibration - Fishin", group = "Test")
@@ -34,12 +40,15 @@ public class OdometryCalibration extends LinearOpMode {
 
 
     final double PIVOT_SPEED = 0.5;
+    final double MAX_SESSION_SECONDS = 30;
 
     //The amount of encoder ticks for each inch the robot moves. THIS WILL CHANGE FOR EACH ROBOT AND NEEDS TO BE UPDATED HERE
     final double COUNTS_PER_INCH = 307.699557;
 
     ElapsedTime timer = new ElapsedTime();
 
+    OdometryCalibrator calibrator = new OdometryCalibrator();
+
     double horizontalTickOffset = 0;
 
     //Text files to write the values to. The files are stored in the robot controller under Internal Storage\FIRST\settings
@@ -73,68 +82,87 @@ public class OdometryCalibration extends LinearOpMode {
 
         waitForStart();
 
-        //Begin calibration (if robot is unable to pivot at these speeds, please adjust the constant at the top of the code
-        while(getZAngle() < 90 && opModeIsActive()){
-            right_front.setPower(-PIVOT_SPEED);
-            right_back.setPower(-PIVOT_SPEED);
-            left_front.setPower(PIVOT_SPEED);
-            left_back.setPower(PIVOT_SPEED);
-            if(getZAngle() < 60) {
-                setPowerAll(-PIVOT_SPEED, -PIVOT_SPEED, PIVOT_SPEED, PIVOT_SPEED);
-            }else{
-                setPowerAll(-PIVOT_SPEED/2, -PIVOT_SPEED/2, PIVOT_SPEED/2, PIVOT_SPEED/2);
+        //Drive a mix of turning and driving both ways - pure spins leave the left and right wheels in lockstep,
+        //which can't separate their gains. Either gamepad stick takes over from the pattern.
+        timer.reset();
+        int previousLeft = verticalLeft.getCurrentPosition(), previousRight = verticalRight.getCurrentPosition();
+        int previousHorizontal = horizontal.getCurrentPosition();
+        double previousAngle = getZAngle();
+        while(!calibrator.isConverged() && timer.seconds() < MAX_SESSION_SECONDS && opModeIsActive()){
+            double t = timer.seconds();
+            double forward = -gamepad1.left_stick_y, turn = gamepad1.right_stick_x;
+            if (forward == 0 && turn == 0) {
+                forward = 0.3 * Math.sin(2 * Math.PI * t / 5);
+                turn = PIVOT_SPEED * Math.sin(2 * Math.PI * t / 3);
             }
-
-            telemetry.addData("IMU Angle", getZAngle());
+            setDrivePowers(forward + turn, forward - turn);
+
+            int left = verticalLeft.getCurrentPosition(), right = verticalRight.getCurrentPosition();
+            int horizontalPosition = horizontal.getCurrentPosition();
+            double angle = getZAngle();
+            calibrator.addSample(left - previousLeft, right - previousRight, horizontalPosition - previousHorizontal,
+                    Math.toRadians(AngleUnit.normalizeDegrees(angle - previousAngle)));
+            previousLeft = left;
+            previousRight = right;
+            previousHorizontal = horizontalPosition;
+            previousAngle = angle;
+
+            telemetry.addData("Odometry System Calibration Status", "Calibrating - drive around, turning both ways");
+            telemetry.addData("IMU Angle", angle);
+            addCalibratorTelemetry();
             telemetry.update();
         }
 
         //Stop the robot
-        setPowerAll(0, 0, 0, 0);
-        timer.reset();
-        while(timer.milliseconds() < 1000 && opModeIsActive()){
-            telemetry.addData("IMU Angle", getZAngle());
-            telemetry.update();
-        }
-
-        //Record IMU and encoder values to calculate the constants for the global position algorithm
-        double angle = getZAngle();
-
-        /*
-        Encoder Difference is calculated by the formula (leftEncoder - rightEncoder)
-        Since the left encoder is also mapped to a drive motor, the encoder value needs to be reversed with the negative sign in front
-        THIS MAY NEED TO BE CHANGED FOR EACH ROBOT
-       */
-        double encoderDifference = Math.abs(verticalLeft.getCurrentPosition()) + (Math.abs(verticalRight.getCurrentPosition()));
-
-        double verticalEncoderTickOffsetPerDegree = encoderDifference/angle;
-
-        double wheelBaseSeparation = (2*90*verticalEncoderTickOffsetPerDegree)/(Math.PI*COUNTS_PER_INCH);
+        setDrivePowers(0, 0);
 
-        horizontalTickOffset = horizontal.getCurrentPosition()/Math.toRadians(getZAngle());
+        //the localizer wants the wheel base in inches and the horizontal offset in ticks per radian
+        double wheelBaseSeparation = calibrator.getWheelBase() / COUNTS_PER_INCH;
+        horizontalTickOffset = calibrator.getHorizontalOffset();
 
-        //Write the constants to text files
-        ReadWriteFile.writeFile(wheelBaseSeparationFile, String.valueOf(wheelBaseSeparation));
-        ReadWriteFile.writeFile(horizontalTickOffsetFile, String.valueOf(horizontalTickOffset));
+        //Write the constants to text files - only if the fit actually settled
+        boolean converged = calibrator.isConverged();
+        if (converged) {
+            ReadWriteFile.writeFile(wheelBaseSeparationFile, String.valueOf(wheelBaseSeparation));
+            ReadWriteFile.writeFile(horizontalTickOffsetFile, String.valueOf(horizontalTickOffset));
+        }
 
         while(opModeIsActive()){
-            telemetry.addData("Odometry System Calibration Status", "Calibration Complete");
+            telemetry.addData("Odometry System Calibration Status", converged
+                    ? "Calibration Complete" : "Didn't converge - nothing written, turn more and try again");
             //Display calculated constants
             telemetry.addData("Wheel Base Separation", wheelBaseSeparation);
             telemetry.addData("Horizontal Encoder Offset", horizontalTickOffset);
+            addCalibratorTelemetry();
 
             //Display raw values
             telemetry.addData("IMU Angle", getZAngle());
             telemetry.addData("Vertical Left Position", -verticalLeft.getCurrentPosition());
             telemetry.addData("Vertical Right Position", verticalRight.getCurrentPosition());
             telemetry.addData("Horizontal Position", horizontal.getCurrentPosition());
-            telemetry.addData("Vertical Encoder Offset", verticalEncoderTickOffsetPerDegree);
 
             //Update values
             telemetry.update();
         }
     }
 
+    private void addCalibratorTelemetry() {
+        Map<String, Object> calibratorTelemetry = new LinkedHashMap<>();
+        calibrator.addTelemetry(calibratorTelemetry);
+        for (Map.Entry<String, Object> entry : calibratorTelemetry.entrySet())
+            telemetry.addData(entry.getKey(), entry.getValue());
+    }
+
+    /**
+     * Sets power to whichever drive motors this robot has
+     */
+    private void setDrivePowers(double left, double right){
+        if (right_front != null) right_front.setPower(right);
+        right_back.setPower(right);
+        if (left_front != null) left_front.setPower(left);
+        left_back.setPower(left);
+    }
+
     private void initDriveHardwareMapTwoWheel(String rfName, String rbName, String lfName, String lbName, String vlEncoderName, String vrEncoderName, String hEncoderName){
         //right_front = hardwareMap.dcMotor.get(rfName);
         right_back = hardwareMap.dcMotor.get(rbName);
@@ -229,18 +257,4 @@ public class OdometryCalibration extends LinearOpMode {
         return (-imu.getAngularOrientation().firstAngle);
     }
 
-    /**
-     * Sets power to all four drive motors
-     * @param rf power for right front motor
-     * @param rb power for right back motor
-     * @param lf power for left front motor
-     * @param lb power for left back motor
-     */
-    private void setPowerAll(double rf, double rb, double lf, double lb){
-        right_front.setPower(rf);
-        right_back.setPower(rb);
-        left_front.setPower(lf);
-        left_back.setPower(lb);
-    }
-
 }
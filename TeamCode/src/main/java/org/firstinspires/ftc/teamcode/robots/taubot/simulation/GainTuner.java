@@ -0,0 +1,515 @@
+package org.firstinspires.ftc.teamcode.robots.taubot.simulation;
+
+import com.acmerobotics.roadrunner.control.PIDCoefficients;
+import com.acmerobotics.roadrunner.control.PIDFController;
+import com.acmerobotics.roadrunner.util.NanoClock;
+
+import org.firstinspires.ftc.teamcode.robots.csbot.subsystem.CSDriveTrain;
+import org.firstinspires.ftc.teamcode.robots.taubot.subsystem.Crane;
+import org.firstinspires.ftc.teamcode.robots.taubot.subsystem.DriveTrain;
+import org.firstinspires.ftc.teamcode.util.PIDController;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Offline gain tuner for the position loops we normally tune by hand through the dashboard.
+ * Every loop is swept over a grid of P, I and D gains against a simple simulated plant, and each
+ * candidate is scored on settling time, overshoot and steady state error. The Pareto front of
+ * each sweep is kept and the best compromise from that front is written out as a @Config patch
+ * file that can be pasted over the matching statics.
+ *
+ * The plants step a fixed SIM_DT so the sweep is deterministic - the same grid always produces the
+ * same patch no matter how many threads evaluate it. Grid points are split across a fork-join pool
+ * sized to the number of cores.
+ *
+ * The plant constants below are rough first-order motor models, not measured system ids - they are
+ * meant to get the gains into the right neighborhood before final tuning on the robot.
+ *
+ * Nothing here touches Android, so main() runs on the desktop JVM - from the IDE with the module's unit test
+ * classpath - and writes the patch to GainTunerPatch.txt, or the path given. GainTunerTest checks on every test run
+ * that the sweep still beats the gains in the statics on these plants:
+ *   ./gradlew :TeamCode:testDebugUnitTest --tests "*GainTunerTest"
+ */
+public class GainTuner {
+
+    //simulation timing
+    public static double SIM_DT = 0.02; //seconds per simulated loop - about what the robots run at
+    public static double SIM_SECONDS = 4;
+    public static double STEADY_STATE_WINDOW = 0.2; //fraction of the run at the end averaged for steady state error
+    public static int GRID_STEPS = 8; //samples per gain axis
+
+    //shoulder plant - degrees, driven by motor power
+    public static double SHOULDER_FREE_SPEED = 90; //degrees per second at full power, no load
+    public static double SHOULDER_STALL_ACCEL = 900; //degrees per second^2 at full power from standstill
+    public static double SHOULDER_GRAVITY_ACCEL = 120; //degrees per second^2 per meter of extension when horizontal
+    public static double SHOULDER_SETTLE_BAND = 1; //degrees
+
+    //extender plant - meters, driven by motor power
+    public static double EXTENDER_FREE_SPEED = 1.2; //meters per second
+    public static double EXTENDER_STALL_ACCEL = 8; //meters per second^2
+    public static double EXTENDER_GRAVITY_ACCEL = 1.5; //meters per second^2 along the arm when vertical
+    public static double EXTENDER_SHOULDER_ANGLE = 45; //degrees the shoulder is parked at while extending
+    public static double EXTENDER_SETTLE_BAND = 0.01; //meters
+
+    //taubot heading plant - radians, driven by differential motor power
+    public static double TURN_FREE_SPEED = Math.toRadians(240); //radians per second at full power
+    public static double TURN_STALL_ACCEL = Math.toRadians(1200); //radians per second^2
+    public static double TURN_OUTPUT_LIMIT = 0.4; //matches the output range in DriveTrain.turnUntilDegrees()
+    public static double TURN_SETTLE_BAND = Math.toRadians(2);
+
+    //follower plants - the follower outputs a velocity correction and the drive's velocity loop tracks it
+    public static double DRIVE_VELOCITY_LAG = 0.12; //seconds - first order time constant of the wheel velocity loops
+    public static double DRIVE_MAX_VELOCITY = 30; //inches per second
+    public static double DRIVE_MAX_ANG_VELOCITY = Math.toRadians(180);
+    public static double DRIVE_SETTLE_BAND = 0.25; //inches
+    public static double DRIVE_HEADING_SETTLE_BAND = Math.toRadians(1);
+
+    public enum Loop {
+        SHOULDER("Crane", "AA_PPCrane", "SHOULDER_PID",
+                sweep(0.01, 0.2, true), sweep(0.0005, 0.05, true), sweep(0.0005, 0.05, true)),
+        EXTENDER("Crane", "AA_PPCrane", "EXTENDER_PID",
+                sweep(1, 40, false), sweep(0.05, 5, true), sweep(0.0005, 0.1, true)),
+        HEADING("DriveTrain", "AA_PPDriveTrain", "HEADING_PID_PWR",
+                sweep(0.05, 2, false), sweep(0.02, 2, true), sweep(0.2, 20, true)),
+        AXIAL("DriveTrain", "AA_PPDriveTrain", "AXIAL_PID",
+                sweep(0.5, 20, false), sweep(0.02, 2, true), sweep(0.005, 1, true)),
+        CS_TRANSLATIONAL("CSDriveTrain", "CS_ROADRUNNER", "TRANSLATIONAL_PID",
+                sweep(0.5, 20, false), sweep(0.02, 2, true), sweep(0.005, 1, true)),
+        CS_HEADING("CSDriveTrain", "CS_ROADRUNNER", "HEADING_PID",
+                sweep(0.5, 20, false), sweep(0.02, 2, true), sweep(0.005, 1, true));
+
+        public final String owner, configName, field;
+        final double[] kP, kI, kD;
+
+        Loop(String owner, String configName, String field, double[] kP, double[] kI, double[] kD) {
+            this.owner = owner;
+            this.configName = configName;
+            this.field = field;
+            this.kP = kP;
+            this.kI = kI;
+            this.kD = kD;
+        }
+
+        public int size() {
+            return kP.length * kI.length * kD.length;
+        }
+
+        //decodes a flat grid index so the fork-join tasks only need to carry index ranges
+        PIDCoefficients gains(int index) {
+            int d = index % kD.length;
+            int i = (index / kD.length) % kI.length;
+            int p = index / (kD.length * kI.length);
+            return new PIDCoefficients(kP[p], kI[i], kD[d]);
+        }
+
+        public double settleBand() {
+            switch (this) {
+                case SHOULDER: return SHOULDER_SETTLE_BAND;
+                case EXTENDER: return EXTENDER_SETTLE_BAND;
+                case HEADING: return TURN_SETTLE_BAND;
+                case CS_HEADING: return DRIVE_HEADING_SETTLE_BAND;
+                default: return DRIVE_SETTLE_BAND;
+            }
+        }
+
+        /**
+         * One number to compare gains by, lower is better - settling time as a fraction of the run, plus overshoot,
+         * plus steady state error in settle bands
+         */
+        public double cost(Score score) {
+            return score.settlingTime / SIM_SECONDS + score.overshoot + score.steadyStateError / settleBand();
+        }
+
+        public PIDCoefficients current() {
+            switch (this) {
+                case SHOULDER: return Crane.SHOULDER_PID;
+                case EXTENDER: return Crane.EXTENDER_PID;
+                case HEADING: return DriveTrain.HEADING_PID_PWR;
+                case AXIAL: return DriveTrain.AXIAL_PID;
+                case CS_TRANSLATIONAL: return CSDriveTrain.TRANSLATIONAL_PID;
+                default: return CSDriveTrain.HEADING_PID;
+            }
+        }
+    }
+
+    public static class Score {
+        public double settlingTime; //seconds until the error stays inside the settle band
+        public double overshoot; //fraction of the step size
+        public double steadyStateError; //mean absolute error over the steady state window
+
+        public boolean dominates(Score other) {
+            return settlingTime <= other.settlingTime && overshoot <= other.overshoot && steadyStateError <= other.steadyStateError
+                    && (settlingTime < other.settlingTime || overshoot < other.overshoot || steadyStateError < other.steadyStateError);
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "settling %.2fs overshoot %.1f%% steady state error %.4f", settlingTime, overshoot * 100, steadyStateError);
+        }
+    }
+
+    public static class Candidate {
+        public final PIDCoefficients gains;
+        public final Score score;
+
+        Candidate(PIDCoefficients gains, Score score) {
+            this.gains = gains;
+            this.score = score;
+        }
+    }
+
+    public static class Result {
+        public final Loop loop;
+        public final Score baseline; //score of the gains currently in the @Config statics
+        public final List<Candidate> paretoFront;
+        public final Candidate best;
+
+        Result(Loop loop, Score baseline, List<Candidate> paretoFront, Candidate best) {
+            this.loop = loop;
+            this.baseline = baseline;
+            this.paretoFront = paretoFront;
+            this.best = best;
+        }
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // Search
+    //----------------------------------------------------------------------------------------------
+
+    public static Map<Loop, Result> tune(int parallelism) {
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        Map<Loop, Result> results = new EnumMap<>(Loop.class);
+        try {
+            for (Loop loop : Loop.values())
+                results.put(loop, tune(loop, pool));
+        } finally {
+            pool.shutdown();
+        }
+        return results;
+    }
+
+    public static Result tune(Loop loop, ForkJoinPool pool) {
+        Candidate[] candidates = new Candidate[loop.size()];
+        pool.invoke(new SweepTask(loop, candidates, 0, candidates.length));
+
+        //front is built in grid order so ties always resolve the same way
+        List<Candidate> front = new ArrayList<>();
+        for (Candidate candidate : candidates) {
+            boolean dominated = false;
+            for (Candidate other : candidates) {
+                if (other.score.dominates(candidate.score)) {
+                    dominated = true;
+                    break;
+                }
+            }
+            if (!dominated)
+                front.add(candidate);
+        }
+
+        return new Result(loop, simulate(loop, loop.current()), front, pickCompromise(front));
+    }
+
+    static class SweepTask extends RecursiveAction {
+        static final int THRESHOLD = 16;
+        final Loop loop;
+        final Candidate[] candidates;
+        final int start, end;
+
+        SweepTask(Loop loop, Candidate[] candidates, int start, int end) {
+            this.loop = loop;
+            this.candidates = candidates;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - start <= THRESHOLD) {
+                for (int i = start; i < end; i++) {
+                    PIDCoefficients gains = loop.gains(i);
+                    candidates[i] = new Candidate(gains, simulate(loop, gains));
+                }
+                return;
+            }
+            int mid = (start + end) >>> 1;
+            invokeAll(new SweepTask(loop, candidates, start, mid), new SweepTask(loop, candidates, mid, end));
+        }
+    }
+
+    //normalizes each metric across the front and takes the candidate with the smallest sum
+    static Candidate pickCompromise(List<Candidate> front) {
+        double[] min = {Double.MAX_VALUE, Double.MAX_VALUE, Double.MAX_VALUE};
+        double[] max = {-Double.MAX_VALUE, -Double.MAX_VALUE, -Double.MAX_VALUE};
+        for (Candidate c : front) {
+            double[] m = metrics(c.score);
+            for (int i = 0; i < 3; i++) {
+                min[i] = Math.min(min[i], m[i]);
+                max[i] = Math.max(max[i], m[i]);
+            }
+        }
+        Candidate best = null;
+        double bestCost = Double.MAX_VALUE;
+        for (Candidate c : front) {
+            double[] m = metrics(c.score);
+            double cost = 0;
+            for (int i = 0; i < 3; i++)
+                cost += max[i] > min[i] ? (m[i] - min[i]) / (max[i] - min[i]) : 0;
+            if (cost < bestCost) {
+                bestCost = cost;
+                best = c;
+            }
+        }
+        return best;
+    }
+
+    private static double[] metrics(Score score) {
+        return new double[] {score.settlingTime, score.overshoot, score.steadyStateError};
+    }
+
+    //geometric spacing, optionally with zero in front so the sweep can turn a term off entirely
+    static double[] sweep(double min, double max, boolean includeZero) {
+        int offset = includeZero ? 1 : 0;
+        double[] values = new double[GRID_STEPS + offset];
+        double ratio = Math.pow(max / min, 1.0 / (GRID_STEPS - 1));
+        for (int i = 0; i < GRID_STEPS; i++)
+            values[i + offset] = min * Math.pow(ratio, i);
+        return values;
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // Simulation
+    //----------------------------------------------------------------------------------------------
+
+    //worst case over every step in the loop's scenario list
+    public static Score simulate(Loop loop, PIDCoefficients gains) {
+        Score worst = new Score();
+        switch (loop) {
+            case SHOULDER:
+                accumulate(worst, simulateShoulder(gains, 0, 30, 1.0));
+                accumulate(worst, simulateShoulder(gains, 30, 60, 1.0));
+                accumulate(worst, simulateShoulder(gains, 10, 70, 1.6));
+                break;
+            case EXTENDER:
+                accumulate(worst, simulateExtender(gains, 0, 0.5));
+                accumulate(worst, simulateExtender(gains, 0.2, 1.2));
+                accumulate(worst, simulateExtender(gains, 1.2, 0.3));
+                break;
+            case HEADING:
+                accumulate(worst, simulateHeading(gains, 0, Math.toRadians(90)));
+                accumulate(worst, simulateHeading(gains, 0, Math.toRadians(179)));
+                accumulate(worst, simulateHeading(gains, Math.toRadians(350), Math.toRadians(10)));
+                break;
+            case AXIAL:
+            case CS_TRANSLATIONAL:
+                accumulate(worst, simulateFollower(loop, gains, 2, DRIVE_MAX_VELOCITY));
+                accumulate(worst, simulateFollower(loop, gains, 8, DRIVE_MAX_VELOCITY));
+                break;
+            case CS_HEADING:
+                accumulate(worst, simulateFollower(loop, gains, Math.toRadians(5), DRIVE_MAX_ANG_VELOCITY));
+                accumulate(worst, simulateFollower(loop, gains, Math.toRadians(30), DRIVE_MAX_ANG_VELOCITY));
+                break;
+        }
+        return worst;
+    }
+
+    private static void accumulate(Score worst, Score step) {
+        worst.settlingTime = Math.max(worst.settlingTime, step.settlingTime);
+        worst.overshoot = Math.max(worst.overshoot, step.overshoot);
+        worst.steadyStateError = Math.max(worst.steadyStateError, step.steadyStateError);
+    }
+
+    //Crane.movePIDShoulder() set up the way the Crane constructor does, with the same feedforward, driving a motor lifting the extended arm
+    static Score simulateShoulder(PIDCoefficients gains, double start, double target, double extendMeters) {
+        PIDController pid = new PIDController(0, 0, 0);
+        pid.setOutputRange(Crane.SHOULDER_MIN_PID_OUTPUT, Crane.SHOULDER_MAX_PID_OUTPUT);
+        pid.setIntegralCutIn(10);
+        pid.enableIntegralZeroCrossingReset(false);
+        pid.setPID(gains.kP, gains.kI, gains.kD, (angle) -> Crane.kF * extendMeters / 2 * Math.cos(Math.toRadians(angle)));
+        pid.setSetpoint(target);
+        pid.enable();
+
+        ScoreKeeper keeper = new ScoreKeeper(start, target, SHOULDER_SETTLE_BAND);
+        double angle = start, velocity = 0, power = 0;
+        for (int tick = 0; tick < keeper.ticks; tick++) {
+            //power computed on the previous tick is what the motor sees now - one loop of latency
+            double accel = SHOULDER_STALL_ACCEL * (power - velocity / SHOULDER_FREE_SPEED)
+                    - SHOULDER_GRAVITY_ACCEL * extendMeters * Math.cos(Math.toRadians(angle));
+            velocity += accel * SIM_DT;
+            angle += velocity * SIM_DT;
+            if (angle < Crane.SHOULDER_DEG_MIN || angle > Crane.SHOULDER_DEG_MAX) { //hard stops
+                angle = Math.max(Crane.SHOULDER_DEG_MIN, Math.min(Crane.SHOULDER_DEG_MAX, angle));
+                velocity = 0;
+            }
+            pid.setInput(angle);
+            power = pid.performPID(SIM_DT);
+            keeper.record(tick, angle);
+        }
+        return keeper.score();
+    }
+
+    //Crane.movePIDExtend() against the extender slide, with gravity pulling along the raised arm
+    static Score simulateExtender(PIDCoefficients gains, double start, double target) {
+        PIDController pid = new PIDController(0, 0, 0);
+        pid.setOutputRange(Crane.EXTEND_MIN_PID_OUTPUT, Crane.EXTEND_MAX_PID_OUTPUT);
+        pid.setPID(gains.kP, gains.kI, gains.kD);
+        pid.setSetpoint(target);
+        pid.enable();
+
+        double max = Crane.EXTENDER_TICS_MAX / Crane.EXTEND_TICKS_PER_METER;
+        double gravity = EXTENDER_GRAVITY_ACCEL * Math.sin(Math.toRadians(EXTENDER_SHOULDER_ANGLE));
+        ScoreKeeper keeper = new ScoreKeeper(start, target, EXTENDER_SETTLE_BAND);
+        double position = start, velocity = 0, power = 0;
+        for (int tick = 0; tick < keeper.ticks; tick++) {
+            double accel = EXTENDER_STALL_ACCEL * (power - velocity / EXTENDER_FREE_SPEED) - gravity;
+            velocity += accel * SIM_DT;
+            position += velocity * SIM_DT;
+            if (position < 0 || position > max) {
+                position = Math.max(0, Math.min(max, position));
+                velocity = 0;
+            }
+            pid.setInput(position);
+            power = pid.performPID(SIM_DT);
+            keeper.record(tick, position);
+        }
+        return keeper.score();
+    }
+
+    //DriveTrain.turnUntilDegrees() - continuous heading pid driving the wheels in opposition
+    static Score simulateHeading(PIDCoefficients gains, double start, double target) {
+        PIDController pid = new PIDController(gains);
+        pid.setInputRange(0, Math.toRadians(360));
+        pid.setOutputRange(-TURN_OUTPUT_LIMIT, TURN_OUTPUT_LIMIT);
+        pid.setIntegralCutIn(Math.toRadians(4));
+        pid.setContinuous(true);
+        pid.setSetpoint(target);
+        pid.enable();
+
+        //scored on the unwrapped heading so a turn across zero isn't seen as a 360 degree error
+        double unwrappedTarget = start + wrapRadians(target - start);
+        ScoreKeeper keeper = new ScoreKeeper(start, unwrappedTarget, TURN_SETTLE_BAND);
+        double heading = start, velocity = 0, power = 0;
+        for (int tick = 0; tick < keeper.ticks; tick++) {
+            double accel = TURN_STALL_ACCEL * (power - velocity / TURN_FREE_SPEED);
+            velocity += accel * SIM_DT;
+            heading += velocity * SIM_DT;
+            pid.setInput(heading - 2 * Math.PI * Math.floor(heading / (2 * Math.PI)));
+            power = pid.performPID(SIM_DT);
+            keeper.record(tick, heading);
+        }
+        return keeper.score();
+    }
+
+    //CloneFollower / HolonomicPIDVAFollower axis - the controller turns pose error into a velocity
+    //correction against a stationary target, and the drive velocity loop tracks that with some lag
+    static Score simulateFollower(Loop loop, PIDCoefficients gains, double initialError, double maxVelocity) {
+        SimClock clock = new SimClock();
+        PIDFController controller = new PIDFController(gains, 0, 0, 0, (position, velocity) -> 0.0, clock);
+        if (loop == Loop.CS_HEADING)
+            controller.setInputBounds(-Math.PI, Math.PI);
+
+        ScoreKeeper keeper = new ScoreKeeper(initialError, 0, loop == Loop.CS_HEADING ? DRIVE_HEADING_SETTLE_BAND : DRIVE_SETTLE_BAND);
+        double error = initialError, velocity = 0, command = 0;
+        for (int tick = 0; tick < keeper.ticks; tick++) {
+            velocity += (command - velocity) * Math.min(1, SIM_DT / DRIVE_VELOCITY_LAG);
+            error -= velocity * SIM_DT;
+            clock.time += SIM_DT;
+            controller.setTargetPosition(error);
+            controller.setTargetVelocity(0);
+            command = Math.max(-maxVelocity, Math.min(maxVelocity, controller.update(0.0, velocity)));
+            keeper.record(tick, error);
+        }
+        return keeper.score();
+    }
+
+    static double wrapRadians(double angle) {
+        return angle - 2 * Math.PI * Math.floor((angle + Math.PI) / (2 * Math.PI));
+    }
+
+    static class SimClock extends NanoClock {
+        double time;
+
+        @Override
+        public double seconds() {
+            return time;
+        }
+    }
+
+    //tracks a single step response - values are in whatever units the plant uses
+    static class ScoreKeeper {
+        final int ticks = (int) Math.round(SIM_SECONDS / SIM_DT);
+        final int steadyStateStart = (int) Math.round(ticks * (1 - STEADY_STATE_WINDOW));
+        final double start, target, band;
+        int lastOutsideBand = -1;
+        double peak, steadyStateSum;
+
+        ScoreKeeper(double start, double target, double band) {
+            this.start = start;
+            this.target = target;
+            this.band = band;
+        }
+
+        void record(int tick, double value) {
+            double error = target - value;
+            if (Math.abs(error) > band)
+                lastOutsideBand = tick;
+            peak = Math.max(peak, -error * Math.signum(target - start));
+            if (tick >= steadyStateStart)
+                steadyStateSum += Math.abs(error);
+        }
+
+        Score score() {
+            Score score = new Score();
+            score.settlingTime = (lastOutsideBand + 1) * SIM_DT;
+            score.overshoot = peak / Math.abs(target - start);
+            score.steadyStateError = steadyStateSum / (ticks - steadyStateStart);
+            return score;
+        }
+    }
+
+    //----------------------------------------------------------------------------------------------
+    // Output
+    //----------------------------------------------------------------------------------------------
+
+    public static void writePatch(Map<Loop, Result> results, File file) throws IOException {
+        try (PrintWriter out = new PrintWriter(new FileWriter(file))) {
+            out.println("// GainTuner @Config patch - paste over the matching statics or enter through the dashboard");
+            out.println(String.format(Locale.US, "// sim dt %.3fs, %.1fs per step, %d samples per gain axis", SIM_DT, SIM_SECONDS, GRID_STEPS));
+            for (Result result : results.values()) {
+                Loop loop = result.loop;
+                out.println();
+                out.println("// " + loop.owner + " (@Config \"" + loop.configName + "\")");
+                out.println("//   current " + format(loop.current()) + ": " + result.baseline);
+                out.println("//   tuned   " + format(result.best.gains) + ": " + result.best.score);
+                out.println("public static PIDCoefficients " + loop.field + " = new PIDCoefficients" + format(result.best.gains) + ";");
+                out.println("//   pareto front (" + result.paretoFront.size() + " of " + loop.size() + "):");
+                for (Candidate candidate : result.paretoFront)
+                    out.println("//     " + format(candidate.gains) + ": " + candidate.score);
+            }
+        }
+    }
+
+    private static String format(PIDCoefficients gains) {
+        return "(" + round(gains.kP) + ", " + round(gains.kI) + ", " + round(gains.kD) + ")";
+    }
+
+    private static String round(double value) {
+        return new BigDecimal(value).round(new MathContext(3)).stripTrailingZeros().toPlainString();
+    }
+
+    public static void main(String[] args) throws IOException {
+        File file = new File(args.length > 0 ? args[0] : "GainTunerPatch.txt");
+        writePatch(tune(Runtime.getRuntime().availableProcessors()), file);
+    }
+}
@@ -0,0 +1,166 @@
+package org.firstinspires.ftc.teamcode.robots.taubot.simulation;
+
+import com.acmerobotics.dashboard.config.Config;
+import com.acmerobotics.dashboard.telemetry.TelemetryPacket;
+import com.acmerobotics.roadrunner.geometry.Pose2d;
+import com.qualcomm.robotcore.util.RobotLog;
+
+import org.firstinspires.ftc.robotcore.internal.system.Misc;
+import org.firstinspires.ftc.teamcode.robots.taubot.subsystem.Robot;
+import org.firstinspires.ftc.teamcode.robots.taubot.vision.pipeline.DPRGCanDetectorPipeline;
+import org.firstinspires.ftc.teamcode.util.trajectorysequence.TrajectorySequence;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.Scalar;
+
+import java.util.Map;
+
+/**
+ * Exercises the taubot control loop while the robot sits in init, so ART has interpreted (and JIT compiled) the
+ * update, follower, kinematics and vision paths before the match starts instead of during the first seconds of
+ * auton. The work is split into small batches called from init_loop() so init never trips the stuck-in-init
+ * watchdog.
+ *
+ * The ticks run a second, simulated Robot through the same update() the match runs - trajectory following, manual
+ * driving, crane and underarm targeting - so the code that gets warm is the code the match calls. The real robot
+ * and its hardware are never touched.
+ */
+@Config(value = "AA_PPWarmup")
+public class Warmup {
+
+    public static boolean ENABLED = true;
+    public static int ITERATIONS = 1500; //warm-up ticks
+    public static int TICKS_PER_INIT_LOOP = 25; //keeps each init_loop() call short
+    public static int CYCLE_TICKS = 200; //each cycle follows the trajectory, then drives by hand
+    public static int VISION_FRAME_INTERVAL = 10; //push a dummy frame through the can detector every n ticks
+    public static int TIMING_TICKS = 100; //ticks averaged for the cold and warm tick times
+
+    private Robot robot;
+    private TrajectorySequence trajectory;
+    private DPRGCanDetectorPipeline pipeline;
+    private Mat frame;
+    private int ticks, iterations;
+    private long coldNanos, warmNanos;
+    private boolean finished;
+
+    /**
+     * Call at the end of init(), after the vision provider exists (vision initialization is what loads OpenCV)
+     */
+    public Warmup() {
+        iterations = ITERATIONS;
+        if (!ENABLED || iterations <= 0) {
+            finished = true;
+            return;
+        }
+        try {
+            robot = new Robot(null, true);
+            robot.start();
+            trajectory = robot.driveTrain.trajectorySequenceBuilder(new Pose2d())
+                    .forward(18)
+                    .turn(Math.toRadians(90))
+                    .back(12)
+                    .build();
+            pipeline = new DPRGCanDetectorPipeline();
+            frame = new Mat(DPRGCanDetectorPipeline.BOTTOM_RIGHT_Y, DPRGCanDetectorPipeline.BOTTOM_RIGHT_X, CvType.CV_8UC3, new Scalar(0));
+        } catch (Exception e) {
+            RobotLog.e("Warmup skipped: " + e);
+            finish();
+        }
+    }
+
+    /**
+     * Runs the next batch of simulated ticks
+     * @return true once warm-up is complete
+     */
+    public boolean step() {
+        if (finished) return true;
+        try {
+            for (int i = 0; i < TICKS_PER_INIT_LOOP && ticks < iterations; i++, ticks++)
+                tick(ticks);
+        } catch (Exception e) {
+            RobotLog.e("Warmup aborted at tick " + ticks + ": " + e);
+            ticks = iterations;
+        }
+        if (ticks >= iterations)
+            finish();
+        return finished;
+    }
+
+    private void tick(int i) {
+        //sweep the commands so the branches a match actually takes get exercised
+        int cycleTick = i % CYCLE_TICKS;
+        double phase = cycleTick / (double) CYCLE_TICKS;
+        long start = System.nanoTime();
+
+        if (cycleTick == 0) {
+            robot.driveTrain.ManualDriveOff();
+            robot.driveTrain.setPoseEstimate(new Pose2d());
+            robot.driveTrain.followTrajectorySequenceAsync(trajectory);
+        } else if (cycleTick >= CYCLE_TICKS / 2) {
+            robot.driveTrain.ManualArcadeDrive(Math.sin(2 * Math.PI * phase), Math.cos(2 * Math.PI * phase));
+        }
+        robot.crane.setCraneTarget(24 + 24 * phase, -12 + 24 * phase, 30);
+        robot.underarm.holdTarget(-20 - 10 * phase, 0, 4);
+
+        robot.update(new TelemetryPacket().fieldOverlay());
+
+        long elapsed = System.nanoTime() - start;
+        if (i < TIMING_TICKS)
+            coldNanos += elapsed;
+        else if (i >= iterations - TIMING_TICKS)
+            warmNanos += elapsed;
+
+        if (VISION_FRAME_INTERVAL > 0 && i % VISION_FRAME_INTERVAL == 0) {
+            frame.setTo(new Scalar(i % 255, 128, 255 - i % 255));
+            pipeline.processFrame(frame, start);
+        }
+    }
+
+    /**
+     * Stops warm-up wherever it is and drops the throwaway objects.
+     * Safe to call more than once - start() calls it in case init_loop() didn't get to the end.
+     */
+    public void finish() {
+        if (finished) return;
+        finished = true;
+        robot = null;
+        trajectory = null;
+        pipeline = null;
+        if (frame != null) frame.release();
+        frame = null;
+        //collect the warm-up garbage now rather than in the first seconds of the match
+        Runtime.getRuntime().gc();
+        RobotLog.i("Warmup " + getSummary());
+    }
+
+    public boolean isFinished() {
+        return finished;
+    }
+
+    public int getProgress() {
+        return ticks;
+    }
+
+    /**
+     * @return average warm-up tick time in ms over the first TIMING_TICKS ticks (before warm-up)
+     */
+    public double getColdLoopMillis() {
+        return ticks == 0 ? 0 : coldNanos / 1e6 / Math.min(ticks, TIMING_TICKS);
+    }
+
+    /**
+     * @return average warm-up tick time in ms over the last TIMING_TICKS ticks (after warm-up)
+     */
+    public double getWarmLoopMillis() {
+        int warmTicks = Math.max(0, ticks - Math.max(iterations - TIMING_TICKS, TIMING_TICKS));
+        return warmTicks == 0 ? 0 : warmNanos / 1e6 / warmTicks;
+    }
+
+    public String getSummary() {
+        return Misc.formatInvariant("%d/%d ticks, loop %.2f ms cold, %.2f ms warm", ticks, iterations, getColdLoopMillis(), getWarmLoopMillis());
+    }
+
+    public void addTelemetry(Map<String, Object> telemetryMap) {
+        telemetryMap.put("Warm-up", finished ? getSummary() : ticks + "/" + iterations);
+    }
+}
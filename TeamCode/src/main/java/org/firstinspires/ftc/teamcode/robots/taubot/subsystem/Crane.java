@@ -45,11 +45,17 @@ import org.firstinspires.ftc.teamcode.robots.taubot.util.Utils;
 import org.firstinspires.ftc.teamcode.robots.taubot.util.Constants;
 import org.firstinspires.ftc.teamcode.statemachine.Stage;
 import org.firstinspires.ftc.teamcode.statemachine.StateMachine;
+import org.firstinspires.ftc.teamcode.util.BilinearTable;
+import org.firstinspires.ftc.teamcode.util.CoordinatedMotion;
+import org.firstinspires.ftc.teamcode.util.FrameTree;
 import org.firstinspires.ftc.teamcode.util.PIDController;
+import org.firstinspires.ftc.teamcode.util.SCurveProfile;
+import org.firstinspires.ftc.teamcode.util.Vector2;
 import org.firstinspires.ftc.teamcode.util.Vector3;
 
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.function.Function;
 
 @Config(value = "AA_PPCrane")
 public class Crane implements Subsystem {
@@ -80,6 +86,14 @@ public class Crane implements Subsystem {
 
     public static double kF = 0.2;
     public static PIDCoefficients SHOULDER_PID = new PIDCoefficients(0.05, 0.005, 0.0);
+    public static boolean SHOULDER_GAIN_SCHEDULING = true; //gravity feedforward and PID gains looked up by shoulder angle and extension - false is the constant kF and SHOULDER_PID
+    public static boolean SHOULDER_INERTIA_SCHEDULING = false; //scale SHOULDER_PID with extension by the inertia model - a flat 1 until SHOULDER_INERTIA_LENGTH is tuned
+    public static double SHOULDER_INERTIA_LENGTH = 0.6; //m - extension whose squared length stands in for the shoulder's inertia with nothing extended todo tune
+    public static double SHOULDER_GAIN_SCALE_MIN = 0.5; //limits on how far the schedule scales SHOULDER_PID, which is tuned at mid extension
+    public static double SHOULDER_GAIN_SCALE_MAX = 2;
+    public static boolean SHOULDER_HOLD_LEARNING = false; //fits the gravity table from the hold current while the shoulder sits on target
+    public static double SHOULDER_STALL_AMPS = 9.2; //amps the shoulder draws at full power while held still todo measure
+    public static double SHOULDER_HOLD_PRIOR = 50; //samples' worth of trust the gravity table keeps against each new hold sample
     public static double SHOULDER_MAX_PID_OUTPUT = 1;
 
     public static double FOLD_SHOULDER_POSITION = 10;
@@ -104,6 +118,26 @@ public class Crane implements Subsystem {
     public static double EXTENDER_POWER = 1.0;
     public static double EXTENDER_TICS_MIN = 0;
     public static double EXTENDER_TICS_MAX = 3700; // of the robot
+
+    public static boolean MOTION_PROFILES = false; //jerk limited setpoints for shoulder and extender - false steps the PID setpoint straight to the target todo turn on once the limits below are tuned
+    public static double SHOULDER_REPLAN_TOLERANCE = 1; //deg - target changes smaller than this finish the current profile instead of re-planning it
+    public static double SHOULDER_MAX_VELOCITY = 120; //deg/s todo tune on the robot
+    public static double SHOULDER_MAX_ACCELERATION = 400; //deg/s^2
+    public static double SHOULDER_MAX_JERK = 3000; //deg/s^3
+    public static double SHOULDER_KV = 0.004; //power per deg/s of profile velocity
+    public static double SHOULDER_KA = 0.0004; //power per deg/s^2 of profile acceleration
+    public static double EXTEND_MAX_VELOCITY = 1.2; //m/s
+    public static double EXTEND_MAX_ACCELERATION = 4; //m/s^2
+    public static double EXTEND_MAX_JERK = 30; //m/s^3
+    public static double EXTEND_KV = 0.6; //power per m/s
+    public static double EXTEND_KA = 0.05; //power per m/s^2
+    public static double EXTEND_REPLAN_TOLERANCE = 0.01; //m
+    public static boolean COORDINATED_MOVES = true; //goToFieldCoordinate moves shoulder, turret and extension together (needs MOTION_PROFILES) - false moves them in stages
+    public static double TURRET_MAX_VELOCITY = 150; //deg/s
+    public static double TURRET_MAX_ACCELERATION = 360; //deg/s^2
+    public static double TURRET_MAX_JERK = 3000; //deg/s^3
+    public static double TURRET_REPLAN_TOLERANCE = 1; //deg - a coordinated move is only re-planned when a target moves further than its axis's tolerance
+    public static double RETRACT_BELOW_SHOULDER_ANGLE = 20; //coordinated moves keep the extension at SAFE_ARM_LENGTH while the shoulder is lower than this
     boolean EXTENDER_CALIBRATE_MAX = false; //keep false except if calibrating EXTENDER_TICS_MAX
 
     public static double BULB_OPEN_POS = 1210;
@@ -158,9 +192,31 @@ public class Crane implements Subsystem {
     private PIDController shoulderPID;
     private PIDController extendPID;
 
+    //the PID setpoints follow these to the target angle and length
+    private final SCurveProfile shoulderProfile = new SCurveProfile(SHOULDER_MAX_VELOCITY, SHOULDER_MAX_ACCELERATION, SHOULDER_MAX_JERK);
+    private final SCurveProfile extendProfile = new SCurveProfile(EXTEND_MAX_VELOCITY, EXTEND_MAX_ACCELERATION, EXTEND_MAX_JERK);
+    double shoulderSetpoint, extendSetpoint;
+    double shoulderFeedforward, extendFeedforward;
+
+    //shoulder gravity feedforward (power) and PID gain scale over shoulder degrees and getExtendMeters()
+    private BilinearTable shoulderGravityTable, shoulderGainTable;
+    private final Function<Double, Double> shoulderGravity = angle -> shoulderGravityFeedforward(angle) + shoulderFeedforward;
+    double shoulderGravityPower, shoulderGainScale = 1;
+    //what the tables were filled from - update() refills them when these change on the dashboard
+    private double tableKF, tableInertiaLength, tableGainScaleMin, tableGainScaleMax;
+    private boolean tableInertiaScheduling;
+
+    //coordinated moves plan the turret too - its profile runs in unwrapped degrees and is only active during one
+    private static final int SHOULDER_AXIS = 0, TURRET_AXIS = 1, EXTEND_AXIS = 2;
+    private final SCurveProfile turretProfile = new SCurveProfile(TURRET_MAX_VELOCITY, TURRET_MAX_ACCELERATION, TURRET_MAX_JERK);
+    private final CoordinatedMotion coordinatedMotion = new CoordinatedMotion(shoulderProfile, turretProfile, extendProfile);
+    private final double[] axisPositions = new double[3], axisVelocities = new double[3], axisAccelerations = new double[3], axisTargets = new double[3];
+    double coordinatedAngle, coordinatedTurretTarget, coordinatedLength;
+
     private boolean bulbGripped;
 
     private Robot robot;
+    private final boolean simulated;
 
 
     private Articulation articulation = Articulation.init;
@@ -189,10 +245,10 @@ public class Crane implements Subsystem {
 
     public Crane(HardwareMap hardwareMap, Robot robot, boolean simulated) {
         this.robot = robot;
+        this.simulated = simulated;
         extenderTargetPos = 0;
         shoulderTargetAngle = 0;
         if (simulated) {
-            setShoulderImuEnable(false);
             shoulderMotor = new DcMotorExSim(USE_MOTOR_SMOOTHING);
             extenderMotor = new DcMotorExSim(USE_MOTOR_SMOOTHING);
             turretMotor = new DcMotorExSim(USE_MOTOR_SMOOTHING);
@@ -200,6 +256,7 @@ public class Crane implements Subsystem {
             nudgeDistanceSensor = new DistanceSensorSim(0);
             bulbServo = new ServoSim();
             nudgeStickServo = new ServoSim();
+            flipperServo = new ServoSim();
         } else {
             shoulderMotor = hardwareMap.get(DcMotorEx.class, "shoulder");
 //            shoulderAngleEncoder = hardwareMap.get(DcMotorEx.class, "shoulderAngleEncoder"); //just a REV shaft encoder - no actual motor
@@ -216,22 +273,23 @@ public class Crane implements Subsystem {
             //nudgeDistanceSensor = hardwareMap.get(DistanceSensor.class, "nudgeDist");
             //turretIndex = hardwareMap.get(DigitalChannel.class, "turretIndex");
             //turretIndex.setMode(DigitalChannel.Mode.INPUT);
-
+            flipperServo = hardwareMap.get(Servo.class, "flipperServo");
+
+            BNO055IMU.Parameters parameters = new BNO055IMU.Parameters();
+            parameters.angleUnit           = BNO055IMU.AngleUnit.DEGREES;
+            parameters.accelUnit           = BNO055IMU.AccelUnit.METERS_PERSEC_PERSEC;
+            parameters.calibrationDataFile = "BNO055IMUCalibration.json"; // see the calibration sample opmode
+            parameters.loggingEnabled      = true;
+            parameters.loggingTag          = "IMU";
+            parameters.accelerationIntegrationAlgorithm = new JustLoggingAccelerationIntegrator();
+
+            shoulderImu = hardwareMap.get(BNO055IMU.class, "shoulderIMU");
+            shoulderImu.initialize(parameters);
+            turretImu = hardwareMap.get(BNO055IMU.class, "turretIMU");
+            turretImu.initialize(parameters);
+
+            turretImu.startAccelerationIntegration(new Position(), new Velocity(), 1000);
         }
-        BNO055IMU.Parameters parameters = new BNO055IMU.Parameters();
-        parameters.angleUnit           = BNO055IMU.AngleUnit.DEGREES;
-        parameters.accelUnit           = BNO055IMU.AccelUnit.METERS_PERSEC_PERSEC;
-        parameters.calibrationDataFile = "BNO055IMUCalibration.json"; // see the calibration sample opmode
-        parameters.loggingEnabled      = true;
-        parameters.loggingTag          = "IMU";
-        parameters.accelerationIntegrationAlgorithm = new JustLoggingAccelerationIntegrator();
-
-        shoulderImu = hardwareMap.get(BNO055IMU.class, "shoulderIMU");
-        shoulderImu.initialize(parameters);
-        turretImu = hardwareMap.get(BNO055IMU.class, "turretIMU");
-        turretImu.initialize(parameters);
-
-        turretImu.startAccelerationIntegration(new Position(), new Velocity(), 1000);
 
         extendPID = new PIDController(0,0,0);
         extendPID.setOutputRange(EXTEND_MIN_PID_OUTPUT, EXTEND_MAX_PID_OUTPUT);
@@ -239,13 +297,12 @@ public class Crane implements Subsystem {
         shoulderPID.setOutputRange(SHOULDER_MIN_PID_OUTPUT,SHOULDER_MAX_PID_OUTPUT);
         shoulderPID.setIntegralCutIn(10);
         shoulderPID.enableIntegralZeroCrossingReset(false);
+        buildShoulderTables();
         shoulderActivePID = false;
         extenderActivePID = false;
-        fieldPositionTarget = new Vector3(robot.driveTrain.getPoseEstimate().getX()+6,robot.driveTrain.getPoseEstimate().getY(),8);
+        fieldPositionTarget.set(robot.driveTrain.getPoseEstimate().getX()+6,robot.driveTrain.getPoseEstimate().getY(),8);
         articulate(Articulation.init);
 
-        flipperServo = hardwareMap.get(Servo.class, "flipperServo");
-
         goTargetInd = 0;
         homeInd = 0;
         coneCycleStage = 0;
@@ -256,9 +313,10 @@ public class Crane implements Subsystem {
 
     public void resetCrane(Constants.Position start){
         if(PowerPlay_6832.gameState.equals(PowerPlay_6832.GameState.AUTONOMOUS) || PowerPlay_6832.gameState.equals(PowerPlay_6832.GameState.TEST)){
-            fieldPositionTarget = new Vector3(start.getPose().getX()+6,start.getPose().getY(),9);
+            fieldPositionTarget.set(start.getPose().getX()+6,start.getPose().getY(),9);
         }else if(PowerPlay_6832.gameState.equals(PowerPlay_6832.GameState.TELE_OP)){
-            fieldPositionTarget = new Vector3(home.x+robot.turret.getTurretPosition().getX(),home.y+robot.turret.getTurretPosition().getY(),home.z);
+            robot.turret.getTurretPosition(turretPos);
+            fieldPositionTarget.set(home.x+turretPos.x,home.y+turretPos.y,home.z);
         }
     }
 
@@ -434,7 +492,7 @@ public class Crane implements Subsystem {
 
         //initialization of the PID calculator's output range, target value and multipliers
         shoulderPID.setOutputRange(SHOULDER_MIN_PID_OUTPUT, SHOULDER_MAX_PID_OUTPUT);
-        shoulderPID.setPID(Kp, Ki, Kd, (gravityModiferForCraneExtensionAndAngle) -> kF * getExtendMeters()/2 * Math.cos(Math.toRadians(gravityModiferForCraneExtensionAndAngle)));
+        shoulderPID.setPID(Kp, Ki, Kd, shoulderGravity);
         shoulderPID.setSetpoint(targetTicks);
         shoulderPID.enable();
 
@@ -458,12 +516,69 @@ public class Crane implements Subsystem {
 
     long stallTimer = 0;
 
+    /**
+     * Fills the shoulder tables from the constant models - the gravity table from kF's torque about the shoulder,
+     * the gain scale from how the arm's inertia grows with extension, or 1 everywhere with SHOULDER_INERTIA_SCHEDULING
+     * off. Anything learned from hold current is dropped.
+     */
+    public void buildShoulderTables() {
+        buildShoulderGravityTable();
+        buildShoulderGainTable();
+    }
+
+    private void buildShoulderGravityTable() {
+        double minLength = craneLengthOffset, maxLength = craneLengthOffset + EXTENDER_TICS_MAX / EXTEND_TICKS_PER_METER;
+        shoulderGravityTable = new BilinearTable(SHOULDER_DEG_MIN, SHOULDER_DEG_MAX, 10, minLength, maxLength, 6)
+                .fill((angle, length) -> kF * length / 2 * Math.cos(Math.toRadians(angle)));
+        tableKF = kF;
+    }
+
+    private void buildShoulderGainTable() {
+        double minLength = craneLengthOffset, maxLength = craneLengthOffset + EXTENDER_TICS_MAX / EXTEND_TICKS_PER_METER;
+        double referenceInertia = SHOULDER_INERTIA_LENGTH * SHOULDER_INERTIA_LENGTH + Math.pow((minLength + maxLength) / 2, 2);
+        shoulderGainTable = new BilinearTable(SHOULDER_DEG_MIN, SHOULDER_DEG_MAX, 10, minLength, maxLength, 6);
+        if (SHOULDER_INERTIA_SCHEDULING)
+            shoulderGainTable.fill((angle, length) -> Range.clip((SHOULDER_INERTIA_LENGTH * SHOULDER_INERTIA_LENGTH + length * length) / referenceInertia,
+                    SHOULDER_GAIN_SCALE_MIN, SHOULDER_GAIN_SCALE_MAX));
+        else
+            shoulderGainTable.fill((angle, length) -> 1);
+        tableInertiaScheduling = SHOULDER_INERTIA_SCHEDULING;
+        tableInertiaLength = SHOULDER_INERTIA_LENGTH;
+        tableGainScaleMin = SHOULDER_GAIN_SCALE_MIN;
+        tableGainScaleMax = SHOULDER_GAIN_SCALE_MAX;
+    }
+
+    //refills a table whose model was retuned on the dashboard - a kF change drops what the gravity table learned
+    private void refreshShoulderTables() {
+        if (kF != tableKF)
+            buildShoulderGravityTable();
+        if (SHOULDER_INERTIA_SCHEDULING != tableInertiaScheduling || SHOULDER_INERTIA_LENGTH != tableInertiaLength
+                || SHOULDER_GAIN_SCALE_MIN != tableGainScaleMin || SHOULDER_GAIN_SCALE_MAX != tableGainScaleMax)
+            buildShoulderGainTable();
+    }
+
+    private double shoulderGravityFeedforward(double angle) {
+        shoulderGravityPower = SHOULDER_GAIN_SCHEDULING ? shoulderGravityTable.get(angle, getExtendMeters())
+                : kF * getExtendMeters() / 2 * Math.cos(Math.toRadians(angle));
+        return shoulderGravityPower;
+    }
+
+    //while the shoulder sits on target its current is what it takes to hold the arm there, so it's a sample of the gravity table
+    private void learnShoulderHold(double now) {
+        if (!SHOULDER_HOLD_LEARNING || !SHOULDER_GAIN_SCHEDULING || simulated || System.nanoTime() <= stallTimer
+                || !shoulderProfile.isFinished(now) || !extendProfile.isFinished(now)
+                || Math.abs(shoulderTargetAngle - shoulderAngle) > SHOULDER_TOLERANCE)
+            return;
+        shoulderGravityTable.addSample(shoulderAngle, getExtendMeters(), Math.copySign(shoulderAmps / SHOULDER_STALL_AMPS, shoulderCorrection));
+        shoulderGravityTable.fit(SHOULDER_HOLD_PRIOR);
+    }
+
     public void movePIDExtend(double Kp, double Ki, double Kd, double currentTicks, double targetTicks) {
 
         //todo - probably don't need our own PID - can use built in PID
         //initialization of the PID calculator's output range, target value and multipliers
         extendPID.setOutputRange(EXTEND_MIN_PID_OUTPUT, EXTEND_MAX_PID_OUTPUT);
-        extendPID.setPID(Kp, Ki, Kd);
+        extendPID.setPID(Kp, Ki, Kd, (extension) -> extendFeedforward);
         extendPID.setSetpoint(targetTicks);
         extendPID.enable();
 
@@ -545,7 +660,7 @@ public class Crane implements Subsystem {
                     dropThenTransferTimer = futureTime(0.7);
                     flipToHome();
                     dropThenTransferStage++;
-                    fieldPositionTarget = new Vector3(-4,0,10).add(robotPosition);
+                    fieldPositionTarget.set(-4,0,10).addInPlace(robotPosition);
                 }
                 break;
             case 3:
@@ -585,14 +700,14 @@ public class Crane implements Subsystem {
                 break;
             case lock: //if the robot is driving all cranes should go into a safe position
                 if(deltaGripperPosition != null && robotPosition != null) {
-                    fieldPositionTarget = deltaGripperPosition.add(robotPosition);
+                    fieldPositionTarget.set(deltaGripperPosition).addInPlace(robotPosition);
                 }
                 robot.turret.articulate(Turret.Articulation.transfer);
                 setShoulderTargetAngle(SAFE_SHOULDER_ANGLE);
                 setExtendTargetPos(SAFE_ARM_LENGTH);
                 break;
             case autonDrive:
-                fieldPositionTarget = deltaGripperPosition.add(robotPosition);
+                fieldPositionTarget.set(deltaGripperPosition).addInPlace(robotPosition);
                 setShoulderTargetAngle(SAFE_SHOULDER_ANGLE);
                 setExtendTargetPos(SAFE_ARM_LENGTH);
                 break;
@@ -930,28 +1045,94 @@ public class Crane implements Subsystem {
 
 
     public boolean shoulderOnTarget(){
-        return Math.abs(getShoulderTargetAngle()-getShoulderAngle()) < SHOULDER_ERROR_MAX;
+        return Math.abs(getShoulderTargetAngle()-getShoulderAngle()) < SHOULDER_ERROR_MAX && shoulderProfile.isFinished(System.nanoTime() / 1e9);
     }
 
     public boolean extensionOnTarget(){
-        return Math.abs(getExtenderTargetPos()-getExtendMeters()) < EXTENSION_ERROR_MAX;
+        return Math.abs(getExtenderTargetPos()-getExtendMeters()) < EXTENSION_ERROR_MAX && extendProfile.isFinished(System.nanoTime() / 1e9);
     }
 
     public boolean turretOnTarget(){
-        return Math.abs(robot.turret.getError()) < TURRET_ERROR_MAX;
+        return Math.abs(robot.turret.getError()) < TURRET_ERROR_MAX && (!turretProfile.isActive() || turretProfile.isFinished(System.nanoTime() / 1e9));
+    }
+
+    /**
+     * Plans one synchronized move of shoulder, turret and extension that all arrive together, keeping the extension
+     * retracted while the shoulder is below RETRACT_BELOW_SHOULDER_ANGLE. Moving axes carry on from their current
+     * setpoints, acceleration and all. The move is planned once - calling it again with targets within the axes'
+     * re-plan tolerances of the planned ones leaves it running, and once it's done hands the axes the new targets
+     * directly, so it's fine to call every loop with a drifting target.
+     * @param length extension in getExtendMeters() terms
+     */
+    public void moveCoordinated(double angle, double turretAngle, double length){
+        double now = System.nanoTime() / 1e9;
+        if (turretProfile.isActive() && shoulderProfile.isActive() && extendProfile.isActive()
+                && Math.abs(angle - coordinatedAngle) <= SHOULDER_REPLAN_TOLERANCE
+                && Math.abs(Turret.distanceBetweenAngles(coordinatedTurretTarget, turretAngle)) <= TURRET_REPLAN_TOLERANCE
+                && Math.abs(length - coordinatedLength) <= EXTEND_REPLAN_TOLERANCE) {
+            if (coordinatedMotion.isFinished(now)) {
+                //small enough for updateProfile to hand straight to the setpoints - the turret holds its planned
+                //heading, since a new turret target would end the move and the next call would plan another
+                shoulderTargetAngle = Math.max(Math.min(angle, SHOULDER_DEG_MAX), SHOULDER_DEG_MIN);
+                extenderTargetPos = Math.min(EXTENDER_TICS_MAX/EXTEND_TICKS_PER_METER, Math.max(length-craneLengthOffset, 0));
+                if (shoulderTargetAngle < RETRACT_BELOW_SHOULDER_ANGLE)
+                    extenderTargetPos = Math.min(extenderTargetPos, Math.max(SAFE_ARM_LENGTH-craneLengthOffset, 0));
+            }
+            return;
+        }
+
+        coordinatedMotion.setLimits(SHOULDER_AXIS, SHOULDER_MAX_VELOCITY, SHOULDER_MAX_ACCELERATION, SHOULDER_MAX_JERK);
+        coordinatedMotion.setLimits(TURRET_AXIS, TURRET_MAX_VELOCITY, TURRET_MAX_ACCELERATION, TURRET_MAX_JERK);
+        coordinatedMotion.setLimits(EXTEND_AXIS, EXTEND_MAX_VELOCITY, EXTEND_MAX_ACCELERATION, EXTEND_MAX_JERK);
+        coordinatedMotion.setInterlock(SHOULDER_AXIS, RETRACT_BELOW_SHOULDER_ANGLE, EXTEND_AXIS, Math.max(SAFE_ARM_LENGTH-craneLengthOffset, 0));
+
+        loadAxis(SHOULDER_AXIS, shoulderProfile, now, shoulderAngle);
+        loadAxis(EXTEND_AXIS, extendProfile, now, extendMeters);
+        loadAxis(TURRET_AXIS, turretProfile, now, robot.turret.getHeading());
+        axisTargets[SHOULDER_AXIS] = Math.max(Math.min(angle, SHOULDER_DEG_MAX), SHOULDER_DEG_MIN);
+        axisTargets[EXTEND_AXIS] = Math.min(EXTENDER_TICS_MAX/EXTEND_TICKS_PER_METER, Math.max(length-craneLengthOffset, 0));
+        //shortest way round from wherever the turret setpoint is
+        axisTargets[TURRET_AXIS] = axisPositions[TURRET_AXIS] + Turret.distanceBetweenAngles(axisPositions[TURRET_AXIS], turretAngle);
+        coordinatedMotion.plan(now, axisPositions, axisVelocities, axisAccelerations, axisTargets);
+
+        //the per-axis targets are what the profiles were planned to, so update() won't re-plan them on its own
+        shoulderTargetAngle = coordinatedMotion.getTarget(SHOULDER_AXIS);
+        extenderTargetPos = coordinatedMotion.getTarget(EXTEND_AXIS);
+        targetTurretAngle = turretAngle;
+        coordinatedAngle = angle;
+        coordinatedTurretTarget = turretAngle;
+        coordinatedLength = length;
+    }
+
+    //starts an axis from its profile's setpoint if it's mid-move, otherwise from where it is
+    private void loadAxis(int axis, SCurveProfile profile, double now, double current){
+        if (profile.isActive()) {
+            profile.update(now);
+            axisPositions[axis] = profile.getPosition();
+            axisVelocities[axis] = profile.getVelocity();
+            axisAccelerations[axis] = profile.getAcceleration();
+        } else {
+            axisPositions[axis] = current;
+            axisVelocities[axis] = 0;
+            axisAccelerations[axis] = 0;
+        }
     }
 
 
     int goTargetInd = 0;
-    long goToTimer = 0;
 
     public boolean goToFieldCoordinate(double x, double y, double z){
-        fieldPositionTarget = new Vector3(x,y,z);
+        fieldPositionTarget.set(x,y,z);
         calculateFieldTargeting(fieldPositionTarget);
         switch(goTargetInd){
             case 0:
                 extendNudgeStick();
                 robot.turret.articulate(Turret.Articulation.runToAngle);
+                if(COORDINATED_MOVES && MOTION_PROFILES){
+                    moveCoordinated(calculatedAngle, calculatedTurretAngle, calculatedLength);
+                    goTargetInd = 2;
+                    break;
+                }
                 setShoulderTargetAngle(calculatedAngle);
                 setTargetTurretAngle(calculatedTurretAngle);
                 goTargetInd++;
@@ -964,20 +1145,14 @@ public class Crane implements Subsystem {
                     goTargetInd++;
                 }
                 break;
-            case 2: //checks if all are on target
+            case 2: //checks if all are on target - the profiles arrive at rest, so there's nothing to wait out
+                if(COORDINATED_MOVES && MOTION_PROFILES)
+                    moveCoordinated(calculatedAngle, calculatedTurretAngle, calculatedLength); //follows a drifting target
                 if(shoulderOnTarget() && extensionOnTarget() && turretOnTarget()){
-                    goToTimer = futureTime(0.4);
-                    goTargetInd++;
-                }
-                break;
-            case 3:
-                if(System.nanoTime() > goToTimer){
-                    goTargetInd++;
+                    goTargetInd = 0;
+                    return true;
                 }
                 break;
-            case 4:
-                goTargetInd = 0;
-                return true;
         }
 
         return false;
@@ -1033,7 +1208,8 @@ public class Crane implements Subsystem {
     int homeInd = 0;
 
     public boolean goHome(){
-        fieldPositionTarget = new Vector3(home.x+robot.turret.getTurretPosition().getX(),home.y+robot.turret.getTurretPosition().getY(),home.z);
+        robot.turret.getTurretPosition(turretPos);
+        fieldPositionTarget.set(home.x+turretPos.x,home.y+turretPos.y,home.z);
         calculateFieldTargeting(fieldPositionTarget);
         switch (homeInd){
             case 0:
@@ -1064,14 +1240,14 @@ public class Crane implements Subsystem {
 
     FieldThing calcTurnPosition(FieldThing thing, double headingOffset){
 
-        double angle = Math.toDegrees(Math.atan2(thing.y() - turretPos.getY(), thing.x()-turretPos.getX()));
+        double angle = Math.toDegrees(Math.atan2(thing.y() - turretPos.y, thing.x()-turretPos.x));
         double bearing = Math.toRadians(angle + headingOffset);
 
         double x = getDistance()*Math.sin(bearing);
         double y = getDistance()*Math.cos(bearing);
 
-        x += turretPos.getX();
-        y += turretPos.getY();
+        x += turretPos.x;
+        y += turretPos.y;
 
         int z = thing.getHeight();
 
@@ -1194,17 +1370,22 @@ public class Crane implements Subsystem {
 
     double turretPitch;
 
-    Vector3 fieldPositionTarget;
-    Vector3 robotPosition;
+    //both are updated in place every loop - copy them if you need to keep a value
+    final Vector3 fieldPositionTarget = new Vector3(0,0,0);
+    final Vector3 robotPosition = new Vector3(0,0,0);
 
     @Override
     public void update(Canvas fieldOverlay) {
 
+        robot.updateKinematics();
+        FrameTree frames = robot.frames;
+        robotPosition.set(frames.getX(robot.chassisFrame), frames.getY(robot.chassisFrame), shoulderHeight);
+        turretPos.set(frames.getX(robot.craneTurretFrame), frames.getY(robot.craneTurretFrame));
+        axlePos.set(frames.getX(robot.craneShoulderFrame), frames.getY(robot.craneShoulderFrame));
+
         calculateFieldTargeting(fieldPositionTarget);
         //nudgeDistance = nudgeDistanceSensor.getDistance(DistanceUnit.METER);
 
-        robotPosition = new Vector3(robot.driveTrain.getPoseEstimate().getX(),robot.driveTrain.getPoseEstimate().getY(),shoulderHeight);
-
         //todo - switch shoulderPosition to read the dedicated angle encoder
         shoulderPosition = shoulderMotor.getCurrentPosition();
 //        shoulderDirectTickPos = shoulderAngleEncoder.getCurrentPosition();
@@ -1219,7 +1400,7 @@ public class Crane implements Subsystem {
         currentStateMachine.execute();
 
 
-        if (SHOULDER_IMU_ENABLE) { //external shoulder imu is attached
+        if (SHOULDER_IMU_ENABLE && !simulated) { //external shoulder imu is attached
             angles = shoulderImu.getAngularOrientation(AxesReference.INTRINSIC, AxesOrder.ZYX, AngleUnit.DEGREES);
             gravity = shoulderImu.getGravity();
             shoulderAngle = -AngleUnit.DEGREES.normalize(AngleUnit.DEGREES.fromUnit(angles.angleUnit, angles.secondAngle));
@@ -1227,10 +1408,14 @@ public class Crane implements Subsystem {
         else
             shoulderAngle = 0;
 
-        turretAngles = turretImu.getAngularOrientation(AxesReference.INTRINSIC, AxesOrder.ZYX, AngleUnit.DEGREES);
-        turretGravity = turretImu.getGravity();
+        if (!simulated) {
+            turretAngles = turretImu.getAngularOrientation(AxesReference.INTRINSIC, AxesOrder.ZYX, AngleUnit.DEGREES);
+            turretGravity = turretImu.getGravity();
 
-        turretPitch = -AngleUnit.DEGREES.normalize(AngleUnit.DEGREES.fromUnit(turretAngles.angleUnit, turretAngles.thirdAngle));
+            turretPitch = -AngleUnit.DEGREES.normalize(AngleUnit.DEGREES.fromUnit(turretAngles.angleUnit, turretAngles.thirdAngle));
+        }
+        else
+            turretPitch = 0; //simulated robot is always level
 
         if(antiTipping) {
             robotIsNotTipping = withinError(turretPitch, 0, 4); //checks if robot is happy
@@ -1240,22 +1425,42 @@ public class Crane implements Subsystem {
             articulate(articulation);
         }
 
-        turretPos = robot.turret.getTurretPosition();
-        axlePos = robot.turret.getAxlePosition();
-
-        //update the turret's target
-        robot.turret.setTargetHeading(targetTurretAngle);
+        //update the turret's target - from the coordinated move's profile until something else sets one
+        if (turretProfile.isActive() && targetTurretAngle == coordinatedTurretTarget) {
+            turretProfile.update(System.nanoTime() / 1e9);
+            robot.turret.setTargetHeading(turretProfile.getPosition(), turretProfile.getVelocity(), turretProfile.getAcceleration());
+        }
+        else {
+            turretProfile.clear();
+            robot.turret.setTargetHeading(targetTurretAngle);
+        }
         if(robotIsNotTipping) {
-
-            if (shoulderActivePID)
-                movePIDShoulder(SHOULDER_PID.kP, SHOULDER_PID.kI, SHOULDER_PID.kD, shoulderAngle, shoulderTargetAngle);
-            else
+            double now = System.nanoTime() / 1e9;
+
+            if (shoulderActivePID) {
+                shoulderProfile.setLimits(SHOULDER_MAX_VELOCITY, SHOULDER_MAX_ACCELERATION, SHOULDER_MAX_JERK);
+                shoulderSetpoint = updateProfile(shoulderProfile, now, shoulderAngle, shoulderTargetAngle, SHOULDER_REPLAN_TOLERANCE);
+                shoulderFeedforward = shoulderProfile.isActive() ? SHOULDER_KV * shoulderProfile.getVelocity() + SHOULDER_KA * shoulderProfile.getAcceleration() : 0;
+                if (SHOULDER_GAIN_SCHEDULING) refreshShoulderTables();
+                shoulderGainScale = SHOULDER_GAIN_SCHEDULING ? shoulderGainTable.get(shoulderAngle, getExtendMeters()) : 1;
+                movePIDShoulder(shoulderGainScale * SHOULDER_PID.kP, shoulderGainScale * SHOULDER_PID.kI, shoulderGainScale * SHOULDER_PID.kD, shoulderAngle, shoulderSetpoint);
+                learnShoulderHold(now);
+            }
+            else {
                 shoulderTargetAngle = shoulderAngle;
+                shoulderProfile.clear();
+            }
 
-            if (extenderActivePID)
-                movePIDExtend(EXTENDER_PID.kP, EXTENDER_PID.kI, EXTENDER_PID.kD, extendMeters, extenderTargetPos);
-            else
+            if (extenderActivePID) {
+                extendProfile.setLimits(EXTEND_MAX_VELOCITY, EXTEND_MAX_ACCELERATION, EXTEND_MAX_JERK);
+                extendSetpoint = updateProfile(extendProfile, now, extendMeters, extenderTargetPos, EXTEND_REPLAN_TOLERANCE);
+                extendFeedforward = extendProfile.isActive() ? EXTEND_KV * extendProfile.getVelocity() + EXTEND_KA * extendProfile.getAcceleration() : 0;
+                movePIDExtend(EXTENDER_PID.kP, EXTENDER_PID.kI, EXTENDER_PID.kD, extendMeters, extendSetpoint);
+            }
+            else {
                 extenderTargetPos = extendMeters;
+                extendProfile.clear();
+            }
         }
 
         if(bulbGripped) {
@@ -1268,10 +1473,31 @@ public class Crane implements Subsystem {
         updateFlipperPosition();
     }
 
+    //returns this loop's setpoint - a target that moves more than tolerance is re-planned from the setpoint's position,
+    //velocity and acceleration, so the arm never has to stop first. Smaller moves, like holdTarget's per-loop drift,
+    //let the profile run out and then hand the setpoint straight to the target
+    private double updateProfile(SCurveProfile profile, double now, double current, double target, double tolerance) {
+        if (!MOTION_PROFILES) {
+            profile.clear();
+            return target;
+        }
+        if (!profile.isActive()) {
+            profile.plan(now, current, 0, target);
+            return profile.getPosition();
+        }
+        profile.update(now);
+        boolean finished = profile.isFinished(now);
+        if (Math.abs(profile.getTarget() - target) > tolerance || (finished && Math.abs(profile.getEndPosition() - target) > tolerance))
+            profile.plan(now, profile.getPosition(), profile.getVelocity(), profile.getAcceleration(), target);
+        else if (finished)
+            return target;
+        return profile.getPosition();
+    }
+
     Vector3 deltaGripperPosition = new Vector3(0,0,10);
 
     public void setSafeFieldTarget(){
-        fieldPositionTarget = new Vector3(robot.driveTrain.getPoseEstimate().getX()+6,robot.driveTrain.getPoseEstimate().getY(),8);
+        fieldPositionTarget.set(robot.driveTrain.getPoseEstimate().getX()+6,robot.driveTrain.getPoseEstimate().getY(),8);
     }
 
     public void adjustTurretAngle(double speed){
@@ -1296,22 +1522,29 @@ public class Crane implements Subsystem {
 
     public void adjustX(double speed){
         if(robotIsNotTipping){
-            fieldPositionTarget.x += robot.deltaTime*(DISTANCE_ADJUST * speed);
+            adjustTarget(robot.deltaTime*(DISTANCE_ADJUST * speed), 0, 0);
         }
     }
 
     public void adjustY(double speed){
         if(robotIsNotTipping){
-            fieldPositionTarget.y += robot.deltaTime*(DISTANCE_ADJUST * speed);
+            adjustTarget(0, robot.deltaTime*(DISTANCE_ADJUST * speed), 0);
         }
     }
 
     public void adjustZ(double speed){
         if(robotIsNotTipping){
-            fieldPositionTarget.z += robot.deltaTime*(HEIGHT_ADJUST * speed);
+            adjustTarget(0, 0, robot.deltaTime*(HEIGHT_ADJUST * speed));
         }
     }
 
+    //a jog that would take a reachable target out of reach stops at the edge instead of running on where the arm can't follow
+    private void adjustTarget(double dx, double dy, double dz){
+        double x = fieldPositionTarget.x + dx, y = fieldPositionTarget.y + dy, z = fieldPositionTarget.z + dz;
+        if(canReach(x, y, z) || !canReach(fieldPositionTarget.x, fieldPositionTarget.y, fieldPositionTarget.z))
+            fieldPositionTarget.set(x, y, z);
+    }
+
 
 
     public double getHeight(){
@@ -1323,13 +1556,13 @@ public class Crane implements Subsystem {
     }
     public boolean calculateFieldTargeting(FieldThing obj){
         Pose2d coords = Field.convertToInches(obj.getPosition());
-        fieldPositionTarget = new Vector3(coords.getX(),coords.getY(),obj.z()-1);
+        fieldPositionTarget.set(coords.getX(),coords.getY(),obj.z()-1);
         calculateFieldTargeting(fieldPositionTarget);
         return true;
     }
 
-    Pose2d turretPos = new Pose2d();
-    Pose2d axlePos = new Pose2d();
+    final Vector2 turretPos = new Vector2(0,0);
+    final Vector2 axlePos = new Vector2(0,0);
 
     public static double shoulderHeight = 0.265;
 
@@ -1338,9 +1571,37 @@ public class Crane implements Subsystem {
     double calculatedDistance;
     double calculatedAngle;
     double calculatedLength;
+    boolean calculatedReachable;
+
+    //inputs of the last solution
+    private double cachedTargetX = Double.NaN, cachedTargetY, cachedTargetZ, cachedTurretX, cachedTurretY,
+            cachedAxleX, cachedAxleY, cachedBendCorrection;
+
+    //the arm is a polar joint - it reaches anything between its retracted and full length inside the shoulder's range
+    private boolean withinReach(double angle, double length){
+        return angle >= SHOULDER_DEG_MIN && angle <= SHOULDER_DEG_MAX
+                && length >= craneLengthOffset && length <= craneLengthOffset + EXTENDER_TICS_MAX/EXTEND_TICKS_PER_METER;
+    }
+
+    /**
+     * @return whether the arm can get to the field point (inches) from where the robot is now, without solving for it
+     */
+    public boolean canReach(double x, double y, double z){
+        double distance = Math.hypot(y - axlePos.y, x - axlePos.x)/INCHES_PER_METER;
+        double height = z/INCHES_PER_METER - shoulderHeight + SHOULDER_BEND_CORRECTION*distance;
+        return withinReach(Math.toDegrees(Math.atan2(height, distance)), Math.hypot(height, distance));
+    }
+
+    /**
+     * @return whether the last calculateFieldTargeting() target is in reach - when it isn't the setters clip the
+     * calculated angle and length to the nearest the arm can do
+     */
+    public boolean isTargetReachable(){
+        return calculatedReachable;
+    }
 
     public void setCraneTarget(double x, double y, double z){
-        fieldPositionTarget = new Vector3(x,y,z);
+        fieldPositionTarget.set(x,y,z);
     }
 
     public void enableShoulderPID(){
@@ -1377,18 +1638,29 @@ public class Crane implements Subsystem {
 
     public boolean calculateFieldTargeting(double x, double y, double z){ //THIS IS IN INCHES!!!!!!!!
 
+        //runs every loop - the same target from the same robot pose keeps the solution it already has
+        if(x == cachedTargetX && y == cachedTargetY && z == cachedTargetZ
+                && turretPos.x == cachedTurretX && turretPos.y == cachedTurretY
+                && axlePos.x == cachedAxleX && axlePos.y == cachedAxleY && SHOULDER_BEND_CORRECTION == cachedBendCorrection)
+            return true;
+        cachedTargetX = x; cachedTargetY = y; cachedTargetZ = z;
+        cachedTurretX = turretPos.x; cachedTurretY = turretPos.y;
+        cachedAxleX = axlePos.x; cachedAxleY = axlePos.y;
+        cachedBendCorrection = SHOULDER_BEND_CORRECTION;
+
         z /= INCHES_PER_METER;
 
-        calculatedTurretAngle = Math.toDegrees(Math.atan2(y - turretPos.getY(), x-turretPos.getX()));
+        calculatedTurretAngle = Math.toDegrees(Math.atan2(y - turretPos.y, x-turretPos.x));
 
         calculatedHeight = z-shoulderHeight;
 
-        calculatedDistance = (Math.sqrt(Math.pow(y - axlePos.getY(),2) + Math.pow(x - axlePos.getX(),2)))/INCHES_PER_METER;
+        calculatedDistance = Math.hypot(y - axlePos.y, x - axlePos.x)/INCHES_PER_METER;
 
         calculatedHeight += SHOULDER_BEND_CORRECTION*calculatedDistance;
 
         calculatedAngle = Math.toDegrees(Math.atan2(calculatedHeight, calculatedDistance));
-        calculatedLength = (Math.sqrt(Math.pow(calculatedHeight, 2) + Math.pow(calculatedDistance, 2)));
+        calculatedLength = Math.hypot(calculatedHeight, calculatedDistance);
+        calculatedReachable = withinReach(calculatedAngle, calculatedLength);
 ////todo Vance? this earns a null object exception
 //        if(robot.checkCollision(calculatedAngle,calculatedTurretAngle)){
 //            calculatedAngle = getShoulderAngle();
@@ -1573,10 +1845,10 @@ public class Crane implements Subsystem {
             telemetryMap.put("Turret Pitch", turretPitch);
             telemetryMap.put("Robot X", robot.driveTrain.getPoseEstimate().getX());
             telemetryMap.put("Robot Y", robot.driveTrain.getPoseEstimate().getY());
-            telemetryMap.put("Turret X", turretPos.getX());
-            telemetryMap.put("Turret Y", turretPos.getY());
-            telemetryMap.put("Axle X", axlePos.getX());
-            telemetryMap.put("Axle Y", axlePos.getY());
+            telemetryMap.put("Turret X", turretPos.x);
+            telemetryMap.put("Turret Y", turretPos.y);
+            telemetryMap.put("Axle X", axlePos.x);
+            telemetryMap.put("Axle Y", axlePos.y);
             telemetryMap.put("Target Distance", targetDistance);
             telemetryMap.put("Target Height", targetHeight);
             telemetryMap.put("Target Turret Angle", targetTurretAngle);
@@ -1588,6 +1860,7 @@ public class Crane implements Subsystem {
             telemetryMap.put("Calculated Distance", calculatedDistance);
             telemetryMap.put("Calculated Angle", calculatedAngle);
             telemetryMap.put("Calculated Length", calculatedLength);
+            telemetryMap.put("Calculated Reachable", calculatedReachable);
             telemetryMap.put("Field Target X", fieldPositionTarget.x);
             telemetryMap.put("Field Target Y", fieldPositionTarget.y);
             telemetryMap.put("Field Target Z", fieldPositionTarget.z);
@@ -1602,6 +1875,7 @@ public class Crane implements Subsystem {
             telemetryMap.put("Extend Power", extenderMotor.getPower());
             telemetryMap.put("Extend Active PID", extenderActivePID);
             telemetryMap.put("Extend Target", extenderTargetPos);
+            telemetryMap.put("Extend Setpoint", extendSetpoint);
             telemetryMap.put("Extend PID", extendCorrection);
             telemetryMap.put("Extend Run Amp", runExtendAmp);
             telemetryMap.put("Extend Max Tics", extendMaxTics);
@@ -1613,8 +1887,11 @@ public class Crane implements Subsystem {
             telemetryMap.put("Shoulder Amps", shoulderAmps);
             telemetryMap.put("Shoulder Direct Angle Tics", shoulderDirectTickPos);
             telemetryMap.put("Shoulder Target", shoulderTargetAngle);
+            telemetryMap.put("Shoulder Setpoint", shoulderSetpoint);
             telemetryMap.put("Shoulder Active", shoulderActivePID);
             telemetryMap.put("Shoulder PID Output", shoulderCorrection);
+            telemetryMap.put("Shoulder Gravity FF", shoulderGravityPower);
+            telemetryMap.put("Shoulder Gain Scale", shoulderGainScale);
             telemetryMap.put("Running Amp", runShoulderAmp);
             telemetryMap.put("Nudge Distance Sensor", nudgeDistance);
             telemetryMap.put("Nudge Target", nudgeStickServo.getPosition());
@@ -12,7 +12,7 @@ import com.acmerobotics.roadrunner.drive.Drive;
 import com.acmerobotics.roadrunner.geometry.Pose2d;
 import com.acmerobotics.roadrunner.localization.Localizer;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -32,14 +32,15 @@ public abstract class DiffyDrive extends Drive {
         private DiffyDrive drive;
         private Pose2d poseEstimate;
         private Pose2d poseVelocity;
-        private List<Double> lastWheelPositions;
+        private final double[] wheelPositions = new double[2], lastWheelPositions = new double[2];
+        private final double[] wheelVelocities = new double[2];
+        private boolean hasLastWheelPositions;
         private double lastExternalHeading;
         private boolean useExternalHeading;
 
         public DiffyLocalizer(DiffyDrive drive, boolean useExternalHeading) {
             this.drive = drive;
             this.useExternalHeading = useExternalHeading;
-            lastWheelPositions = new ArrayList<>();
             poseEstimate = new Pose2d(0,0,0);
         }
 
@@ -50,25 +51,23 @@ public abstract class DiffyDrive extends Drive {
         @Override
         public void update() {
             //gets wheel positions and stores them in wheelPositions
-            List<Double> wheelPositions = drive.getWheelPositions();
+            drive.getWheelPositions(wheelPositions);
             //if extheading isn't needed, it's set to (basically) null
             //extheading is a roadrunner class, does the sameish thing, just in kotlin
             double externalHeading = useExternalHeading ? drive.getExternalHeading() : Double.NaN;
-            if(!lastWheelPositions.isEmpty()) {
-                List<Double> wheelDeltas = new ArrayList<>();
-                for(int i = 0; i < wheelPositions.size(); i++) {
-                    //stores change in wheel positions
-                    wheelDeltas.add(wheelPositions.get(i) - lastWheelPositions.get(i));
-                }
+            if(hasLastWheelPositions) {
+                //change in wheel positions
+                double leftDelta = wheelPositions[0] - lastWheelPositions[0];
+                double rightDelta = wheelPositions[1] - lastWheelPositions[1];
                 //displacement - avg change in wheel pos
-                double displacement = (wheelDeltas.get(0) + wheelDeltas.get(1)) / 2;
+                double displacement = (leftDelta + rightDelta) / 2;
                 double heading = useExternalHeading ?
 
                         //Vance, I changed this!! 
                         //wrapAngleRad(poseEstimate.getHeading() + wrapAngleRad(externalHeading - lastExternalHeading))
                         //calculates angle robot's facing (heading) based on changes in L and R wheel
                         externalHeading :
-                        wrapAngleRad(poseEstimate.getHeading() + wrapAngleRad((-wheelDeltas.get(0) + wheelDeltas.get(1)) / TRACK_WIDTH));
+                        wrapAngleRad(poseEstimate.getHeading() + wrapAngleRad((-leftDelta + rightDelta) / TRACK_WIDTH));
                 poseEstimate = new Pose2d(
                         poseEstimate.getX() + displacement * Math.cos(heading),
                         poseEstimate.getY() + displacement * Math.sin(heading),
@@ -76,15 +75,14 @@ public abstract class DiffyDrive extends Drive {
                 );
             }
             //calcs and stores velocities of each wheel
-            List<Double> wheelVelocities = drive.getWheelVelocities();
+            drive.getWheelVelocities(wheelVelocities);
             double externalHeadingVel = drive.getExternalHeadingVelocity();
-            if(wheelVelocities != null) {
-                    poseVelocity = useExternalHeading ?
-                            new Pose2d((wheelVelocities.get(0) + wheelVelocities.get(1)) / 2, 0, externalHeadingVel) :
-                            new Pose2d((wheelVelocities.get(0) + wheelVelocities.get(1)) / 2, 0, (-wheelVelocities.get(0) + wheelVelocities.get(1)) / TRACK_WIDTH);
-            }
+            poseVelocity = useExternalHeading ?
+                    new Pose2d((wheelVelocities[0] + wheelVelocities[1]) / 2, 0, externalHeadingVel) :
+                    new Pose2d((wheelVelocities[0] + wheelVelocities[1]) / 2, 0, (-wheelVelocities[0] + wheelVelocities[1]) / TRACK_WIDTH);
             //updates Last vars to reset for next loop
-            lastWheelPositions = wheelPositions;
+            System.arraycopy(wheelPositions, 0, lastWheelPositions, 0, 2);
+            hasLastWheelPositions = true;
             lastExternalHeading = externalHeading;
         }
 
@@ -95,7 +93,7 @@ public abstract class DiffyDrive extends Drive {
         }
 
         public void setPoseEstimate(Pose2d poseEstimate) {
-            lastWheelPositions = new ArrayList<>();
+            hasLastWheelPositions = false;
             lastExternalHeading = Double.NaN;
             if(useExternalHeading)
                 drive.setExternalHeading(poseEstimate.getHeading());
@@ -126,9 +124,29 @@ public abstract class DiffyDrive extends Drive {
         this.localizer = localizer;
     }
 
-    public abstract List<Double> getWheelPositions();
+    /**
+     * Fills out with the left and right wheel positions - what the localizer calls every update
+     */
+    public abstract void getWheelPositions(double[] out);
+
+    /**
+     * Fills out with the left and right wheel velocities - what the localizer calls every update
+     */
+    public abstract void getWheelVelocities(double[] out);
+
+    //boxed adapters for callers that want Road Runner style lists
 
-    public abstract List<Double> getWheelVelocities();
+    public List<Double> getWheelPositions() {
+        double[] positions = new double[2];
+        getWheelPositions(positions);
+        return Arrays.asList(positions[0], positions[1]);
+    }
+
+    public List<Double> getWheelVelocities() {
+        double[] velocities = new double[2];
+        getWheelVelocities(velocities);
+        return Arrays.asList(velocities[0], velocities[1]);
+    }
 
     public abstract void setMotorVelocities(double left, double right);
 }
@@ -44,20 +44,24 @@ import org.firstinspires.ftc.robotcore.external.navigation.Orientation;
 
 import org.firstinspires.ftc.teamcode.robots.reachRefactor.simulation.DistanceSensorSim;
 import org.firstinspires.ftc.teamcode.robots.taubot.Field;
-import org.firstinspires.ftc.teamcode.robots.taubot.trajectorysequence.TrajectorySequence;
-import org.firstinspires.ftc.teamcode.robots.taubot.trajectorysequence.TrajectorySequenceBuilder;
-import org.firstinspires.ftc.teamcode.robots.taubot.util.DiffyKinematics;
-import org.firstinspires.ftc.teamcode.robots.taubot.util.PathLine;
+import org.firstinspires.ftc.teamcode.util.trajectorysequence.TrajectorySequence;
+import org.firstinspires.ftc.teamcode.util.trajectorysequence.TrajectorySequenceBuilder;
+import org.firstinspires.ftc.teamcode.util.DiffyKinematics;
+import org.firstinspires.ftc.teamcode.util.PathLine;
 import org.firstinspires.ftc.teamcode.robots.taubot.util.Utils;
 import org.firstinspires.ftc.teamcode.robots.taubot.simulation.DcMotorExSim;
+import org.firstinspires.ftc.teamcode.robots.taubot.simulation.VoltageSensorSim;
 import org.firstinspires.ftc.teamcode.robots.taubot.trajectorysequence.TrajectorySequenceRunner;
-import org.firstinspires.ftc.teamcode.robots.taubot.util.CloneFollower;
+import org.firstinspires.ftc.teamcode.util.CloneFollower;
 import org.firstinspires.ftc.teamcode.statemachine.Stage;
 import org.firstinspires.ftc.teamcode.statemachine.StateMachine;
 import org.firstinspires.ftc.teamcode.util.AxisDirection;
 import org.firstinspires.ftc.teamcode.util.BNO055IMUUtil;
+import org.firstinspires.ftc.teamcode.util.EkfLocalizer;
+import org.firstinspires.ftc.teamcode.util.SlipDetector;
 import org.firstinspires.ftc.teamcode.util.PIDController;
 import org.firstinspires.ftc.teamcode.util.Vector2;
+import org.firstinspires.ftc.teamcode.util.VelocityEstimator;
 
 import java.util.Arrays;
 import java.util.LinkedHashMap;
@@ -66,7 +70,7 @@ import java.util.Map;
 import java.util.Objects;
 
 @Config(value = "AA_PPDriveTrain")
-public class DriveTrain extends DiffyDrive implements Subsystem {
+public class DriveTrain extends DiffyDrive implements Subsystem, EkfLocalizer.Sensors {
     private static final TrajectoryVelocityConstraint VEL_CONSTRAINT = getVelocityConstraint(MAX_VELOCITY, MAX_ANG_VEL);
     private static final TrajectoryAccelerationConstraint ACCEL_CONSTRAINT = getAccelerationConstraint(MAX_ACCELERATION);
     private double targetHeading, targetVelocity = 0;
@@ -76,6 +80,9 @@ public class DriveTrain extends DiffyDrive implements Subsystem {
     private double leftPosition, rightPosition, leftRelOffset, rightRelOffset, swervePosition, swivelPosition;
 
     private double leftVelocity, rightVelocity;
+    private double leftAcceleration, rightAcceleration;
+    private final double[] wheelScratch = new double[2];
+    private final VelocityEstimator leftVelocityEstimator = new VelocityEstimator(), rightVelocityEstimator = new VelocityEstimator();
     private double targetLeftVelocity, targetRightVelocity;
     private double leftPower, rightPower, chariotPower;
     private boolean useMotorPowers;
@@ -90,6 +97,7 @@ public class DriveTrain extends DiffyDrive implements Subsystem {
     public Pose2d poseEstimate;
     private Pose2d poseError, poseVelocity;
     private long lastLoopTime, loopTime;
+    private double plannedHeadingAcceleration; //rad/s^2 the active trajectory is turning the chassis up at
 
     private static Vector2 cachePosition;
 
@@ -123,6 +131,19 @@ public class DriveTrain extends DiffyDrive implements Subsystem {
 
     public static double DRIVE_SPEED = 2;
 
+    //fuse wheels, imu and vision poses instead of wheels + imu heading - read when the DriveTrain is constructed
+    public static boolean USE_EKF_LOCALIZER = false;
+    //wheel velocities fitted to the encoder positions instead of the hub's 50 ms velocity window
+    public static boolean REGRESSION_VELOCITY = false;
+    //compare encoder and imu yaw rates to catch wheel slip and hits - distrusts odometry in the EKF while slipping
+    public static boolean SLIP_DETECTION = true;
+    //scale drive power down while the slip detector says the wheels are slipping - off until the thresholds are tuned on the robot
+    public static boolean TRACTION_CONTROL = false;
+    //simulated left wheel spins this fraction faster than the ground it covers - try 0.5 to see the slip detector
+    public static double SIM_WHEEL_SLIP = 0;
+    private EkfLocalizer ekfLocalizer;
+    private final SlipDetector slipDetector = new SlipDetector(TRACK_WIDTH);
+
     private final boolean simulated;
 
 
@@ -145,8 +166,8 @@ public class DriveTrain extends DiffyDrive implements Subsystem {
         TrajectoryFollower follower = new CloneFollower(AXIAL_PID, CROSS_AXIAL_PID,
                 new Pose2d(0.5, 0.5, Math.toRadians(5)), 1.5);
         trajectorySequenceRunner = new TrajectorySequenceRunner(follower, HEADING_PID_PWR);
-            batteryVoltageSensor = hardwareMap.voltageSensor.iterator().next();
         if (simulated) {
+            batteryVoltageSensor = new VoltageSensorSim();
             chassisLengthDistanceSensor = new DistanceSensorSim(
                             MIN_CHASSIS_LENGTH - (DISTANCE_SENSOR_TO_FRONT_AXLE + Distance_HUB_TO_UNDERARM_MIN));
             leftMotor = new DcMotorExSim(USE_MOTOR_SMOOTHING);
@@ -224,6 +245,10 @@ public class DriveTrain extends DiffyDrive implements Subsystem {
         chassisLengthPID.setTolerance(CHASSIS_LENGTH_TOLERANCE);
         chassisLengthPID.disable();
 
+        if (USE_EKF_LOCALIZER) {
+            ekfLocalizer = new EkfLocalizer(this, TRACK_WIDTH);
+            setLocalizer(ekfLocalizer);
+        }
 
         if(Objects.isNull(cachePosition)) {
             cachePosition = new Vector2(0, 0);
@@ -323,51 +348,88 @@ public class DriveTrain extends DiffyDrive implements Subsystem {
 
         articulate(articulation);
 
+        long now = System.nanoTime();
+        loopTime = lastLoopTime == 0 ? 0 : now - lastLoopTime;
+        lastLoopTime = now;
+
+        //first drive read after the bulk cache is cleared - it does the bulk read, so this is when the samples were taken
+        long readStart = System.nanoTime();
         leftVelocity = diffEncoderTicksToInches(leftMotor.getVelocity());
+        double sampleTime = (readStart + System.nanoTime()) / 2 * 1e-9;
         rightVelocity = diffEncoderTicksToInches(rightMotor.getVelocity());
 
         if (simulated) {
             double dt = loopTime / 1e9;
+            //the chassis follows the true wheel speeds, the encoders see the slip
+            angularVelocity = (rightVelocity - leftVelocity) / TRACK_WIDTH;
+            leftVelocity *= 1 + SIM_WHEEL_SLIP;
             leftPosition += leftVelocity * dt;
             rightPosition += rightVelocity * dt;
             chassisLength = DISTANCE_SENSOR_TO_FRONT_AXLE + Distance_HUB_TO_UNDERARM_MIN;
 
 
         } else {
-            leftPosition = diffEncoderTicksToInches(leftMotor.getCurrentPosition() - leftRelOffset);
-            rightPosition = diffEncoderTicksToInches(rightMotor.getCurrentPosition() - rightRelOffset);
+            int leftTicks = leftMotor.getCurrentPosition(), rightTicks = rightMotor.getCurrentPosition();
+            leftPosition = diffEncoderTicksToInches(leftTicks - leftRelOffset);
+            rightPosition = diffEncoderTicksToInches(rightTicks - rightRelOffset);
+
+            //raw ticks, so moving the relative offsets doesn't look like motion
+            leftVelocityEstimator.update(sampleTime, leftTicks);
+            rightVelocityEstimator.update(sampleTime, rightTicks);
+            leftAcceleration = diffEncoderTicksToInches(leftVelocityEstimator.getAcceleration());
+            rightAcceleration = diffEncoderTicksToInches(rightVelocityEstimator.getAcceleration());
+            if (REGRESSION_VELOCITY) {
+                leftVelocity = diffEncoderTicksToInches(leftVelocityEstimator.getVelocity());
+                rightVelocity = diffEncoderTicksToInches(rightVelocityEstimator.getVelocity());
+            }
 
             chassisLength = chassisLengthDistanceSensor.getDistance(DistanceUnit.INCH) + Distance_HUB_TO_UNDERARM_MIN;
         }
 
-        orientation = imu.getAngularOrientation().toAxesReference(AxesReference.INTRINSIC).toAxesOrder(AxesOrder.ZYX);
-        if (!imuOffsetsInitialized && imu.isGyroCalibrated()) {
-            headingOffset = orientation.firstAngle;
-            rollOffset = wrapAngleRad(orientation.secondAngle);
-            pitchOffset = wrapAngleRad(orientation.thirdAngle);
+        if (simulated) {
+            //no imu - integrate heading from the true wheel speeds, and the simulated chassis never tips
+            rawHeading = wrapAngleRad(rawHeading + angularVelocity * loopTime / 1e9);
+            heading = wrapAngleRad(rawHeading - headingOffset);
+            roll = pitch = pitchVelocity = 0;
+        } else {
+            orientation = imu.getAngularOrientation().toAxesReference(AxesReference.INTRINSIC).toAxesOrder(AxesOrder.ZYX);
+            if (!imuOffsetsInitialized && imu.isGyroCalibrated()) {
+                headingOffset = orientation.firstAngle;
+                rollOffset = wrapAngleRad(orientation.secondAngle);
+                pitchOffset = wrapAngleRad(orientation.thirdAngle);
 
-            imuOffsetsInitialized = true;
-        }
+                imuOffsetsInitialized = true;
+            }
 
-        rawHeading = orientation.firstAngle;
+            rawHeading = orientation.firstAngle;
 
-        heading = wrapAngleRad(orientation.firstAngle - headingOffset);
+            heading = wrapAngleRad(orientation.firstAngle - headingOffset);
 
-        roll = orientation.secondAngle - rollOffset;
-        pitch = orientation.thirdAngle - pitchOffset;
+            roll = orientation.secondAngle - rollOffset;
+            pitch = orientation.thirdAngle - pitchOffset;
 
-        AngularVelocity angularVelocities = imu.getAngularVelocity();
-        pitchVelocity = angularVelocities.yRotationRate;
-        angularVelocity = angularVelocities.xRotationRate;
+            AngularVelocity angularVelocities = imu.getAngularVelocity();
+            pitchVelocity = angularVelocities.yRotationRate;
+            angularVelocity = angularVelocities.xRotationRate;
+        }
+
+        if (SLIP_DETECTION && isImuAvailable()) {
+            slipDetector.update(loopTime / 1e9, leftVelocity, rightVelocity, leftAcceleration, rightAcceleration, angularVelocity);
+            if (ekfLocalizer != null)
+                ekfLocalizer.setWheelVarianceScale(slipDetector.getOdometryVarianceScale());
+        }
 
         updatePoseEstimate();
         poseEstimate = getPoseEstimate();
         poseVelocity = getPoseVelocity();
 
+        plannedHeadingAcceleration = 0;
         if(trajectorySequenceRunner.isBusy()) {
             DriveSignal signal = trajectorySequenceRunner.update(getPoseEstimate(), getPoseVelocity(), fieldOverlay);
-            if (signal != null)
+            if (signal != null) {
                 setDriveSignal(signal);
+                plannedHeadingAcceleration = signal.getAccel().getHeading();
+            }
             poseError = trajectorySequenceRunner.getLastPoseError();
         }
 
@@ -412,6 +474,10 @@ public class DriveTrain extends DiffyDrive implements Subsystem {
         telemetryMap.put("Drivetrain Heading", heading);
         telemetryMap.put("Heading Offset", headingOffset);
         if (debug) {
+            if (ekfLocalizer != null)
+                ekfLocalizer.addTelemetry(telemetryMap);
+            if (SLIP_DETECTION)
+                slipDetector.addTelemetry(telemetryMap);
             telemetryMap.put("Current Drive Mode", getArticulation());
             telemetryMap.put("Grid Drive Index", gridDriveIndex);
             telemetryMap.put("Target Heading", targetHeading);
@@ -458,6 +524,8 @@ public class DriveTrain extends DiffyDrive implements Subsystem {
 
             telemetryMap.put("left velocity", leftVelocity);
             telemetryMap.put("right velocity", rightVelocity);
+            telemetryMap.put("left acceleration", leftAcceleration);
+            telemetryMap.put("right acceleration", rightAcceleration);
 
             telemetryMap.put("target left velocity", targetLeftVelocity);
             telemetryMap.put("target right velocity", targetRightVelocity);
@@ -502,6 +570,9 @@ public class DriveTrain extends DiffyDrive implements Subsystem {
         rightRelOffset = rightMotor.getCurrentPosition();
         leftPosition=0;
         rightPosition=0;
+        leftVelocityEstimator.reset();
+        rightVelocityEstimator.reset();
+        slipDetector.reset();
     }
 
     /*public void resetGridDrive(Position start){
@@ -780,9 +851,10 @@ public class DriveTrain extends DiffyDrive implements Subsystem {
     @Override
     public void setDriveSignal(@NonNull DriveSignal driveSignal) {
         useMotorPowers = false;
-        List<Double> velocities = DiffyKinematics.robotToWheelVelocities(driveSignal.getVel(), TRACK_WIDTH);
+        Pose2d vel = driveSignal.getVel();
+        DiffyKinematics.robotToWheelVelocities(vel.getX(), vel.getHeading(), TRACK_WIDTH, wheelScratch);
 
-        setMotorVelocities(velocities.get(0), velocities.get(1));
+        setMotorVelocities(wheelScratch[0], wheelScratch[1]);
 
         driveVelocity = driveSignal.getVel();
     }
@@ -790,15 +862,15 @@ public class DriveTrain extends DiffyDrive implements Subsystem {
     public void setDriveVelocity(@NonNull Pose2d driveVelocity) {
         useMotorPowers = false;
         this.driveVelocity = driveVelocity;
-        List<Double> velocities = DiffyKinematics.robotToWheelVelocities(driveVelocity, TRACK_WIDTH);
-        setMotorVelocities(velocities.get(0), velocities.get(1));
+        DiffyKinematics.robotToWheelVelocities(driveVelocity.getX(), driveVelocity.getHeading(), TRACK_WIDTH, wheelScratch);
+        setMotorVelocities(wheelScratch[0], wheelScratch[1]);
     }
 
     @Override
     public void setDrivePower(@NonNull Pose2d drivePower) {
         useMotorPowers = true;
-        List<Double> powers = DiffyKinematics.robotToWheelVelocities(drivePower, TRACK_WIDTH);
-        setMotorPowers(powers.get(0), powers.get(1));
+        DiffyKinematics.robotToWheelVelocities(drivePower.getX(), drivePower.getHeading(), TRACK_WIDTH, wheelScratch);
+        setMotorPowers(wheelScratch[0], wheelScratch[1]);
     }
 
     private static TrajectoryVelocityConstraint getVelocityConstraint(double maxVel, double maxAngularVel) {
@@ -1019,19 +1091,57 @@ public class DriveTrain extends DiffyDrive implements Subsystem {
     }
 
     @Override
-    public List<Double> getWheelPositions() {
-        return Arrays.asList(
-                leftPosition,
-                rightPosition);
+    public void getWheelPositions(double[] out) {
+        out[0] = leftPosition;
+        out[1] = rightPosition;
     }
 
     @Override
-    public List<Double> getWheelVelocities() {
-        return Arrays.asList(
-                leftVelocity,
-                rightVelocity);
+    public void getWheelVelocities(double[] out) {
+        out[0] = leftVelocity;
+        out[1] = rightVelocity;
+    }
+
+    public SlipDetector getSlipDetector() {
+        return slipDetector;
+    }
+
+    /**
+     * @return the EKF localizer, or null when USE_EKF_LOCALIZER was off at construction
+     */
+    public EkfLocalizer getEkfLocalizer() {
+        return ekfLocalizer;
     }
 
+    //EkfLocalizer.Sensors - the same readings update() already took this loop, so no extra hardware calls
+
+    @Override
+    public double getLeftWheelPosition() { return leftPosition; }
+
+    @Override
+    public double getRightWheelPosition() { return rightPosition; }
+
+    @Override
+    public double getLeftWheelVelocity() { return leftVelocity; }
+
+    @Override
+    public double getRightWheelVelocity() { return rightVelocity; }
+
+    @Override
+    public boolean isImuAvailable() { return simulated || imuOffsetsInitialized; }
+
+    @Override
+    public double getImuHeading() { return heading; }
+
+    @Override
+    public double getImuHeadingVelocity() { return angularVelocity; }
+
+    /**
+     * @return rad/s^2 of turn the active trajectory asked for this loop, 0 when none is running - ahead of what
+     * the imu will measure by the time the wheels respond
+     */
+    public double getPlannedHeadingAcceleration() { return plannedHeadingAcceleration; }
+
     StateMachine currentStateMachine = Utils.getStateMachine(new Stage()).addState(()->{return true;}).build();
 
     Articulation articulation = Articulation.unlock;
@@ -1049,12 +1159,13 @@ public class DriveTrain extends DiffyDrive implements Subsystem {
                     rightMotor.setMode(DcMotor.RunMode.RUN_USING_ENCODER);
                     chariotMotor.setMode(DcMotor.RunMode.RUN_WITHOUT_ENCODER);
                 }
+                double traction = TRACTION_CONTROL ? slipDetector.getTractionScale() : 1;
                 if (useMotorPowers) {
-                    leftMotor.setPower(leftPower);
-                    rightMotor.setPower(rightPower);
+                    leftMotor.setPower(leftPower * traction);
+                    rightMotor.setPower(rightPower * traction);
                 } else {
-                    leftMotor.setVelocity(diffInchesToEncoderTicks(targetLeftVelocity));
-                    rightMotor.setVelocity(diffInchesToEncoderTicks(targetRightVelocity));
+                    leftMotor.setVelocity(diffInchesToEncoderTicks(targetLeftVelocity * traction));
+                    rightMotor.setVelocity(diffInchesToEncoderTicks(targetRightVelocity * traction));
                 }
 
                 //set the PID for the chassis length / chariot extension
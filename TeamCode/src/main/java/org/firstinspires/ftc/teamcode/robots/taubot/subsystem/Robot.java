@@ -20,12 +20,17 @@ import org.firstinspires.ftc.robotcore.internal.system.Misc;
 import org.firstinspires.ftc.teamcode.robots.taubot.Autonomous;
 import org.firstinspires.ftc.teamcode.robots.taubot.Field;
 import org.firstinspires.ftc.teamcode.robots.taubot.PowerPlay_6832;
+import org.firstinspires.ftc.teamcode.robots.taubot.simulation.VoltageSensorSim;
 import org.firstinspires.ftc.teamcode.robots.taubot.util.Constants;
 import org.firstinspires.ftc.teamcode.robots.taubot.util.DashboardUtil;
 import org.firstinspires.ftc.teamcode.robots.taubot.util.PositionCache;
 import org.firstinspires.ftc.teamcode.robots.taubot.util.TauPosition;
 import org.firstinspires.ftc.teamcode.robots.taubot.vision.Target;
 import org.firstinspires.ftc.teamcode.statemachine.StateMachine;
+import org.firstinspires.ftc.teamcode.util.AllocationProfiler;
+import org.firstinspires.ftc.teamcode.util.EkfLocalizer;
+import org.firstinspires.ftc.teamcode.util.FrameTree;
+import org.firstinspires.ftc.teamcode.util.StateHistory;
 import org.opencv.android.Utils;
 import org.opencv.core.CvType;
 import org.opencv.core.Mat;
@@ -59,6 +64,17 @@ public class Robot implements Subsystem {
     public boolean updatePositionCache = false;
 
     private long[] subsystemUpdateTimes;
+    public AllocationProfiler allocationProfiler;
+    public static int STATE_HISTORY_SIZE = 64; //loops of pose/turret history kept for latency compensation - read at construction
+    public StateHistory stateHistory;
+
+    //where every part of the robot is, in inches on the field - refreshed by updateKinematics()
+    public final FrameTree frames = new FrameTree(12);
+    public final int chassisFrame, chariotFrame, craneTurretFrame, craneShoulderFrame, craneGripperFrame,
+            underarmTurretFrame, underarmShoulderFrame, underarmElbowFrame, lassoFrame;
+    private final double[] visionScratch = new double[4];
+    private final double[] wheelVelocities = new double[2]; //for the dashboard overlay
+    public static boolean PROFILE_ALLOCATIONS = false; //bytes allocated per subsystem update and per loop - adds a little overhead
     private boolean autoDumpEnabled, doubleDuckEnabled;
 
     private TauPosition pos;
@@ -90,8 +106,11 @@ public class Robot implements Subsystem {
 
     List<Target> targets = new ArrayList<>();
 
+    /**
+     * @param hardwareMap not used when simulated - the JVM tests and Warmup pass null
+     */
     public Robot(HardwareMap hardwareMap, boolean simulated) {
-        hubs = hardwareMap.getAll(LynxModule.class);
+        hubs = simulated ? new ArrayList<>() : hardwareMap.getAll(LynxModule.class);
         for(LynxModule module : hubs) {
             module.setBulkCachingMode(LynxModule.BulkCachingMode.MANUAL);
         }
@@ -102,19 +121,33 @@ public class Robot implements Subsystem {
         underarm = new UnderArm(hardwareMap, this, simulated);
         crane = new Crane(hardwareMap, this, simulated);
 
-        positionCache = new PositionCache( 5);
+        positionCache = simulated ? new PositionCache(null, 1) : new PositionCache(); //a simulated robot mustn't overwrite the real pose
+
+        //offsets that are dashboard tunable are set again in updateKinematics()
+        chassisFrame = frames.addFrame(FrameTree.ROOT, FrameTree.JointType.PLANAR, 0, 0, 0);
+        craneTurretFrame = frames.addFrame(chassisFrame, FrameTree.JointType.YAW, -Turret.turretOffset, 0, 0);
+        craneShoulderFrame = frames.addFrame(craneTurretFrame, FrameTree.JointType.PITCH,
+                -Turret.axleDistanceFromRotation, 0, Crane.shoulderHeight * Constants.INCHES_PER_METER);
+        craneGripperFrame = frames.addFrame(craneShoulderFrame, FrameTree.JointType.SLIDE, 0, 0, 0);
+        chariotFrame = frames.addFrame(chassisFrame, FrameTree.JointType.SLIDE, 0, 0, UnderArm.UNDERARM_HEIGHT);
+        underarmTurretFrame = frames.addFrame(chariotFrame, FrameTree.JointType.YAW, 0, 0, UnderArm.shoulderHeight - UnderArm.UNDERARM_HEIGHT);
+        underarmShoulderFrame = frames.addFrame(underarmTurretFrame, FrameTree.JointType.PITCH, 0, 0, 0);
+        underarmElbowFrame = frames.addFrame(underarmShoulderFrame, FrameTree.JointType.PITCH, UnderArm.UPPER_ARM_LENGTH, 0, 0);
+        lassoFrame = frames.addFrame(underarmElbowFrame, FrameTree.JointType.FIXED, UnderArm.LOWER_ARM_LENGTH, 0, 0);
 
         subsystems = new Subsystem[] {driveTrain, turret, crane, underarm}; //{driveTrain, turret, crane};
         subsystemUpdateTimes = new long[subsystems.length];
+        String[] subsystemNames = new String[subsystems.length];
+        for (int i = 0; i < subsystems.length; i++)
+            subsystemNames[i] = subsystems[i].getClass().getSimpleName();
+        allocationProfiler = new AllocationProfiler(subsystemNames);
+        stateHistory = new StateHistory(STATE_HISTORY_SIZE);
 
-        batteryVoltageSensor = hardwareMap.voltageSensor.iterator().next();
+        batteryVoltageSensor = simulated ? new VoltageSensorSim() : hardwareMap.voltageSensor.iterator().next();
 
         articulation = Articulation.MANUAL;
 
         articulationMap = new HashMap<>();
-
-        craneBitmap = Bitmap.createBitmap(CB_WIDTH, CB_HEIGHT, Bitmap.Config.RGB_565);
-        craneMat = new Mat(CB_HEIGHT, CB_WIDTH, CvType.CV_8UC3);
         field = new Field(true);
     }
 
@@ -137,8 +170,12 @@ public class Robot implements Subsystem {
             String name = subsystems[i].getClass().getSimpleName();
             telemetryMap.put(name + " Update Time", Misc.formatInvariant("%d ms (%d hz)", (int) (subsystemUpdateTimes[i] * 1e-6), (int) (1 / (subsystemUpdateTimes[i] * 1e-9))));
         }
+        if (PROFILE_ALLOCATIONS)
+            allocationProfiler.addTelemetry(telemetryMap);
 
         if(debug) {
+            telemetryMap.put("Crane Gripper", Misc.formatInvariant("(%.1f, %.1f, %.1f)", frames.getX(craneGripperFrame), frames.getY(craneGripperFrame), frames.getZ(craneGripperFrame)));
+            telemetryMap.put("Lasso", Misc.formatInvariant("(%.1f, %.1f, %.1f)", frames.getX(lassoFrame), frames.getY(lassoFrame), frames.getZ(lassoFrame)));
             telemetryMap.put("Memory Pose X", pos.getPose().getX());
             telemetryMap.put("Memory Pose Y", pos.getPose().getY());
             telemetryMap.put("Memory Pose Heading", pos.getPose().getHeading());
@@ -220,14 +257,53 @@ public class Robot implements Subsystem {
         //turret.articulate(Turret.Articulation.runToAngle);
     }
 
+    /**
+     * Sets the frame tree's joints from the subsystems and recomputes whatever moved. Subsystems call it at the
+     * top of their update - the second call in a loop only recomputes what changed in between.
+     */
+    public void updateKinematics() {
+        Pose2d pose = driveTrain.getPoseEstimate();
+        frames.setPlanar(chassisFrame, pose.getX(), pose.getY(), pose.getHeading());
+
+        //the crane turret heading is field relative, the frame's joint is relative to the chassis
+        frames.setOffset(craneTurretFrame, -Turret.turretOffset, 0, 0);
+        frames.setJoint(craneTurretFrame, Math.toRadians(turret.getHeading()) - pose.getHeading());
+        frames.setOffset(craneShoulderFrame, -Turret.axleDistanceFromRotation, 0, Crane.shoulderHeight * Constants.INCHES_PER_METER);
+        frames.setJoint(craneShoulderFrame, Math.toRadians(crane.getShoulderAngle()));
+        frames.setJoint(craneGripperFrame, crane.getExtendInches());
+
+        frames.setOffset(chariotFrame, 0, 0, UnderArm.UNDERARM_HEIGHT);
+        frames.setJoint(chariotFrame, driveTrain.getChassisLength());
+        //underarm angles follow its IK - the turret is clockwise, the shoulder is from vertical, the elbow bends down
+        frames.setOffset(underarmTurretFrame, 0, 0, UnderArm.shoulderHeight - UnderArm.UNDERARM_HEIGHT);
+        frames.setJoint(underarmTurretFrame, -Math.toRadians(underarm.getTurretTargetAngle()));
+        frames.setJoint(underarmShoulderFrame, Math.toRadians(90 - underarm.getShoulderAngle()));
+        frames.setOffset(underarmElbowFrame, UnderArm.UPPER_ARM_LENGTH, 0, 0);
+        frames.setJoint(underarmElbowFrame, -Math.toRadians(underarm.getElbowAngle()));
+        frames.setOffset(lassoFrame, UnderArm.LOWER_ARM_LENGTH, 0, 0);
+
+        frames.update();
+    }
+
     public double deltaTime = 0;
     long lastTime = 0;
 
+    /**
+     * @return seconds, System.nanoTime() at the start of this loop - one timestamp for everything updated in it
+     */
+    public double getLoopTime() {
+        return lastTime / 1e9;
+    }
+
     @Override
     public void update(Canvas fieldOverlay) {
+        boolean profileAllocations = PROFILE_ALLOCATIONS;
+        if (profileAllocations) allocationProfiler.beginLoop();
+        else if (allocationProfiler.isCounting()) allocationProfiler.stop(); //switched off on the dashboard
 
-        deltaTime = (System.nanoTime()-lastTime)/1e9;
-        lastTime = System.nanoTime();
+        long now = System.nanoTime();
+        deltaTime = (now-lastTime)/1e9;
+        lastTime = now;
 
         clearBulkCaches(); //ALWAYS FIRST LINE IN UPDATE
 
@@ -237,12 +313,15 @@ public class Robot implements Subsystem {
         for(int i = 0; i < subsystems.length; i++) {
             Subsystem subsystem = subsystems[i];
             long updateStartTime = System.nanoTime();
+            if (profileAllocations) allocationProfiler.begin(i);
             subsystem.update(fieldOverlay);
+            if (profileAllocations) allocationProfiler.end(i);
             subsystemUpdateTimes[i] = System.nanoTime() - updateStartTime;
         }
+        Pose2d pose = driveTrain.poseEstimate;
+        stateHistory.record(System.nanoTime(), pose.getX(), pose.getY(), pose.getHeading(), turret.getHeading());
         if(updatePositionCache) {
-            currentTauPos = new TauPosition(driveTrain.getPoseEstimate(), turret.getHeading(), turret.getTicks());
-            positionCache.update(currentTauPos, false);
+            positionCache.write(pose.getX(), pose.getY(), pose.getHeading(), turret.getHeading(), turret.getTicks());
         }
         //paint the robot's current pose for dashboard
         //todo - update this Reach code to show the arm for the Tombot style crane
@@ -264,6 +343,10 @@ public class Robot implements Subsystem {
         //double y2 = y1 + 55.118 * Math.sin(theta1 + theta2);
 
 
+        if (craneMat == null) { //made on the first draw, so building a Robot doesn't need the OpenCV natives
+            craneBitmap = Bitmap.createBitmap(CB_WIDTH, CB_HEIGHT, Bitmap.Config.RGB_565);
+            craneMat = new Mat(CB_HEIGHT, CB_WIDTH, CvType.CV_8UC3);
+        }
         craneMat.setTo(new Scalar(0));
         Imgproc.line(craneMat, new Point(x, CB_HEIGHT - y), new Point(x1, CB_HEIGHT - y1), new Scalar(255, 255, 255), 2);
         //Imgproc.line(craneMat, new Point(x1, CB_HEIGHT - y1), new Point(x2, CB_HEIGHT - y2), new Scalar(255, 255, 255), 2);
@@ -272,7 +355,29 @@ public class Robot implements Subsystem {
 
         Utils.matToBitmap(craneMat, craneBitmap);
 
-        DashboardUtil.drawRobot(fieldOverlay, origin, driveTrain.getPoseEstimate(), driveTrain.getWheelVelocities(), turret.getHeading(), crane.getShoulderAngle(), crane.getExtendInches(), crane.fieldPositionTarget, targets);
+        driveTrain.getWheelVelocities(wheelVelocities);
+        DashboardUtil.drawRobot(fieldOverlay, origin, driveTrain.getPoseEstimate(), wheelVelocities, turret.getHeading(), crane.getShoulderAngle(), crane.getExtendInches(), crane.fieldPositionTarget, targets);
+
+        if (profileAllocations) allocationProfiler.endLoop();
+    }
+
+    /**
+     * Corrects the pose with one measured by vision from a frame captured at captureNanos (System.nanoTime()).
+     * The EKF localizer keeps its own history and replays from the capture time; otherwise the odometry motion
+     * since the capture is replayed on top of the measured pose from stateHistory.
+     * @return false if the frame is older than the history
+     */
+    public boolean applyVisionPose(double x, double y, double heading, long captureNanos, double positionVariance, double headingVariance) {
+        EkfLocalizer ekf = driveTrain.getEkfLocalizer();
+        if (ekf != null) {
+            ekf.addVisionPose(x, y, heading, captureNanos, positionVariance, headingVariance);
+            return true;
+        }
+        if (!stateHistory.reproject(captureNanos, x, y, heading, visionScratch))
+            return false;
+        driveTrain.setPoseEstimate(new Pose2d(visionScratch[StateHistory.X], visionScratch[StateHistory.Y], visionScratch[StateHistory.HEADING]));
+        stateHistory.clear(); //history from before the jump would re-apply the old odometry error
+        return true;
     }
 
     public Bitmap getBitmap() {
@@ -941,19 +1046,14 @@ public class Robot implements Subsystem {
                 underarm.speedMode();
                 transferStage++;
                 break;
-            case 1:
-                if(System.nanoTime() > transferTimer && crane.atTransfer()){
-                    underarm.articulate(UnderArm.Articulation.transfer); //tell underarm to place cone in holder
-                    transferTimer = futureTime(1.0);
+            case 1: //underarm places the cone in the holder, routed from wherever it was last known to be
+                if(System.nanoTime() > transferTimer && crane.atTransfer() && underarm.goToArticulation(UnderArm.Articulation.transfer))
                     transferStage++;
-                }
                 break;
             case 2:
-                if(System.nanoTime() >= transferTimer && underarm.atTransfer) {
-                    crane.articulate(Crane.Articulation.postTransfer); //tell crane to pickup cone
-                    transferTimer = futureTime(0.3);
-                    transferStage++;
-                }
+                crane.articulate(Crane.Articulation.postTransfer); //tell crane to pickup cone
+                transferTimer = futureTime(0.3);
+                transferStage++;
                 break;
             case 3:
                 if(System.nanoTime() >= transferTimer && crane.atPostTransfer()) {
@@ -12,6 +12,7 @@ import com.qualcomm.robotcore.hardware.DcMotor;
 import com.qualcomm.robotcore.hardware.DcMotorEx;
 import com.qualcomm.robotcore.hardware.DigitalChannel;
 import com.qualcomm.robotcore.hardware.HardwareMap;
+import com.qualcomm.robotcore.util.Range;
 
 import org.firstinspires.ftc.robotcore.external.navigation.AxesOrder;
 import org.firstinspires.ftc.robotcore.external.navigation.AxesReference;
@@ -22,6 +23,8 @@ import org.firstinspires.ftc.teamcode.robots.taubot.simulation.DcMotorExSim;
 import org.firstinspires.ftc.teamcode.robots.taubot.util.TauPosition;
 import org.firstinspires.ftc.teamcode.robots.taubot.util.Utils;
 import org.firstinspires.ftc.teamcode.util.PIDController;
+import org.firstinspires.ftc.teamcode.util.SCurveProfile;
+import org.firstinspires.ftc.teamcode.util.Vector2;
 
 import java.util.LinkedHashMap;
 import java.util.Map;
@@ -35,6 +38,18 @@ public class Turret implements Subsystem {
     public static double TUNEABLE_SIZING_OFFSET = 170;
     public static double TURRET_TOLERANCE = 1;
     public static double TURRET_TICKS_ROTATION_SPEED = 1500;
+    public static double SIM_DEGREES_PER_SECOND = 180; //simulated turret speed at full power
+    public static boolean TURRET_FEEDFORWARD = false; //adds power for the chassis' turn and the target's rate on top of the PID - off until TURRET_KV is measured on the robot
+    public static double TURRET_KV = 1.0 / 180; //power per deg/s the turret turns on the chassis todo measure - only matches SIM_DEGREES_PER_SECOND so far
+    public static double TURRET_KA = 0; //power per deg/s^2 the turret accelerates on the chassis
+    public static double TURRET_LATENCY = 0.03; //seconds from the imu readings to the motor acting on the correction - heading and chassis turn are predicted this far ahead
+    public static double TURRET_RATE_SMOOTHING = 0.5; //weight of the newest heading difference in the turret's rate estimate
+    public static boolean TURRET_SLEW_PROFILE = false; //target jumps bigger than TURRET_SLEW_MIN follow an S-curve instead of stepping the PID setpoint - off until the slew limits are tuned on the robot
+    public static double TURRET_SLEW_MIN = 20; //degrees
+    public static double TURRET_SLEW_REPLAN_TOLERANCE = 2; //degrees - a slewing target that drifts less than this finishes the slew it's on
+    public static double TURRET_SLEW_VELOCITY = 180; //deg/s
+    public static double TURRET_SLEW_ACCELERATION = 540; //deg/s^2
+    public static double TURRET_SLEW_JERK = 4000; //deg/s^3
 
     private final boolean simulated;
 
@@ -44,6 +59,12 @@ public class Turret implements Subsystem {
 
     private double heading, targetHeading, power;
 
+    //field heading rates, deg/s - the target's from whoever is profiling it, the turret's estimated from the imu
+    //headings, the chassis' from the drive train's imu read
+    private double targetVelocity, targetAcceleration, headingRate, chassisRate, lastHeading;
+    private double setpoint, setpointVelocity, setpointAcceleration, feedforward;
+    private final SCurveProfile slewProfile = new SCurveProfile(TURRET_SLEW_VELOCITY, TURRET_SLEW_ACCELERATION, TURRET_SLEW_JERK);
+
     private int absTicks;
 
     private int targetTics; //when not in IMU mode, this is the current target
@@ -53,6 +74,8 @@ public class Turret implements Subsystem {
     BNO055IMU turretIMU;
 
     Orientation imuAngles;
+    double rawHeading; //imu heading, or integrated from the last correction when simulated
+    long lastUpdateTime;
     boolean turretInitialized = false;
 
     private static double cacheHeading;
@@ -66,12 +89,13 @@ public class Turret implements Subsystem {
         this.simulated = simulated;
         motor = simulated ? new DcMotorExSim(USE_MOTOR_SMOOTHING) : hardwareMap.get(DcMotorEx.class, "turret");
         motor.setMode(DcMotor.RunMode.STOP_AND_RESET_ENCODER);
-        turretIMU = hardwareMap.get(BNO055IMU.class, "turretIMU");
         motor.setMode(DcMotor.RunMode.RUN_WITHOUT_ENCODER);
         motor.setZeroPowerBehavior(DcMotor.ZeroPowerBehavior.BRAKE);
 
-        turretIndex = hardwareMap.get(DigitalChannel.class, "turretIndex");
-        turretIndex.setMode(DigitalChannel.Mode.INPUT);
+        if (!simulated) {
+            turretIndex = hardwareMap.get(DigitalChannel.class, "turretIndex");
+            turretIndex.setMode(DigitalChannel.Mode.INPUT);
+        }
 
         turretPID = new PIDController(TURRET_PID);
         turretPID.setInputRange(-360, 360);
@@ -81,12 +105,15 @@ public class Turret implements Subsystem {
         turretPID.setIntegralCutIn(4); //suppress integral until within x degrees of target
         turretPID.enable();
 
-        BNO055IMU.Parameters parametersIMUTurret = new BNO055IMU.Parameters();
-        parametersIMUTurret.angleUnit = BNO055IMU.AngleUnit.DEGREES;
-        parametersIMUTurret.accelUnit = BNO055IMU.AccelUnit.METERS_PERSEC_PERSEC;
-        parametersIMUTurret.loggingEnabled = true;
-        parametersIMUTurret.loggingTag = "turretIMU";
-        turretIMU.initialize(parametersIMUTurret);
+        if (!simulated) {
+            turretIMU = hardwareMap.get(BNO055IMU.class, "turretIMU");
+            BNO055IMU.Parameters parametersIMUTurret = new BNO055IMU.Parameters();
+            parametersIMUTurret.angleUnit = BNO055IMU.AngleUnit.DEGREES;
+            parametersIMUTurret.accelUnit = BNO055IMU.AccelUnit.METERS_PERSEC_PERSEC;
+            parametersIMUTurret.loggingEnabled = true;
+            parametersIMUTurret.loggingTag = "turretIMU";
+            turretIMU.initialize(parametersIMUTurret);
+        }
 
         articulation = Articulation.runToAngle;
     }
@@ -132,8 +159,7 @@ public class Turret implements Subsystem {
 
                 break;
             case runToAngle: //normal run to a target angle mode
-                setControlMethodIMU(true);
-                turretPID.setInput(-distanceBetweenAngles(heading,targetHeading));
+                setControlMethodIMU(true); //the PID's input is set in update() from the fresh heading
                 break;
             case lockTo180: //home position is facing facing back of robot not towards underarm
                 setControlMethodIMU(false);
@@ -178,7 +204,17 @@ public class Turret implements Subsystem {
 
         articulate(articulation);
 
-        imuAngles= turretIMU.getAngularOrientation().toAxesReference(AxesReference.INTRINSIC).toAxesOrder(AxesOrder.ZYX);
+        long now = System.nanoTime();
+        double dt = lastUpdateTime != 0 ? (now - lastUpdateTime) / 1e9 : 0;
+        chassisRate = Math.toDegrees(robot.driveTrain.getImuHeadingVelocity());
+        if (simulated) {
+            //the turret rides on the chassis, so it turns with it on top of what the motor does
+            rawHeading = wrapAngle(rawHeading + (correction * SIM_DEGREES_PER_SECOND + chassisRate) * dt);
+        } else {
+            imuAngles = turretIMU.getAngularOrientation().toAxesReference(AxesReference.INTRINSIC).toAxesOrder(AxesOrder.ZYX);
+            rawHeading = imuAngles.firstAngle;
+        }
+        lastUpdateTime = now;
         if (!turretInitialized) {
             //first time in - we assume that the robot has not started moving and that orientation values are set to the current absolute orientation
             //so first set of imu readings are effectively offsets
@@ -187,12 +223,16 @@ public class Turret implements Subsystem {
                 //todo - this has not been tested yet - also might want to do this differently - like cached heading should be stored and retrieved from disk
                 //offsetHeading = wrapAngleMinus(imuAngles.firstAngle, cacheHeading);
             //else
-            offsetHeading = wrapAngleMinus(imuAngles.firstAngle + TURRET_OFFSET_HEADING, heading);
+            offsetHeading = wrapAngleMinus(rawHeading + TURRET_OFFSET_HEADING, heading);
+            lastHeading = heading;
             turretInitialized = true;
         }
 
         //update current IMU heading before doing any other calculations
-        heading = wrapAngle(imuAngles.firstAngle - offsetHeading) ;
+        heading = wrapAngle(rawHeading - offsetHeading) ;
+        if (dt > 0)
+            headingRate += (distanceBetweenAngles(lastHeading, heading) / dt - headingRate) * TURRET_RATE_SMOOTHING;
+        lastHeading = heading;
 
 
         if (controlMethodIMU) {
@@ -200,7 +240,20 @@ public class Turret implements Subsystem {
             turretPID.setPID(TURRET_PID);
             turretPID.setTolerance(TURRET_TOLERANCE);
             turretPID.setSetpoint(0);
-            correction = turretPID.performPID();
+            updateSetpoint(now / 1e9);
+            if (TURRET_FEEDFORWARD) {
+                //the PID closes on where the turret and setpoint will be when this correction takes effect, and the
+                //feedforward turns the turret against the chassis so the PID only has to take out what's left
+                double plannedChassisAcceleration = Math.toDegrees(robot.driveTrain.getPlannedHeadingAcceleration());
+                double predictedChassisRate = chassisRate + plannedChassisAcceleration * TURRET_LATENCY;
+                turretPID.setInput(-distanceBetweenAngles(heading + headingRate * TURRET_LATENCY, setpoint + setpointVelocity * TURRET_LATENCY));
+                feedforward = TURRET_KV * (setpointVelocity - predictedChassisRate) + TURRET_KA * (setpointAcceleration - plannedChassisAcceleration);
+            }
+            else {
+                turretPID.setInput(-distanceBetweenAngles(heading, setpoint));
+                feedforward = 0;
+            }
+            correction = Range.clip(turretPID.performPID() + feedforward, -1, 1);
             error = turretPID.getError();
             //power = turretPID.onTarget() ? 0 : correction; //what was this? artificially stills micro corrections
         }
@@ -214,12 +267,62 @@ public class Turret implements Subsystem {
         }
     }
 
+    //follows the slew profile while there is one, the target otherwise
+    private void updateSetpoint(double time) {
+        if (slewProfile.isActive()) {
+            slewProfile.update(time);
+            setpoint = wrapAngle(slewProfile.getPosition());
+            setpointVelocity = slewProfile.getVelocity();
+            setpointAcceleration = slewProfile.getAcceleration();
+            if (slewProfile.isFinished(time))
+                slewProfile.clear();
+        }
+        else {
+            setpoint = targetHeading;
+            setpointVelocity = targetVelocity;
+            setpointAcceleration = targetAcceleration;
+        }
+    }
+
     public void stop() {
         setTargetHeading(heading);
     }
 
     public void setTargetHeading(double targetHeading){
-        this.targetHeading = wrapAngle(targetHeading);
+        setTargetHeading(targetHeading, 0, 0);
+    }
+
+    /**
+     * Sets a field heading to hold, moving at the given rate - for a target that's already on a profile, so the
+     * turret can feed its motion forward. A stationary target more than TURRET_SLEW_MIN away gets a profile here,
+     * which is only re-planned, from its own setpoint and acceleration, when the target moves past
+     * TURRET_SLEW_REPLAN_TOLERANCE - so a target that drifts a little every loop doesn't restart it.
+     * @param velocity deg/s
+     * @param acceleration deg/s^2
+     */
+    public void setTargetHeading(double targetHeading, double velocity, double acceleration){
+        targetHeading = wrapAngle(targetHeading);
+        targetVelocity = velocity;
+        targetAcceleration = acceleration;
+        if (velocity != 0 || acceleration != 0 || !TURRET_SLEW_PROFILE)
+            slewProfile.clear();
+        else if (slewProfile.isActive()) {
+            double drift = distanceBetweenAngles(wrapAngle(slewProfile.getTarget()), targetHeading);
+            if (Math.abs(drift) > TURRET_SLEW_REPLAN_TOLERANCE) {
+                double now = System.nanoTime() / 1e9;
+                slewProfile.update(now);
+                slewProfile.setLimits(TURRET_SLEW_VELOCITY, TURRET_SLEW_ACCELERATION, TURRET_SLEW_JERK);
+                slewProfile.plan(now, slewProfile.getPosition(), slewProfile.getVelocity(), slewProfile.getAcceleration(), slewProfile.getTarget() + drift);
+            }
+        }
+        else if (targetHeading != this.targetHeading) {
+            double distance = distanceBetweenAngles(heading, targetHeading);
+            if (Math.abs(distance) > TURRET_SLEW_MIN) {
+                slewProfile.setLimits(TURRET_SLEW_VELOCITY, TURRET_SLEW_ACCELERATION, TURRET_SLEW_JERK);
+                slewProfile.plan(System.nanoTime() / 1e9, heading, headingRate, heading + distance);
+            }
+        }
+        this.targetHeading = targetHeading;
     }
     public boolean turnToTargetHeading(double targetHeading){
         setTargetHeading(targetHeading);
@@ -245,7 +348,7 @@ public class Turret implements Subsystem {
                 break;
             case 1:
                 motor.setVelocity(calibratePower);
-                if(!turretIndex.getState()){ //is magnet detetect?
+                if(simulated || !turretIndex.getState()){ //is magnet detetect?
                     //zeroHeading(LIMIT_SWITCH_ANGLE_OFFSET);
                     setHeading(LIMIT_SWITCH_ANGLE_OFFSET);
                     motor.setMode(DcMotor.RunMode.STOP_AND_RESET_ENCODER);
@@ -313,7 +416,8 @@ public class Turret implements Subsystem {
      * @param angle the value that the current heading will be assigned to
      */
     public void setHeading(double angle){
-        offsetHeading = wrapAngleMinus(imuAngles.firstAngle + TURRET_OFFSET_HEADING, angle);
+        offsetHeading = wrapAngleMinus(rawHeading + TURRET_OFFSET_HEADING, angle);
+        lastHeading = wrapAngle(rawHeading - offsetHeading); //not a turn - keep it out of the rate estimate
         //turretInitialized = false; //triggers recalc of heading offset at next IMU update cycle
     }
 
@@ -350,8 +454,20 @@ public class Turret implements Subsystem {
         return new Pose2d(turretPosition.getX() - axleDistanceFromRotation*Math.sin(Math.toRadians(heading)+ Math.PI/2), turretPosition.getY() + axleDistanceFromRotation*Math.cos(Math.toRadians(heading)+ Math.PI/2) );
     }
 
+    //per-loop versions of the above that fill a caller-owned vector instead of allocating Pose2ds
+
+    public Vector2 getTurretPosition(Vector2 out){
+        Pose2d robotPosition = robot.driveTrain.getPoseEstimate();
+        return out.set(robotPosition.getX()-turretOffset*Math.sin(robotPosition.getHeading() + Math.PI/2),robotPosition.getY()+turretOffset*Math.cos(robotPosition.getHeading()+ Math.PI/2));
+    }
+
+    public Vector2 getAxlePosition(Vector2 out){
+        getTurretPosition(out);
+        return out.set(out.x - axleDistanceFromRotation*Math.sin(Math.toRadians(heading)+ Math.PI/2), out.y + axleDistanceFromRotation*Math.cos(Math.toRadians(heading)+ Math.PI/2) );
+    }
+
     public boolean isTurretNearTarget(){
-        return turretPID.onTarget();
+        return turretPID.onTarget() && !slewProfile.isActive();
     }
 
     @Override
@@ -367,14 +483,18 @@ public class Turret implements Subsystem {
 
             telemetryMap.put("target turret heading", targetHeading);
             telemetryMap.put("heading offset", offsetHeading);
-            telemetryMap.put("raw IMU heading", imuAngles.firstAngle);
+            telemetryMap.put("raw IMU heading", rawHeading);
             telemetryMap.put("turret motor amps", motor.getCurrent(CurrentUnit.AMPS));
             telemetryMap.put("turret near target", isTurretNearTarget());
             telemetryMap.put("turret correction", power);
-            telemetryMap.put("turret thing", turretIndex.getState());
+            telemetryMap.put("turret thing", simulated || turretIndex.getState());
             telemetryMap.put("turret calibrate", calibrateStage);
             telemetryMap.put("turret Target Heading", targetHeading);
             telemetryMap.put("turret Target Ticks", targetTics);
+            telemetryMap.put("turret setpoint", setpoint);
+            telemetryMap.put("turret feedforward", feedforward);
+            telemetryMap.put("turret heading rate", headingRate);
+            telemetryMap.put("turret chassis rate", chassisRate);
             System.out.println("Target ticks: " + targetTics + ", Current ticks: " + getTicks() + ", Offset ticks: " + offsetTicks);
         }
 
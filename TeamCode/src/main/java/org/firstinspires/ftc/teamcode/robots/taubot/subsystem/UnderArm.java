@@ -23,8 +23,12 @@ import com.qualcomm.robotcore.util.Range;
 import org.firstinspires.ftc.teamcode.robots.taubot.simulation.ServoSim;
 import org.firstinspires.ftc.teamcode.robots.taubot.util.Constants;
 import org.firstinspires.ftc.teamcode.robots.taubot.util.Joint;
+import org.firstinspires.ftc.teamcode.robots.taubot.util.JointTrajectory;
+import org.firstinspires.ftc.teamcode.robots.taubot.util.TwoLinkIK;
+import org.firstinspires.ftc.teamcode.util.TransitionGraph;
 import org.firstinspires.ftc.teamcode.util.Vector3;
 
+import java.util.EnumSet;
 import java.util.LinkedHashMap;
 import java.util.Map;
 
@@ -49,6 +53,9 @@ public class UnderArm implements Subsystem {
     public static double SHOULDER_SPEED = 220;
     public static double LASSO_SPEED = 120;
     public static double WRIST_SPEED = 90;
+    public static double TURRET_SPEED = 180;
+    public static boolean SYNCED_TRAJECTORIES = true; //transfer and substation hover as synchronized joint trajectories - false for the timed stages
+    public static double SUBSTATION_LANDING_SPEED = 0.5; //fraction of joint speed for the last leg down onto the substation
 
     public static double kF = 0.0;
 
@@ -120,6 +127,13 @@ public class UnderArm implements Subsystem {
 
     public static Articulation articulation;
 
+    //synchronized multi-joint moves - the joint order in the trajectory
+    private static final int SHOULDER_JOINT = 0, ELBOW_JOINT = 1, WRIST_JOINT = 2, TURRET_JOINT = 3;
+    private static final double WRIST_OFFSET = 13; //the mechanical range shifter, see update()
+    private final JointTrajectory trajectory = new JointTrajectory(4, 8);
+    private final double[] trajectoryAngles = new double[4];
+    private double turretCommandAngle = Double.NaN; //last angle sent to the turret servo
+
     public UnderArm(HardwareMap hardwareMap, Robot robot, boolean simulated) {
         this.robot = robot;
         PwmControl.PwmRange axonRange = new PwmControl.PwmRange(500, 2500);
@@ -130,6 +144,9 @@ public class UnderArm implements Subsystem {
             wristServo = new ServoSim();
             lassoServo = new ServoSim();
             turretServo = new ServoSim();
+            elbow = new Joint(hardwareMap, "elbowJoint", simulated, ELBOW_HOME_PWM, ELBOW_PWM_PER_DEGREE, ELBOW_DEG_MIN, ELBOW_DEG_MAX, 0, ELBOW_SPEED);
+            shoulder = new Joint(hardwareMap, "shoulderJoint", simulated, SHOULDER_HOME_PWM, SHOULDER_PWM_PER_DEGREE, SHOULDER_DEG_MIN, SHOULDER_DEG_MAX, 0, SHOULDER_SPEED);
+            wrist = new Joint(hardwareMap, "wristServo", simulated, WRIST_HOME_PWM, WRIST_PWM_PER_DEGREE, WRIST_DEG_MIN, WRIST_DEG_MAX, 0, WRIST_SPEED);
         } else {
 //            shoulderServo = hardwareMap.get(ServoImplEx.class, "shoulderServo");
 //            ((ServoImplEx) shoulderServo).setPwmRange(axonRange);
@@ -151,18 +168,93 @@ public class UnderArm implements Subsystem {
         turretTargetAngle = 0;
 
         articulation = Articulation.init1;
-        fieldPositionTarget = new Vector3(0, 0, 0); //crane default IK starting point is
+        fieldPositionTarget.set(0, 0, 0); //crane default IK starting point is
 
         setWristTargetAngle(WRIST_HOME_POSITION);
+
+        //moves that are safe to make directly, with rough times to start from - goToArticulation() refines them
+        transitions.addTransition(Articulation.unknown, Articulation.safe, 1.5);
+        transitions.addTransition(Articulation.init1, Articulation.unfold, 0.5);
+        transitions.addTransition(Articulation.fold, Articulation.unfold, 0.5);
+        transitions.addTransition(Articulation.unfold, Articulation.home, 1.0);
+        transitions.addTransitions(Articulation.fold, Articulation.safe, 0.8);
+        transitions.addTransitions(Articulation.home, Articulation.safe, 0.6);
+        transitions.addTransitions(Articulation.home, Articulation.driving, 0.6);
+        transitions.addTransitions(Articulation.safe, Articulation.driving, 0.6);
+        transitions.addTransitions(Articulation.home, Articulation.substationHover, 0.8);
+        transitions.addTransitions(Articulation.home, Articulation.coneStackHover, 0.8);
+        transitions.addTransitions(Articulation.driving, Articulation.substationHover, 0.8);
+        transitions.addTransitions(Articulation.substationHover, Articulation.coneStackHover, 0.8);
+        //the transfer only runs forward - in from a hover or upright holding a cone, out through the recover that
+        //clears the camera. upright is where a substation pickup's recover leaves the arm
+        transitions.addTransition(Articulation.substationHover, Articulation.transfer, 1.5);
+        transitions.addTransition(Articulation.safe, Articulation.transfer, 1.5);
+        transitions.addTransition(Articulation.coneStackHover, Articulation.transfer, 1.5);
+        transitions.addTransition(Articulation.transfer, Articulation.transferRecover, 0.8);
+        transitions.addTransition(Articulation.transferRecover, Articulation.substationHover, 0.8);
+        transitions.solve();
+    }
+
+    //articulation routing - see goToArticulation()
+    private final TransitionGraph<Articulation> transitions = new TransitionGraph<>(Articulation.class);
+    //articulations that hold a pose rather than finishing - a hop to one is over when the joints get there
+    private static final EnumSet<Articulation> HOLDING_ARTICULATIONS = EnumSet.of(
+            Articulation.init1, Articulation.fold, Articulation.safe, Articulation.driving, Articulation.coneStackHover);
+    private Articulation lastArticulation = Articulation.init1; //the last node of the graph the underarm was in
+    private Articulation routeHop, routeFrom;
+    private double routeHopStartTime;
+    //joint targets as the last update left them - a change before the next one is the driver moving the arm
+    private double routeShoulderTarget, routeElbowTarget, routeWristTarget, routeTurretTarget;
+
+    /**
+     * Takes the underarm to an articulation from whichever one it was last in, along the fastest safe route - call
+     * every loop until it returns true. Articulating somewhere else in the middle drops the route. Once the arm has
+     * been in manual or jointAngles and moved, where it is isn't a node any more - it's unknown, and the route first
+     * articulates to safe and waits for the joints and chassis to settle there before taking any other edge.
+     * @return true once there, false while on the way or if there's no route
+     */
+    public boolean goToArticulation(Articulation target) {
+        double now = robot.getLoopTime();
+        if (routeHop != null) {
+            //a hop is over when its sequence hands off, or for a pose that holds, when the joints get there
+            boolean arrived = articulation != routeHop || (HOLDING_ARTICULATIONS.contains(routeHop) && jointsSettled()
+                    && (routeHop != Articulation.safe || robot.driveTrain.chassisLengthOnTarget()));
+            if (!arrived) return false;
+            transitions.recordTransition(routeFrom, routeHop, now - routeHopStartTime);
+            lastArticulation = routeHop;
+            routeHop = null;
+        }
+        if (lastArticulation == target) return true;
+        Articulation hop = transitions.next(lastArticulation, target);
+        if (hop == null) return false;
+        routeFrom = lastArticulation;
+        routeHop = hop;
+        routeHopStartTime = now;
+        articulate(hop);
+        return false;
+    }
+
+    /**
+     * @return seconds the fastest route from the current articulation to the target should take
+     */
+    public double getArticulationTime(Articulation target) {
+        return transitions.getDuration(lastArticulation, target);
+    }
+
+    //the ramped joints have caught up with their targets
+    private boolean jointsSettled() {
+        return shoulder.getCurrentAngle() == shoulder.getTargetAngle() && elbow.getCurrentAngle() == elbow.getTargetAngle()
+                && wrist.getCurrentAngle() == wrist.getTargetAngle() && (!trajectory.isActive() || trajectory.isFinished(robot.getLoopTime()));
     }
 
-    Vector3 underArmPosition;
+    //updated in place every loop
+    final Vector3 underArmPosition = new Vector3(0, 0, 0);
 
     public Vector3 getUnderArmPosition() {
         return underArmPosition;        //returns the calculated underarm position
     }
 
-    Vector3 fieldPositionTarget;
+    final Vector3 fieldPositionTarget = new Vector3(0, 0, 0);
 
     public enum Articulation {
         init1,
@@ -173,6 +265,7 @@ public class UnderArm implements Subsystem {
         manual,
         fold,
         safe,
+        unknown, //left somewhere by hand - goToArticulation() only routes out of it through safe
         unfold,
         jointAngles,
         substationHover,
@@ -229,6 +322,14 @@ public class UnderArm implements Subsystem {
     public static double FOLDPOS_TURRET_ANGLE = 0;
 
     public Articulation articulate(Articulation target) {
+        if (target != articulation) { //update() re-articulates every loop, so this is someone choosing a new one
+            if (routeHop != null && target != routeHop) {
+                routeHop = null;
+                lastArticulation = Articulation.unknown;
+            }
+            if (target == Articulation.manual || target == Articulation.jointAngles)
+                lastArticulation = Articulation.unknown;
+        }
         articulation = target;
 
         switch (articulation) {
@@ -546,6 +647,7 @@ public class UnderArm implements Subsystem {
     boolean atTransfer = false;
 
     public boolean goToTransfer() {
+        if (SYNCED_TRAJECTORIES) return goToTransferSynced();
         switch (transferStage) {
             case 0: //sets the approach position that gets the cone over the transfer plate
                 atTransfer = false;
@@ -604,6 +706,57 @@ public class UnderArm implements Subsystem {
     }
 
 
+    //goToTransfer with each group of timed stages as one trajectory - the waits are only as long as the moves
+    private boolean goToTransferSynced() {
+        switch (transferStage) {
+            case 0: //over the transfer plate, then drop the shoulder onto it
+                atTransfer = false;
+                beginJointTrajectory();
+                addJointWaypoint(TRANSFER_SHOULDER_APPROACH_ANGLE, TRANSFER_ELBOW_ANGLE, TRANSFER_WRIST_ANGLE, TRANSFER_TURRET_ANGLE, 1);
+                addJointWaypoint(TRANSFER_SHOULDER_ANGLE, TRANSFER_ELBOW_ANGLE, TRANSFER_WRIST_ANGLE, TRANSFER_TURRET_ANGLE, 1);
+                transferStage++;
+                break;
+            case 1: //get closer to Crane once the cone is over the transfer plate
+                if (trajectory.hasReached(1, robot.getLoopTime())) {
+                    robot.driveTrain.setChassisLength(MAX_CHASSIS_LENGTH - TRANSFER_CHASSIS_SHORTEN_BY);
+                    transferTimer = futureTime(_TuneableTimer); //in case the chassis never reports on target
+                    transferStage++;
+                }
+                break;
+            case 2: //release the cone once the arm and the chassis are there
+                if (trajectoryFinished() && (robot.driveTrain.chassisLengthOnTarget() || System.nanoTime() > transferTimer)) {
+                    release();
+                    transferTimer = futureTime(0.3); //gripper opening
+                    transferStage++;
+                }
+                break;
+            case 3: //elbow and gripper away from the cone, then the shoulder out of the way, then the wrist for passthrough
+                if (System.nanoTime() > transferTimer) {
+                    beginJointTrajectory();
+                    addJointWaypoint(TRANSFER_SHOULDER_ANGLE, TRANSFER_ELBOW_ANGLE_OUTOFWAY_ANGLE, TRANSFER_WRIST_ANGLE, TRANSFER_TURRET_ANGLE, 1);
+                    addJointWaypoint(TRANSFER_SHOULDER_OUTOFWAY_ANGLE, TRANSFER_ELBOW_ANGLE_OUTOFWAY_ANGLE, TRANSFER_WRIST_ANGLE, TRANSFER_TURRET_ANGLE, 1);
+                    addJointWaypoint(TRANSFER_SHOULDER_OUTOFWAY_ANGLE, TRANSFER_ELBOW_ANGLE_OUTOFWAY_ANGLE, WRIST_HOME_POSITION, TRANSFER_TURRET_ANGLE, 1);
+                    transferStage++;
+                }
+                break;
+            case 4: //close the gripper once it's clear of the cone
+                if (trajectory.hasReached(1, robot.getLoopTime())) {
+                    grip();
+                    transferStage++;
+                }
+                break;
+            case 5:
+                if (trajectoryFinished()) {
+                    grip(); //redundant grip, just to be sure
+                    transferStage = 0;
+                    atTransfer = true;
+                    return true;
+                }
+                break;
+        }
+        return false;
+    }
+
     public static double POSTTRANSFER_SHOULDER = 50;
     public static double POSTTRANSFER_ELBOW = -15;
 
@@ -678,6 +831,7 @@ public class UnderArm implements Subsystem {
     }
 
     public boolean goSubstationHover() {
+        if (SYNCED_TRAJECTORIES) return goSubstationHoverSynced();
         switch (substationHoverStage) {
             case 0:
                 if (goSubstationRecover()) { //give the elbow a head start to clear the camera when a cone is loaded
@@ -728,6 +882,44 @@ public class UnderArm implements Subsystem {
         return false;
     }
 
+    //goSubstationHover, recovery included, as one trajectory - vertical, turret straight, elbow out, shoulder most of
+    //the way down, then an easy last leg into the hover pose so it doesn't slam the ground
+    private boolean goSubstationHoverSynced() {
+        switch (substationHoverStage) {
+            case 0:
+                grip(); //closed in case we are returning from negative angles
+                beginJointTrajectory();
+                addJointWaypoint(0, 0, WRIST_HOME_POSITION, turretTargetAngle, 1);
+                addJointWaypoint(0, 0, WRIST_HOME_POSITION, 0, 1);
+                addJointWaypoint(0, SS_HOVER_ELBOW, WRIST_HOME_POSITION, 0, 1);
+                addJointWaypoint(SS_HOVER_SHOULDER / 1.3, SS_HOVER_ELBOW, WRIST_HOME_POSITION, 0, 1);
+                addJointWaypoint(SS_HOVER_SHOULDER, SS_HOVER_ELBOW, PICKUP_WRIST_ANGLE, SS_HOVER_TURRET, SUBSTATION_LANDING_SPEED);
+                substationHoverStage++;
+                break;
+            case 1: //extend the chassis once the arm is vertical and straight
+                if (trajectory.hasReached(2, robot.getLoopTime())) {
+                    robot.driveTrain.setChassisLength(SS_HOVER_EXTEND);
+                    substationHoverStage++;
+                }
+                break;
+            case 2: //open once the elbow is out
+                if (trajectory.hasReached(3, robot.getLoopTime())) {
+                    open();
+                    substationHoverStage++;
+                }
+                break;
+            case 3:
+                if (trajectoryFinished()) {
+                    open(); //purposefully redundant open
+                    substationHoverStage = 0;
+                    canSaveHoverPositions = true;
+                    return true;
+                }
+                break;
+        }
+        return false;
+    }
+
     int substationPickupStage = 0;
     long substationPickupTimer = 0;
 
@@ -922,6 +1114,12 @@ public class UnderArm implements Subsystem {
     public static double UPPER_ARM_LENGTH = 14.06;
     public static double LOWER_ARM_LENGTH = 11.02;
 
+    //link lengths and joint limits are read once, here - the workspace grid is built from them
+    private final TwoLinkIK ik = new TwoLinkIK(UPPER_ARM_LENGTH, LOWER_ARM_LENGTH,
+            SHOULDER_DEG_MIN, SHOULDER_DEG_MAX, ELBOW_DEG_MIN, ELBOW_DEG_MAX, 0.5);
+    private final double[] jogAngles = new double[2];
+    boolean calculatedReachable;
+
     public double getCalculatedShoulderAngle() {
         return calculatedShoulderAngle;
     }
@@ -936,12 +1134,8 @@ public class UnderArm implements Subsystem {
 
     public boolean calculateFieldTargeting(double x, double y, double z) { //THIS IS IN INCHES!!!!!!!!
 
-        z /= INCHES_PER_METER;
-
-        double hypotToTarget;
         double locX;
         double locY;
-//        double calculatedDistanceFieldUnits;
 
         locX = x - underArmPosition.x;
         locY = y - underArmPosition.y;
@@ -951,28 +1145,29 @@ public class UnderArm implements Subsystem {
 
         calculatedHeight = z - shoulderHeight;
 
-        calculatedDistance = (Math.sqrt(Math.pow(locY, 2) + Math.pow(locX, 2)));
-
-//        calculatedDistanceFieldUnits = (Math.sqrt(Math.pow(locY,2) + Math.pow(locX,2)));
-
-        hypotToTarget = Math.sqrt(Math.pow(calculatedHeight, 2) + Math.pow(calculatedDistance, 2));
+        calculatedDistance = Math.hypot(locX, locY);
 
-//        double virtualLength = Math.sqrt( Math.pow(calculatedDistance,2) + Math.pow(calculatedHeight,2) );
+        //same distance and height as last time - the ik hands back the solution it already has
+        calculatedReachable = ik.solve(calculatedDistance, calculatedHeight, false);
+        calculatedShoulderAngle = ik.getShoulderAngle();
+        calculatedElbowAngle = ik.getElbowAngle();
 
-//        calculatedElbowAngle = Math.toDegrees(2*Math.asin( virtualLength / (SHOULDER_TO_ELBOW + ELBOW_TO_WRIST) ));
-//        calculatedShoulderAngle = Math.toDegrees(Math.atan2( calculatedDistance , calculatedHeight ) + (90 - calculatedElbowAngle/2));
-
-        //todo: hope and pray that this works
-        calculatedShoulderAngle = 90 - (Math.toDegrees(Math.acos(
-                (Math.pow(UPPER_ARM_LENGTH, 2) + Math.pow(calculatedDistance, 2) + Math.pow(calculatedHeight, 2) - Math.pow(LOWER_ARM_LENGTH, 2))
-                        / (2 * UPPER_ARM_LENGTH * hypotToTarget))
-                + Math.acos(calculatedDistance / hypotToTarget)));
+        return true;
+    }
 
-        calculatedElbowAngle = (Math.toDegrees(Math.acos(
-                (Math.pow(UPPER_ARM_LENGTH, 2) + Math.pow(LOWER_ARM_LENGTH, 2) - Math.pow(calculatedDistance, 2) - Math.pow(calculatedHeight, 2))
-                        / (2 * UPPER_ARM_LENGTH * LOWER_ARM_LENGTH))));
+    /**
+     * @return whether the last calculateFieldTargeting() target is in reach within the joint limits - when it
+     * isn't the calculated angles point the arm at it as far as it goes
+     */
+    public boolean isTargetReachable() {
+        return calculatedReachable;
+    }
 
-        return true;
+    /**
+     * @return whether the arm can get to a point at this distance out and height above the shoulder - a lookup
+     */
+    public boolean canReach(double distance, double height) {
+        return ik.canReach(distance, height, false);
     }
 
     //todo these adjust methods are horrid - they need to have range limits applied to them and time based velocity if we are keeping them
@@ -1011,19 +1206,35 @@ public class UnderArm implements Subsystem {
     public static double ADJUST_SHOULDER = 50;
     public static double ADJUST_WRIST = 50;
 
-    public static double ADJUST_HEIGHT_SPEED = 2;
-    public static double ADJUST_POSITION_SPEED = 2;
+    public static double ADJUST_HEIGHT_SPEED = 8; //inches per second at full stick
+    public static double ADJUST_POSITION_SPEED = 8;
+    public static double JOG_DAMPING = 0.02; //inches per degree, keeps jogging tame as the arm straightens
+
+    //the jogs move the lasso in straight lines in the arm's frame - x out along the arm, y sideways, z up
 
     public void adjustX(double speed) {
-        fieldPositionTarget.x += ADJUST_POSITION_SPEED * speed;
+        jog(ADJUST_POSITION_SPEED * speed * robot.deltaTime, 0);
     }
 
     public void adjustY(double speed) {
-        fieldPositionTarget.y += ADJUST_POSITION_SPEED * speed;
+        //sideways is a turret turn, by the arc length at the lasso's reach
+        double reach = ik.forwardReach(shoulderTargetAngle, elbowTargetAngle);
+        if (Math.abs(reach) < 1) return;
+        turretTargetAngle += Math.toDegrees(ADJUST_POSITION_SPEED * speed * robot.deltaTime / reach);
+        turretTargetAngle = Range.clip(turretTargetAngle, TURRET_DEG_MIN, TURRET_DEG_MAX);
     }
 
     public void adjustZ(double speed) {
-        fieldPositionTarget.z += ADJUST_HEIGHT_SPEED * speed;
+        jog(0, ADJUST_HEIGHT_SPEED * speed * robot.deltaTime);
+    }
+
+    //moves shoulder and elbow together through the jacobian, refusing steps that would cross a joint limit
+    private void jog(double dDistance, double dHeight) {
+        ik.jog(shoulderTargetAngle, elbowTargetAngle, dDistance, dHeight, JOG_DAMPING, jogAngles);
+        double shoulderAngle = shoulderTargetAngle + jogAngles[0], elbowAngle = elbowTargetAngle + jogAngles[1];
+        if (!ik.withinLimits(shoulderAngle, elbowAngle)) return;
+        shoulderTargetAngle = shoulderAngle;
+        elbowTargetAngle = elbowAngle;
     }
 
     JointAngle[] coneStackAngles = {
@@ -1045,17 +1256,17 @@ public class UnderArm implements Subsystem {
         shoulder.setPWM_PER_DEGREE(SHOULDER_PWM_PER_DEGREE);
         wrist.setPWM_PER_DEGREE(WRIST_PWM_PER_DEGREE);
 
-        Pose2d robotPosInches = robot.driveTrain.getPoseEstimate();
-        double headingRad = robot.driveTrain.getRawHeading();
-        double underArmLengthInches = robot.driveTrain.getChassisLength();
-
-        underArmPosition = new Vector3(robotPosInches.getX() + underArmLengthInches * Math.cos(headingRad),
-                robotPosInches.getY() + underArmLengthInches * Math.sin(headingRad),
-                UNDERARM_HEIGHT); //calculates and sets the position of underarm in world coordinates
+        robot.updateKinematics();
+        robot.frames.getPosition(robot.chariotFrame, underArmPosition); //the underarm's base in world coordinates
 
         chariotDistance = robot.driveTrain.getChassisLength();
 
+        if (routeHop == null && articulation == Articulation.manual && (shoulderTargetAngle != routeShoulderTarget
+                || elbowTargetAngle != routeElbowTarget || wristTargetAngle != routeWristTarget || turretTargetAngle != routeTurretTarget))
+            lastArticulation = Articulation.unknown; //moved by hand since the last articulation left it
         articulate(articulation);
+        //keeps track of where the underarm is in the graph when it's articulated directly
+        if (routeHop == null && transitions.contains(articulation)) lastArticulation = articulation;
 
         if (elbowTargetAngle > 150) {
             elbowTargetAngle = 150;
@@ -1068,16 +1279,67 @@ public class UnderArm implements Subsystem {
         } else if (shoulderTargetAngle < -100) {
             shoulderTargetAngle = -100;
         }
-
-        shoulder.setTargetAngle(shoulderTargetAngle);
-        elbow.setTargetAngle(elbowTargetAngle);
-        wrist.setTargetAngle(wristTargetAngle - 13); //the -17.5 is a kludgy way to account for the 35 degree mechanical range shifter - prolly still need to retune each wrist angle
+        routeShoulderTarget = shoulderTargetAngle;
+        routeElbowTarget = elbowTargetAngle;
+        routeWristTarget = wristTargetAngle;
+        routeTurretTarget = turretTargetAngle;
+
+        double now = robot.getLoopTime(); //one timestamp for every joint
+        double turretAngle = turretTargetAngle;
+        //a trajectory runs until it's done or something sets a target of its own
+        if (trajectory.isActive() && shoulderTargetAngle == trajectory.getFinalAngle(SHOULDER_JOINT)
+                && elbowTargetAngle == trajectory.getFinalAngle(ELBOW_JOINT) && wristTargetAngle == trajectory.getFinalAngle(WRIST_JOINT)
+                && turretTargetAngle == trajectory.getFinalAngle(TURRET_JOINT)) {
+            trajectory.sample(now, trajectoryAngles);
+            shoulder.followAngle(trajectoryAngles[SHOULDER_JOINT]);
+            elbow.followAngle(trajectoryAngles[ELBOW_JOINT]);
+            wrist.followAngle(trajectoryAngles[WRIST_JOINT] - WRIST_OFFSET);
+            turretAngle = trajectoryAngles[TURRET_JOINT];
+        } else {
+            trajectory.cancel();
+            shoulder.setTargetAngle(shoulderTargetAngle);
+            elbow.setTargetAngle(elbowTargetAngle);
+            wrist.setTargetAngle(wristTargetAngle - WRIST_OFFSET); //the -17.5 is a kludgy way to account for the 35 degree mechanical range shifter - prolly still need to retune each wrist angle
+        }
         //wristServo.setPosition(servoNormalizeExtended(wristServoValue(wristTargetAngle)));
-        turretServo.setPosition(servoNormalizeExtended(turretServoValue(turretTargetAngle)));
+        if (turretAngle != turretCommandAngle) {
+            turretServo.setPosition(servoNormalizeExtended(turretServoValue(turretAngle)));
+            turretCommandAngle = turretAngle;
+        }
+
+        elbow.update(now);
+        shoulder.update(now);
+        wrist.update(now);
+    }
+
+    //starts a synchronized move from where the joints are commanded now - add the poses with addJointWaypoint()
+    private void beginJointTrajectory() {
+        trajectory.setSpeed(SHOULDER_JOINT, SHOULDER_SPEED);
+        trajectory.setSpeed(ELBOW_JOINT, ELBOW_SPEED);
+        trajectory.setSpeed(WRIST_JOINT, WRIST_SPEED);
+        trajectory.setSpeed(TURRET_JOINT, TURRET_SPEED);
+        trajectoryAngles[SHOULDER_JOINT] = shoulder.getCurrentAngle();
+        trajectoryAngles[ELBOW_JOINT] = elbow.getCurrentAngle();
+        trajectoryAngles[WRIST_JOINT] = wrist.getCurrentAngle() + WRIST_OFFSET;
+        trajectoryAngles[TURRET_JOINT] = Double.isNaN(turretCommandAngle) ? turretTargetAngle : turretCommandAngle;
+        trajectory.begin(robot.getLoopTime(), trajectoryAngles);
+    }
+
+    //the next pose all the joints reach together - the last one added becomes the targets
+    private void addJointWaypoint(double shoulderAngle, double elbowAngle, double wristAngle, double turretAngle, double speedScale) {
+        trajectoryAngles[SHOULDER_JOINT] = Range.clip(shoulderAngle, -100, 100);
+        trajectoryAngles[ELBOW_JOINT] = Range.clip(elbowAngle, -150, 150);
+        trajectoryAngles[WRIST_JOINT] = wristAngle;
+        trajectoryAngles[TURRET_JOINT] = turretAngle;
+        trajectory.addWaypoint(trajectoryAngles, speedScale);
+        setShoulderTargetAngle(trajectoryAngles[SHOULDER_JOINT]);
+        setElbowTargetAngle(trajectoryAngles[ELBOW_JOINT]);
+        setWristTargetAngle(wristAngle);
+        setTurretTargetAngle(turretAngle);
+    }
 
-        elbow.update();
-        shoulder.update();
-        wrist.update();
+    public boolean trajectoryFinished() {
+        return !trajectory.isActive() || trajectory.isFinished(robot.getLoopTime());
     }
 
     public void setEnableLasso(boolean yayornay) {
@@ -1137,6 +1399,8 @@ public class UnderArm implements Subsystem {
         Map<String, Object> telemetryMap = new LinkedHashMap<>();
 
         telemetryMap.put("Current Articulation", articulation);
+        if (routeHop != null)
+            telemetryMap.put("Articulation Route", lastArticulation + " -> " + routeHop);
         telemetryMap.put("Transfer Stage", transferStage);
         telemetryMap.put("Can Stage", sixCanPickupPrepStage);
 
@@ -1147,6 +1411,7 @@ public class UnderArm implements Subsystem {
             telemetryMap.put("Turret Target Angle", turretTargetAngle);
             telemetryMap.put("Calc Elbow", calculatedElbowAngle);
             telemetryMap.put("Calc Shoulder", calculatedShoulderAngle);
+            telemetryMap.put("Calc Reachable", calculatedReachable);
             telemetryMap.put("Under Arm Pos X", underArmPosition.x);
             telemetryMap.put("Under Arm Pos Y", underArmPosition.y);
             telemetryMap.put("Under Arm Target X", fieldPositionTarget.x);
@@ -1,4 +0,0 @@
-package org.firstinspires.ftc.teamcode.robots.taubot.trajectorysequence;
-
-
-public class EmptySequenceException extends RuntimeException { }
@@ -82,7 +82,7 @@ public class DashboardUtil {
         canvas.strokeLine(x1, y1, x2, y2);
     }
 
-    public static void drawRobot(Canvas canvas, Constants.Position origin, Pose2d pose, List<Double> wheelVelocities, double turretHeading, double shoulderAngle, double extendInches, Vector3 fieldPositionTarget, List<Target> targets) {
+    public static void drawRobot(Canvas canvas, Constants.Position origin, Pose2d pose, double[] wheelVelocities, double turretHeading, double shoulderAngle, double extendInches, Vector3 fieldPositionTarget, List<Target> targets) {
         //set the origin for subsequent drawing coordinate
         canvas.setRotation(origin.getPose().headingVec().angle());
         canvas.setTranslation(origin.getPose().getX(), origin.getPose().getY());
@@ -109,8 +109,8 @@ public class DashboardUtil {
         Vector2d rightWheel = new Vector2d(0, -TRACK_WIDTH / 2);
 
         // calculating wheel vectors
-        Vector2d leftWheelEnd = leftWheel.plus(new Vector2d(VELOCITY_SCALE * wheelVelocities.get(0), 0));
-        Vector2d rightWheelEnd = rightWheel.plus(new Vector2d(VELOCITY_SCALE * wheelVelocities.get(1), 0));
+        Vector2d leftWheelEnd = leftWheel.plus(new Vector2d(VELOCITY_SCALE * wheelVelocities[0], 0));
+        Vector2d rightWheelEnd = rightWheel.plus(new Vector2d(VELOCITY_SCALE * wheelVelocities[1], 0));
 
         // rotating points by heading, translating by position
         double heading = pose.getHeading();
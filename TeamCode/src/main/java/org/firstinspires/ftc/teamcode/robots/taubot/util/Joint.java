@@ -21,6 +21,7 @@ public class Joint {
     private boolean targetIsHigher;
     String name;
     private double jointSpeed;
+    private double sentPosition = Double.NaN; //last position written to the servo
 
     //todo: possible issue - servo doesn't reach interimAngle and new setAngle assumes it has
     //todo: add servo feedback functionality
@@ -64,6 +65,14 @@ public class Joint {
         targetAngle = Range.clip(angle, DEG_MIN, DEG_MAX);
     }
 
+    /**
+     * Commands the angle directly, skipping the ramp - for setpoints that are already paced, like a JointTrajectory's
+     */
+    public void followAngle(double angle){
+        targetAngle = Range.clip(angle, DEG_MIN, DEG_MAX);
+        interimAngle = targetAngle;
+    }
+
     public void setTargetAngle(double angle, double speed){
         jointSpeed = speed;
         setTargetAngle(angle);
@@ -85,8 +94,14 @@ public class Joint {
     }
 
     public void update(){
+        update(System.nanoTime() / 1e9);
+    }
+
+    /**
+     * @param newTime seconds - pass the same loop timestamp to every joint so they ramp in step
+     */
+    public void update(double newTime){
 
-        double newTime= System.nanoTime() / 1e9;
         double deltaTime= newTime-oldTime;
         oldTime = newTime;
         //assume last deltaTime is predictive of next loop, calc interimAngle
@@ -94,7 +109,12 @@ public class Joint {
         if (targetAngle > 30)
             targetAngle = targetAngle;
         interimAngle = Range.clip(interimAngle + Math.signum(errAngle)*jointSpeed * deltaTime,Double.min(targetAngle,interimAngle), Double.max(targetAngle,interimAngle));
-        motor.setPosition(servoNormalize(calcTargetPosition(interimAngle)));
+        //only write on a change - repeating the same setpoint every loop is wasted hub traffic
+        double position = servoNormalize(calcTargetPosition(interimAngle));
+        if (position != sentPosition) {
+            motor.setPosition(position);
+            sentPosition = position;
+        }
     }
 
     private double calcTargetPosition(double targetPos) {
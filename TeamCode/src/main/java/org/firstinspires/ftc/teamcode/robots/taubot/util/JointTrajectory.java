@@ -0,0 +1,114 @@
+package org.firstinspires.ftc.teamcode.robots.taubot.util;
+
+/**
+ * Moves a set of servo joints through a list of waypoints together. Each leg takes as long as its slowest joint
+ * needs at that joint's speed and every other joint is slowed to match, so the joints all leave and reach each
+ * waypoint at the same moment. That makes a via-point a pose of the whole arm, which is what steers the arm
+ * around itself - elbow clear before the shoulder drops, and so on - without a timer per stage.
+ *
+ * Setpoints for every joint come from one timestamp per loop. Legs are linear, the same constant speed ramp
+ * Joint does on its own. Fixed capacity, nothing allocates after construction.
+ */
+public class JointTrajectory {
+
+    private final int jointCount;
+    private final double[] speeds;
+    private final double[][] waypoints;
+    private final double[] arrivalTimes; //seconds from the start to reaching each waypoint
+    private int waypointCount;
+    private double startTime;
+    private boolean active;
+
+    public JointTrajectory(int jointCount, int maxWaypoints) {
+        this.jointCount = jointCount;
+        speeds = new double[jointCount];
+        waypoints = new double[maxWaypoints + 1][jointCount]; //the start is waypoint 0
+        arrivalTimes = new double[maxWaypoints + 1];
+    }
+
+    /**
+     * @param speed degrees per second the joint moves at when it's the slowest in a leg
+     */
+    public void setSpeed(int joint, double speed) {
+        speeds[joint] = Math.abs(speed);
+    }
+
+    /**
+     * Starts a new trajectory from the angles the joints are at - add waypoints after
+     * @param time seconds, on the clock passed to sample()
+     */
+    public void begin(double time, double[] start) {
+        System.arraycopy(start, 0, waypoints[0], 0, jointCount);
+        arrivalTimes[0] = 0;
+        waypointCount = 1;
+        startTime = time;
+        active = true;
+    }
+
+    /**
+     * Adds the next pose. Call right after begin() - the legs are timed from when it was called.
+     * @param speedScale fraction of the joint speeds for this leg, below 1 to ease into a pose
+     */
+    public void addWaypoint(double[] angles, double speedScale) {
+        if (waypointCount == waypoints.length)
+            throw new IllegalStateException("trajectory is limited to " + (waypoints.length - 1) + " waypoints");
+        double[] previous = waypoints[waypointCount - 1], waypoint = waypoints[waypointCount];
+        double legTime = 0;
+        for (int j = 0; j < jointCount; j++) {
+            waypoint[j] = angles[j];
+            double speed = speeds[j] * speedScale;
+            if (angles[j] != previous[j])
+                legTime = Math.max(legTime, speed > 0 ? Math.abs(angles[j] - previous[j]) / speed : 0);
+        }
+        arrivalTimes[waypointCount] = arrivalTimes[waypointCount - 1] + legTime;
+        waypointCount++;
+    }
+
+    /**
+     * Fills out with every joint's setpoint at the time
+     */
+    public void sample(double time, double[] out) {
+        double t = time - startTime;
+        int leg = 1;
+        while (leg < waypointCount - 1 && t >= arrivalTimes[leg]) leg++;
+        if (waypointCount == 1 || t >= arrivalTimes[waypointCount - 1]) {
+            System.arraycopy(waypoints[waypointCount - 1], 0, out, 0, jointCount);
+            return;
+        }
+        double legStart = arrivalTimes[leg - 1], legTime = arrivalTimes[leg] - legStart;
+        double fraction = legTime > 0 ? Math.max(0, Math.min(1, (t - legStart) / legTime)) : 1;
+        double[] from = waypoints[leg - 1], to = waypoints[leg];
+        for (int j = 0; j < jointCount; j++)
+            out[j] = from[j] + (to[j] - from[j]) * fraction;
+    }
+
+    /**
+     * @return whether every joint has reached the waypoint - 1 is the first one added
+     */
+    public boolean hasReached(int waypoint, double time) {
+        return time - startTime >= arrivalTimes[Math.min(waypoint, waypointCount - 1)];
+    }
+
+    public boolean isFinished(double time) {
+        return hasReached(waypointCount - 1, time);
+    }
+
+    /**
+     * @return the angle the joint ends the trajectory at
+     */
+    public double getFinalAngle(int joint) {
+        return waypoints[waypointCount - 1][joint];
+    }
+
+    public double getDuration() {
+        return arrivalTimes[waypointCount - 1];
+    }
+
+    public boolean isActive() {
+        return active;
+    }
+
+    public void cancel() {
+        active = false;
+    }
+}
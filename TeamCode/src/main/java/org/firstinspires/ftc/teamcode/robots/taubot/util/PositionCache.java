@@ -1,36 +1,89 @@
 package org.firstinspires.ftc.teamcode.robots.taubot.util;
-import android.content.SharedPreferences;
 
-import com.google.gson.Gson;
-
-import org.firstinspires.ftc.teamcode.RC;
+import org.firstinspires.ftc.robotcore.internal.system.AppUtil;
+import org.firstinspires.ftc.teamcode.util.MappedStateStore;
 
+import java.io.File;
+import java.io.IOException;
 
+/**
+ * Carries the robot's pose and turret state across OpModes - written every loop in auton, read once when
+ * teleop inits. Backed by a MappedStateStore, so a write is a handful of stores into a mapped page rather than
+ * Gson plus a SharedPreferences XML rewrite, and a crash mid-write can't leave a half-written pose behind.
+ */
 public class PositionCache {
-    private int updateInterval;
-    SharedPreferences sharedPref = RC.a().getPreferences(RC.c().MODE_PRIVATE);
-    SharedPreferences.Editor editor = sharedPref.edit();
-    Gson gson = new Gson();
+
+    public static final File FILE = new File(AppUtil.ROOT_FOLDER + "/Cache/tau_position.bin");
+
+    private static final int X = 0, Y = 1, HEADING = 2, TURRET_HEADING = 3, TURRET_TICKS = 4, COUNT = 5;
+
+    private final int updateInterval;
+    private final double[] values = new double[COUNT];
+    private MappedStateStore store;
     private int cyclesSinceUpdate = 0;
 
-    public PositionCache(int updateInterval){
+    /**
+     * Writes on every update
+     */
+    public PositionCache() {
+        this(1);
+    }
+
+    /**
+     * @param updateInterval only every updateInterval'th update(TauPosition, false) is written
+     */
+    public PositionCache(int updateInterval) {
+        this(FILE, updateInterval);
+    }
+
+    /**
+     * @param file where the pose is kept, or null for no cache - writes are dropped and reads get the default pose
+     * @param updateInterval only every updateInterval'th update(TauPosition, false) is written
+     */
+    public PositionCache(File file, int updateInterval) {
         this.updateInterval = updateInterval;
+        if (file == null) return;
+        try {
+            store = new MappedStateStore(file, COUNT);
+        } catch (IOException e) {
+            //no cache - reads come back as a stale default pose, so the OpMode falls back to its start position
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Per-loop write - doesn't allocate
+     */
+    public void write(double x, double y, double heading, double turretHeading, int turretTicks) {
+        if (store == null) return;
+        values[X] = x;
+        values[Y] = y;
+        values[HEADING] = heading;
+        values[TURRET_HEADING] = turretHeading;
+        values[TURRET_TICKS] = turretTicks;
+        store.write(values);
     }
 
     public void writePose(TauPosition pos, boolean forceFlush) {
         pos.updateTime();
-        String json = gson.toJson(pos);
-        editor.putString("TauPosition", json);
-        if (forceFlush)
-            editor.commit();
-        else
-            editor.apply();
+        write(pos.getPose().getX(), pos.getPose().getY(), pos.getPose().getHeading(), pos.getTurretHeading(), pos.getTurretTicks());
+        if (forceFlush) flush();
+    }
+
+    /**
+     * Pushes the last write to storage - for stop(), per-loop writes survive the app being killed without it
+     */
+    public void flush() {
+        if (store != null) store.flush();
     }
 
-    public TauPosition readPose () {
-        String json = sharedPref.getString("TauPosition", "get failed"); //retrieves the shared preference
-        if(json.equals("get failed")) return new TauPosition(); //return a default zeroed TauPos if there's nothing in shared preferences
-        return gson.fromJson(json, TauPosition.class); //load the saved JSON into the cached class
+    /**
+     * @return the last pose written, or a zeroed pose stamped at the epoch if there isn't one
+     */
+    public TauPosition readPose() {
+        if (store == null || !store.read(values))
+            return new TauPosition(0, 0, 0, 0, 0, 0);
+        return new TauPosition(values[X], values[Y], values[HEADING], values[TURRET_HEADING], (int) values[TURRET_TICKS], store.getTimestamp());
     }
 
     public int update(TauPosition pos, boolean forceUpdate){
@@ -45,7 +98,4 @@ public class PositionCache {
         cyclesSinceUpdate++;
         return cyclesSinceUpdate;
     }
-
-
 }
-
@@ -30,6 +30,15 @@ public class TauPosition implements Serializable {
         timestamp = System.currentTimeMillis();
     }
 
+    public TauPosition(double chassisX, double chassisY, double chassisHeading, double turretHeading, int turretTicks, long timestamp) {
+        this.chassisX = chassisX;
+        this.chassisY = chassisY;
+        this.chassisHeading = chassisHeading;
+        this.turretHeading = turretHeading;
+        this.turretTicks = turretTicks;
+        this.timestamp = timestamp;
+    }
+
 
     public void setPose(Pose2d pose){
         this.chassisX = pose.getX();
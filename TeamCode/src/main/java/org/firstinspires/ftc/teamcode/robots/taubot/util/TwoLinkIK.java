@@ -0,0 +1,171 @@
+package org.firstinspires.ftc.teamcode.robots.taubot.util;
+
+/**
+ * Inverse kinematics for a planar two link arm - UnderArm's shoulder and elbow - in the arm's vertical plane.
+ * Reach is the horizontal distance out from the shoulder axis and height is up from it, in the units of the link
+ * lengths. Angles are degrees in the joints' own convention: the shoulder from vertical, positive leaning out, and
+ * the elbow as the bend from straight, positive bending the forearm down. The elbow-up branch has the elbow
+ * above the line from shoulder to target and a positive bend; the mirrored branch is the other one.
+ *
+ * solve() never hands out NaNs - a target past full reach (or inside the minimum) is solved for the nearest
+ * radius in the same direction and reported unreachable, as is one that needs a joint past its limits. The
+ * last solution is kept, so asking again for the same target is free.
+ *
+ * jacobian() and jog() map between joint and Cartesian motion for velocity jogging - jog() is damped least
+ * squares, so it slows down rather than blowing up as the arm straightens.
+ *
+ * The reachable workspace, joint limits included, is sampled onto a grid for each branch at construction, so
+ * canReach() is a lookup.
+ */
+public class TwoLinkIK {
+
+    private static final double RADIANS = Math.PI / 180;
+
+    public final double upperLength, lowerLength;
+    private final double shoulderMin, shoulderMax, elbowMin, elbowMax;
+
+    //workspace grid - square, centered on the shoulder, one bit per cell per branch
+    private final double gridOrigin, cellSize;
+    private final int gridSize;
+    private final boolean[] elbowUpGrid, mirroredGrid;
+
+    //last solve()
+    private double cachedReach = Double.NaN, cachedHeight = Double.NaN;
+    private boolean cachedMirrored, reachable;
+    private double shoulderAngle, elbowAngle;
+
+    private final double[] jacobian = new double[4];
+
+    public TwoLinkIK(double upperLength, double lowerLength, double shoulderMin, double shoulderMax,
+                     double elbowMin, double elbowMax, double cellSize) {
+        this.upperLength = upperLength;
+        this.lowerLength = lowerLength;
+        this.shoulderMin = shoulderMin;
+        this.shoulderMax = shoulderMax;
+        this.elbowMin = elbowMin;
+        this.elbowMax = elbowMax;
+        this.cellSize = cellSize;
+
+        double maxReach = upperLength + lowerLength;
+        gridSize = (int) Math.ceil(2 * maxReach / cellSize) + 1;
+        gridOrigin = -maxReach;
+        elbowUpGrid = new boolean[gridSize * gridSize];
+        mirroredGrid = new boolean[gridSize * gridSize];
+        for (int i = 0; i < gridSize; i++)
+            for (int j = 0; j < gridSize; j++) {
+                double reach = gridOrigin + (i + 0.5) * cellSize, height = gridOrigin + (j + 0.5) * cellSize;
+                elbowUpGrid[i * gridSize + j] = compute(reach, height, false);
+                mirroredGrid[i * gridSize + j] = compute(reach, height, true);
+            }
+        cachedReach = Double.NaN; //the grid pass went through the solver
+    }
+
+    /**
+     * Solves for the joint angles that put the end of the lower link at the target
+     * @return whether the target is in reach and within the joint limits - the angles are usable either way
+     */
+    public boolean solve(double reach, double height, boolean mirrored) {
+        if (reach == cachedReach && height == cachedHeight && mirrored == cachedMirrored)
+            return reachable;
+        reachable = compute(reach, height, mirrored);
+        cachedReach = reach;
+        cachedHeight = height;
+        cachedMirrored = mirrored;
+        return reachable;
+    }
+
+    //fills shoulderAngle and elbowAngle, returns reachability
+    private boolean compute(double reach, double height, boolean mirrored) {
+        double radius = Math.hypot(reach, height);
+        double minRadius = Math.abs(upperLength - lowerLength), maxRadius = upperLength + lowerLength;
+        boolean inReach = radius >= minRadius && radius <= maxRadius && radius > 0;
+        radius = Math.max(Math.min(radius, maxRadius), Math.max(minRadius, 1e-9));
+
+        double direction = Math.atan2(height, reach);
+        //law of cosines for the interior angle at the elbow and the angle between the upper link and the target line
+        double interior = Math.acos(clip((upperLength * upperLength + lowerLength * lowerLength - radius * radius)
+                / (2 * upperLength * lowerLength)));
+        double offset = Math.acos(clip((upperLength * upperLength + radius * radius - lowerLength * lowerLength)
+                / (2 * upperLength * radius)));
+        double bend = Math.PI - interior;
+        if (mirrored) {
+            shoulderAngle = 90 - (direction - offset) / RADIANS;
+            elbowAngle = -bend / RADIANS;
+        } else {
+            shoulderAngle = 90 - (direction + offset) / RADIANS;
+            elbowAngle = bend / RADIANS;
+        }
+        return inReach && withinLimits(shoulderAngle, elbowAngle);
+    }
+
+    private static double clip(double cosine) {
+        return Math.max(-1, Math.min(1, cosine));
+    }
+
+    public boolean withinLimits(double shoulderAngle, double elbowAngle) {
+        return shoulderAngle >= shoulderMin && shoulderAngle <= shoulderMax && elbowAngle >= elbowMin && elbowAngle <= elbowMax;
+    }
+
+    /**
+     * @return whether solve() would find the target reachable - a grid lookup, good to a cell
+     */
+    public boolean canReach(double reach, double height, boolean mirrored) {
+        int i = (int) Math.floor((reach - gridOrigin) / cellSize), j = (int) Math.floor((height - gridOrigin) / cellSize);
+        if (i < 0 || j < 0 || i >= gridSize || j >= gridSize) return false;
+        return (mirrored ? mirroredGrid : elbowUpGrid)[i * gridSize + j];
+    }
+
+    public double getShoulderAngle() {
+        return shoulderAngle;
+    }
+
+    public double getElbowAngle() {
+        return elbowAngle;
+    }
+
+    public boolean isReachable() {
+        return reachable;
+    }
+
+    public double forwardReach(double shoulderAngle, double elbowAngle) {
+        double upper = (90 - shoulderAngle) * RADIANS;
+        return upperLength * Math.cos(upper) + lowerLength * Math.cos(upper - elbowAngle * RADIANS);
+    }
+
+    public double forwardHeight(double shoulderAngle, double elbowAngle) {
+        double upper = (90 - shoulderAngle) * RADIANS;
+        return upperLength * Math.sin(upper) + lowerLength * Math.sin(upper - elbowAngle * RADIANS);
+    }
+
+    /**
+     * Partial derivatives of reach and height by shoulder and elbow angle, per degree
+     * @param out {dReach/dShoulder, dReach/dElbow, dHeight/dShoulder, dHeight/dElbow}
+     */
+    public void jacobian(double shoulderAngle, double elbowAngle, double[] out) {
+        double upper = (90 - shoulderAngle) * RADIANS, lower = upper - elbowAngle * RADIANS;
+        double lowerReach = lowerLength * Math.cos(lower), lowerHeight = lowerLength * Math.sin(lower);
+        double reach = upperLength * Math.cos(upper) + lowerReach, height = upperLength * Math.sin(upper) + lowerHeight;
+        out[0] = RADIANS * height;
+        out[1] = RADIANS * lowerHeight;
+        out[2] = -RADIANS * reach;
+        out[3] = -RADIANS * lowerReach;
+    }
+
+    /**
+     * The joint angle changes that move the end by dReach, dHeight from the given angles - damped least squares,
+     * so near a straight arm it moves less rather than spinning the joints
+     * @param damping in the units of reach per degree - larger is steadier and slower near singularities
+     * @param out {dShoulder, dElbow}
+     */
+    public void jog(double shoulderAngle, double elbowAngle, double dReach, double dHeight, double damping, double[] out) {
+        jacobian(shoulderAngle, elbowAngle, jacobian);
+        double a = jacobian[0], b = jacobian[1], c = jacobian[2], d = jacobian[3];
+        //dq = J' (J J' + damping^2 I)^-1 dx, with the 2x2 inverse written out
+        double lambda = damping * damping;
+        double m00 = a * a + b * b + lambda, m01 = a * c + b * d, m11 = c * c + d * d + lambda;
+        double determinant = m00 * m11 - m01 * m01;
+        double y0 = (m11 * dReach - m01 * dHeight) / determinant, y1 = (m00 * dHeight - m01 * dReach) / determinant;
+        out[0] = a * y0 + c * y1;
+        out[1] = b * y0 + d * y1;
+    }
+}
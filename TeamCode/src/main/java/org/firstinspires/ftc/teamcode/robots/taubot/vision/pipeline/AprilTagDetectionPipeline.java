@@ -25,6 +25,7 @@ package org.firstinspires.ftc.teamcode.robots.taubot.vision.pipeline;
 import android.graphics.Bitmap;
 
 import org.firstinspires.ftc.teamcode.robots.taubot.vision.Position;
+import org.firstinspires.ftc.teamcode.util.FieldTagLocalizer;
 import org.opencv.android.Utils;
 import org.opencv.calib3d.Calib3d;
 import org.opencv.core.CvType;
@@ -39,11 +40,11 @@ import org.opencv.imgproc.Imgproc;
 import org.openftc.apriltag.AprilTagDetection;
 import org.openftc.apriltag.AprilTagDetectorJNI;
 import org.openftc.apriltag.AprilTagPose;
-import org.openftc.easyopencv.OpenCvPipeline;
+import org.openftc.easyopencv.TimestampedOpenCvPipeline;
 
 import java.util.ArrayList;
 
-public class AprilTagDetectionPipeline extends OpenCvPipeline
+public class AprilTagDetectionPipeline extends TimestampedOpenCvPipeline
 {
     private long nativeApriltagPtr;
     private Mat grey = new Mat();
@@ -56,6 +57,12 @@ public class AprilTagDetectionPipeline extends OpenCvPipeline
     private final Object detectionsUpdateSync = new Object();
     private volatile Position lastPosition;
 
+    //field localization - solved on the vision thread, handed to the loop thread through pollSolution()
+    private volatile FieldTagLocalizer fieldLocalizer;
+    private final FieldTagLocalizer.Solution solution = new FieldTagLocalizer.Solution();
+    private final FieldTagLocalizer.Solution publishedSolution = new FieldTagLocalizer.Solution();
+    private boolean solutionPending;
+
     Mat cameraMatrix;
 
     Scalar blue = new Scalar(7,197,235,255);
@@ -111,7 +118,7 @@ public class AprilTagDetectionPipeline extends OpenCvPipeline
     }
 
     @Override
-    public Mat processFrame(Mat input)
+    public Mat processFrame(Mat input, long captureTimeNanos)
     {
         // Convert to greyscale
         Imgproc.cvtColor(input, grey, Imgproc.COLOR_RGBA2GRAY);
@@ -133,6 +140,16 @@ public class AprilTagDetectionPipeline extends OpenCvPipeline
             detectionsUpdate = detections;
         }
 
+        FieldTagLocalizer localizer = fieldLocalizer;
+        if(localizer != null && localizer.solve(detections, captureTimeNanos, solution))
+        {
+            synchronized (publishedSolution)
+            {
+                publishedSolution.copyFrom(solution);
+                solutionPending = true;
+            }
+        }
+
         // For fun, use OpenCV to draw 6DOF markers on the image.
         for(AprilTagDetection detection : detections)
         {
@@ -198,6 +215,25 @@ public class AprilTagDetectionPipeline extends OpenCvPipeline
         return lastPosition;
     }
 
+    /**
+     * Solves every frame's field tags into a robot pose with this localizer - null turns it off
+     */
+    public void setFieldLocalizer(FieldTagLocalizer fieldLocalizer) {
+        this.fieldLocalizer = fieldLocalizer;
+    }
+
+    /**
+     * Copies the newest field pose solution into out, if there's one that hasn't been polled yet
+     */
+    public boolean pollSolution(FieldTagLocalizer.Solution out) {
+        synchronized (publishedSolution) {
+            if (!solutionPending) return false;
+            out.copyFrom(publishedSolution);
+            solutionPending = false;
+            return true;
+        }
+    }
+
     void constructMatrix()
     {
         //     Construct the camera matrix.
@@ -10,6 +10,7 @@ import org.firstinspires.ftc.robotcore.internal.system.Misc;
 import org.firstinspires.ftc.teamcode.robots.taubot.vision.Position;
 import org.firstinspires.ftc.teamcode.robots.taubot.vision.VisionProvider;
 import org.firstinspires.ftc.teamcode.robots.taubot.vision.pipeline.AprilTagDetectionPipeline;
+import org.firstinspires.ftc.teamcode.util.FieldTagLocalizer;
 import org.opencv.android.Utils;
 import org.opencv.core.CvType;
 import org.opencv.core.Mat;
@@ -34,6 +35,9 @@ public class AprilTagProvider extends VisionProvider {
     private AprilTagDetectionPipeline pipeline;
     private volatile boolean cameraOpened;
     private volatile Position lastPosition;
+    private FieldTagLocalizer fieldLocalizer;
+    private final FieldTagLocalizer.Solution fieldSolution = new FieldTagLocalizer.Solution();
+    private int fieldPosesApplied;
 
     // Constants
     private static final String TELEMETRY_NAME = "April Tag Vision Provider";
@@ -41,6 +45,20 @@ public class AprilTagProvider extends VisionProvider {
     public static int WEBCAM_HEIGHT = 448;
     static final double FEET_PER_METER = 3.28084;
 
+    // Field localization - solves the robot pose from field tags and feeds it to Robot.applyVisionPose()
+    public static boolean FIELD_LOCALIZATION = false;
+    // "id,x,y,z,facingDegrees,sizeInches;..." - field inches, facing counter-clockwise from +x.
+    // Power Play fields don't carry wall tags, so this is empty until tags are mounted and measured
+    public static String FIELD_TAGS = "";
+    private static String lastGoodFieldTags = ""; //kept across opmodes so a dashboard typo falls back to the last layout that parsed
+    private boolean fieldTagsRejected;
+    // Camera mounting relative to the robot center - inches and degrees, yaw counter-clockwise, pitch up
+    public static double CAMERA_FORWARD = 0;
+    public static double CAMERA_LEFT = 0;
+    public static double CAMERA_HEIGHT = 8;
+    public static double CAMERA_YAW = 0;
+    public static double CAMERA_PITCH = 0;
+
     // Lens intrinsics
     // UNITS ARE PIXELS
     // NOTE: this calibration is for the C920 webcam at 800x448.
@@ -51,9 +69,38 @@ public class AprilTagProvider extends VisionProvider {
     double cy = 221.506;
     // UNITS ARE METERS
     double tagsize = 0.045; //tag size on iron reign signal sleeve
+    /**
+     * Replaces the field localizer's tag layout with one parsed from FIELD_TAGS format.
+     * @return false if a number doesn't parse - the layout is left empty
+     */
+    private boolean loadFieldTags(String tags) {
+        fieldLocalizer.clearTags();
+        try {
+            for(String tag : tags.split(";")) {
+                String[] values = tag.split(",");
+                if(values.length != 6) continue;
+                fieldLocalizer.addTag(Integer.parseInt(values[0].trim()), Double.parseDouble(values[1]), Double.parseDouble(values[2]),
+                        Double.parseDouble(values[3]), Math.toRadians(Double.parseDouble(values[4])), Double.parseDouble(values[5]));
+            }
+        } catch (NumberFormatException e) {
+            fieldLocalizer.clearTags();
+            return false;
+        }
+        lastGoodFieldTags = tags;
+        return true;
+    }
+
     @Override
     public void initializeVision(HardwareMap hardwareMap) {
         pipeline = new AprilTagDetectionPipeline(tagsize, fx, fy, cx, cy);
+        if(FIELD_LOCALIZATION) {
+            fieldLocalizer = new FieldTagLocalizer(fx, fy, cx, cy, tagsize);
+            fieldLocalizer.setCameraExtrinsics(CAMERA_FORWARD, CAMERA_LEFT, CAMERA_HEIGHT, Math.toRadians(CAMERA_YAW), Math.toRadians(CAMERA_PITCH));
+            fieldTagsRejected = !loadFieldTags(FIELD_TAGS);
+            if(fieldTagsRejected)
+                loadFieldTags(lastGoodFieldTags);
+            pipeline.setFieldLocalizer(fieldLocalizer);
+        }
         camera = OpenCvCameraFactory.getInstance().createWebcam(hardwareMap.get(WebcamName.class, "Webcam 1"));
 
         noCameraBitmap = Bitmap.createBitmap(320, 240, Bitmap.Config.RGB_565);
@@ -123,6 +170,12 @@ public class AprilTagProvider extends VisionProvider {
             telemetryMap.put("Overhead time ms", camera.getOverheadTimeMs());
             telemetryMap.put("Theoretical max FPS", camera.getCurrentPipelineMaxFps());
         }
+        if(fieldLocalizer != null) {
+            fieldLocalizer.addTelemetry(telemetryMap, fieldSolution);
+            telemetryMap.put("Field poses applied", fieldPosesApplied);
+            if(fieldTagsRejected)
+                telemetryMap.put("FIELD_TAGS", "didn't parse - using last good layout");
+        }
 
         return telemetryMap;
     }
@@ -134,6 +187,9 @@ public class AprilTagProvider extends VisionProvider {
 
     @Override
     public void updateVision() {
-
+        if(robot != null && pipeline != null && pipeline.pollSolution(fieldSolution)
+                && robot.applyVisionPose(fieldSolution.x, fieldSolution.y, fieldSolution.heading, fieldSolution.captureNanos,
+                        fieldSolution.getPositionVariance(), fieldSolution.getHeadingVariance()))
+            fieldPosesApplied++;
     }
 }
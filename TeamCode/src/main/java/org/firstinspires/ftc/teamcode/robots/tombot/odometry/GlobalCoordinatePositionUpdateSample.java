@@ -23,6 +23,10 @@ public class GlobalCoordinatePositionUpdateSample extends LinearOpMode {
     //Hardware map names for the encoder wheels. Again, these will change for each robot and need to be updated below
     String verticalLeftEncoderName = "rf", verticalRightEncoderName = "lf", horizontalEncoderName = "lb";
 
+    //set false to go back to the 75 ms sleep loop
+    final boolean HIGH_RATE_ODOMETRY = true;
+    final int HIGH_RATE_PERIOD_MS = 5;
+
     @Override
     public void runOpMode() throws InterruptedException {
 
@@ -62,15 +66,33 @@ public class GlobalCoordinatePositionUpdateSample extends LinearOpMode {
          */
 
         //Create and start GlobalCoordinatePosition thread to constantly update the global coordinate positions\
-        Localizer globalPositionUpdate = new Localizer(verticalLeft, verticalRight, horizontal, COUNTS_PER_INCH, 75);
+        Localizer globalPositionUpdate = HIGH_RATE_ODOMETRY ?
+                new Localizer(verticalLeft, verticalRight, horizontal, COUNTS_PER_INCH, HIGH_RATE_PERIOD_MS, true) :
+                new Localizer(verticalLeft, verticalRight, horizontal, COUNTS_PER_INCH, 75);
         Thread positionThread = new Thread(globalPositionUpdate);
         positionThread.start();
 
+        OdometryEngine engine = globalPositionUpdate.getEngine();
+        OdometryEngine.Snapshot pose = new OdometryEngine.Snapshot();
+
         while(opModeIsActive()){
             //Display Global (x, y, theta) coordinates
-            telemetry.addData("X Position", globalPositionUpdate.returnXCoordinate() / COUNTS_PER_INCH);
-            telemetry.addData("Y Position", globalPositionUpdate.returnYCoordinate() / COUNTS_PER_INCH);
-            telemetry.addData("Orientation (Degrees)", globalPositionUpdate.returnOrientation());
+            if(engine != null) {
+                //one consistent reading rather than three separate ones
+                engine.read(pose);
+                telemetry.addData("X Position", pose.x / COUNTS_PER_INCH);
+                telemetry.addData("Y Position", pose.y / COUNTS_PER_INCH);
+                telemetry.addData("Orientation (Degrees)", Math.toDegrees(pose.heading) % 360);
+                telemetry.addData("Pose Age (ms)", (System.nanoTime() - pose.timestampNanos) / 1e6);
+                telemetry.addData("Odometry Updates", pose.updateCount);
+                telemetry.addData("Odometry Update (ms)", "%.2f avg, %.2f max", engine.getAverageUpdateMillis(), engine.getMaxUpdateMillis());
+                telemetry.addData("Odometry Period (ms)", "%.2f last, %.2f max, %.2f target", engine.getLastPeriodMillis(), engine.getMaxPeriodMillis(), engine.getTargetPeriodMillis());
+                telemetry.addData("Missed Deadlines", engine.getMissedDeadlines());
+            } else {
+                telemetry.addData("X Position", globalPositionUpdate.returnXCoordinate() / COUNTS_PER_INCH);
+                telemetry.addData("Y Position", globalPositionUpdate.returnYCoordinate() / COUNTS_PER_INCH);
+                telemetry.addData("Orientation (Degrees)", globalPositionUpdate.returnOrientation());
+            }
             telemetry.addData("Thread Active", positionThread.isAlive());
             telemetry.update();
         }
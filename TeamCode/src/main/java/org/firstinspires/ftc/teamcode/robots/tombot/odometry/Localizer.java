@@ -34,6 +34,9 @@ public class Localizer implements Runnable{
     private int verticalRightEncoderPositionMultiplier = 1;
     private int normalEncoderPositionMultiplier = 1;
 
+    //fixed-rate engine that replaces the sleep loop when enabled
+    private OdometryEngine engine;
+
     /**
      * Constructor for GlobalCoordinatePosition Thread
      * @param verticalEncoderLeft left odometry encoder, facing the vertical direction
@@ -52,6 +55,24 @@ public class Localizer implements Runnable{
 
     }
 
+    /**
+     * Constructor for GlobalCoordinatePosition Thread, optionally backed by the high-rate OdometryEngine
+     * @param threadSleepDelay delay in milliseconds for the sleep loop, or the fixed update period when highRate is set (5-10 milliseconds is plenty)
+     * @param highRate integrate on a fixed schedule with arc integration and consistent pose snapshots
+     */
+    public Localizer(DcMotor verticalEncoderLeft, DcMotor verticalEncoderRight, DcMotor horizontalEncoder, double COUNTS_PER_INCH, int threadSleepDelay, boolean highRate){
+        this(verticalEncoderLeft, verticalEncoderRight, horizontalEncoder, COUNTS_PER_INCH, threadSleepDelay);
+        //null horizontal encoder - same as n = 0 below, we don't have a center/cross encoder on our diff steer 2 wheel robot
+        if(highRate)
+            engine = new OdometryEngine(verticalEncoderLeft, verticalEncoderRight, null,
+                    robotEncoderWheelDistance, horizontalEncoderTickPerDegreeOffset, threadSleepDelay * 1000L);
+    }
+
+    /**
+     * @return the high-rate engine, for consistent snapshots and timing stats, or null if using the sleep loop
+     */
+    public OdometryEngine getEngine(){ return engine; }
+
     /**
      * Updates the global (x, y, theta) coordinate position of the robot using the odometry encoders
      */
@@ -90,24 +111,27 @@ public class Localizer implements Runnable{
      * Returns the robot's global x coordinate
      * @return global x coordinate
      */
-    public double returnXCoordinate(){ return robotGlobalXCoordinatePosition; }
+    public double returnXCoordinate(){ return engine != null ? engine.getX() : robotGlobalXCoordinatePosition; }
 
     /**
      * Returns the robot's global y coordinate
      * @return global y coordinate
      */
-    public double returnYCoordinate(){ return robotGlobalYCoordinatePosition; }
+    public double returnYCoordinate(){ return engine != null ? engine.getY() : robotGlobalYCoordinatePosition; }
 
     /**
      * Returns the robot's global orientation
      * @return global orientation, in degrees
      */
-    public double returnOrientation(){ return Math.toDegrees(robotOrientationRadians) % 360; }
+    public double returnOrientation(){ return Math.toDegrees(engine != null ? engine.getHeading() : robotOrientationRadians) % 360; }
 
     /**
      * Stops the position update thread
      */
-    public void stop(){ isRunning = false; }
+    public void stop(){
+        isRunning = false;
+        if(engine != null) engine.stop();
+    }
 
     public void reverseLeftEncoder(){
         if(verticalLeftEncoderPositionMultiplier == 1){
@@ -115,6 +139,7 @@ public class Localizer implements Runnable{
         }else{
             verticalLeftEncoderPositionMultiplier = 1;
         }
+        syncEngineMultipliers();
     }
 
     public void reverseRightEncoder(){
@@ -123,6 +148,7 @@ public class Localizer implements Runnable{
         }else{
             verticalRightEncoderPositionMultiplier = 1;
         }
+        syncEngineMultipliers();
     }
 
     public void reverseNormalEncoder(){
@@ -131,6 +157,12 @@ public class Localizer implements Runnable{
         }else{
             normalEncoderPositionMultiplier = 1;
         }
+        syncEngineMultipliers();
+    }
+
+    private void syncEngineMultipliers(){
+        if(engine != null)
+            engine.setEncoderMultipliers(verticalLeftEncoderPositionMultiplier, verticalRightEncoderPositionMultiplier, normalEncoderPositionMultiplier);
     }
 
     /**
@@ -138,6 +170,10 @@ public class Localizer implements Runnable{
      */
     @Override
     public void run() {
+        if(engine != null) {
+            engine.run();
+            return;
+        }
         while(isRunning) {
             LocalizerUpdate();
             try {
@@ -0,0 +1,205 @@
+package org.firstinspires.ftc.teamcode.robots.tombot.odometry;
+
+import com.qualcomm.robotcore.hardware.DcMotor;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Fixed-rate replacement for the Localizer's sleep loop. Integrates the odometry wheels on a fixed schedule
+ * (the next deadline is advanced by the period, not by "sleep after the work") and integrates each step along
+ * the arc the robot actually drove rather than along the final heading.
+ *
+ * The pose is written by the engine thread only and published through a sequence lock, so a reader on the
+ * OpMode thread always gets x, y, heading and timestamp from the same update without either side blocking
+ * or allocating. All positions are in encoder ticks, like the Localizer.
+ */
+public class OdometryEngine implements Runnable {
+
+    /**
+     * One consistent pose reading. Owned by the caller and filled in by read() so readers don't allocate.
+     */
+    public static class Snapshot {
+        public double x, y, heading; //ticks, ticks, radians
+        public long timestampNanos; //System.nanoTime() of the encoder reads this pose came from
+        public long updateCount;
+    }
+
+    //Odometry wheels
+    private final DcMotor verticalEncoderLeft, verticalEncoderRight, horizontalEncoder;
+
+    //Algorithm constants
+    private final double robotEncoderWheelDistance;
+    private final double horizontalEncoderTickPerRadianOffset;
+    private final long periodNanos;
+
+    private volatile int verticalLeftEncoderPositionMultiplier = 1;
+    private volatile int verticalRightEncoderPositionMultiplier = 1;
+    private volatile int normalEncoderPositionMultiplier = 1;
+
+    private volatile boolean isRunning = true;
+
+    //engine thread state
+    private double x, y, heading;
+    private double previousLeft, previousRight, previousNormal;
+    private boolean primed;
+
+    //sequence lock - odd while the engine thread is mid-write. The published fields are volatile too,
+    //so their reads can't be reordered past the second read of the sequence
+    private volatile long sequence;
+    private volatile double publishedX, publishedY, publishedHeading;
+    private volatile long publishedTimestamp;
+
+    //timing stats, written by the engine thread only
+    private volatile long updateCount, missedDeadlines;
+    private volatile long lastUpdateNanos, maxUpdateNanos, totalUpdateNanos;
+    private volatile long lastPeriodNanos, maxPeriodNanos;
+
+    /**
+     * @param horizontalEncoder horizontal odometry encoder, or null on a robot without one (the Tombot)
+     * @param robotEncoderWheelDistance distance between the vertical wheels, in ticks
+     * @param horizontalEncoderTickPerRadianOffset horizontal ticks per radian of rotation, from OdometryCalibration
+     * @param periodMicros update period in microseconds
+     */
+    public OdometryEngine(DcMotor verticalEncoderLeft, DcMotor verticalEncoderRight, DcMotor horizontalEncoder,
+                          double robotEncoderWheelDistance, double horizontalEncoderTickPerRadianOffset, long periodMicros) {
+        this.verticalEncoderLeft = verticalEncoderLeft;
+        this.verticalEncoderRight = verticalEncoderRight;
+        this.horizontalEncoder = horizontalEncoder;
+        this.robotEncoderWheelDistance = robotEncoderWheelDistance;
+        this.horizontalEncoderTickPerRadianOffset = horizontalEncoderTickPerRadianOffset;
+        this.periodNanos = periodMicros * 1000;
+    }
+
+    public void setEncoderMultipliers(int verticalLeft, int verticalRight, int normal) {
+        verticalLeftEncoderPositionMultiplier = verticalLeft;
+        verticalRightEncoderPositionMultiplier = verticalRight;
+        normalEncoderPositionMultiplier = normal;
+    }
+
+    /**
+     * Reads the encoders and integrates one step. Only ever called from the engine thread.
+     */
+    private void update(long timestamp) {
+        double left = verticalEncoderLeft.getCurrentPosition() * verticalLeftEncoderPositionMultiplier;
+        double right = verticalEncoderRight.getCurrentPosition() * verticalRightEncoderPositionMultiplier;
+        double normal = horizontalEncoder == null ? 0 : horizontalEncoder.getCurrentPosition() * normalEncoderPositionMultiplier;
+
+        if (!primed) {
+            //the first reading only establishes where the encoders are
+            previousLeft = left;
+            previousRight = right;
+            previousNormal = normal;
+            primed = true;
+        }
+
+        double leftChange = left - previousLeft;
+        double rightChange = right - previousRight;
+        double dTheta = (leftChange - rightChange) / robotEncoderWheelDistance;
+        double p = (leftChange + rightChange) / 2;
+        double n = (normal - previousNormal) - dTheta * horizontalEncoderTickPerRadianOffset;
+
+        //constant curvature over the step: rotate the chord by the starting heading instead of the final one
+        double sinTerm, cosTerm;
+        if (Math.abs(dTheta) < 1e-6) {
+            sinTerm = 1 - dTheta * dTheta / 6;
+            cosTerm = dTheta / 2;
+        } else {
+            sinTerm = Math.sin(dTheta) / dTheta;
+            cosTerm = (1 - Math.cos(dTheta)) / dTheta;
+        }
+        double forward = p * sinTerm - n * cosTerm;
+        double strafe = p * cosTerm + n * sinTerm;
+
+        //same frame as the Localizer - heading is clockwise from the y axis
+        double sin = Math.sin(heading), cos = Math.cos(heading);
+        x += forward * sin + strafe * cos;
+        y += forward * cos - strafe * sin;
+        heading += dTheta;
+
+        previousLeft = left;
+        previousRight = right;
+        previousNormal = normal;
+
+        publish(timestamp);
+    }
+
+    private void publish(long timestamp) {
+        long s = sequence;
+        sequence = s + 1;
+        publishedX = x;
+        publishedY = y;
+        publishedHeading = heading;
+        publishedTimestamp = timestamp;
+        sequence = s + 2;
+    }
+
+    /**
+     * Copies the latest pose into out. Retries if the engine thread published while it was being copied.
+     * @return out
+     */
+    public Snapshot read(Snapshot out) {
+        long before, after;
+        do {
+            before = sequence;
+            out.x = publishedX;
+            out.y = publishedY;
+            out.heading = publishedHeading;
+            out.timestampNanos = publishedTimestamp;
+            after = sequence;
+        } while (before != after || (before & 1) != 0);
+        out.updateCount = before / 2;
+        return out;
+    }
+
+    //single-value getters - each is one volatile read, so fine on its own but not mutually consistent
+    public double getX() { return publishedX; }
+    public double getY() { return publishedY; }
+    public double getHeading() { return publishedHeading; }
+
+    public long getUpdateCount() { return updateCount; }
+    public long getMissedDeadlines() { return missedDeadlines; }
+    public double getLastUpdateMillis() { return lastUpdateNanos / 1e6; }
+    public double getMaxUpdateMillis() { return maxUpdateNanos / 1e6; }
+    public double getAverageUpdateMillis() { long count = updateCount; return count == 0 ? 0 : totalUpdateNanos / 1e6 / count; }
+    public double getLastPeriodMillis() { return lastPeriodNanos / 1e6; }
+    public double getMaxPeriodMillis() { return maxPeriodNanos / 1e6; }
+    public double getTargetPeriodMillis() { return periodNanos / 1e6; }
+
+    /**
+     * Stops the engine thread after its current update
+     */
+    public void stop() { isRunning = false; }
+
+    @Override
+    public void run() {
+        long deadline = System.nanoTime();
+        long lastStart = 0;
+        while (isRunning && !Thread.currentThread().isInterrupted()) {
+            long start = System.nanoTime();
+            update(start);
+            long end = System.nanoTime();
+
+            long elapsed = end - start;
+            lastUpdateNanos = elapsed;
+            maxUpdateNanos = Math.max(maxUpdateNanos, elapsed);
+            totalUpdateNanos += elapsed;
+            if (lastStart != 0) {
+                lastPeriodNanos = start - lastStart;
+                maxPeriodNanos = Math.max(maxPeriodNanos, lastPeriodNanos);
+            }
+            lastStart = start;
+            updateCount++;
+
+            deadline += periodNanos;
+            if (end >= deadline) {
+                //overran - skip the deadlines we missed rather than running back-to-back updates to catch up
+                long missed = (end - deadline) / periodNanos + 1;
+                missedDeadlines += missed;
+                deadline += missed * periodNanos;
+            }
+            long remaining;
+            while ((remaining = deadline - System.nanoTime()) > 0 && isRunning)
+                LockSupport.parkNanos(remaining);
+        }
+    }
+}
@@ -37,7 +37,7 @@ import com.qualcomm.robotcore.eventloop.opmode.TeleOp;
 import com.qualcomm.robotcore.util.ElapsedTime;
 
 import org.firstinspires.ftc.robotcore.internal.system.Misc;
-import org.firstinspires.ftc.teamcode.robots.taubot.util.ExponentialSmoother;
+import org.firstinspires.ftc.teamcode.util.ExponentialSmoother;
 import org.firstinspires.ftc.teamcode.robots.taubot.util.PositionCache;
 import org.firstinspires.ftc.teamcode.robots.taubot.util.TauPosition;
 
@@ -0,0 +1,107 @@
+package org.firstinspires.ftc.teamcode.util;
+
+/**
+ * Reads the number of bytes allocated so far by the calling thread.
+ * On the robot controller this uses ART's allocation counters from android.os.Debug, and on a desktop JVM
+ * it uses the HotSpot ThreadMXBean, found by reflection since it isn't in android.jar. Each lives in its own
+ * nested class so the runtime we're not on never has to load (or verify) the other one's classes.
+ *
+ * Only differences between two readings mean anything - take one before and one after the code being
+ * measured, on the same thread.
+ */
+public class AllocationCounter {
+
+    private static final boolean ART = System.getProperty("java.vm.name", "").toLowerCase().contains("dalvik");
+    private static boolean started = false;
+    private static boolean unavailable = false; //start() failed once - don't keep paying for the exception
+
+    /**
+     * Turns on counting - ART's global allocation counters, or the HotSpot bean's per-thread counting on the JVM.
+     * Readings are 0 until this has been called.
+     */
+    public static synchronized void start() {
+        if (started || unavailable) return;
+        try {
+            if (ART) ArtCounter.start();
+            else JvmCounter.start();
+            started = true;
+        } catch (Throwable t) {
+            //counting unsupported on this runtime - readings stay at zero
+            unavailable = true;
+        }
+    }
+
+    public static synchronized void stop() {
+        if (!started) return;
+        if (ART) ArtCounter.stop();
+        started = false;
+    }
+
+    public static boolean isStarted() {
+        return started;
+    }
+
+    /**
+     * @return bytes allocated by the current thread since counting started, or 0 if counting isn't available
+     */
+    public static long threadAllocatedBytes() {
+        if (!started) return 0;
+        return ART ? ArtCounter.threadAllocatedBytes() : JvmCounter.threadAllocatedBytes();
+    }
+
+    @SuppressWarnings("deprecation")
+    private static class ArtCounter {
+        static void start() {
+            android.os.Debug.startAllocCounting();
+        }
+
+        static void stop() {
+            android.os.Debug.stopAllocCounting();
+        }
+
+        static long threadAllocatedBytes() {
+            return android.os.Debug.getThreadAllocSize();
+        }
+    }
+
+    //the HotSpot bean isn't in android.jar, so it's only reached by reflection - nothing here names a class the
+    //robot controller's compiler or verifier would have to find
+    private static class JvmCounter {
+        private static final Object[] NO_ARGUMENTS = new Object[0];
+        private static Object bean;
+        private static java.lang.reflect.Method allocatedBytes;
+        private static long readingOverhead; //bytes each reflective call itself allocates (the boxed result)
+        //readings taken so far on each thread - the counter is per thread, so the boxes it has to discount are too
+        private static final ThreadLocal<long[]> readings = new ThreadLocal<long[]>() {
+            @Override
+            protected long[] initialValue() {
+                return new long[1];
+            }
+        };
+
+        static void start() throws ReflectiveOperationException {
+            Object threadBean = Class.forName("java.lang.management.ManagementFactory").getMethod("getThreadMXBean").invoke(null);
+            Class<?> hotSpotBean = Class.forName("com.sun.management.ThreadMXBean");
+            hotSpotBean.getMethod("setThreadAllocatedMemoryEnabled", boolean.class).invoke(threadBean, true);
+            allocatedBytes = hotSpotBean.getMethod("getCurrentThreadAllocatedBytes");
+            bean = threadBean;
+            for (int i = 0; i < 100; i++) read(); //settle the reflective call before measuring what it costs
+            long first = read();
+            readingOverhead = read() - first;
+        }
+
+        private static long read() {
+            try {
+                return (Long) allocatedBytes.invoke(bean, NO_ARGUMENTS);
+            } catch (ReflectiveOperationException e) {
+                return 0;
+            }
+        }
+
+        //every earlier reading's box on this thread counts against this one, so take them all back off
+        static long threadAllocatedBytes() {
+            long[] count = readings.get(); //before the reading, so the first one's slot isn't counted in it
+            return read() - readingOverhead * count[0]++;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package org.firstinspires.ftc.teamcode.util;
+
+import org.firstinspires.ftc.robotcore.internal.system.Misc;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps per-tick allocation counts for a fixed set of named slots (one per subsystem) plus the loop as a whole.
+ * Allocation in the control loop is what feeds ART's GC, and GC pauses are what show up as loop time spikes,
+ * so this is the allocation counterpart of the update times Robot already reports.
+ *
+ * All readings come from AllocationCounter and have to be taken on the loop thread. Nothing here allocates
+ * once constructed, so turning profiling on doesn't change what it measures.
+ */
+public class AllocationProfiler {
+
+    private final String[] names;
+    private final long[] lastBytes, peakBytes, totalBytes;
+    private long loopStartBytes, slotStartBytes;
+    private long lastLoopBytes, peakLoopBytes, totalLoopBytes;
+    private int ticks;
+
+    public AllocationProfiler(String... names) {
+        this.names = names;
+        lastBytes = new long[names.length];
+        peakBytes = new long[names.length];
+        totalBytes = new long[names.length];
+    }
+
+    /**
+     * Counting starts here the first time, so a profiler that's never used never turns ART's counters on
+     */
+    public void beginLoop() {
+        if (!AllocationCounter.isStarted())
+            AllocationCounter.start();
+        loopStartBytes = AllocationCounter.threadAllocatedBytes();
+    }
+
+    public void endLoop() {
+        lastLoopBytes = AllocationCounter.threadAllocatedBytes() - loopStartBytes;
+        peakLoopBytes = Math.max(peakLoopBytes, lastLoopBytes);
+        totalLoopBytes += lastLoopBytes;
+        ticks++;
+    }
+
+    public void begin(int slot) {
+        slotStartBytes = AllocationCounter.threadAllocatedBytes();
+    }
+
+    public void end(int slot) {
+        long bytes = AllocationCounter.threadAllocatedBytes() - slotStartBytes;
+        lastBytes[slot] = bytes;
+        peakBytes[slot] = Math.max(peakBytes[slot], bytes);
+        totalBytes[slot] += bytes;
+    }
+
+    /**
+     * Turns counting back off - call when profiling is switched off so ART stops paying for it
+     */
+    public void stop() {
+        AllocationCounter.stop();
+    }
+
+    public boolean isCounting() {
+        return AllocationCounter.isStarted();
+    }
+
+    /**
+     * Clears peaks and averages (averages are over every loop since the last reset)
+     * Call after init/warm-up so start-up allocation doesn't count against the loop
+     */
+    public void reset() {
+        for (int i = 0; i < names.length; i++) {
+            lastBytes[i] = 0;
+            peakBytes[i] = 0;
+            totalBytes[i] = 0;
+        }
+        lastLoopBytes = peakLoopBytes = totalLoopBytes = 0;
+        ticks = 0;
+    }
+
+    public int getSlotCount() { return names.length; }
+    public String getName(int slot) { return names[slot]; }
+    public long getLastBytes(int slot) { return lastBytes[slot]; }
+    public long getPeakBytes(int slot) { return peakBytes[slot]; }
+    public double getAverageBytes(int slot) { return ticks == 0 ? 0 : (double) totalBytes[slot] / ticks; }
+    public long getLastLoopBytes() { return lastLoopBytes; }
+    public long getPeakLoopBytes() { return peakLoopBytes; }
+    public double getAverageLoopBytes() { return ticks == 0 ? 0 : (double) totalLoopBytes / ticks; }
+    public int getTicks() { return ticks; }
+
+    /**
+     * @return names of the slots whose average bytes per tick are over budget, plus "loop" if the loop total is
+     */
+    public List<String> getOverBudget(long slotBudget, long loopBudget) {
+        List<String> over = new ArrayList<>();
+        for (int i = 0; i < names.length; i++)
+            if (getAverageBytes(i) > slotBudget)
+                over.add(names[i]);
+        if (getAverageLoopBytes() > loopBudget)
+            over.add("loop");
+        return over;
+    }
+
+    public void addTelemetry(Map<String, Object> telemetryMap) {
+        for (int i = 0; i < names.length; i++)
+            telemetryMap.put(names[i] + " Alloc", Misc.formatInvariant("%d B (avg %.0f, peak %d)", lastBytes[i], getAverageBytes(i), peakBytes[i]));
+        telemetryMap.put("Loop Alloc", Misc.formatInvariant("%d B (avg %.0f, peak %d)", lastLoopBytes, getAverageLoopBytes(), peakLoopBytes));
+    }
+}
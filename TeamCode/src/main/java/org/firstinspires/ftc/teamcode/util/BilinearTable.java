@@ -0,0 +1,132 @@
+package org.firstinspires.ftc.teamcode.util;
+
+import java.util.function.DoubleBinaryOperator;
+
+/**
+ * A function of two variables kept as values on a regular grid and read back with bilinear interpolation - for
+ * anything that's easier to measure than to model, like the power it takes to hold an arm up at a given angle and
+ * length. Lookups outside the grid are clamped to its edge.
+ *
+ * The values can be fitted from samples taken on the robot. addSample() spreads each sample over the four nodes
+ * around it by the same weights a lookup there would use, and fit() moves each node toward the weighted mean of
+ * what it was given, trusting the node's current value as much as priorWeight samples. Nodes nothing landed near
+ * keep their value, so a model the table was filled from survives wherever there's no data to correct it.
+ *
+ * Nothing allocates after construction.
+ */
+public class BilinearTable {
+
+    private final double xMin, xStep, yMin, yStep;
+    private final int xCount, yCount;
+    private final double[] values, sampleWeights, sampleSums;
+    private int pendingSamples;
+
+    /**
+     * @param xCount nodes along x, at least 2, spread evenly from xMin to xMax - likewise y
+     */
+    public BilinearTable(double xMin, double xMax, int xCount, double yMin, double yMax, int yCount) {
+        if (xCount < 2 || yCount < 2 || !(xMax > xMin) || !(yMax > yMin))
+            throw new IllegalArgumentException("table needs at least 2 nodes on each axis over a positive range");
+        this.xMin = xMin;
+        this.yMin = yMin;
+        this.xCount = xCount;
+        this.yCount = yCount;
+        xStep = (xMax - xMin) / (xCount - 1);
+        yStep = (yMax - yMin) / (yCount - 1);
+        values = new double[xCount * yCount];
+        sampleWeights = new double[values.length];
+        sampleSums = new double[values.length];
+    }
+
+    /**
+     * Sets every node from a model, dropping any samples not yet fitted
+     */
+    public BilinearTable fill(DoubleBinaryOperator model) {
+        for (int i = 0; i < xCount; i++)
+            for (int j = 0; j < yCount; j++)
+                values[i * yCount + j] = model.applyAsDouble(getX(i), getY(j));
+        clearSamples();
+        return this;
+    }
+
+    public double get(double x, double y) {
+        double u = clamp((x - xMin) / xStep, xCount - 1), v = clamp((y - yMin) / yStep, yCount - 1);
+        int i = Math.min((int) u, xCount - 2), j = Math.min((int) v, yCount - 2);
+        double fx = u - i, fy = v - j;
+        int n = i * yCount + j;
+        return (values[n] * (1 - fy) + values[n + 1] * fy) * (1 - fx)
+                + (values[n + yCount] * (1 - fy) + values[n + yCount + 1] * fy) * fx;
+    }
+
+    private static double clamp(double index, int last) {
+        return Math.max(0, Math.min(last, index));
+    }
+
+    /**
+     * Records a measured value at a point - it doesn't change lookups until fit()
+     */
+    public void addSample(double x, double y, double value) {
+        double u = clamp((x - xMin) / xStep, xCount - 1), v = clamp((y - yMin) / yStep, yCount - 1);
+        int i = Math.min((int) u, xCount - 2), j = Math.min((int) v, yCount - 2);
+        double fx = u - i, fy = v - j;
+        int n = i * yCount + j;
+        accumulate(n, (1 - fx) * (1 - fy), value);
+        accumulate(n + 1, (1 - fx) * fy, value);
+        accumulate(n + yCount, fx * (1 - fy), value);
+        accumulate(n + yCount + 1, fx * fy, value);
+        pendingSamples++;
+    }
+
+    private void accumulate(int node, double weight, double value) {
+        sampleWeights[node] += weight;
+        sampleSums[node] += weight * value;
+    }
+
+    /**
+     * Folds the recorded samples into the nodes and clears them
+     * @param priorWeight how many samples' worth of trust each node's current value gets - 0 replaces it outright
+     */
+    public void fit(double priorWeight) {
+        if (pendingSamples == 0) return;
+        for (int n = 0; n < values.length; n++) {
+            double weight = sampleWeights[n];
+            if (weight <= 0) continue;
+            values[n] += (sampleSums[n] / weight - values[n]) * weight / (weight + priorWeight);
+        }
+        clearSamples();
+    }
+
+    public void clearSamples() {
+        for (int n = 0; n < values.length; n++)
+            sampleWeights[n] = sampleSums[n] = 0;
+        pendingSamples = 0;
+    }
+
+    public int getPendingSamples() {
+        return pendingSamples;
+    }
+
+    public double getNode(int i, int j) {
+        return values[i * yCount + j];
+    }
+
+    public void setNode(int i, int j, double value) {
+        values[i * yCount + j] = value;
+    }
+
+    public double getX(int i) {
+        return xMin + i * xStep;
+    }
+
+    public double getY(int j) {
+        return yMin + j * yStep;
+    }
+
+    public int getXCount() {
+        return xCount;
+    }
+
+    public int getYCount() {
+        return yCount;
+    }
+}
@@ -0,0 +1,88 @@
+package org.firstinspires.ftc.teamcode.util;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.acmerobotics.roadrunner.control.PIDCoefficients;
+import com.acmerobotics.roadrunner.control.PIDFController;
+import com.acmerobotics.roadrunner.drive.DriveSignal;
+import com.acmerobotics.roadrunner.followers.TrajectoryFollower;
+import com.acmerobotics.roadrunner.geometry.Pose2d;
+import com.acmerobotics.roadrunner.trajectory.Trajectory;
+import com.acmerobotics.roadrunner.util.NanoClock;
+
+/**
+ * Road Runner's tank follower with our heading correction. The math runs on Pose scratch objects rather than
+ * Kinematics and Pose2d, so the only allocations left in an update are Road Runner's own trajectory lookups and
+ * the DriveSignal handed back to the drive.
+ */
+public class CloneFollower extends TrajectoryFollower {
+
+    private PIDFController axialController, crossTrackController;
+    private final Pose lastError = new Pose();
+    private Pose2d lastErrorPose2d;
+    private final ScratchPool<Pose> scratch = new ScratchPool<>(Pose::new, 8);
+
+    public CloneFollower(PIDCoefficients axialCoeffs, PIDCoefficients crossTrackCoeffs, Pose2d admissibleError, double timeout) {
+        super(admissibleError, timeout, NanoClock.system());
+        axialController = new PIDFController(axialCoeffs);
+        crossTrackController = new PIDFController(crossTrackCoeffs);
+        lastErrorPose2d = new Pose2d();//peen lol PEEN
+    }
+
+    @Override
+    public void followTrajectory(Trajectory trajectory) {
+        axialController.reset();
+        crossTrackController.reset();
+
+        super.followTrajectory(trajectory);
+    }
+
+    @NonNull
+    @Override
+    public Pose2d getLastError() {
+        //only built when someone asks, and only once per update
+        if (lastErrorPose2d == null)
+            lastErrorPose2d = lastError.toPose2d();
+        return lastErrorPose2d;
+    }
+
+    @Override
+    protected void setLastError(@NonNull Pose2d pose2d) {
+        lastError.set(pose2d);
+        lastErrorPose2d = pose2d;
+    }
+
+    @NonNull
+    @Override
+    protected DriveSignal internalUpdate(@NonNull Pose2d currentPose, @Nullable Pose2d currentRobotVel) {
+        double t = elapsedTime();
+        scratch.reset();
+
+        Pose targetPose = scratch.get().set(trajectory.get(t));
+        Pose targetVel = scratch.get().set(trajectory.velocity(t));
+        Pose targetAccel = scratch.get().set(trajectory.acceleration(t));
+        Pose current = scratch.get().set(currentPose);
+
+        Pose targetRobotVel = scratch.get().fieldToRobotVelocity(targetPose, targetVel);
+        Pose targetRobotAccel = scratch.get().fieldToRobotAcceleration(targetPose, targetVel, targetAccel);
+
+        Pose poseError = lastError.robotPoseError(targetPose, current);
+        lastErrorPose2d = null;
+
+        axialController.setTargetPosition(poseError.x);
+        axialController.setTargetVelocity(targetRobotVel.x);
+        crossTrackController.setTargetPosition(poseError.y);
+        crossTrackController.setTargetVelocity(targetRobotVel.y);
+
+        double axialCorrection = axialController.update(0.0, currentRobotVel.getX());
+        double headingCorrection = Math.signum(
+                targetVel.dotHeading(current.heading) *
+                crossTrackController.update(0.0, currentRobotVel.getY())
+        );
+
+        Pose correctedVelocity = targetRobotVel.plusInPlace(axialCorrection, 0.0, headingCorrection);
+
+        return new DriveSignal(correctedVelocity.toPose2d(), targetRobotAccel.toPose2d());
+    }
+}
@@ -0,0 +1,182 @@
+package org.firstinspires.ftc.teamcode.util;
+
+import java.util.Arrays;
+
+/**
+ * Plans several SCurveProfile axes as one move - a shoulder, a turret and an extension - so they all run at once
+ * and arrive together instead of one after another. Each axis is first planned at its own limits; the slowest
+ * sets the move time and the rest are slowed to match by scaling their limits (velocity by k, acceleration by k^2,
+ * jerk by k^3 stretches a move by 1/k) so every axis stays inside its limits and arrives with the slowest.
+ *
+ * One interlock is supported: the gated axis stays at or below a limit whenever the gate axis is below a
+ * threshold - an extension kept retracted while the shoulder is low. A move that raises the gate through the
+ * threshold holds the gated axis back until the gate crosses it; a move that lowers the gate has the gated axis
+ * done by then. The move time grows if the gated axis can't fit in what's left, so the whole move still
+ * finishes together where it can.
+ *
+ * Planning is a handful of bisections over the axes' plans, some tens of microseconds, and is only needed when a
+ * target changes. The axes' profiles are evaluated as usual. Nothing allocates after construction.
+ */
+public class CoordinatedMotion {
+
+    private final SCurveProfile[] axes;
+    private final double[] maxVelocities, maxAccelerations, maxJerks;
+    private final double[] targets, durations, accelerations;
+
+    private int gateAxis = -1, gatedAxis = -1;
+    private double gateThreshold, gatedLimit;
+
+    private double startTime, duration;
+
+    public CoordinatedMotion(SCurveProfile... axes) {
+        this.axes = axes;
+        maxVelocities = new double[axes.length];
+        maxAccelerations = new double[axes.length];
+        maxJerks = new double[axes.length];
+        targets = new double[axes.length];
+        durations = new double[axes.length];
+        accelerations = new double[axes.length];
+    }
+
+    /**
+     * The limits the axis moves at when it's the slowest - takes effect on the next plan()
+     */
+    public void setLimits(int axis, double maxVelocity, double maxAcceleration, double maxJerk) {
+        maxVelocities[axis] = Math.abs(maxVelocity);
+        maxAccelerations[axis] = Math.abs(maxAcceleration);
+        maxJerks[axis] = Math.abs(maxJerk);
+    }
+
+    /**
+     * Keeps the gated axis at or below gatedLimit whenever the gate axis is below gateThreshold
+     */
+    public void setInterlock(int gateAxis, double gateThreshold, int gatedAxis, double gatedLimit) {
+        this.gateAxis = gateAxis;
+        this.gateThreshold = gateThreshold;
+        this.gatedAxis = gatedAxis;
+        this.gatedLimit = gatedLimit;
+    }
+
+    public void clearInterlock() {
+        gateAxis = gatedAxis = -1;
+    }
+
+    /**
+     * Plans every axis from its current state, at rest acceleration-wise, to its target so they finish together
+     * @param time clock the axes are evaluated against, seconds
+     * @return seconds until the last axis arrives
+     */
+    public double plan(double time, double[] positions, double[] velocities, double[] targets) {
+        Arrays.fill(accelerations, 0);
+        return planFrom(time, positions, velocities, targets);
+    }
+
+    /**
+     * Plans every axis from its current state to its target so they finish together - a re-plan mid-move passes
+     * the axes' accelerations so none of them steps
+     * @param time clock the axes are evaluated against, seconds
+     * @return seconds until the last axis arrives
+     */
+    public double plan(double time, double[] positions, double[] velocities, double[] accelerations, double[] targets) {
+        System.arraycopy(accelerations, 0, this.accelerations, 0, axes.length);
+        return planFrom(time, positions, velocities, targets);
+    }
+
+    private double planFrom(double time, double[] positions, double[] velocities, double[] targets) {
+        startTime = time;
+        System.arraycopy(targets, 0, this.targets, 0, axes.length);
+        boolean interlocked = gateAxis >= 0 && gatedAxis >= 0;
+        //a gate that ends up below its threshold leaves the gated axis at the limit
+        if (interlocked && this.targets[gateAxis] < gateThreshold)
+            this.targets[gatedAxis] = Math.min(this.targets[gatedAxis], gatedLimit);
+
+        //the move takes as long as the slowest axis at its own limits
+        duration = 0;
+        for (int i = 0; i < axes.length; i++) {
+            planAt(i, 1, time, positions[i], velocities[i]);
+            durations[i] = axes[i].getDuration();
+            duration = Math.max(duration, durations[i]);
+        }
+
+        //crossing the gate threshold splits the move - the gated axis only gets the part of it on the safe side
+        boolean rising = false, falling = false;
+        if (interlocked) {
+            rising = positions[gateAxis] < gateThreshold && this.targets[gateAxis] >= gateThreshold
+                    && this.targets[gatedAxis] > gatedLimit;
+            falling = positions[gateAxis] >= gateThreshold && this.targets[gateAxis] < gateThreshold;
+        }
+        double crossing = 0;
+        for (int iteration = 0; iteration < 4 && (rising || falling); iteration++) {
+            planWithin(gateAxis, time, positions[gateAxis], velocities[gateAxis], duration);
+            crossing = axes[gateAxis].timeAt(gateThreshold) - time;
+            if (Double.isNaN(crossing)) break;
+            //the fraction of the gate's move before the threshold stays about the same as it's stretched
+            double fraction = duration > 0 ? crossing / duration : 0;
+            double needed = rising ? durations[gatedAxis] / Math.max(1 - fraction, 1e-3)
+                    : durations[gatedAxis] / Math.max(fraction, 1e-3);
+            if (needed <= duration * 1.001) break;
+            duration = needed;
+        }
+
+        for (int i = 0; i < axes.length; i++) {
+            if (i == gatedAxis && rising && !Double.isNaN(crossing)) {
+                //waits for the gate, from rest - it can't hold a position while moving
+                double delay = Math.max(crossing, 0);
+                if (delay > 0) accelerations[i] = 0;
+                planWithin(i, time + delay, positions[i], delay > 0 ? 0 : velocities[i], duration - delay);
+            } else if (i == gatedAxis && falling && !Double.isNaN(crossing))
+                planWithin(i, time, positions[i], velocities[i], Math.max(crossing, 0));
+            else
+                planWithin(i, time, positions[i], velocities[i], duration);
+        }
+        return duration;
+    }
+
+    //plans the axis slowed down to take as close to window seconds as it can without going over
+    private void planWithin(int axis, double start, double position, double velocity, double window) {
+        planAt(axis, 1, start, position, velocity);
+        if (axes[axis].getDuration() >= window) return;
+        //slower than the current velocity would mean braking to the scaled limit first - don't go there
+        double low = maxVelocities[axis] > 0 ? Math.min(Math.abs(velocity) / maxVelocities[axis], 1) : 1;
+        double high = 1;
+        low = Math.max(low, 1e-3);
+        for (int i = 0; i < 30; i++) {
+            double k = (low + high) / 2;
+            planAt(axis, k, start, position, velocity);
+            if (axes[axis].getDuration() > window) low = k;
+            else high = k;
+        }
+        planAt(axis, high, start, position, velocity);
+    }
+
+    private void planAt(int axis, double k, double start, double position, double velocity) {
+        axes[axis].setLimits(maxVelocities[axis] * k, maxAccelerations[axis] * k * k, maxJerks[axis] * k * k * k);
+        axes[axis].plan(start, position, velocity, accelerations[axis], targets[axis]);
+    }
+
+    /**
+     * Evaluates every axis at the time
+     */
+    public void update(double time) {
+        for (SCurveProfile axis : axes)
+            axis.update(time);
+    }
+
+    /**
+     * @return the target the axis was planned to - the gated axis's may have been pulled in to the limit
+     */
+    public double getTarget(int axis) {
+        return targets[axis];
+    }
+
+    /**
+     * @return seconds the last plan() takes from start to finish
+     */
+    public double getDuration() {
+        return duration;
+    }
+
+    public boolean isFinished(double time) {
+        return time - startTime >= duration;
+    }
+}
@@ -0,0 +1,82 @@
+package org.firstinspires.ftc.teamcode.util;
+
+import com.acmerobotics.roadrunner.geometry.Pose2d;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Includes utility methods for two wheel differential drivetrain inverse kinematics.
+ *
+ * The double[] variants write into a buffer the caller keeps and are what the drivetrains call every loop;
+ * the Pose2d/List variants box every value and are kept as adapters for Road Runner style callers.
+ * @author Mahesh Natamai
+ */
+
+public class DiffyKinematics {
+
+    /**
+     * Computes the wheel velocities corresponding to [robotVel] given [trackWidth] and [chassisLength].
+     *
+     * @param robotVel velocity of the robot in its reference frame
+     * @param trackWidth lateral distance between the differential wheel pair
+     */
+    public static List<Double> robotToWheelVelocities(Pose2d robotVel, double trackWidth) {
+        assert utilMethods.approxEquals(robotVel.getY(), 0) : "Lateral (robot y) velocity must be zero for differential drives";
+
+        double[] wheels = robotToWheelVelocities(robotVel.getX(), robotVel.getHeading(), trackWidth, new double[2]);
+        return Arrays.asList(wheels[0], wheels[1]);
+    }
+
+    /**
+     * Computes the wheel velocities corresponding to a forward and angular robot velocity.
+     *
+     * @param forward robot x velocity in its reference frame
+     * @param angular robot heading velocity
+     * @param trackWidth lateral distance between the differential wheel pair
+     * @param out receives the left and right wheel velocities
+     * @return out
+     */
+    public static double[] robotToWheelVelocities(double forward, double angular, double trackWidth, double[] out) {
+        out[0] = forward - trackWidth / 2 * angular;
+        out[1] = forward + trackWidth / 2 * angular;
+        return out;
+    }
+
+    /**
+     * Computes the wheel accelerations corresponding to [robotAccel] given the provided [trackWidth] and
+     * [chassisLength].
+     *
+     * @param robotAccel velocity of the robot in its reference frame
+     * @param trackWidth lateral distance between the differential wheel pair
+     */
+    public static List<Double> robotToWheelAccelerations(Pose2d robotAccel, double trackWidth) {
+        //todo this is not accellerations
+        return robotToWheelVelocities(robotAccel, trackWidth);
+    }
+
+    /**
+     * Computes the robot velocities corresponding to [wheelVelocities] and the given drive parameters.
+     *
+     * @param wheelVelocities wheel velocities (or wheel position deltas)
+     * @param trackWidth lateral distance between the differential wheel pair
+     */
+    public static Pose2d wheelToRobotVelocities(List<Double> wheelVelocities, double trackWidth) {
+        double[] robotVel = wheelToRobotVelocities(wheelVelocities.get(0), wheelVelocities.get(1), trackWidth, new double[3]);
+        return new Pose2d(robotVel[0], robotVel[1], robotVel[2]);
+    }
+
+    /**
+     * Computes the robot velocity corresponding to the left and right wheel velocities.
+     *
+     * @param trackWidth lateral distance between the differential wheel pair
+     * @param out receives the robot x, y (always 0) and heading velocities
+     * @return out
+     */
+    public static double[] wheelToRobotVelocities(double left, double right, double trackWidth, double[] out) {
+        out[0] = (left + right) / 2.0;
+        out[1] = 0.0;
+        out[2] = (-left + right) / trackWidth;
+        return out;
+    }
+}
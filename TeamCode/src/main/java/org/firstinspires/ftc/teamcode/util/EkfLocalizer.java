@@ -0,0 +1,425 @@
+package org.firstinspires.ftc.teamcode.util;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.acmerobotics.dashboard.config.Config;
+import com.acmerobotics.roadrunner.geometry.Pose2d;
+import com.acmerobotics.roadrunner.localization.Localizer;
+import com.acmerobotics.roadrunner.util.Angle;
+
+import org.firstinspires.ftc.robotcore.internal.system.Misc;
+
+import java.util.Map;
+
+/**
+ * Extended Kalman filter localizer for a differential drive. The state is the field pose (x, y, heading) with
+ * its 3x3 covariance.
+ *
+ * - predict: left/right wheel deltas, turned along the arc
+ * - correct: IMU yaw every update, and field poses from vision whenever they arrive
+ *
+ * The IMU only goes into the correction. Integrating its yaw rate in the prediction as well would count the same
+ * gyro twice, and the filter would trust the heading far more than it should.
+ *
+ * Vision poses show up one camera latency late, so every update is kept in a fixed-size history with its inputs.
+ * A vision pose is applied to the history entry from when its frame was captured and the later updates are
+ * replayed on top of it, which moves the current pose by the correction as it would be seen now.
+ *
+ * Everything is preallocated - the matrices are flat double[9] arrays and the history is parallel primitive
+ * arrays - so update() doesn't allocate. getPoseEstimate()/getPoseVelocity() hand back a cached Pose2d, and only
+ * make a new one when the estimate has moved by more than POSE_RESOLUTION - a robot sitting still allocates
+ * nothing. getX()/getY()/getHeading() never allocate.
+ */
+@Config(value = "AA_EkfLocalizer")
+public class EkfLocalizer implements Localizer {
+
+    /**
+     * What the filter reads each update. Positions and velocities in inches, headings in radians (CCW positive).
+     */
+    public interface Sensors {
+        double getLeftWheelPosition();
+        double getRightWheelPosition();
+        double getLeftWheelVelocity();
+        double getRightWheelVelocity();
+        boolean isImuAvailable();
+        double getImuHeading();
+        double getImuHeadingVelocity();
+    }
+
+    //noise model - variances grow with distance driven (wheels) or time (gyro)
+    public static double WHEEL_DISTANCE_VARIANCE_PER_INCH = 0.002;
+    public static double WHEEL_HEADING_VARIANCE_PER_INCH = 0.0005;
+    public static double IMU_HEADING_VARIANCE = 0.0004;
+    public static double INITIAL_POSITION_VARIANCE = 1;
+    public static double INITIAL_HEADING_VARIANCE = 0.01;
+    //chi-squared gate for 3 dof vision corrections (99.5%) - further than this and the tag pose is treated as bad
+    public static double VISION_GATE = 12.84;
+    //the cached poses are rebuilt once the estimate moves further than this (inches, radians)
+    public static double POSE_RESOLUTION = 1e-4;
+
+    public static final int HISTORY_SIZE = 128;
+    private static final int MAX_PENDING_VISION = 4;
+
+    private final Sensors sensors;
+    private final double trackWidth;
+
+    //state and covariance (row-major)
+    private double x, y, heading;
+    private final double[] P = new double[9];
+
+    //scratch matrices
+    private final double[] F = new double[9], G = new double[6], Q = new double[9];
+    private final double[] S = new double[9], Sinv = new double[9], K = new double[9], T = new double[9], U = new double[9];
+    private final double[] nu = new double[3];
+
+    //history ring buffer - post-update state plus the inputs that produced it
+    private final long[] historyTime = new long[HISTORY_SIZE];
+    private final double[] historyX = new double[HISTORY_SIZE], historyY = new double[HISTORY_SIZE], historyHeading = new double[HISTORY_SIZE];
+    private final double[] historyP = new double[HISTORY_SIZE * 9];
+    private final double[] historyDistance = new double[HISTORY_SIZE], historyTurn = new double[HISTORY_SIZE];
+    private final double[] historyDistanceVariance = new double[HISTORY_SIZE], historyTurnVariance = new double[HISTORY_SIZE];
+    private final double[] historyImuHeading = new double[HISTORY_SIZE]; //NaN when there was no imu reading
+    private int historyHead = -1, historyCount;
+
+    //vision poses waiting for the next update - written from the vision thread
+    private final long[] pendingTime = new long[MAX_PENDING_VISION];
+    private final double[] pendingPose = new double[MAX_PENDING_VISION * 3];
+    private final double[] pendingVariance = new double[MAX_PENDING_VISION * 2];
+    private int pendingCount;
+
+    private double lastLeft, lastRight, imuOffset;
+    private double wheelVarianceScale = 1;
+    private boolean primed;
+    private double velocityX, velocityHeading;
+
+    private Pose2d poseEstimate, poseVelocity;
+
+    //stats
+    private long lastUpdateNanos, maxUpdateNanos;
+    private int visionAccepted, visionRejected, visionTooOld, visionDropped;
+
+    public EkfLocalizer(Sensors sensors, double trackWidth) {
+        this.sensors = sensors;
+        this.trackWidth = trackWidth;
+        resetCovariance();
+    }
+
+    private void resetCovariance() {
+        for (int i = 0; i < 9; i++) P[i] = 0;
+        P[0] = P[4] = INITIAL_POSITION_VARIANCE;
+        P[8] = INITIAL_HEADING_VARIANCE;
+    }
+
+    @Override
+    public void update() {
+        long start = System.nanoTime();
+
+        double left = sensors.getLeftWheelPosition();
+        double right = sensors.getRightWheelPosition();
+        boolean imuAvailable = sensors.isImuAvailable();
+        double imuHeading = imuAvailable ? sensors.getImuHeading() : Double.NaN;
+        double imuRate = imuAvailable ? sensors.getImuHeadingVelocity() : 0; //only reported, never integrated
+
+        if (!primed) {
+            lastLeft = left;
+            lastRight = right;
+            if (imuAvailable) imuOffset = Angle.normDelta(heading - imuHeading);
+            primed = true;
+        }
+
+        double dLeft = left - lastLeft, dRight = right - lastRight;
+        lastLeft = left;
+        lastRight = right;
+
+        double distance = (dLeft + dRight) / 2;
+        double distanceVariance = wheelVarianceScale * WHEEL_DISTANCE_VARIANCE_PER_INCH * (Math.abs(dLeft) + Math.abs(dRight)) + 1e-9;
+        double turn = (dRight - dLeft) / trackWidth;
+        double turnVariance = wheelVarianceScale * WHEEL_HEADING_VARIANCE_PER_INCH * (Math.abs(dLeft) + Math.abs(dRight)) + 1e-9;
+        double measuredHeading = imuAvailable ? Angle.norm(imuHeading + imuOffset) : Double.NaN;
+
+        predict(distance, turn, distanceVariance, turnVariance);
+        if (imuAvailable) correctHeading(measuredHeading);
+        pushHistory(start, distance, turn, distanceVariance, turnVariance, measuredHeading);
+
+        applyPendingVision();
+
+        velocityX = (sensors.getLeftWheelVelocity() + sensors.getRightWheelVelocity()) / 2;
+        velocityHeading = imuAvailable ? imuRate : (sensors.getRightWheelVelocity() - sensors.getLeftWheelVelocity()) / trackWidth;
+
+        lastUpdateNanos = System.nanoTime() - start;
+        maxUpdateNanos = Math.max(maxUpdateNanos, lastUpdateNanos);
+    }
+
+    private void predict(double distance, double turn, double distanceVariance, double turnVariance) {
+        double mid = heading + turn / 2;
+        double c = Math.cos(mid), s = Math.sin(mid);
+
+        x += distance * c;
+        y += distance * s;
+        heading = Angle.norm(heading + turn);
+
+        //F = d(state)/d(state)
+        F[0] = 1; F[1] = 0; F[2] = -distance * s;
+        F[3] = 0; F[4] = 1; F[5] = distance * c;
+        F[6] = 0; F[7] = 0; F[8] = 1;
+        //G = d(state)/d(distance, turn), 3x2
+        G[0] = c; G[1] = -distance * s / 2;
+        G[2] = s; G[3] = distance * c / 2;
+        G[4] = 0; G[5] = 1;
+        //Q = G diag(distanceVariance, turnVariance) G^T
+        for (int i = 0; i < 3; i++)
+            for (int j = 0; j < 3; j++)
+                Q[i * 3 + j] = G[i * 2] * G[j * 2] * distanceVariance + G[i * 2 + 1] * G[j * 2 + 1] * turnVariance;
+
+        //P = F P F^T + Q
+        multiply(F, P, T);
+        multiplyTransposed(T, F, U);
+        for (int i = 0; i < 9; i++) P[i] = U[i] + Q[i];
+    }
+
+    /**
+     * Scalar heading update - H = [0 0 1]
+     */
+    private void correctHeading(double measuredHeading) {
+        double innovation = Angle.normDelta(measuredHeading - heading);
+        double s = P[8] + IMU_HEADING_VARIANCE;
+        double k0 = P[2] / s, k1 = P[5] / s, k2 = P[8] / s;
+        x += k0 * innovation;
+        y += k1 * innovation;
+        heading = Angle.norm(heading + k2 * innovation);
+        //P = P - K H P, H P is the last row of P
+        double p6 = P[6], p7 = P[7], p8 = P[8];
+        P[0] -= k0 * p6; P[1] -= k0 * p7; P[2] -= k0 * p8;
+        P[3] -= k1 * p6; P[4] -= k1 * p7; P[5] -= k1 * p8;
+        P[6] -= k2 * p6; P[7] -= k2 * p7; P[8] -= k2 * p8;
+        symmetrize(P);
+    }
+
+    /**
+     * Full pose update - H = I
+     * @return false if the pose failed the gate and wasn't applied
+     */
+    private boolean correctPose(double measuredX, double measuredY, double measuredHeading, double positionVariance, double headingVariance) {
+        nu[0] = measuredX - x;
+        nu[1] = measuredY - y;
+        nu[2] = Angle.normDelta(measuredHeading - heading);
+        for (int i = 0; i < 9; i++) S[i] = P[i];
+        S[0] += positionVariance;
+        S[4] += positionVariance;
+        S[8] += headingVariance;
+        if (!invert(S, Sinv)) return false;
+
+        double mahalanobis = 0;
+        for (int i = 0; i < 3; i++)
+            for (int j = 0; j < 3; j++)
+                mahalanobis += nu[i] * Sinv[i * 3 + j] * nu[j];
+        if (mahalanobis > VISION_GATE) return false;
+
+        //K = P S^-1
+        multiply(P, Sinv, K);
+        x += K[0] * nu[0] + K[1] * nu[1] + K[2] * nu[2];
+        y += K[3] * nu[0] + K[4] * nu[1] + K[5] * nu[2];
+        heading = Angle.norm(heading + K[6] * nu[0] + K[7] * nu[1] + K[8] * nu[2]);
+
+        //Joseph form: P = (I - K) P (I - K)^T + K R K^T
+        for (int i = 0; i < 9; i++) T[i] = -K[i];
+        T[0] += 1; T[4] += 1; T[8] += 1;
+        multiply(T, P, U);
+        multiplyTransposed(U, T, P);
+        for (int i = 0; i < 3; i++)
+            for (int j = 0; j < 3; j++)
+                P[i * 3 + j] += (K[i * 3] * K[j * 3] + K[i * 3 + 1] * K[j * 3 + 1]) * positionVariance + K[i * 3 + 2] * K[j * 3 + 2] * headingVariance;
+        symmetrize(P);
+        return true;
+    }
+
+    private void pushHistory(long time, double distance, double turn, double distanceVariance, double turnVariance, double imuHeading) {
+        historyHead = (historyHead + 1) % HISTORY_SIZE;
+        historyCount = Math.min(historyCount + 1, HISTORY_SIZE);
+        historyTime[historyHead] = time;
+        historyDistance[historyHead] = distance;
+        historyTurn[historyHead] = turn;
+        historyDistanceVariance[historyHead] = distanceVariance;
+        historyTurnVariance[historyHead] = turnVariance;
+        historyImuHeading[historyHead] = imuHeading;
+        saveState(historyHead);
+    }
+
+    private void saveState(int index) {
+        historyX[index] = x;
+        historyY[index] = y;
+        historyHeading[index] = heading;
+        System.arraycopy(P, 0, historyP, index * 9, 9);
+    }
+
+    private void loadState(int index) {
+        x = historyX[index];
+        y = historyY[index];
+        heading = historyHeading[index];
+        System.arraycopy(historyP, index * 9, P, 0, 9);
+    }
+
+    /**
+     * Queues a field pose measured by vision. Safe to call from the vision thread - it's applied on the next update().
+     * @param captureNanos System.nanoTime() when the frame was captured (the timestamp EasyOpenCV hands processFrame)
+     * @param positionVariance variance of x and y in square inches
+     * @param headingVariance variance of the heading in square radians
+     */
+    public synchronized void addVisionPose(double x, double y, double heading, long captureNanos, double positionVariance, double headingVariance) {
+        if (pendingCount == MAX_PENDING_VISION) {
+            visionDropped++;
+            return;
+        }
+        pendingTime[pendingCount] = captureNanos;
+        pendingPose[pendingCount * 3] = x;
+        pendingPose[pendingCount * 3 + 1] = y;
+        pendingPose[pendingCount * 3 + 2] = heading;
+        pendingVariance[pendingCount * 2] = positionVariance;
+        pendingVariance[pendingCount * 2 + 1] = headingVariance;
+        pendingCount++;
+    }
+
+    private synchronized void applyPendingVision() {
+        for (int i = 0; i < pendingCount; i++)
+            applyDelayed(pendingTime[i], pendingPose[i * 3], pendingPose[i * 3 + 1], pendingPose[i * 3 + 2],
+                    pendingVariance[i * 2], pendingVariance[i * 2 + 1]);
+        pendingCount = 0;
+    }
+
+    private void applyDelayed(long captureNanos, double measuredX, double measuredY, double measuredHeading, double positionVariance, double headingVariance) {
+        //newest history entry at or before the capture time
+        int steps = 0, index = historyHead;
+        while (steps < historyCount && historyTime[index] > captureNanos) {
+            index = (index - 1 + HISTORY_SIZE) % HISTORY_SIZE;
+            steps++;
+        }
+        if (steps == historyCount) {
+            visionTooOld++;
+            return;
+        }
+
+        loadState(index);
+        if (!correctPose(measuredX, measuredY, measuredHeading, positionVariance, headingVariance)) {
+            visionRejected++;
+            loadState(historyHead);
+            return;
+        }
+        visionAccepted++;
+        saveState(index);
+
+        //replay everything since the capture on top of the corrected state
+        while (index != historyHead) {
+            index = (index + 1) % HISTORY_SIZE;
+            predict(historyDistance[index], historyTurn[index], historyDistanceVariance[index], historyTurnVariance[index]);
+            if (!Double.isNaN(historyImuHeading[index])) correctHeading(historyImuHeading[index]);
+            saveState(index);
+        }
+    }
+
+    //3x3 helpers on flat row-major arrays - out must not alias a or b
+
+    private static void multiply(double[] a, double[] b, double[] out) {
+        for (int i = 0; i < 3; i++)
+            for (int j = 0; j < 3; j++)
+                out[i * 3 + j] = a[i * 3] * b[j] + a[i * 3 + 1] * b[3 + j] + a[i * 3 + 2] * b[6 + j];
+    }
+
+    private static void multiplyTransposed(double[] a, double[] b, double[] out) {
+        for (int i = 0; i < 3; i++)
+            for (int j = 0; j < 3; j++)
+                out[i * 3 + j] = a[i * 3] * b[j * 3] + a[i * 3 + 1] * b[j * 3 + 1] + a[i * 3 + 2] * b[j * 3 + 2];
+    }
+
+    private static boolean invert(double[] m, double[] out) {
+        double c0 = m[4] * m[8] - m[5] * m[7];
+        double c1 = m[5] * m[6] - m[3] * m[8];
+        double c2 = m[3] * m[7] - m[4] * m[6];
+        double det = m[0] * c0 + m[1] * c1 + m[2] * c2;
+        if (Math.abs(det) < 1e-12) return false;
+        double inv = 1 / det;
+        out[0] = c0 * inv;
+        out[1] = (m[2] * m[7] - m[1] * m[8]) * inv;
+        out[2] = (m[1] * m[5] - m[2] * m[4]) * inv;
+        out[3] = c1 * inv;
+        out[4] = (m[0] * m[8] - m[2] * m[6]) * inv;
+        out[5] = (m[2] * m[3] - m[0] * m[5]) * inv;
+        out[6] = c2 * inv;
+        out[7] = (m[1] * m[6] - m[0] * m[7]) * inv;
+        out[8] = (m[0] * m[4] - m[1] * m[3]) * inv;
+        return true;
+    }
+
+    private static void symmetrize(double[] m) {
+        m[1] = m[3] = (m[1] + m[3]) / 2;
+        m[2] = m[6] = (m[2] + m[6]) / 2;
+        m[5] = m[7] = (m[5] + m[7]) / 2;
+    }
+
+    @NonNull
+    @Override
+    public Pose2d getPoseEstimate() {
+        if (poseEstimate == null || moved(poseEstimate, x, y, heading))
+            poseEstimate = new Pose2d(x, y, heading);
+        return poseEstimate;
+    }
+
+    /**
+     * Moves the estimate and clears the history - vision poses captured before this are dropped
+     */
+    @Override
+    public void setPoseEstimate(@NonNull Pose2d pose) {
+        x = pose.getX();
+        y = pose.getY();
+        heading = pose.getHeading();
+        resetCovariance();
+        historyHead = -1;
+        historyCount = 0;
+        synchronized (this) {
+            pendingCount = 0;
+        }
+        primed = false; //re-reads the wheels and re-aligns the imu to the new heading
+        poseEstimate = pose;
+    }
+
+    @Nullable
+    @Override
+    public Pose2d getPoseVelocity() {
+        if (poseVelocity == null || moved(poseVelocity, velocityX, 0, velocityHeading))
+            poseVelocity = new Pose2d(velocityX, 0, velocityHeading);
+        return poseVelocity;
+    }
+
+    private static boolean moved(Pose2d cached, double x, double y, double heading) {
+        return Math.abs(cached.getX() - x) > POSE_RESOLUTION || Math.abs(cached.getY() - y) > POSE_RESOLUTION
+                || Math.abs(Angle.normDelta(cached.getHeading() - heading)) > POSE_RESOLUTION;
+    }
+
+    /**
+     * Scales the wheel odometry variances from the next update on - raise it while the wheels are slipping so
+     * the imu and vision carry the estimate
+     */
+    public void setWheelVarianceScale(double scale) {
+        wheelVarianceScale = Math.max(scale, 1e-3);
+    }
+
+    public double getX() { return x; }
+    public double getY() { return y; }
+    public double getHeading() { return heading; }
+
+    /**
+     * @return variance of the pose estimate - index 0 for x, 1 for y, 2 for heading
+     */
+    public double getVariance(int axis) { return P[axis * 4]; }
+
+    public double getLastUpdateMillis() { return lastUpdateNanos / 1e6; }
+    public double getMaxUpdateMillis() { return maxUpdateNanos / 1e6; }
+
+    public void addTelemetry(Map<String, Object> telemetryMap) {
+        telemetryMap.put("EKF sigma x/y/heading", Misc.formatInvariant("%.2f in, %.2f in, %.1f deg",
+                Math.sqrt(P[0]), Math.sqrt(P[4]), Math.toDegrees(Math.sqrt(P[8]))));
+        telemetryMap.put("EKF vision accepted/rejected/old/dropped", Misc.formatInvariant("%d/%d/%d/%d",
+                visionAccepted, visionRejected, visionTooOld, visionDropped));
+        telemetryMap.put("EKF update", Misc.formatInvariant("%.3f ms (max %.3f)", getLastUpdateMillis(), getMaxUpdateMillis()));
+    }
+}
@@ -1,4 +1,4 @@
-package org.firstinspires.ftc.teamcode.robots.csbot.util;
+package org.firstinspires.ftc.teamcode.util;
 
 /**
  * written by ACME Robotics (https://github.com/acmerobotics/robomatic/blob/master/src/main/java/com/acmerobotics/robomatic/util/ExponentialSmoother.java)
@@ -0,0 +1,437 @@
+package org.firstinspires.ftc.teamcode.util;
+
+import com.acmerobotics.dashboard.config.Config;
+import com.acmerobotics.roadrunner.util.Angle;
+
+import org.firstinspires.ftc.robotcore.internal.system.Misc;
+import org.opencv.core.Point;
+import org.openftc.apriltag.AprilTagDetection;
+import org.openftc.apriltag.AprilTagPose;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Combines every field tag visible in a frame into one robot pose. The robot is on the floor, so instead of a
+ * 6DOF PnP per tag this solves for the planar pose (x, y, heading) directly: weighted Gauss-Newton over the
+ * reprojection error of all the tag corners at once, through the camera's intrinsics and its mounting on the
+ * robot. One tag gives 8 equations for 3 unknowns; more tags just add rows.
+ *
+ * - initial guess: the detector's own pose for the largest tag in the frame
+ * - outlier rejection: the tag with the worst corner residual is dropped and the rest re-solved until every
+ *   remaining tag fits within OUTLIER_PIXELS, and the whole frame is rejected if the fit is still poor
+ * - covariance: the Gauss-Newton normal matrix inverted and scaled by the residual, in the same flat
+ *   row-major double[9] layout as EkfLocalizer
+ *
+ * Field units are inches and radians, heading counter-clockwise from +x like Road Runner. All scratch space is
+ * preallocated and the detection list is walked by index, so solve() doesn't allocate - it's called from the
+ * vision thread once per frame and costs well under a millisecond next to the detector itself.
+ */
+@Config(value = "AA_FieldTagLocalizer")
+public class FieldTagLocalizer {
+
+    public static double PIXEL_SIGMA = 1.5; //corner noise floor used for the covariance
+    public static double OUTLIER_PIXELS = 6; //rms corner residual above which a tag is dropped
+    public static double MAX_RMS_PIXELS = 4; //frames that can't fit better than this are rejected
+    public static int MAX_HAMMING = 0; //bit errors corrected by the detector - misread ids land on the wrong tag
+    public static double FULL_WEIGHT_DECISION_MARGIN = 50; //weaker detections get proportionally less weight
+    public static int MAX_ITERATIONS = 10;
+
+    public static final int MAX_LAYOUT_TAGS = 32;
+    public static final int MAX_FRAME_TAGS = 16;
+
+    private static final double METERS_TO_INCHES = 39.3701;
+    private static final double POSITION_STEP = 0.01, HEADING_STEP = 1e-4; //numeric jacobian steps
+
+    /**
+     * One solved frame. Owned by the caller and filled in by solve().
+     */
+    public static class Solution {
+        public double x, y, heading;
+        public final double[] covariance = new double[9];
+        public long captureNanos; //System.nanoTime() the frame was captured
+        public int tagCount, rejectedCount;
+        public double rmsPixels;
+        public long solveNanos;
+
+        public double getPositionVariance() {
+            return Math.max(covariance[0], covariance[4]);
+        }
+
+        public double getHeadingVariance() {
+            return covariance[8];
+        }
+
+        public void copyFrom(Solution other) {
+            x = other.x;
+            y = other.y;
+            heading = other.heading;
+            System.arraycopy(other.covariance, 0, covariance, 0, 9);
+            captureNanos = other.captureNanos;
+            tagCount = other.tagCount;
+            rejectedCount = other.rejectedCount;
+            rmsPixels = other.rmsPixels;
+            solveNanos = other.solveNanos;
+        }
+    }
+
+    //camera intrinsics, pixels
+    private final double fx, fy, cx, cy;
+    //tag size the detector was told, meters - its pose translations scale with it
+    private final double detectorTagSize;
+
+    //camera mounting relative to the robot center - inches, radians
+    private double cameraForward, cameraLeft, cameraHeight, cameraYaw, cameraPitch;
+
+    //field tag layout
+    private final int[] layoutId = new int[MAX_LAYOUT_TAGS];
+    private final double[] layoutX = new double[MAX_LAYOUT_TAGS], layoutY = new double[MAX_LAYOUT_TAGS],
+            layoutZ = new double[MAX_LAYOUT_TAGS], layoutFacing = new double[MAX_LAYOUT_TAGS],
+            layoutSize = new double[MAX_LAYOUT_TAGS];
+    private int layoutCount;
+
+    //per-frame scratch - four corners per tag
+    private final int[] frameLayout = new int[MAX_FRAME_TAGS];
+    private final double[] frameWeight = new double[MAX_FRAME_TAGS], frameRms = new double[MAX_FRAME_TAGS];
+    private final boolean[] frameActive = new boolean[MAX_FRAME_TAGS];
+    private final AprilTagPose[] framePose = new AprilTagPose[MAX_FRAME_TAGS];
+    private final double[] frameArea = new double[MAX_FRAME_TAGS];
+    private final double[] cornerU = new double[MAX_FRAME_TAGS * 4], cornerV = new double[MAX_FRAME_TAGS * 4];
+    private final double[] cornerX = new double[MAX_FRAME_TAGS * 4], cornerY = new double[MAX_FRAME_TAGS * 4],
+            cornerZ = new double[MAX_FRAME_TAGS * 4];
+    private int frameCount;
+
+    private final double[] normal = new double[9], inverse = new double[9], gradient = new double[3];
+    private double poseX, poseY, poseHeading;
+    private double projectedU, projectedV;
+
+    private long solved, rejected;
+
+    /**
+     * @param detectorTagSize the tag size passed to the AprilTag detector, in meters
+     */
+    public FieldTagLocalizer(double fx, double fy, double cx, double cy, double detectorTagSize) {
+        this.fx = fx;
+        this.fy = fy;
+        this.cx = cx;
+        this.cy = cy;
+        this.detectorTagSize = detectorTagSize;
+    }
+
+    /**
+     * @param forward inches ahead of the robot center
+     * @param left inches left of the robot center
+     * @param height inches above the floor
+     * @param yaw radians counter-clockwise from the robot's forward direction
+     * @param pitch radians the camera is tilted up from level
+     */
+    public void setCameraExtrinsics(double forward, double left, double height, double yaw, double pitch) {
+        cameraForward = forward;
+        cameraLeft = left;
+        cameraHeight = height;
+        cameraYaw = yaw;
+        cameraPitch = pitch;
+    }
+
+    /**
+     * Adds a tag to the field layout. Tags are assumed to hang vertically on the field.
+     * @param x field inches of the tag center
+     * @param y field inches of the tag center
+     * @param z inches of the tag center above the floor
+     * @param facing direction the printed face points, radians counter-clockwise from +x
+     * @param size width of the black square, inches
+     */
+    public void addTag(int id, double x, double y, double z, double facing, double size) {
+        if (layoutCount == MAX_LAYOUT_TAGS)
+            throw new IllegalStateException("field layout is limited to " + MAX_LAYOUT_TAGS + " tags");
+        layoutId[layoutCount] = id;
+        layoutX[layoutCount] = x;
+        layoutY[layoutCount] = y;
+        layoutZ[layoutCount] = z;
+        layoutFacing[layoutCount] = facing;
+        layoutSize[layoutCount] = size;
+        layoutCount++;
+    }
+
+    public void clearTags() {
+        layoutCount = 0;
+    }
+
+    public int getTagCount() {
+        return layoutCount;
+    }
+
+    /**
+     * Solves for the robot pose from one frame's detections. Tags that aren't in the layout are ignored.
+     * @return false if no field tags were seen or the frame couldn't be fit - out is left partially written
+     */
+    public boolean solve(List<AprilTagDetection> detections, long captureNanos, Solution out) {
+        long start = System.nanoTime();
+        if (!gather(detections)) return false;
+
+        out.rejectedCount = 0;
+        int active = frameCount;
+        while (true) {
+            initialGuess();
+            if (!gaussNewton()) {
+                rejected++;
+                return false;
+            }
+            //drop the worst fitting tag while it's clearly inconsistent with the others
+            int worst = -1;
+            for (int i = 0; i < frameCount; i++)
+                if (frameActive[i] && (worst < 0 || frameRms[i] > frameRms[worst]))
+                    worst = i;
+            if (active == 1 || frameRms[worst] <= OUTLIER_PIXELS)
+                break;
+            frameActive[worst] = false;
+            active--;
+            out.rejectedCount++;
+        }
+
+        double chiSquared = 0, weights = 0;
+        for (int i = 0; i < frameCount; i++)
+            if (frameActive[i]) {
+                chiSquared += frameWeight[i] * frameRms[i] * frameRms[i] * 8;
+                weights += frameWeight[i] * 8;
+            }
+        double rms = Math.sqrt(chiSquared / weights);
+        if (rms > MAX_RMS_PIXELS || !invert(normal, inverse)) {
+            rejected++;
+            return false;
+        }
+
+        //residual variance per unit weight, but never more confident than the corner noise floor
+        int equations = active * 8;
+        double variance = Math.max(PIXEL_SIGMA * PIXEL_SIGMA, equations > 3 ? chiSquared / (equations - 3) : 0);
+        for (int i = 0; i < 9; i++)
+            out.covariance[i] = inverse[i] * variance;
+
+        out.x = poseX;
+        out.y = poseY;
+        out.heading = Angle.norm(poseHeading);
+        out.captureNanos = captureNanos;
+        out.tagCount = active;
+        out.rmsPixels = rms;
+        out.solveNanos = System.nanoTime() - start;
+        solved++;
+        return true;
+    }
+
+    /**
+     * Copies the detections that are field tags into the corner scratch arrays
+     */
+    private boolean gather(List<AprilTagDetection> detections) {
+        frameCount = 0;
+        if (detections == null) return false;
+        for (int d = 0; d < detections.size() && frameCount < MAX_FRAME_TAGS; d++) {
+            AprilTagDetection detection = detections.get(d);
+            if (detection.hamming > MAX_HAMMING) continue;
+            int layout = findTag(detection.id);
+            if (layout < 0) continue;
+
+            int tag = frameCount++;
+            frameLayout[tag] = layout;
+            frameActive[tag] = true;
+            framePose[tag] = detection.pose;
+            frameWeight[tag] = Math.max(0.1, Math.min(1, detection.decisionMargin / FULL_WEIGHT_DECISION_MARGIN));
+
+            //the detector returns corners counter-clockwise in the image from the bottom left of the tag
+            double half = layoutSize[layout] / 2;
+            double rightX = -Math.sin(layoutFacing[layout]), rightY = Math.cos(layoutFacing[layout]); //as seen from the front
+            double area = 0;
+            for (int k = 0; k < 4; k++) {
+                Point corner = detection.corners[k];
+                Point next = detection.corners[(k + 1) % 4];
+                area += corner.x * next.y - next.x * corner.y;
+
+                double across = k == 0 || k == 3 ? -half : half;
+                double up = k < 2 ? -half : half;
+                int c = tag * 4 + k;
+                cornerU[c] = corner.x;
+                cornerV[c] = corner.y;
+                cornerX[c] = layoutX[layout] + across * rightX;
+                cornerY[c] = layoutY[layout] + across * rightY;
+                cornerZ[c] = layoutZ[layout] + up;
+            }
+            frameArea[tag] = Math.abs(area) / 2;
+        }
+        return frameCount > 0;
+    }
+
+    private int findTag(int id) {
+        for (int i = 0; i < layoutCount; i++)
+            if (layoutId[i] == id) return i;
+        return -1;
+    }
+
+    /**
+     * Robot pose implied by the detector's pose of the largest active tag - the biggest tag has the best
+     * conditioned single-tag pose
+     */
+    private void initialGuess() {
+        int best = -1;
+        for (int i = 0; i < frameCount; i++)
+            if (frameActive[i] && (best < 0 || frameArea[i] > frameArea[best]))
+                best = i;
+        AprilTagPose pose = framePose[best];
+        int layout = frameLayout[best];
+        double scale = layoutSize[layout] / detectorTagSize; //meters as the detector saw them -> real inches
+
+        double cosPitch = Math.cos(cameraPitch), sinPitch = Math.sin(cameraPitch);
+        //tag center in the camera frame (x right, y down, z out of the lens), leveled
+        double forward = pose.z * scale * cosPitch + pose.y * scale * sinPitch;
+        double left = -pose.x * scale;
+        //the tag's z axis points into the tag, so its face points along -z
+        double normalForward = -pose.R.get(2, 2) * cosPitch - pose.R.get(1, 2) * sinPitch;
+        double normalLeft = pose.R.get(0, 2);
+        double cameraHeading = layoutFacing[layout] - Math.atan2(normalLeft, normalForward);
+
+        double cos = Math.cos(cameraHeading), sin = Math.sin(cameraHeading);
+        double cameraX = layoutX[layout] - (forward * cos - left * sin);
+        double cameraY = layoutY[layout] - (forward * sin + left * cos);
+        poseHeading = cameraHeading - cameraYaw;
+        cos = Math.cos(poseHeading);
+        sin = Math.sin(poseHeading);
+        poseX = cameraX - (cameraForward * cos - cameraLeft * sin);
+        poseY = cameraY - (cameraForward * sin + cameraLeft * cos);
+    }
+
+    /**
+     * Minimizes the weighted corner reprojection error of the active tags from the current pose. Leaves the
+     * normal matrix at the solution for the covariance and each tag's rms residual in frameRms.
+     */
+    private boolean gaussNewton() {
+        double cost = evaluate(poseX, poseY, poseHeading, true);
+        if (Double.isNaN(cost)) return false;
+        for (int iteration = 0; iteration < MAX_ITERATIONS; iteration++) {
+            if (!invert(normal, inverse)) return false;
+            double stepX = inverse[0] * gradient[0] + inverse[1] * gradient[1] + inverse[2] * gradient[2];
+            double stepY = inverse[3] * gradient[0] + inverse[4] * gradient[1] + inverse[5] * gradient[2];
+            double stepHeading = inverse[6] * gradient[0] + inverse[7] * gradient[1] + inverse[8] * gradient[2];
+
+            //halve the step until it actually reduces the error
+            double scale = 1, next = Double.NaN;
+            for (int halving = 0; halving < 5; halving++, scale /= 2) {
+                next = evaluate(poseX + stepX * scale, poseY + stepY * scale, poseHeading + stepHeading * scale, false);
+                if (!Double.isNaN(next) && next < cost) break;
+            }
+            if (Double.isNaN(next) || next >= cost) break;
+
+            poseX += stepX * scale;
+            poseY += stepY * scale;
+            poseHeading += stepHeading * scale;
+            cost = evaluate(poseX, poseY, poseHeading, true);
+            if (Math.abs(stepX * scale) < 1e-3 && Math.abs(stepY * scale) < 1e-3 && Math.abs(stepHeading * scale) < 1e-5)
+                break;
+        }
+        //refresh the per-tag residuals and normal matrix at the final pose
+        return !Double.isNaN(evaluate(poseX, poseY, poseHeading, true));
+    }
+
+    /**
+     * @param linearize also build the normal matrix and gradient, and the per-tag rms residuals
+     * @return the weighted sum of squared corner residuals, or NaN if a corner is behind the camera
+     */
+    private double evaluate(double x, double y, double heading, boolean linearize) {
+        if (linearize) {
+            for (int i = 0; i < 9; i++) normal[i] = 0;
+            gradient[0] = gradient[1] = gradient[2] = 0;
+        }
+        double cost = 0;
+        for (int tag = 0; tag < frameCount; tag++) {
+            if (!frameActive[tag]) continue;
+            double w = frameWeight[tag], tagCost = 0;
+            for (int c = tag * 4; c < tag * 4 + 4; c++) {
+                if (!project(x, y, heading, c)) return Double.NaN;
+                double u = projectedU, v = projectedV;
+                double residualU = cornerU[c] - u, residualV = cornerV[c] - v;
+                tagCost += residualU * residualU + residualV * residualV;
+                if (!linearize) continue;
+
+                //numeric jacobian of the projection with respect to x, y and heading
+                if (!project(x + POSITION_STEP, y, heading, c)) return Double.NaN;
+                double u0 = (projectedU - u) / POSITION_STEP, v0 = (projectedV - v) / POSITION_STEP;
+                if (!project(x, y + POSITION_STEP, heading, c)) return Double.NaN;
+                double u1 = (projectedU - u) / POSITION_STEP, v1 = (projectedV - v) / POSITION_STEP;
+                if (!project(x, y, heading + HEADING_STEP, c)) return Double.NaN;
+                double u2 = (projectedU - u) / HEADING_STEP, v2 = (projectedV - v) / HEADING_STEP;
+
+                normal[0] += w * (u0 * u0 + v0 * v0);
+                normal[1] += w * (u0 * u1 + v0 * v1);
+                normal[2] += w * (u0 * u2 + v0 * v2);
+                normal[4] += w * (u1 * u1 + v1 * v1);
+                normal[5] += w * (u1 * u2 + v1 * v2);
+                normal[8] += w * (u2 * u2 + v2 * v2);
+                gradient[0] += w * (u0 * residualU + v0 * residualV);
+                gradient[1] += w * (u1 * residualU + v1 * residualV);
+                gradient[2] += w * (u2 * residualU + v2 * residualV);
+            }
+            if (linearize) frameRms[tag] = Math.sqrt(tagCost / 8);
+            cost += w * tagCost;
+        }
+        if (linearize) {
+            normal[3] = normal[1];
+            normal[6] = normal[2];
+            normal[7] = normal[5];
+        }
+        return cost;
+    }
+
+    /**
+     * Projects corner c into the image with the robot at (x, y, heading), leaving the pixel in projectedU/V
+     * @return false if the corner is behind the camera
+     */
+    private boolean project(double x, double y, double heading, int c) {
+        double cos = Math.cos(heading), sin = Math.sin(heading);
+        double dx = cornerX[c] - (x + cameraForward * cos - cameraLeft * sin);
+        double dy = cornerY[c] - (y + cameraForward * sin + cameraLeft * cos);
+        double dz = cornerZ[c] - cameraHeight;
+
+        double cameraHeading = heading + cameraYaw;
+        cos = Math.cos(cameraHeading);
+        sin = Math.sin(cameraHeading);
+        double forward = dx * cos + dy * sin;
+        double left = -dx * sin + dy * cos;
+
+        cos = Math.cos(cameraPitch);
+        sin = Math.sin(cameraPitch);
+        double depth = forward * cos + dz * sin;
+        double up = -forward * sin + dz * cos;
+        if (depth < 1) return false;
+
+        projectedU = cx - fx * left / depth;
+        projectedV = cy - fy * up / depth;
+        return true;
+    }
+
+    /**
+     * Inverts a symmetric 3x3 matrix
+     * @return false if it's singular
+     */
+    private static boolean invert(double[] m, double[] out) {
+        double c0 = m[4] * m[8] - m[5] * m[7];
+        double c1 = m[5] * m[6] - m[3] * m[8];
+        double c2 = m[3] * m[7] - m[4] * m[6];
+        double determinant = m[0] * c0 + m[1] * c1 + m[2] * c2;
+        if (!(Math.abs(determinant) > 1e-12)) return false;
+        out[0] = c0 / determinant;
+        out[1] = (m[2] * m[7] - m[1] * m[8]) / determinant;
+        out[2] = (m[1] * m[5] - m[2] * m[4]) / determinant;
+        out[3] = c1 / determinant;
+        out[4] = (m[0] * m[8] - m[2] * m[6]) / determinant;
+        out[5] = (m[2] * m[3] - m[0] * m[5]) / determinant;
+        out[6] = c2 / determinant;
+        out[7] = (m[1] * m[6] - m[0] * m[7]) / determinant;
+        out[8] = (m[0] * m[4] - m[1] * m[3]) / determinant;
+        return true;
+    }
+
+    public void addTelemetry(Map<String, Object> telemetryMap, Solution last) {
+        telemetryMap.put("Tag localizer solved/rejected", solved + "/" + rejected);
+        if (last != null && last.captureNanos != 0)
+            telemetryMap.put("Tag localizer last", Misc.formatInvariant("(%.1f, %.1f) %.1f deg, %d tags (%d dropped), %.2f px rms, sigma %.2f in, %.3f ms",
+                    last.x, last.y, Math.toDegrees(last.heading), last.tagCount, last.rejectedCount, last.rmsPixels,
+                    Math.sqrt(last.getPositionVariance()), last.solveNanos / 1e6));
+    }
+}
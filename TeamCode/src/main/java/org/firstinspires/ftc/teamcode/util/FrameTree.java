@@ -0,0 +1,217 @@
+package org.firstinspires.ftc.teamcode.util;
+
+/**
+ * A tree of coordinate frames - field, chassis, turret, shoulder, and on out to the gripper - each placed on its
+ * parent by a fixed offset and one joint. Subsystems set the joint values every loop, update() recomputes the
+ * frames, and anyone can then read any frame's world position or heading without redoing the trig.
+ *
+ * Only what changed is recomputed: setting a joint to the value it already has does nothing, a changed joint
+ * marks its frame dirty, and a dirty frame carries on down to its children. A robot sitting still costs a pass
+ * over a few booleans. Calling update() more than once a loop is cheap for the same reason, so each consumer can
+ * refresh the joints it knows about and update without worrying about who went first.
+ *
+ * Frames are right handed with z up. A joint moves its frame after the offset from the parent:
+ *   FIXED  - no joint
+ *   YAW    - turns about z, radians counter clockwise
+ *   PITCH  - tips the x axis up toward z, radians
+ *   SLIDE  - moves along x
+ *   PLANAR - x, y and a yaw, for a chassis on the field
+ * Parents have to be added before their children. Units are the caller's. Nothing allocates after construction.
+ */
+public class FrameTree {
+
+    public enum JointType {
+        FIXED, YAW, PITCH, SLIDE, PLANAR
+    }
+
+    public static final int ROOT = 0;
+
+    private final int[] parents;
+    private final JointType[] types;
+    private final double[] offsets, values; //3 per frame
+    //rotation row major then translation, 12 per frame
+    private final double[] locals, worlds;
+    private final boolean[] localDirty, moved;
+    private int count = 1;
+
+    public FrameTree(int maxFrames) {
+        parents = new int[maxFrames];
+        types = new JointType[maxFrames];
+        offsets = new double[3 * maxFrames];
+        values = new double[3 * maxFrames];
+        locals = new double[12 * maxFrames];
+        worlds = new double[12 * maxFrames];
+        localDirty = new boolean[maxFrames];
+        moved = new boolean[maxFrames];
+        parents[ROOT] = -1;
+        types[ROOT] = JointType.FIXED;
+        identity(worlds, ROOT);
+    }
+
+    /**
+     * @return the new frame's index, to pass to the setters and getters
+     */
+    public int addFrame(int parent, JointType type, double x, double y, double z) {
+        if (count == parents.length)
+            throw new IllegalStateException("frame tree is limited to " + parents.length + " frames");
+        if (parent < 0 || parent >= count)
+            throw new IllegalArgumentException("parent " + parent + " hasn't been added");
+        int frame = count++;
+        parents[frame] = parent;
+        types[frame] = type;
+        offsets[3 * frame] = x;
+        offsets[3 * frame + 1] = y;
+        offsets[3 * frame + 2] = z;
+        localDirty[frame] = true;
+        return frame;
+    }
+
+    public void setJoint(int frame, double value) {
+        if (values[3 * frame] == value) return;
+        values[3 * frame] = value;
+        localDirty[frame] = true;
+    }
+
+    public void setPlanar(int frame, double x, double y, double heading) {
+        int i = 3 * frame;
+        if (values[i] == x && values[i + 1] == y && values[i + 2] == heading) return;
+        values[i] = x;
+        values[i + 1] = y;
+        values[i + 2] = heading;
+        localDirty[frame] = true;
+    }
+
+    /**
+     * Moves the frame on its parent - for offsets that are tunable
+     */
+    public void setOffset(int frame, double x, double y, double z) {
+        int i = 3 * frame;
+        if (offsets[i] == x && offsets[i + 1] == y && offsets[i + 2] == z) return;
+        offsets[i] = x;
+        offsets[i + 1] = y;
+        offsets[i + 2] = z;
+        localDirty[frame] = true;
+    }
+
+    /**
+     * Recomputes the frames whose joints or offsets changed, and everything below them
+     */
+    public void update() {
+        moved[ROOT] = false;
+        for (int frame = 1; frame < count; frame++) {
+            boolean dirty = localDirty[frame];
+            if (dirty) {
+                computeLocal(frame);
+                localDirty[frame] = false;
+            }
+            moved[frame] = dirty || moved[parents[frame]];
+            if (moved[frame]) compose(parents[frame], frame);
+        }
+    }
+
+    private void computeLocal(int frame) {
+        int o = 3 * frame, m = 12 * frame;
+        double value = values[o];
+        identity(locals, frame);
+        locals[m + 9] = offsets[o];
+        locals[m + 10] = offsets[o + 1];
+        locals[m + 11] = offsets[o + 2];
+        switch (types[frame]) {
+            case YAW:
+                setYaw(frame, value);
+                break;
+            case PITCH: {
+                double c = Math.cos(value), s = Math.sin(value);
+                locals[m] = c;
+                locals[m + 2] = -s;
+                locals[m + 6] = s;
+                locals[m + 8] = c;
+                break;
+            }
+            case SLIDE:
+                locals[m + 9] += value;
+                break;
+            case PLANAR:
+                locals[m + 9] += value;
+                locals[m + 10] += values[o + 1];
+                setYaw(frame, values[o + 2]);
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void setYaw(int frame, double angle) {
+        int m = 12 * frame;
+        double c = Math.cos(angle), s = Math.sin(angle);
+        locals[m] = c;
+        locals[m + 1] = -s;
+        locals[m + 3] = s;
+        locals[m + 4] = c;
+    }
+
+    //world of the child = world of the parent * local of the child
+    private void compose(int parent, int frame) {
+        int p = 12 * parent, m = 12 * frame;
+        for (int row = 0; row < 3; row++) {
+            double a = worlds[p + 3 * row], b = worlds[p + 3 * row + 1], c = worlds[p + 3 * row + 2];
+            for (int column = 0; column < 3; column++)
+                worlds[m + 3 * row + column] = a * locals[m + column] + b * locals[m + 3 + column] + c * locals[m + 6 + column];
+            worlds[m + 9 + row] = a * locals[m + 9] + b * locals[m + 10] + c * locals[m + 11] + worlds[p + 9 + row];
+        }
+    }
+
+    private static void identity(double[] transforms, int frame) {
+        int m = 12 * frame;
+        for (int i = 0; i < 12; i++)
+            transforms[m + i] = 0;
+        transforms[m] = transforms[m + 4] = transforms[m + 8] = 1;
+    }
+
+    public double getX(int frame) {
+        return worlds[12 * frame + 9];
+    }
+
+    public double getY(int frame) {
+        return worlds[12 * frame + 10];
+    }
+
+    public double getZ(int frame) {
+        return worlds[12 * frame + 11];
+    }
+
+    public Vector3 getPosition(int frame, Vector3 out) {
+        int m = 12 * frame;
+        return out.set(worlds[m + 9], worlds[m + 10], worlds[m + 11]);
+    }
+
+    /**
+     * @return radians counter clockwise from the world x axis to the frame's x axis, seen from above
+     */
+    public double getHeading(int frame) {
+        int m = 12 * frame;
+        return Math.atan2(worlds[m + 3], worlds[m]);
+    }
+
+    /**
+     * @return radians the frame's x axis is tipped up from horizontal
+     */
+    public double getElevation(int frame) {
+        int m = 12 * frame;
+        return Math.atan2(worlds[m + 6], Math.hypot(worlds[m], worlds[m + 3]));
+    }
+
+    /**
+     * World position of a point given in the frame
+     */
+    public Vector3 toWorld(int frame, double x, double y, double z, Vector3 out) {
+        int m = 12 * frame;
+        return out.set(worlds[m] * x + worlds[m + 1] * y + worlds[m + 2] * z + worlds[m + 9],
+                worlds[m + 3] * x + worlds[m + 4] * y + worlds[m + 5] * z + worlds[m + 10],
+                worlds[m + 6] * x + worlds[m + 7] * y + worlds[m + 8] * z + worlds[m + 11]);
+    }
+
+    public int getFrameCount() {
+        return count;
+    }
+}
@@ -0,0 +1,143 @@
+package org.firstinspires.ftc.teamcode.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * A handful of doubles that survive from one OpMode (or app restart) to the next, kept in a small memory-mapped
+ * file with a fixed layout. A write is a few dozen stores into the mapping - the kernel owns the dirty page, so
+ * it reaches the file even if the app is killed right after - which makes it cheap enough to do every loop.
+ *
+ * There are two slots, each holding a sequence number, a wall clock timestamp, the values and a CRC-32 over all
+ * of them. Writes alternate slots, so the newest complete write is never the one being overwritten. A write torn
+ * by a crash fails its CRC and the reader falls back to the other slot.
+ *
+ * Layout, native byte order: int magic, int value count, then two slots of
+ * [long sequence, long timestamp millis, double values[count], long crc].
+ *
+ * Single writer. write() and read() don't allocate.
+ */
+public class MappedStateStore {
+
+    private static final int MAGIC = 0x54415553; //"TAUS"
+    private static final int HEADER_BYTES = 8;
+    private static final int[] CRC_TABLE = new int[256];
+
+    static {
+        for (int n = 0; n < 256; n++) {
+            int c = n;
+            for (int k = 0; k < 8; k++)
+                c = (c & 1) != 0 ? 0xEDB88320 ^ (c >>> 1) : c >>> 1;
+            CRC_TABLE[n] = c;
+        }
+    }
+
+    private final MappedByteBuffer buffer;
+    private final int valueCount, slotBytes;
+    private long sequence, timestamp;
+
+    /**
+     * Maps the file, creating it (or wiping it, if it was laid out for a different value count) as needed
+     */
+    public MappedStateStore(File file, int valueCount) throws IOException {
+        this.valueCount = valueCount;
+        slotBytes = 8 * (valueCount + 3);
+        int size = HEADER_BYTES + 2 * slotBytes;
+
+        File parent = file.getParentFile();
+        if (parent != null) parent.mkdirs();
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(size);
+            buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size); //stays valid after close
+        }
+        buffer.order(ByteOrder.nativeOrder());
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != valueCount) {
+            for (int i = 0; i < size; i++) buffer.put(i, (byte) 0);
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, valueCount);
+        }
+        //carry on the sequence so the next write lands in the older slot
+        sequence = Math.max(0, Math.max(validSequence(0), validSequence(1)));
+    }
+
+    /**
+     * Stores values[0..count) stamped with the current wall clock time
+     */
+    public void write(double[] values) {
+        sequence++;
+        timestamp = System.currentTimeMillis();
+        int offset = slotOffset(sequence);
+        int crc = updateCrc(updateCrc(~0, sequence), timestamp);
+        buffer.putLong(offset, sequence);
+        buffer.putLong(offset + 8, timestamp);
+        for (int i = 0; i < valueCount; i++) {
+            long bits = Double.doubleToRawLongBits(values[i]);
+            buffer.putLong(offset + 16 + 8 * i, bits);
+            crc = updateCrc(crc, bits);
+        }
+        buffer.putLong(offset + 16 + 8 * valueCount, ~crc & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Copies the newest intact write into values[0..count)
+     * @return false if nothing intact has been written
+     */
+    public boolean read(double[] values) {
+        long first = validSequence(0), second = validSequence(1);
+        long newest = Math.max(first, second);
+        if (newest < 0) return false;
+        int offset = HEADER_BYTES + (newest == first ? 0 : slotBytes);
+        timestamp = buffer.getLong(offset + 8);
+        for (int i = 0; i < valueCount; i++)
+            values[i] = Double.longBitsToDouble(buffer.getLong(offset + 16 + 8 * i));
+        return true;
+    }
+
+    /**
+     * @return wall clock millis of the last write(), or of the write the last read() returned
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Pushes the mapping to storage - only needed to survive a power cut, so call it at stop() rather than per loop
+     */
+    public void flush() {
+        buffer.force();
+    }
+
+    private int slotOffset(long sequence) {
+        return HEADER_BYTES + (int) (sequence & 1) * slotBytes;
+    }
+
+    /**
+     * @return the slot's sequence number, or -1 if the slot is empty or fails its CRC
+     */
+    private long validSequence(int slot) {
+        int offset = HEADER_BYTES + slot * slotBytes;
+        long slotSequence = buffer.getLong(offset);
+        if (slotSequence <= 0) return -1;
+        int crc = ~0;
+        for (int i = 0; i < valueCount + 2; i++)
+            crc = updateCrc(crc, buffer.getLong(offset + 8 * i));
+        return buffer.getLong(offset + 16 + 8 * valueCount) == (~crc & 0xFFFFFFFFL) ? slotSequence : -1;
+    }
+
+    //CRC-32 of the long's 8 bytes, least significant first
+    private static int updateCrc(int crc, long value) {
+        for (int i = 0; i < 8; i++) {
+            crc = CRC_TABLE[(crc ^ (int) value) & 0xFF] ^ (crc >>> 8);
+            value >>>= 8;
+        }
+        return crc;
+    }
+}
@@ -0,0 +1,104 @@
+package org.firstinspires.ftc.teamcode.util;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Small JMH-style harness for timing per-loop math where it actually runs - on the Control Hub's ART runtime.
+ * Each benchmark is warmed up so the JIT has compiled it, then timed over several batches. The median batch
+ * is reported as nanoseconds per operation along with the bytes allocated per operation, which is what
+ * drives GC pauses in the main loop.
+ *
+ * Results are written one benchmark per line, sorted by name and without timestamps, so the file can be
+ * committed and diffed between commits to see whether a hot-path change paid off.
+ */
+public class MicroBenchmark {
+
+    public static int WARMUP_ITERATIONS = 20000;
+    public static int BATCHES = 15;
+    public static int BATCH_ITERATIONS = 5000;
+
+    //results are folded in here so the JIT can't throw away a body whose output is never read
+    public static volatile double sink;
+
+    public interface Body {
+        /**
+         * @param i iteration index - use it to vary the inputs so nothing gets constant folded
+         * @return anything derived from the work done
+         */
+        double run(int i);
+    }
+
+    public static class Result {
+        public final String name;
+        public final double nanosPerOp; //median batch
+        public final double minNanosPerOp; //fastest batch
+        public final double bytesPerOp;
+
+        Result(String name, double nanosPerOp, double minNanosPerOp, double bytesPerOp) {
+            this.name = name;
+            this.nanosPerOp = nanosPerOp;
+            this.minNanosPerOp = minNanosPerOp;
+            this.bytesPerOp = bytesPerOp;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "%-48s %12.1f ns/op %12.1f min %10.1f B/op", name, nanosPerOp, minNanosPerOp, bytesPerOp);
+        }
+    }
+
+    private final List<Result> results = new ArrayList<>();
+
+    public MicroBenchmark() {
+        AllocationCounter.start();
+    }
+
+    public Result measure(String name, Body body) {
+        double acc = 0;
+        for (int i = 0; i < WARMUP_ITERATIONS; i++)
+            acc += body.run(i);
+
+        double[] batchNanos = new double[BATCHES];
+        long allocatedBytes = 0;
+        int i = WARMUP_ITERATIONS;
+        for (int batch = 0; batch < BATCHES; batch++) {
+            long startBytes = AllocationCounter.threadAllocatedBytes();
+            long startTime = System.nanoTime();
+            for (int j = 0; j < BATCH_ITERATIONS; j++)
+                acc += body.run(i++);
+            batchNanos[batch] = (double) (System.nanoTime() - startTime) / BATCH_ITERATIONS;
+            allocatedBytes += AllocationCounter.threadAllocatedBytes() - startBytes;
+        }
+        sink = acc;
+
+        Arrays.sort(batchNanos);
+        Result result = new Result(name, batchNanos[BATCHES / 2], batchNanos[0],
+                (double) allocatedBytes / ((long) BATCHES * BATCH_ITERATIONS));
+        results.add(result);
+        return result;
+    }
+
+    public List<Result> getResults() {
+        return Collections.unmodifiableList(results);
+    }
+
+    public void writeResults(File file) throws IOException {
+        List<Result> sorted = new ArrayList<>(results);
+        Collections.sort(sorted, Comparator.comparing(r -> r.name));
+        try (PrintWriter out = new PrintWriter(new FileWriter(file))) {
+            out.println(String.format(Locale.US, "# %d warmup, %d x %d measured, vm %s", WARMUP_ITERATIONS, BATCHES, BATCH_ITERATIONS,
+                    System.getProperty("java.vm.name", "") + " " + System.getProperty("java.vm.version", "")));
+            for (Result result : sorted)
+                out.println(result);
+        }
+    }
+}
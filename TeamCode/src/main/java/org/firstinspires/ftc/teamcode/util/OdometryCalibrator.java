@@ -0,0 +1,166 @@
+package org.firstinspires.ftc.teamcode.util;
+
+import com.acmerobotics.dashboard.config.Config;
+
+import org.firstinspires.ftc.robotcore.internal.system.Misc;
+
+import java.util.Map;
+
+/**
+ * Fits the odometry geometry to a stretch of ordinary driving instead of one timed spin. Every loop it takes
+ * the change in the two parallel wheels, the change in the normal (horizontal) wheel and the change in imu
+ * heading, and folds them into running sums - the sufficient statistics of two least squares problems:
+ *
+ *   dHeading = a * dLeft + b * dRight       per-wheel turn gains - a and b carry encoder direction and any
+ *                                           difference in wheel size, and 2 / (|a| + |b|) is the wheel base
+ *   dNormal  = h * (a * dLeft + b * dRight) normal wheel travel per radian of rotation, its offset from the
+ *                                           center of rotation - against the wheels' heading rather than the
+ *                                           imu's, whose noise would bias h low
+ *
+ * The fits are redone from the sums in constant time, so the estimates and their standard errors are live
+ * while driving. Turning both ways at a few speeds converges in seconds. Once the fit has settled, samples
+ * with a heading residual past OUTLIER_SIGMA (a slipping wheel, an imu hiccup) are left out.
+ *
+ * Units are the caller's - encoder ticks and radians give ticks and ticks per radian. Nothing allocates.
+ */
+@Config(value = "AA_OdometryCalibrator")
+public class OdometryCalibrator {
+
+    public static int MIN_SAMPLES = 100;
+    public static double MIN_ROTATION = 4 * Math.PI; //radians turned in total, either way, before it can converge
+    public static double TARGET_RELATIVE_ERROR = 0.005; //standard error of the wheel base over the wheel base
+    public static double OUTLIER_SIGMA = 4;
+
+    //heading fit sums - [dLeft dRight] against dHeading
+    private double sLL, sLR, sRR, sLH, sRH, sHH;
+    //normal wheel fit sums
+    private double sNL, sNR, sNN;
+    private int count, rejected;
+    private double rotation;
+
+    private double a, b, headingVariance, h, normalVariance;
+
+    public void reset() {
+        sLL = sLR = sRR = sLH = sRH = sHH = sNL = sNR = sNN = 0;
+        count = rejected = 0;
+        rotation = a = b = headingVariance = h = normalVariance = 0;
+    }
+
+    /**
+     * Adds one loop's worth of motion. Call with changes since the last call, not totals.
+     * @param dHeading imu heading change in the sign convention the localizer uses
+     */
+    public void addSample(double dLeft, double dRight, double dNormal, double dHeading) {
+        if (dLeft == 0 && dRight == 0 && dHeading == 0) return; //standing still says nothing
+        if (count >= MIN_SAMPLES && headingVariance > 0) {
+            double residual = dHeading - a * dLeft - b * dRight;
+            if (residual * residual > OUTLIER_SIGMA * OUTLIER_SIGMA * headingVariance) {
+                rejected++;
+                return;
+            }
+        }
+        sLL += dLeft * dLeft;
+        sLR += dLeft * dRight;
+        sRR += dRight * dRight;
+        sLH += dLeft * dHeading;
+        sRH += dRight * dHeading;
+        sHH += dHeading * dHeading;
+        sNL += dNormal * dLeft;
+        sNR += dNormal * dRight;
+        sNN += dNormal * dNormal;
+        rotation += Math.abs(dHeading);
+        count++;
+        solve();
+    }
+
+    private void solve() {
+        double determinant = sLL * sRR - sLR * sLR;
+        if (count < 3 || Math.abs(determinant) < 1e-12 * (sLL * sRR + 1e-300)) return;
+        a = (sRR * sLH - sLR * sRH) / determinant;
+        b = (sLL * sRH - sLR * sLH) / determinant;
+        //sum of squared residuals from the sums: y'y - theta'X'y
+        headingVariance = Math.max(sHH - a * sLH - b * sRH, 0) / (count - 2);
+        double thetaSquared = wheelHeadingSquared();
+        if (thetaSquared > 0) {
+            double normalTheta = a * sNL + b * sNR;
+            h = normalTheta / thetaSquared;
+            normalVariance = Math.max(sNN - h * normalTheta, 0) / (count - 1);
+        }
+    }
+
+    //sum of the squared fitted wheel heading changes
+    private double wheelHeadingSquared() {
+        return a * a * sLL + 2 * a * b * sLR + b * b * sRR;
+    }
+
+    /**
+     * @return distance between the parallel wheels, in the units of dLeft and dRight
+     */
+    public double getWheelBase() {
+        double gain = Math.abs(a) + Math.abs(b);
+        return gain == 0 ? 0 : 2 / gain;
+    }
+
+    /**
+     * @return standard error of getWheelBase()
+     */
+    public double getWheelBaseError() {
+        double determinant = sLL * sRR - sLR * sLR;
+        double gain = Math.abs(a) + Math.abs(b);
+        if (determinant <= 0 || gain == 0) return Double.POSITIVE_INFINITY;
+        //var(|a| + |b|) from the inverse normal matrix, sign of the cross term follows the signs of a and b
+        double varA = headingVariance * sRR / determinant, varB = headingVariance * sLL / determinant;
+        double covAB = -headingVariance * sLR / determinant * Math.signum(a) * Math.signum(b);
+        double gainError = Math.sqrt(Math.max(varA + varB + 2 * covAB, 0));
+        return 2 * gainError / (gain * gain);
+    }
+
+    /**
+     * @return left wheel travel per unit of right wheel travel for the same arc - 1 for matched wheels
+     */
+    public double getWheelScaleRatio() {
+        return a == 0 ? 1 : Math.abs(b / a);
+    }
+
+    /**
+     * @return normal wheel travel per radian of rotation, in the units of dNormal
+     */
+    public double getHorizontalOffset() {
+        return h;
+    }
+
+    public double getHorizontalOffsetError() {
+        double thetaSquared = wheelHeadingSquared();
+        return thetaSquared > 0 ? Math.sqrt(normalVariance / thetaSquared) : Double.POSITIVE_INFINITY;
+    }
+
+    public int getSampleCount() {
+        return count;
+    }
+
+    public int getRejectedCount() {
+        return rejected;
+    }
+
+    /**
+     * @return radians turned so far, counting both directions
+     */
+    public double getRotation() {
+        return rotation;
+    }
+
+    public boolean isConverged() {
+        double wheelBase = getWheelBase();
+        return count >= MIN_SAMPLES && rotation >= MIN_ROTATION && wheelBase > 0
+                && getWheelBaseError() < TARGET_RELATIVE_ERROR * wheelBase;
+    }
+
+    public void addTelemetry(Map<String, Object> telemetryMap) {
+        telemetryMap.put("calibration samples", count + " (" + rejected + " rejected)");
+        telemetryMap.put("calibration rotation", Misc.formatInvariant("%.0f deg", Math.toDegrees(rotation)));
+        telemetryMap.put("wheel base", Misc.formatInvariant("%.1f +- %.1f", getWheelBase(), getWheelBaseError()));
+        telemetryMap.put("wheel scale ratio", Misc.formatInvariant("%.4f", getWheelScaleRatio()));
+        telemetryMap.put("horizontal offset", Misc.formatInvariant("%.1f +- %.1f", getHorizontalOffset(), getHorizontalOffsetError()));
+        telemetryMap.put("calibration converged", isConverged());
+    }
+}
@@ -134,6 +134,32 @@ public class PIDController {
         // If enabled then proceed into controller calculations
         if (m_enabled) {
 
+            //time since last iteration
+            m_currentTime = System.nanoTime();
+            m_deltaTime=(m_currentTime-m_prevTime)/1E9;
+            m_prevTime=m_currentTime;
+
+            if(m_deltaTime > .15)
+            {
+                Log.e("", "Laggy Loop! " + m_deltaTime  + "  sec");
+                //m_deltaTime = 0;
+            }
+
+            calculate(m_deltaTime);
+        }
+    }
+
+    /**
+     * Same calculation as calculate() but with the iteration period supplied by the caller instead
+     * of sampled from System.nanoTime - used by the offline simulations so their runs are repeatable
+     * @param deltaTime time since the previous iteration in fractional seconds
+     */
+    private void calculate(double deltaTime) {
+
+        if (m_enabled) {
+
+            m_deltaTime = deltaTime;
+
             // Calculate the error signal
             m_error = m_setpoint - m_input;
 
@@ -155,17 +181,6 @@ public class PIDController {
             }
 
 
-            //time since last iteration
-            m_currentTime = System.nanoTime();
-            m_deltaTime=(m_currentTime-m_prevTime)/1E9;
-            m_prevTime=m_currentTime;
-
-            if(m_deltaTime > .15)
-            {
-                Log.e("", "Laggy Loop! " + m_deltaTime  + "  sec");
-                //m_deltaTime = 0;
-            }
-
             //integrate with windup prevention
             //reset total error if we are outside the integral control regime or if current error crosses zero
 //            if (!(Math.abs(m_integralCutIn) < .00000000001)) { //this is just a check if integralCutIn is zero - zero actually means we ignore cut-in and allow total error to accumulate regardless of current error magnitude
@@ -285,6 +300,17 @@ public class PIDController {
         return m_result;
     }
 
+    /**
+     * Return the PID result for a fixed iteration period rather than the measured wall clock time
+     * Meant for simulated plants that step time themselves
+     * @param deltaTime time since the previous iteration in fractional seconds
+     * @return the latest calculated output
+     */
+    public double performPID(double deltaTime) {
+        calculate(deltaTime);
+        return m_result;
+    }
+
     /**
      *  Set the PID controller to consider the input to be continuous,
      *  Rather than using the max and min in as constraints, it considers them to
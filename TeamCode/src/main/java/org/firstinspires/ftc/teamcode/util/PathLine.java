@@ -1,4 +1,4 @@
-package org.firstinspires.ftc.teamcode.robots.csbot.util;
+package org.firstinspires.ftc.teamcode.util;
 
 import com.acmerobotics.roadrunner.geometry.Pose2d;
 
@@ -0,0 +1,109 @@
+package org.firstinspires.ftc.teamcode.util;
+
+import com.acmerobotics.roadrunner.geometry.Pose2d;
+import com.acmerobotics.roadrunner.util.Angle;
+
+/**
+ * Mutable counterpart of Road Runner's Pose2d for per-loop geometry. Pose2d is immutable, so every plus, rotate
+ * and Kinematics call makes a new one - a follower update alone makes about eight. Pose is meant to be owned
+ * by whatever runs the loop (or handed out by a ScratchPool) and overwritten each time, with Pose2d only at the
+ * edges where Road Runner wants one.
+ *
+ * Every operation writes into this and returns it. Arguments may be this.
+ */
+public class Pose {
+
+    public double x, y, heading;
+
+    public Pose() {
+    }
+
+    public Pose(double x, double y, double heading) {
+        set(x, y, heading);
+    }
+
+    public Pose set(double x, double y, double heading) {
+        this.x = x;
+        this.y = y;
+        this.heading = heading;
+        return this;
+    }
+
+    public Pose set(Pose pose) {
+        return set(pose.x, pose.y, pose.heading);
+    }
+
+    public Pose set(Pose2d pose) {
+        return set(pose.getX(), pose.getY(), pose.getHeading());
+    }
+
+    /**
+     * Allocates - only for handing a result back to Road Runner
+     */
+    public Pose2d toPose2d() {
+        return new Pose2d(x, y, heading);
+    }
+
+    public Pose plusInPlace(double x, double y, double heading) {
+        this.x += x;
+        this.y += y;
+        this.heading += heading;
+        return this;
+    }
+
+    public Pose plusInPlace(Pose pose) {
+        return plusInPlace(pose.x, pose.y, pose.heading);
+    }
+
+    /**
+     * Rotates the x/y part counter-clockwise by angle radians, leaving heading alone
+     */
+    public Pose rotateVecInPlace(double angle) {
+        double cos = Math.cos(angle), sin = Math.sin(angle);
+        double rotatedX = x * cos - y * sin;
+        y = x * sin + y * cos;
+        x = rotatedX;
+        return this;
+    }
+
+    /**
+     * Dot product of the x/y part with the unit vector along heading
+     */
+    public double dotHeading(double heading) {
+        return x * Math.cos(heading) + y * Math.sin(heading);
+    }
+
+    /**
+     * Same as Kinematics.fieldToRobotVelocity
+     */
+    public Pose fieldToRobotVelocity(Pose fieldPose, Pose fieldVel) {
+        double heading = fieldPose.heading;
+        return set(fieldVel).rotateVecInPlace(-heading);
+    }
+
+    /**
+     * Same as Kinematics.fieldToRobotAcceleration
+     */
+    public Pose fieldToRobotAcceleration(Pose fieldPose, Pose fieldVel, Pose fieldAccel) {
+        double heading = fieldPose.heading;
+        double cos = Math.cos(heading), sin = Math.sin(heading);
+        double omega = fieldVel.heading;
+        double coriolisX = (-fieldVel.x * sin + fieldVel.y * cos) * omega;
+        double coriolisY = (-fieldVel.x * cos - fieldVel.y * sin) * omega;
+        return set(fieldAccel).rotateVecInPlace(-heading).plusInPlace(coriolisX, coriolisY, 0);
+    }
+
+    /**
+     * Same as Kinematics.calculateRobotPoseError - the target relative to current, in current's frame
+     */
+    public Pose robotPoseError(Pose target, Pose current) {
+        double currentHeading = current.heading;
+        return set(target.x - current.x, target.y - current.y, Angle.normDelta(target.heading - currentHeading))
+                .rotateVecInPlace(-currentHeading);
+    }
+
+    @Override
+    public String toString() {
+        return "(" + x + "," + y + "," + heading + ")";
+    }
+}
@@ -0,0 +1,257 @@
+package org.firstinspires.ftc.teamcode.util;
+
+/**
+ * A jerk-limited (S-curve) point to point motion profile for one axis - a shoulder angle, an extension length.
+ * The move is three phases: ramp the velocity from where it is to a peak, cruise at the peak, ramp it down to
+ * zero at the target. Each ramp is jerk up, constant acceleration, jerk down, so the profile is seven constant
+ * jerk segments and the acceleration never steps.
+ *
+ * plan() can be called mid-motion with the current position and velocity, so a moving target is chased without
+ * stopping first. It picks the peak velocity by bisection (the distance covered is monotonic in it), which is
+ * well under a microsecond and only happens on a re-target. Evaluating the profile at a time is closed form - the
+ * polynomial of the segment it falls in - and fills position, velocity and acceleration for feedforward.
+ *
+ * A re-target can carry the acceleration it's at - the move then opens with a segment that ramps it out at the
+ * jerk limit before the usual seven, so the acceleration stays continuous through a mid-ramp re-target. Units
+ * are the caller's, times are seconds. Nothing allocates after construction.
+ */
+public class SCurveProfile {
+
+    //a lead-in that takes the starting acceleration to zero, then the seven of the move
+    private static final int SEGMENTS = 8;
+
+    private double maxVelocity, maxAcceleration, maxJerk;
+
+    //segment durations and jerks, and the state each segment starts from
+    private final double[] durations = new double[SEGMENTS], jerks = new double[SEGMENTS];
+    private final double[] startPositions = new double[SEGMENTS], startVelocities = new double[SEGMENTS],
+            startAccelerations = new double[SEGMENTS];
+    private double startTime, duration, target, endPosition;
+    private boolean active;
+
+    private double position, velocity, acceleration;
+
+    public SCurveProfile(double maxVelocity, double maxAcceleration, double maxJerk) {
+        setLimits(maxVelocity, maxAcceleration, maxJerk);
+    }
+
+    /**
+     * Takes effect on the next plan()
+     */
+    public void setLimits(double maxVelocity, double maxAcceleration, double maxJerk) {
+        this.maxVelocity = Math.abs(maxVelocity);
+        this.maxAcceleration = Math.abs(maxAcceleration);
+        this.maxJerk = Math.abs(maxJerk);
+    }
+
+    /**
+     * Plans a move from the given state, at rest acceleration-wise, to stop at target
+     * @param time clock the profile is evaluated against, seconds
+     */
+    public void plan(double time, double position, double velocity, double target) {
+        plan(time, position, velocity, 0, target);
+    }
+
+    /**
+     * Plans a move from the given state to stop at target - a mid-move re-target passes getAcceleration() so the
+     * acceleration doesn't step
+     * @param time clock the profile is evaluated against, seconds
+     */
+    public void plan(double time, double position, double velocity, double acceleration, double target) {
+        this.startTime = time;
+        this.target = target;
+        this.active = true;
+
+        //ramp the acceleration out first - the move is planned from where that leaves it
+        double leadIn = maxJerk > 0 ? Math.abs(acceleration) / maxJerk : 0;
+        if (leadIn == 0) acceleration = 0;
+        durations[0] = leadIn;
+        jerks[0] = -Math.signum(acceleration) * maxJerk;
+        startPositions[0] = position;
+        startVelocities[0] = velocity;
+        startAccelerations[0] = acceleration;
+        position += velocity * leadIn + acceleration * leadIn * leadIn / 2 + jerks[0] * leadIn * leadIn * leadIn / 6;
+        velocity += acceleration * leadIn / 2;
+        double distance = target - position;
+
+        //head whichever way the target is once we've stopped
+        double direction = Math.signum(distance - rampDistance(velocity, 0));
+        if (direction == 0) direction = velocity == 0 ? 1 : -Math.signum(velocity);
+        double d = direction * distance, v0 = direction * velocity;
+
+        //bisect for the peak velocity that covers the distance, or cruise at the limit if it's further than that
+        double low = Math.max(Math.min(v0, maxVelocity), 0), high = maxVelocity, peak, cruise = 0;
+        if (rampDistance(v0, high) + rampDistance(high, 0) <= d) {
+            peak = high;
+            cruise = high > 0 ? (d - rampDistance(v0, high) - rampDistance(high, 0)) / high : 0;
+        } else if (rampDistance(v0, low) + rampDistance(low, 0) >= d) {
+            peak = low; //coming in faster than the limit and can't stop in time - overshoots, plan again from the end
+        } else {
+            for (int i = 0; i < 50; i++) {
+                double mid = (low + high) / 2;
+                if (rampDistance(v0, mid) + rampDistance(mid, 0) < d) low = mid;
+                else high = mid;
+            }
+            peak = (low + high) / 2;
+        }
+
+        setRamp(1, v0, peak, direction);
+        durations[4] = cruise;
+        jerks[4] = 0;
+        setRamp(5, peak, 0, direction);
+
+        //starting state of each segment
+        duration = 0;
+        for (int i = 0; i < SEGMENTS; i++) {
+            double t = durations[i], j = jerks[i];
+            double p = startPositions[i], v = startVelocities[i], a = startAccelerations[i];
+            double end = p + v * t + a * t * t / 2 + j * t * t * t / 6;
+            if (i + 1 < SEGMENTS) {
+                startPositions[i + 1] = end;
+                startVelocities[i + 1] = v + a * t + j * t * t / 2;
+                startAccelerations[i + 1] = a + j * t;
+            } else endPosition = end;
+            duration += t;
+        }
+        //within rounding of the target unless it overshot
+        if (Math.abs(endPosition - target) < 1e-6 * (1 + Math.abs(target))) endPosition = target;
+        update(time);
+    }
+
+    //fills the three segments that take the velocity from v0 to v1 in the direction's frame
+    private void setRamp(int first, double v0, double v1, double direction) {
+        double change = Math.abs(v1 - v0);
+        double jerk = Math.signum(v1 - v0) * direction * maxJerk;
+        double jerkTime, accelerationTime;
+        if (maxJerk == 0 || maxAcceleration == 0) {
+            jerkTime = accelerationTime = 0;
+        } else if (change * maxJerk >= maxAcceleration * maxAcceleration) {
+            jerkTime = maxAcceleration / maxJerk;
+            accelerationTime = change / maxAcceleration - jerkTime;
+        } else {
+            jerkTime = Math.sqrt(change / maxJerk);
+            accelerationTime = 0;
+        }
+        durations[first] = jerkTime;
+        jerks[first] = jerk;
+        durations[first + 1] = accelerationTime;
+        jerks[first + 1] = 0;
+        durations[first + 2] = jerkTime;
+        jerks[first + 2] = -jerk;
+    }
+
+    //distance covered ramping the velocity from v0 to v1 - the acceleration is symmetric so it's the mean velocity times the time
+    private double rampDistance(double v0, double v1) {
+        return (v0 + v1) / 2 * rampTime(Math.abs(v1 - v0));
+    }
+
+    private double rampTime(double change) {
+        if (maxJerk == 0 || maxAcceleration == 0) return 0;
+        if (change * maxJerk >= maxAcceleration * maxAcceleration)
+            return change / maxAcceleration + maxAcceleration / maxJerk;
+        return 2 * Math.sqrt(change / maxJerk);
+    }
+
+    /**
+     * Evaluates the profile at a time on the plan() clock - before the start it holds the start, after the end
+     * the end
+     */
+    public void update(double time) {
+        double t = Math.max(time - startTime, 0);
+        int i = 0;
+        while (i < SEGMENTS - 1 && t > durations[i]) {
+            t -= durations[i];
+            i++;
+        }
+        t = Math.min(t, durations[i]);
+        double j = jerks[i], p = startPositions[i], v = startVelocities[i], a = startAccelerations[i];
+        position = p + v * t + a * t * t / 2 + j * t * t * t / 6;
+        velocity = v + a * t + j * t * t / 2;
+        acceleration = a + j * t;
+        if (time - startTime >= duration) {
+            //pin the end so rounding in the segment sums can't leave it a hair off
+            position = endPosition;
+            velocity = acceleration = 0;
+        }
+    }
+
+    /**
+     * @return the first time on the plan() clock the move reaches value, or NaN if it never does
+     */
+    public double timeAt(double value) {
+        double segmentStart = startTime;
+        for (int i = 0; i < SEGMENTS; i++) {
+            double t = durations[i];
+            //a segment that reverses can pass the value and come back, so step through it rather than checking its ends
+            double previous = segmentPosition(i, 0) - value;
+            if (previous == 0) return segmentStart;
+            for (int k = 1; k <= 8 && t > 0; k++) {
+                double low = t * (k - 1) / 8, high = t * k / 8;
+                double current = segmentPosition(i, high) - value;
+                if (current * previous <= 0) {
+                    for (int n = 0; n < 40; n++) {
+                        double mid = (low + high) / 2;
+                        if ((segmentPosition(i, mid) - value) * previous > 0) low = mid;
+                        else high = mid;
+                    }
+                    return segmentStart + high;
+                }
+                previous = current;
+            }
+            segmentStart += t;
+        }
+        return Double.NaN;
+    }
+
+    private double segmentPosition(int i, double t) {
+        return startPositions[i] + startVelocities[i] * t + startAccelerations[i] * t * t / 2 + jerks[i] * t * t * t / 6;
+    }
+
+    public double getPosition() {
+        return position;
+    }
+
+    public double getVelocity() {
+        return velocity;
+    }
+
+    public double getAcceleration() {
+        return acceleration;
+    }
+
+    public double getTarget() {
+        return target;
+    }
+
+    /**
+     * @return where the move stops - the target, unless it came in too fast to stop there
+     */
+    public double getEndPosition() {
+        return endPosition;
+    }
+
+    /**
+     * @return seconds from the last plan() to the end of the move
+     */
+    public double getDuration() {
+        return duration;
+    }
+
+    public boolean isFinished(double time) {
+        return !active || time - startTime >= duration;
+    }
+
+    /**
+     * @return whether there's a plan - false until the first plan() and after clear()
+     */
+    public boolean isActive() {
+        return active;
+    }
+
+    /**
+     * Forgets the plan, so the next move starts fresh from wherever the axis is
+     */
+    public void clear() {
+        active = false;
+    }
+}
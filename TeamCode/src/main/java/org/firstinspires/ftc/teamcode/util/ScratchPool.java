@@ -0,0 +1,48 @@
+package org.firstinspires.ftc.teamcode.util;
+
+import java.util.Arrays;
+import java.util.function.Supplier;
+
+/**
+ * Hands out reusable temporaries - Pose, Vector2, Vector3 - for one pass of a hot path. Call reset() at the top
+ * of the pass and get() for each temporary. Everything handed out since the last reset() is reused after the
+ * next one, so nothing from the pool may be kept past the pass that got it.
+ *
+ * The pool grows if a pass needs more than it has, so it settles at the largest pass and allocates nothing
+ * after that. Not thread safe - one pool per loop.
+ */
+public class ScratchPool<T> {
+
+    private final Supplier<T> factory;
+    private Object[] items;
+    private int used;
+
+    public ScratchPool(Supplier<T> factory, int initialSize) {
+        this.factory = factory;
+        items = new Object[Math.max(initialSize, 1)];
+        for (int i = 0; i < items.length; i++)
+            items[i] = factory.get();
+    }
+
+    public void reset() {
+        used = 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    public T get() {
+        if (used == items.length) {
+            int oldLength = items.length;
+            items = Arrays.copyOf(items, oldLength * 2);
+            for (int i = oldLength; i < items.length; i++)
+                items[i] = factory.get();
+        }
+        return (T) items[used++];
+    }
+
+    /**
+     * @return how many temporaries the pool holds - at least the most any one pass has needed
+     */
+    public int capacity() {
+        return items.length;
+    }
+}
@@ -0,0 +1,196 @@
+package org.firstinspires.ftc.teamcode.util;
+
+import com.acmerobotics.dashboard.config.Config;
+
+import org.firstinspires.ftc.robotcore.internal.system.Misc;
+
+import java.util.Map;
+
+/**
+ * Spots wheel slip and collisions on a differential drive by comparing what the encoders say the chassis did
+ * with what the IMU says it did. When the wheels have grip the two yaw rates agree to within gyro noise. When
+ * one side breaks loose in a pushing match the encoders report a turn the chassis never made, and when both
+ * sides spin up (or lock) together the wheels accelerate faster than traction could ever push the chassis.
+ * A mecanum drive works too - average each side's front and back wheels so strafing cancels out.
+ *
+ * Each update adds the yaw rate disagreement and the wheel acceleration to a short window. The window's rms,
+ * relative to SLIP_YAW_RATE and MAX_WHEEL_ACCELERATION, is the slip score - over 1 starts a slip and under
+ * GRIP_SCORE ends it. A single large disagreement or a sudden stop at speed is a collision.
+ *
+ * While slipping, getOdometryVarianceScale() says how much less to trust the wheels and getTractionScale()
+ * ramps down to cut drive power until the wheels bite again. A steady straight push with both wheels spinning
+ * at the same speed looks like driving to both signals - it's the spin-up into it that gets caught.
+ *
+ * Events are polled with getLastEvent() after each update. Everything is running sums over primitive ring
+ * buffers, so an update is a few dozen flops and never allocates.
+ */
+@Config(value = "AA_SlipDetector")
+public class SlipDetector {
+
+    public enum Event {
+        NONE, SLIP_STARTED, SLIP_ENDED, COLLISION
+    }
+
+    public static int WINDOW = 10; //updates in the running statistic - read at construction
+    public static double SLIP_YAW_RATE = 0.35; //rad/s rms of imu vs encoder yaw rate that counts as slipping
+    public static double MAX_WHEEL_ACCELERATION = 300; //in/s^2 rms, about what a 1g of traction allows
+    public static double GRIP_SCORE = 0.5; //slip score to get back under before it's gripping again
+    public static double COLLISION_YAW_RATE = 1.5; //rad/s disagreement in a single update
+    public static double COLLISION_DECELERATION = 500; //in/s^2 - harder than any brake
+    public static double COLLISION_MIN_SPEED = 6; //in/s - below this a sudden stop isn't a hit
+    public static double COLLISION_HOLDOFF = 0.5; //seconds - one hit, one event, and odometry stays distrusted this long
+    public static double SLIP_VARIANCE_SCALE = 50; //odometry variance multiplier while slipping
+    public static double TRACTION_MIN_SCALE = 0.4;
+    public static double TRACTION_CUT_RATE = 3; //power scale per second while slipping
+    public static double TRACTION_RECOVERY_RATE = 1; //power scale per second once gripping
+
+    private final double trackWidth;
+    private final double[] yawResidualSquared, accelerationSquared;
+    private int head = -1, count;
+    private double yawSum, accelerationSum;
+
+    private double lastVelocity;
+    private double yawResidual, score, tractionScale = 1, sinceCollision = Double.MAX_VALUE;
+    private boolean slipping;
+    private Event lastEvent = Event.NONE;
+
+    //stats
+    private int slipCount, collisionCount;
+    private double slipSeconds;
+
+    public SlipDetector(double trackWidth) {
+        this.trackWidth = trackWidth;
+        yawResidualSquared = new double[Math.max(WINDOW, 1)];
+        accelerationSquared = new double[yawResidualSquared.length];
+    }
+
+    /**
+     * Call once per drive update with this loop's readings
+     * @param dt seconds since the last update
+     * @param leftVelocity left wheel surface speed from the encoders, in/s
+     * @param rightVelocity right wheel surface speed from the encoders, in/s
+     * @param leftAcceleration in/s^2, 0 if not estimated
+     * @param rightAcceleration in/s^2, 0 if not estimated
+     * @param imuYawRate rad/s, CCW positive
+     * @return the event this update raised, also available from getLastEvent()
+     */
+    public Event update(double dt, double leftVelocity, double rightVelocity,
+                        double leftAcceleration, double rightAcceleration, double imuYawRate) {
+        lastEvent = Event.NONE;
+        if (dt <= 0) return lastEvent;
+
+        double velocity = (leftVelocity + rightVelocity) / 2;
+        yawResidual = imuYawRate - (rightVelocity - leftVelocity) / trackWidth;
+        //either side's acceleration counts - one wheel spinning up is as much slip as both
+        double acceleration = Math.max(Math.abs(leftAcceleration), Math.abs(rightAcceleration));
+
+        head = (head + 1) % yawResidualSquared.length;
+        if (count == yawResidualSquared.length) {
+            yawSum -= yawResidualSquared[head];
+            accelerationSum -= accelerationSquared[head];
+        } else count++;
+        yawResidualSquared[head] = yawResidual * yawResidual;
+        accelerationSquared[head] = acceleration * acceleration;
+        yawSum += yawResidualSquared[head];
+        accelerationSum += accelerationSquared[head];
+        //running sums drift a little with the subtractions - they can't go negative
+        yawSum = Math.max(yawSum, 0);
+        accelerationSum = Math.max(accelerationSum, 0);
+
+        score = Math.max(Math.sqrt(yawSum / count) / SLIP_YAW_RATE,
+                Math.sqrt(accelerationSum / count) / MAX_WHEEL_ACCELERATION);
+
+        //collisions - a jolt that turns the chassis, or a stop from speed harder than the wheels could brake
+        sinceCollision += dt;
+        double deceleration = (Math.abs(lastVelocity) - Math.abs(velocity)) / dt;
+        boolean hit = Math.abs(yawResidual) > COLLISION_YAW_RATE
+                || (Math.abs(lastVelocity) > COLLISION_MIN_SPEED && deceleration > COLLISION_DECELERATION);
+        lastVelocity = velocity;
+        if (hit && sinceCollision > COLLISION_HOLDOFF) {
+            sinceCollision = 0;
+            collisionCount++;
+            lastEvent = Event.COLLISION;
+        }
+
+        if (!slipping && score > 1) {
+            slipping = true;
+            slipCount++;
+            if (lastEvent == Event.NONE) lastEvent = Event.SLIP_STARTED;
+        } else if (slipping && score < GRIP_SCORE) {
+            slipping = false;
+            if (lastEvent == Event.NONE) lastEvent = Event.SLIP_ENDED;
+        }
+
+        if (slipping) {
+            slipSeconds += dt;
+            tractionScale = Math.max(TRACTION_MIN_SCALE, tractionScale - TRACTION_CUT_RATE * dt);
+        } else
+            tractionScale = Math.min(1, tractionScale + TRACTION_RECOVERY_RATE * dt);
+
+        return lastEvent;
+    }
+
+    public void reset() {
+        head = -1;
+        count = 0;
+        yawSum = accelerationSum = 0;
+        lastVelocity = yawResidual = score = 0;
+        tractionScale = 1;
+        sinceCollision = Double.MAX_VALUE;
+        slipping = false;
+        lastEvent = Event.NONE;
+    }
+
+    public Event getLastEvent() {
+        return lastEvent;
+    }
+
+    public boolean isSlipping() {
+        return slipping;
+    }
+
+    /**
+     * @return how far past slipping the window is - 1 is the threshold
+     */
+    public double getSlipScore() {
+        return score;
+    }
+
+    /**
+     * @return imu minus encoder yaw rate from the last update, rad/s
+     */
+    public double getYawResidual() {
+        return yawResidual;
+    }
+
+    /**
+     * @return what to multiply wheel odometry variances by - 1 with grip
+     */
+    public double getOdometryVarianceScale() {
+        return slipping || sinceCollision < COLLISION_HOLDOFF ? SLIP_VARIANCE_SCALE : 1;
+    }
+
+    /**
+     * @return what to multiply drive power by - ramps down while slipping and back to 1 with grip
+     */
+    public double getTractionScale() {
+        return tractionScale;
+    }
+
+    public int getSlipCount() {
+        return slipCount;
+    }
+
+    public int getCollisionCount() {
+        return collisionCount;
+    }
+
+    public void addTelemetry(Map<String, Object> telemetryMap) {
+        telemetryMap.put("slip", slipping);
+        telemetryMap.put("slip score", Misc.formatInvariant("%.2f", score));
+        telemetryMap.put("yaw residual", Misc.formatInvariant("%.1f deg/s", Math.toDegrees(yawResidual)));
+        telemetryMap.put("traction scale", Misc.formatInvariant("%.2f", tractionScale));
+        telemetryMap.put("slips / collisions", slipCount + " / " + collisionCount);
+        telemetryMap.put("slip time", Misc.formatInvariant("%.1f s", slipSeconds));
+    }
+}
@@ -0,0 +1,118 @@
+package org.firstinspires.ftc.teamcode.util;
+
+import com.acmerobotics.roadrunner.util.Angle;
+
+/**
+ * Ring buffer of recent robot states - field pose and turret angle, stamped with System.nanoTime() - so that
+ * anything measured in the past (a camera frame is 60-120 ms old by the time processFrame sees it) can be
+ * interpreted against where the robot actually was when it was measured, then carried forward to now.
+ *
+ * Record once per loop. All storage is parallel primitive arrays and every query writes into a caller-owned
+ * double[], so neither recording nor querying allocates. Single threaded - record and query from the loop thread.
+ *
+ * Units are the caller's, except that heading is radians and the turret angle is degrees (both wrap when
+ * interpolated).
+ */
+public class StateHistory {
+
+    public static final int X = 0, Y = 1, HEADING = 2, TURRET = 3;
+
+    private final long[] time;
+    private final double[] x, y, heading, turret;
+    private int head = -1, count;
+
+    public StateHistory(int capacity) {
+        time = new long[capacity];
+        x = new double[capacity];
+        y = new double[capacity];
+        heading = new double[capacity];
+        turret = new double[capacity];
+    }
+
+    public void record(long timeNanos, double x, double y, double heading, double turretDegrees) {
+        head = (head + 1) % time.length;
+        count = Math.min(count + 1, time.length);
+        time[head] = timeNanos;
+        this.x[head] = x;
+        this.y[head] = y;
+        this.heading[head] = heading;
+        turret[head] = turretDegrees;
+    }
+
+    public void clear() {
+        head = -1;
+        count = 0;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Fills out[X..TURRET] with the state at timeNanos, interpolated between the records either side of it.
+     * Times after the newest record get the newest record.
+     * @return false if there's no history that far back
+     */
+    public boolean sample(long timeNanos, double[] out) {
+        if (count == 0) return false;
+        if (timeNanos >= time[head]) {
+            copy(head, out);
+            return true;
+        }
+        int newer = head;
+        for (int i = 1; i < count; i++) {
+            int older = (newer - 1 + time.length) % time.length;
+            if (time[older] <= timeNanos) {
+                if (time[older] == time[newer]) {
+                    copy(older, out);
+                    return true;
+                }
+                double t = (double) (timeNanos - time[older]) / (time[newer] - time[older]);
+                out[X] = x[older] + (x[newer] - x[older]) * t;
+                out[Y] = y[older] + (y[newer] - y[older]) * t;
+                out[HEADING] = Angle.norm(heading[older] + Angle.normDelta(heading[newer] - heading[older]) * t);
+                out[TURRET] = turret[older] + wrapDegrees(turret[newer] - turret[older]) * t;
+                return true;
+            }
+            newer = older;
+        }
+        return false;
+    }
+
+    /**
+     * Carries a pose measured at captureNanos forward to now: the odometry motion since the capture, taken in
+     * the robot frame at capture time, is replayed on top of the measured pose.
+     * @param out receives the corrected current pose in out[X..HEADING]
+     * @return false if captureNanos is older than the history
+     */
+    public boolean reproject(long captureNanos, double measuredX, double measuredY, double measuredHeading, double[] out) {
+        if (!sample(captureNanos, out)) return false;
+        double dx = x[head] - out[X], dy = y[head] - out[Y];
+        double cos = Math.cos(out[HEADING]), sin = Math.sin(out[HEADING]);
+        //odometry delta in the robot frame at capture time
+        double forward = dx * cos + dy * sin;
+        double left = -dx * sin + dy * cos;
+        double turn = Angle.normDelta(heading[head] - out[HEADING]);
+
+        cos = Math.cos(measuredHeading);
+        sin = Math.sin(measuredHeading);
+        out[X] = measuredX + forward * cos - left * sin;
+        out[Y] = measuredY + forward * sin + left * cos;
+        out[HEADING] = Angle.norm(measuredHeading + turn);
+        return true;
+    }
+
+    private void copy(int index, double[] out) {
+        out[X] = x[index];
+        out[Y] = y[index];
+        out[HEADING] = heading[index];
+        out[TURRET] = turret[index];
+    }
+
+    private static double wrapDegrees(double angle) {
+        angle %= 360;
+        if (angle > 180) angle -= 360;
+        else if (angle <= -180) angle += 360;
+        return angle;
+    }
+}
@@ -1,4 +1,4 @@
-package org.firstinspires.ftc.teamcode.robots.csbot.util;
+package org.firstinspires.ftc.teamcode.util;
 
 import com.qualcomm.robotcore.hardware.Gamepad;
 
@@ -149,7 +149,7 @@ public class StickyGamepad {
             right_bumper_down = false;
         }
 
-        if (Utils.notTriggerDeadZone(gamepad.left_trigger)) {
+        if (utilMethods.notTriggerDeadZone(gamepad.left_trigger)) {
             if (left_trigger_down) {
                 left_trigger = false;
             } else {
@@ -161,7 +161,7 @@ public class StickyGamepad {
             left_trigger_down = false;
         }
 
-        if (Utils.notTriggerDeadZone(gamepad.right_trigger)) {
+        if (utilMethods.notTriggerDeadZone(gamepad.right_trigger)) {
             if (right_trigger_down) {
                 right_trigger = false;
             } else {
@@ -0,0 +1,108 @@
+package org.firstinspires.ftc.teamcode.util;
+
+/**
+ * Fastest routes between a subsystem's articulations. Articulations are the nodes; an edge is a move from one to
+ * another that's safe to make directly, weighted by how long it takes. solve() runs Floyd-Warshall over every
+ * pair and keeps the first hop of each fastest route, so next() is a table lookup from then on. A move that
+ * isn't safe to make directly just doesn't get an edge - the route goes around through ones that are.
+ *
+ * Edge times start as estimates and can be corrected with recordTransition() as moves are timed on the robot.
+ * The routes are solved again on the next lookup after a change - a few thousand steps for a couple dozen
+ * articulations. Nothing allocates after construction.
+ */
+public class TransitionGraph<T extends Enum<T>> {
+
+    private final T[] values;
+    private final double[][] edges, times;
+    private final int[][] next;
+    private final boolean[] nodes;
+    private double smoothing = 0.3;
+    private boolean solved;
+
+    public TransitionGraph(Class<T> type) {
+        values = type.getEnumConstants();
+        int n = values.length;
+        edges = new double[n][n];
+        times = new double[n][n];
+        next = new int[n][n];
+        nodes = new boolean[n];
+        for (int i = 0; i < n; i++)
+            for (int j = 0; j < n; j++)
+                edges[i][j] = i == j ? 0 : Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * A move from one articulation straight to another that's safe to make
+     */
+    public void addTransition(T from, T to, double seconds) {
+        edges[from.ordinal()][to.ordinal()] = seconds;
+        nodes[from.ordinal()] = nodes[to.ordinal()] = true;
+        solved = false;
+    }
+
+    public void addTransitions(T a, T b, double seconds) {
+        addTransition(a, b, seconds);
+        addTransition(b, a, seconds);
+    }
+
+    /**
+     * Folds a timed move into the edge's estimate - ignored if there's no such edge
+     */
+    public void recordTransition(T from, T to, double seconds) {
+        int i = from.ordinal(), j = to.ordinal();
+        if (i == j || edges[i][j] == Double.POSITIVE_INFINITY) return;
+        edges[i][j] += (seconds - edges[i][j]) * smoothing;
+        solved = false;
+    }
+
+    /**
+     * @param smoothing fraction of each recorded time taken into the estimate
+     */
+    public void setSmoothing(double smoothing) {
+        this.smoothing = smoothing;
+    }
+
+    public void solve() {
+        int n = values.length;
+        for (int i = 0; i < n; i++)
+            for (int j = 0; j < n; j++) {
+                times[i][j] = edges[i][j];
+                next[i][j] = edges[i][j] < Double.POSITIVE_INFINITY ? j : -1;
+            }
+        for (int k = 0; k < n; k++) {
+            if (!nodes[k]) continue;
+            for (int i = 0; i < n; i++) {
+                double viaK = times[i][k];
+                if (viaK == Double.POSITIVE_INFINITY) continue;
+                for (int j = 0; j < n; j++)
+                    if (viaK + times[k][j] < times[i][j]) {
+                        times[i][j] = viaK + times[k][j];
+                        next[i][j] = next[i][k];
+                    }
+            }
+        }
+        solved = true;
+    }
+
+    /**
+     * @return the articulation to head for first on the fastest route, the target itself if it's direct, or
+     * null if there's no route
+     */
+    public T next(T from, T to) {
+        if (!solved) solve();
+        int hop = next[from.ordinal()][to.ordinal()];
+        return hop < 0 || from == to ? null : values[hop];
+    }
+
+    /**
+     * @return seconds along the fastest route, infinite if there isn't one
+     */
+    public double getDuration(T from, T to) {
+        if (!solved) solve();
+        return times[from.ordinal()][to.ordinal()];
+    }
+
+    public boolean contains(T articulation) {
+        return articulation != null && nodes[articulation.ordinal()];
+    }
+}
@@ -18,6 +18,52 @@ public class Vector2 {
         return new Vector2(x-vec.x,y- vec.y);
     }
 
+    //in-place versions for per-loop geometry - these modify and return this instead of allocating
+
+    public Vector2 set(double x, double y){
+        this.x = x;
+        this.y = y;
+        return this;
+    }
+
+    public Vector2 set(Vector2 vec){
+        return set(vec.x, vec.y);
+    }
+
+    public Vector2 addInPlace(Vector2 vec){
+        x += vec.x;
+        y += vec.y;
+        return this;
+    }
+
+    public Vector2 subtractInPlace(Vector2 vec){
+        x -= vec.x;
+        y -= vec.y;
+        return this;
+    }
+
+    public Vector2 scaleInPlace(double scalar){
+        x *= scalar;
+        y *= scalar;
+        return this;
+    }
+
+    /**
+     * Rotates counter-clockwise by angle radians
+     */
+    public Vector2 rotateInPlace(double angle){
+        double cos = Math.cos(angle), sin = Math.sin(angle);
+        return set(x * cos - y * sin, x * sin + y * cos);
+    }
+
+    public double dot(Vector2 vec){
+        return x * vec.x + y * vec.y;
+    }
+
+    public double norm(){
+        return Math.sqrt(x * x + y * y);
+    }
+
     public static double magnitude(Vector2 vec){
         return Math.sqrt( Math.pow(vec.x,2) + Math.pow(vec.y,2) );
     }
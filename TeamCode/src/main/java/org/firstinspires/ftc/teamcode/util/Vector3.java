@@ -20,6 +20,48 @@ public class Vector3 {
         return new Vector3(x-vec.x,y- vec.y, z-vec.z);
     }
 
+    //in-place versions for per-loop geometry - these modify and return this instead of allocating
+
+    public Vector3 set(double x, double y, double z){
+        this.x = x;
+        this.y = y;
+        this.z = z;
+        return this;
+    }
+
+    public Vector3 set(Vector3 vec){
+        return set(vec.x, vec.y, vec.z);
+    }
+
+    public Vector3 addInPlace(Vector3 vec){
+        x += vec.x;
+        y += vec.y;
+        z += vec.z;
+        return this;
+    }
+
+    public Vector3 subtractInPlace(Vector3 vec){
+        x -= vec.x;
+        y -= vec.y;
+        z -= vec.z;
+        return this;
+    }
+
+    public Vector3 scaleInPlace(double scalar){
+        x *= scalar;
+        y *= scalar;
+        z *= scalar;
+        return this;
+    }
+
+    public double dot(Vector3 vec){
+        return x * vec.x + y * vec.y + z * vec.z;
+    }
+
+    public double norm(){
+        return Math.sqrt(x * x + y * y + z * z);
+    }
+
     public static double magnitude(Vector3 vec){
         return Math.sqrt( Math.pow(vec.x,2) + Math.pow(vec.y,2) + Math.pow(vec.z,2) );
     }
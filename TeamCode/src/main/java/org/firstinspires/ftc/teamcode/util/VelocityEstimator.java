@@ -0,0 +1,131 @@
+package org.firstinspires.ftc.teamcode.util;
+
+import com.acmerobotics.dashboard.config.Config;
+
+/**
+ * Estimates velocity and acceleration from position samples by fitting a quadratic (or a line) to the last few
+ * samples and evaluating its slope at the newest one. The hub's own velocity is counted over a 50 ms window
+ * and comes back in 20 cps steps, so it is both coarse and ~25 ms late. Differencing consecutive positions
+ * fixes the lag but is pure quantization noise at loop rate. A least-squares fit over a short window gets
+ * most of the smoothing without the lag - the quadratic has none at all under constant acceleration.
+ *
+ * Samples should be stamped with when the bulk read happened, not when the value was used. Reads closer
+ * together than MIN_SAMPLE_INTERVAL are treated as the same bulk read and ignored, and samples older than
+ * MAX_SAMPLE_AGE drop out of the fit so a stalled loop doesn't bend the curve.
+ *
+ * Storage is a primitive ring buffer and update() solves the normal equations in place, so nothing allocates.
+ */
+@Config(value = "AA_VelocityEstimator")
+public class VelocityEstimator {
+
+    public static int WINDOW = 8; //samples in the fit
+    public static double MAX_SAMPLE_AGE = 0.15; //seconds
+    public static double MIN_SAMPLE_INTERVAL = 0.002; //seconds
+    public static boolean QUADRATIC = true; //false fits a line - smoother, but lags half the window when accelerating
+
+    private final double[] time, position;
+    private final boolean quadratic;
+    private int head = -1, count;
+    private double velocity, acceleration;
+
+    /**
+     * Uses the WINDOW and QUADRATIC settings at the time it's built
+     */
+    public VelocityEstimator() {
+        this(WINDOW, QUADRATIC);
+    }
+
+    public VelocityEstimator(int window, boolean quadratic) {
+        time = new double[Math.max(window, 2)];
+        position = new double[time.length];
+        this.quadratic = quadratic;
+    }
+
+    /**
+     * Adds a sample and refits
+     * @param timeSeconds when the position was read from the hub, on any monotonic clock
+     */
+    public void update(double timeSeconds, double position) {
+        if (count > 0 && timeSeconds - time[head] < MIN_SAMPLE_INTERVAL)
+            return;
+        head = (head + 1) % time.length;
+        count = Math.min(count + 1, time.length);
+        time[head] = timeSeconds;
+        this.position[head] = position;
+        fit();
+    }
+
+    public void reset() {
+        head = -1;
+        count = 0;
+        velocity = acceleration = 0;
+    }
+
+    /**
+     * @return position units per second at the newest sample
+     */
+    public double getVelocity() {
+        return velocity;
+    }
+
+    /**
+     * @return position units per second squared, 0 when fitting a line
+     */
+    public double getAcceleration() {
+        return acceleration;
+    }
+
+    public int getSampleCount() {
+        return count;
+    }
+
+    private void fit() {
+        //times relative to the newest sample and scaled by the span to [-1, 0], positions relative to the newest
+        //sample - keeps the sums well conditioned with raw tick counts and clock seconds
+        double newestTime = time[head], newestPosition = position[head];
+        int n = 1;
+        double span = 0;
+        for (int i = 1; i < count; i++) {
+            int index = (head - i + time.length) % time.length;
+            if (newestTime - time[index] > MAX_SAMPLE_AGE) break;
+            span = newestTime - time[index];
+            n++;
+        }
+        if (n < 2 || span <= 0) {
+            velocity = acceleration = 0;
+            return;
+        }
+
+        double s1 = 0, s2 = 0, s3 = 0, s4 = 0, y0 = 0, y1 = 0, y2 = 0;
+        for (int i = 0; i < n; i++) {
+            int index = (head - i + time.length) % time.length;
+            double t = (time[index] - newestTime) / span;
+            double y = position[index] - newestPosition;
+            double t2 = t * t;
+            s1 += t;
+            s2 += t2;
+            s3 += t2 * t;
+            s4 += t2 * t2;
+            y0 += y;
+            y1 += t * y;
+            y2 += t2 * y;
+        }
+
+        if (quadratic && n >= 4) {
+            //[n s1 s2; s1 s2 s3; s2 s3 s4] [a b c] = [y0 y1 y2] by Cramer's rule - only b and c are needed
+            double c00 = s2 * s4 - s3 * s3, c01 = s1 * s4 - s3 * s2, c02 = s1 * s3 - s2 * s2;
+            double determinant = n * c00 - s1 * c01 + s2 * c02;
+            if (Math.abs(determinant) > 1e-12) {
+                double b = (n * (y1 * s4 - s3 * y2) - y0 * c01 + s2 * (s1 * y2 - y1 * s2)) / determinant;
+                double c = (n * (s2 * y2 - y1 * s3) - s1 * (s1 * y2 - y1 * s2) + y0 * c02) / determinant;
+                velocity = b / span;
+                acceleration = 2 * c / (span * span);
+                return;
+            }
+        }
+
+        double determinant = n * s2 - s1 * s1;
+        velocity = determinant == 0 ? 0 : (n * y1 - s1 * y0) / determinant / span;
+        acceleration = 0;
+    }
+}
@@ -0,0 +1,4 @@
+package org.firstinspires.ftc.teamcode.util.trajectorysequence;
+
+
+public class EmptySequenceException extends RuntimeException { }
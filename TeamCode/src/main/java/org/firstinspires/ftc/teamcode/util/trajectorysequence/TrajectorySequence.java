@@ -1,8 +1,8 @@
-package org.firstinspires.ftc.teamcode.robots.csbot.trajectorysequence;
+package org.firstinspires.ftc.teamcode.util.trajectorysequence;
 
 import com.acmerobotics.roadrunner.geometry.Pose2d;
 
-import org.firstinspires.ftc.teamcode.robots.csbot.trajectorysequence.sequencesegment.SequenceSegment;
+import org.firstinspires.ftc.teamcode.util.trajectorysequence.sequencesegment.SequenceSegment;
 
 import java.util.Collections;
 import java.util.List;
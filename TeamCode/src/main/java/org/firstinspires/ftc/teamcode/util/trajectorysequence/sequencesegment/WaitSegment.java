@@ -1,4 +1,4 @@
-package org.firstinspires.ftc.teamcode.robots.csbot.trajectorysequence.sequencesegment;
+package org.firstinspires.ftc.teamcode.util.trajectorysequence.sequencesegment;
 
 import com.acmerobotics.roadrunner.geometry.Pose2d;
 import com.acmerobotics.roadrunner.trajectory.TrajectoryMarker;
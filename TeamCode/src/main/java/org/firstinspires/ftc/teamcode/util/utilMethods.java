@@ -8,6 +8,8 @@ public class utilMethods {
     private static double smalldeadzone = 0.1;
 
     private static double nearzero = .0000001;
+    private static double epsilon = 1e-6; //approximately equal threshold shared by the robot kinematics
+    private static double triggerDeadzone = 0.1; //gamepad trigger values below this threshold are ignored
 
     public utilMethods(){}
 
@@ -167,6 +169,14 @@ public class utilMethods {
         else return false;
     }
 
+    public static boolean approxEquals(double x, double y){
+        return Math.abs(x - y) < epsilon;
+    }
+
+    public static boolean notTriggerDeadZone(double value){
+        return value < -triggerDeadzone || value > triggerDeadzone;
+    }
+
     public static double nextCardinal(double currentAngle, boolean right, double hop){
         double tmp;
         if (right) {
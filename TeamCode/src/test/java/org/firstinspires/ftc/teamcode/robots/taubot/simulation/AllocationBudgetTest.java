@@ -0,0 +1,52 @@
+package org.firstinspires.ftc.teamcode.robots.taubot.simulation;
+
+import static org.junit.Assert.assertTrue;
+
+import com.acmerobotics.dashboard.telemetry.TelemetryPacket;
+
+import org.firstinspires.ftc.robotcore.internal.system.Misc;
+import org.firstinspires.ftc.teamcode.robots.taubot.subsystem.Robot;
+import org.firstinspires.ftc.teamcode.util.AllocationProfiler;
+import org.junit.Test;
+
+import java.util.List;
+
+/**
+ * Allocation regression gate - runs the taubot update loop against simulated motors and servos and fails if any
+ * subsystem, or the loop as a whole, allocates more per tick on average than its budget. Lower the budgets as the
+ * allocation work lands so they can't creep back.
+ */
+public class AllocationBudgetTest {
+
+    private static final int WARMUP_TICKS = 200; //let class loading and the JIT settle before counting
+    private static final int MEASURED_TICKS = 500;
+    private static final long SUBSYSTEM_BYTES_PER_TICK = 2048;
+    private static final long LOOP_BYTES_PER_TICK = 16384;
+
+    @Test
+    public void simulatedLoopStaysWithinBudget() {
+        Robot robot = new Robot(null, true);
+        boolean wasProfiling = Robot.PROFILE_ALLOCATIONS;
+        Robot.PROFILE_ALLOCATIONS = true;
+        try {
+            robot.start();
+            AllocationProfiler profiler = robot.allocationProfiler;
+            for (int i = 0; i < WARMUP_TICKS + MEASURED_TICKS; i++) {
+                if (i == WARMUP_TICKS)
+                    profiler.reset();
+                robot.update(new TelemetryPacket().fieldOverlay()); //the packet is made before the loop starts counting
+            }
+
+            assertTrue("allocation counting isn't available on this JVM", profiler.isCounting());
+
+            List<String> over = profiler.getOverBudget(SUBSYSTEM_BYTES_PER_TICK, LOOP_BYTES_PER_TICK);
+            StringBuilder report = new StringBuilder("over budget: ").append(over);
+            for (int i = 0; i < profiler.getSlotCount(); i++)
+                report.append(Misc.formatInvariant(" | %s avg %.0f B/tick, peak %d", profiler.getName(i), profiler.getAverageBytes(i), profiler.getPeakBytes(i)));
+            report.append(Misc.formatInvariant(" | loop avg %.0f B/tick, peak %d", profiler.getAverageLoopBytes(), profiler.getPeakLoopBytes()));
+            assertTrue(report.toString(), over.isEmpty());
+        } finally {
+            Robot.PROFILE_ALLOCATIONS = wasProfiling;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package org.firstinspires.ftc.teamcode.robots.taubot.simulation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.Map;
+
+public class GainTunerTest {
+
+    private static Map<GainTuner.Loop, GainTuner.Result> results;
+
+    @BeforeClass
+    public static void tune() {
+        results = GainTuner.tune(Runtime.getRuntime().availableProcessors());
+    }
+
+    @Test
+    public void tunedGainsBeatTheCurrentGains() {
+        assertEquals(GainTuner.Loop.values().length, results.size());
+        for (GainTuner.Result result : results.values()) {
+            GainTuner.Loop loop = result.loop;
+            assertTrue(loop + " tuned " + result.best.score + " vs current " + result.baseline,
+                    loop.cost(result.best.score) < loop.cost(result.baseline));
+        }
+    }
+
+    @Test
+    public void tunedGainsSettleWithinTheRun() {
+        for (GainTuner.Result result : results.values())
+            assertTrue(result.loop + " " + result.best.score, result.best.score.settlingTime < GainTuner.SIM_SECONDS);
+    }
+
+    @Test
+    public void bestIsOnTheParetoFront() {
+        for (GainTuner.Result result : results.values()) {
+            assertTrue(result.paretoFront.contains(result.best));
+            for (GainTuner.Candidate candidate : result.paretoFront)
+                assertFalse(result.loop + " " + candidate.score, candidate.score.dominates(result.best.score));
+        }
+    }
+
+    @Test
+    public void sweepDoesNotDependOnThreadCount() {
+        Map<GainTuner.Loop, GainTuner.Result> serial = GainTuner.tune(1);
+        for (GainTuner.Result result : results.values()) {
+            GainTuner.Candidate best = serial.get(result.loop).best;
+            assertEquals(result.loop.toString(), result.best.gains.kP, best.gains.kP, 0);
+            assertEquals(result.loop.toString(), result.best.gains.kI, best.gains.kI, 0);
+            assertEquals(result.loop.toString(), result.best.gains.kD, best.gains.kD, 0);
+        }
+    }
+}
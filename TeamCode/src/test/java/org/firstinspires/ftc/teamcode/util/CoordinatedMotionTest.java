@@ -0,0 +1,68 @@
+package org.firstinspires.ftc.teamcode.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class CoordinatedMotionTest {
+
+    private static final double EPSILON = 1e-6;
+    private static final double DT = 0.001;
+
+    private final SCurveProfile shoulder = new SCurveProfile(0, 0, 0), turret = new SCurveProfile(0, 0, 0),
+            extension = new SCurveProfile(0, 0, 0);
+    private final SCurveProfile[] axes = {shoulder, turret, extension};
+    private final CoordinatedMotion motion = new CoordinatedMotion(shoulder, turret, extension);
+
+    public CoordinatedMotionTest() {
+        motion.setLimits(0, 120, 400, 3000);
+        motion.setLimits(1, 150, 360, 3000);
+        motion.setLimits(2, 1.2, 4, 30);
+    }
+
+    @Test
+    public void axesArriveTogether() {
+        double duration = motion.plan(0, new double[]{10, 0, 0}, new double[3], new double[]{60, 20, 0.5});
+        for (SCurveProfile axis : axes)
+            assertEquals(duration, axis.getDuration(), duration * 0.01);
+        motion.update(duration);
+        assertEquals(60, shoulder.getPosition(), EPSILON);
+        assertEquals(20, turret.getPosition(), EPSILON);
+        assertEquals(0.5, extension.getPosition(), EPSILON);
+    }
+
+    @Test
+    public void interlockHoldsTheExtensionUntilTheShoulderIsUp() {
+        motion.setInterlock(0, 20, 2, 0.05);
+        double duration = motion.plan(0, new double[]{5, 0, 0}, new double[3], new double[]{60, 0, 0.5});
+        for (double t = 0; t <= duration; t += DT) {
+            motion.update(t);
+            if (shoulder.getPosition() < 20 - EPSILON)
+                assertTrue(t + "s " + extension.getPosition(), extension.getPosition() <= 0.05 + EPSILON);
+        }
+        motion.update(duration);
+        assertEquals(0.5, extension.getPosition(), EPSILON);
+    }
+
+    @Test
+    public void rePlanCarryingAccelerationDoesNotStepIt() {
+        motion.plan(0, new double[]{10, 0, 0}, new double[3], new double[]{60, 90, 0.5});
+        double t = 0.1;
+        motion.update(t);
+        double[] positions = new double[3], velocities = new double[3], accelerations = new double[3];
+        for (int i = 0; i < 3; i++) {
+            positions[i] = axes[i].getPosition();
+            velocities[i] = axes[i].getVelocity();
+            accelerations[i] = axes[i].getAcceleration();
+        }
+        double duration = motion.plan(t, positions, velocities, accelerations, new double[]{55, 80, 0.45});
+        motion.update(t);
+        for (int i = 0; i < 3; i++)
+            assertEquals("axis " + i, accelerations[i], axes[i].getAcceleration(), EPSILON);
+        motion.update(t + duration);
+        assertEquals(55, shoulder.getPosition(), EPSILON);
+        assertEquals(80, turret.getPosition(), EPSILON);
+        assertEquals(0.45, extension.getPosition(), EPSILON);
+    }
+}
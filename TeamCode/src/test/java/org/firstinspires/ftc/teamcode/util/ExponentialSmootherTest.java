@@ -0,0 +1,50 @@
+package org.firstinspires.ftc.teamcode.util;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class ExponentialSmootherTest {
+
+    private static final double EPSILON = 1e-9;
+
+    @Test
+    public void firstUpdateSeedsTheAverage() {
+        ExponentialSmoother smoother = new ExponentialSmoother(0.1);
+        assertEquals(42, smoother.update(42), EPSILON);
+    }
+
+    @Test
+    public void updatesBlendBySmoothingFactor() {
+        ExponentialSmoother smoother = new ExponentialSmoother(0.25);
+        smoother.update(0);
+        assertEquals(1, smoother.update(4), EPSILON);
+        assertEquals(1.75, smoother.update(4), EPSILON);
+    }
+
+    @Test
+    public void convergesOnAConstantInput() {
+        ExponentialSmoother smoother = new ExponentialSmoother(0.2);
+        smoother.update(0);
+        double average = 0;
+        for (int i = 0; i < 100; i++)
+            average = smoother.update(10);
+        assertEquals(10, average, 1e-6);
+    }
+
+    @Test
+    public void resetReseedsFromTheNextValue() {
+        ExponentialSmoother smoother = new ExponentialSmoother(0.5);
+        smoother.update(100);
+        smoother.reset();
+        assertEquals(-3, smoother.update(-3), EPSILON);
+    }
+
+    @Test
+    public void smoothingFactorOfOneTracksTheInput() {
+        ExponentialSmoother smoother = new ExponentialSmoother(0.5);
+        smoother.update(0);
+        smoother.setSmoothingFactor(1);
+        assertEquals(7, smoother.update(7), EPSILON);
+    }
+}
@@ -0,0 +1,142 @@
+package org.firstinspires.ftc.teamcode.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class PIDControllerTest {
+
+    private static final double EPSILON = 1e-9;
+    private static final double DT = 0.02;
+
+    private static PIDController enabled(double p, double i, double d) {
+        PIDController pid = new PIDController(p, i, d);
+        pid.enable();
+        return pid;
+    }
+
+    @Test
+    public void disabledControllerHoldsItsLastOutput() {
+        PIDController pid = new PIDController(1, 0, 0);
+        pid.setSetpoint(0.5);
+        pid.setInput(0);
+        assertEquals(0, pid.performPID(DT), EPSILON);
+    }
+
+    @Test
+    public void proportionalOutputFollowsTheErrorSign() {
+        PIDController pid = enabled(0.1, 0, 0);
+        pid.setSetpoint(5);
+        pid.setInput(2);
+        assertEquals(0.3, pid.performPID(DT), EPSILON);
+        pid.setInput(8);
+        assertEquals(-0.3, pid.performPID(DT), EPSILON);
+        assertEquals(-3, pid.getError(), EPSILON);
+    }
+
+    @Test
+    public void outputIsClampedToTheOutputRange() {
+        PIDController pid = enabled(1, 0, 0);
+        pid.setSetpoint(10);
+        pid.setInput(0);
+        assertEquals(1, pid.performPID(DT), EPSILON);
+
+        pid.setOutputRange(-5, 5);
+        assertEquals(5, pid.performPID(DT), EPSILON);
+        pid.setInput(20);
+        assertEquals(-5, pid.performPID(DT), EPSILON);
+    }
+
+    @Test
+    public void setpointIsClampedToTheInputRange() {
+        PIDController pid = new PIDController(1, 0, 0);
+        pid.setInputRange(0, 100);
+        pid.setSetpoint(150);
+        assertEquals(100, pid.getSetpoint(), EPSILON);
+        pid.setSetpoint(-1);
+        assertEquals(0, pid.getSetpoint(), EPSILON);
+    }
+
+    @Test
+    public void continuousInputTakesTheShortWayAround() {
+        PIDController pid = enabled(0.01, 0, 0);
+        pid.setInputRange(0, 360);
+        pid.setContinuous();
+        pid.setSetpoint(10);
+        pid.setInput(350);
+        assertEquals(0.2, pid.performPID(DT), EPSILON);
+        assertEquals(20, pid.getError(), EPSILON);
+    }
+
+    @Test
+    public void outsideTheCutInDropsTheAccumulatedError() {
+        PIDController pid = enabled(0, 1, 0);
+        pid.setIntegralCutIn(5);
+        pid.setSetpoint(2);
+        pid.setInput(0);
+        pid.performPID(0.5); // the first step starts from zero previous error, which counts as a crossing
+        pid.performPID(0.5);
+        assertEquals(1, pid.getTotalError(), EPSILON);
+        assertEquals(1, pid.getPwrI(), EPSILON);
+
+        pid.setSetpoint(10);
+        pid.performPID(0.5);
+        assertEquals(10 * 0.5, pid.getTotalError(), EPSILON);
+    }
+
+    @Test
+    public void zeroCrossingResetsTheIntegral() {
+        PIDController pid = enabled(0, 1, 0);
+        pid.setIntegralCutIn(5);
+        pid.setSetpoint(2);
+        pid.setInput(0);
+        pid.performPID(0.5);
+        pid.performPID(0.5);
+        pid.setInput(3);
+        pid.performPID(0.5);
+        assertEquals(0, pid.getTotalError(), EPSILON);
+
+        pid.enableIntegralZeroCrossingReset(false);
+        pid.setInput(0);
+        pid.performPID(0.5);
+        assertEquals(1, pid.getTotalError(), EPSILON);
+    }
+
+    @Test
+    public void onTargetIsAPercentageOfTheInputRange() {
+        PIDController pid = enabled(0.01, 0, 0);
+        pid.setInputRange(0, 360);
+        pid.setTolerance(5);
+        pid.setSetpoint(180);
+        pid.setInput(160);
+        pid.performPID(DT);
+        assertFalse(pid.onTarget());
+        pid.setInput(170);
+        pid.performPID(DT);
+        assertTrue(pid.onTarget());
+    }
+
+    @Test
+    public void resetDisablesAndClearsTheIntegral() {
+        PIDController pid = enabled(0, 1, 0);
+        pid.setIntegralCutIn(5);
+        pid.setSetpoint(2);
+        pid.setInput(0);
+        pid.performPID(0.5);
+        pid.performPID(0.5);
+        pid.reset();
+        assertFalse(pid.isEnabled());
+        assertEquals(0, pid.getTotalError(), EPSILON);
+    }
+
+    @Test
+    public void feedForwardIsAddedToTheOutput() {
+        PIDController pid = new PIDController(0.1, 0, 0, input -> 0.25);
+        pid.enable();
+        pid.setSetpoint(1);
+        pid.setInput(0);
+        assertEquals(0.35, pid.performPID(DT), EPSILON);
+    }
+}
@@ -0,0 +1,80 @@
+package org.firstinspires.ftc.teamcode.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import com.acmerobotics.roadrunner.geometry.Pose2d;
+
+import org.junit.Test;
+
+public class PoseTest {
+
+    private static final double EPSILON = 1e-9;
+
+    private static void assertPose(double x, double y, double heading, Pose pose) {
+        assertEquals(x, pose.x, EPSILON);
+        assertEquals(y, pose.y, EPSILON);
+        assertEquals(heading, pose.heading, EPSILON);
+    }
+
+    @Test
+    public void roundTripsThroughPose2d() {
+        Pose pose = new Pose().set(new Pose2d(1, 2, 0.5));
+        assertPose(1, 2, 0.5, pose);
+        Pose2d back = pose.toPose2d();
+        assertEquals(1, back.getX(), EPSILON);
+        assertEquals(2, back.getY(), EPSILON);
+        assertEquals(0.5, back.getHeading(), EPSILON);
+    }
+
+    @Test
+    public void plusInPlaceAddsEveryComponent() {
+        Pose pose = new Pose(1, 2, 0.5);
+        assertSame(pose, pose.plusInPlace(new Pose(3, -1, 0.25)));
+        assertPose(4, 1, 0.75, pose);
+    }
+
+    @Test
+    public void rotateVecInPlaceLeavesHeadingAlone() {
+        Pose pose = new Pose(1, 0, 0.3).rotateVecInPlace(Math.PI / 2);
+        assertPose(0, 1, 0.3, pose);
+    }
+
+    @Test
+    public void argumentsMayBeThis() {
+        Pose pose = new Pose(1, 2, 3);
+        pose.plusInPlace(pose);
+        assertPose(2, 4, 6, pose);
+    }
+
+    @Test
+    public void dotHeadingProjectsOntoTheHeading() {
+        Pose pose = new Pose(3, 4, 0);
+        assertEquals(3, pose.dotHeading(0), EPSILON);
+        assertEquals(4, pose.dotHeading(Math.PI / 2), EPSILON);
+    }
+
+    @Test
+    public void fieldToRobotVelocityRotatesIntoTheRobotFrame() {
+        // robot facing +y, moving +y on the field, is moving forward (+x) in its own frame
+        Pose velocity = new Pose().fieldToRobotVelocity(new Pose(5, 5, Math.PI / 2), new Pose(0, 2, 0.1));
+        assertPose(2, 0, 0.1, velocity);
+    }
+
+    @Test
+    public void fieldToRobotAccelerationAddsTheCoriolisTerm() {
+        // robot facing +x, moving +x at 2 and turning at 1 rad/s, with no field acceleration
+        Pose fieldPose = new Pose(0, 0, 0), fieldVel = new Pose(2, 0, 1), fieldAccel = new Pose(0, 0, 0);
+        Pose acceleration = new Pose().fieldToRobotAcceleration(fieldPose, fieldVel, fieldAccel);
+        assertPose(0, -2, 0, acceleration);
+    }
+
+    @Test
+    public void robotPoseErrorIsInTheCurrentFrame() {
+        // target is straight ahead of a robot facing +y, and turned the short way across +-pi
+        Pose current = new Pose(1, 1, Math.PI / 2);
+        Pose target = new Pose(1, 4, -Math.PI + 0.1);
+        Pose error = new Pose().robotPoseError(target, current);
+        assertPose(3, 0, Math.PI / 2 + 0.1, error);
+    }
+}
@@ -0,0 +1,83 @@
+package org.firstinspires.ftc.teamcode.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class SCurveProfileTest {
+
+    private static final double EPSILON = 1e-6;
+    private static final double DT = 0.001;
+
+    @Test
+    public void arrivesAtRestOnTheTarget() {
+        SCurveProfile profile = new SCurveProfile(120, 400, 3000);
+        profile.plan(0, 10, 0, 100);
+        profile.update(profile.getDuration());
+        assertEquals(100, profile.getPosition(), EPSILON);
+        assertEquals(0, profile.getVelocity(), EPSILON);
+        assertEquals(0, profile.getAcceleration(), EPSILON);
+        assertTrue(profile.isFinished(profile.getDuration()));
+    }
+
+    @Test
+    public void staysWithinTheLimits() {
+        SCurveProfile profile = new SCurveProfile(120, 400, 3000);
+        profile.plan(0, 0, 0, 90);
+        for (double t = 0; t <= profile.getDuration(); t += DT) {
+            profile.update(t);
+            assertTrue(Math.abs(profile.getVelocity()) <= 120 + EPSILON);
+            assertTrue(Math.abs(profile.getAcceleration()) <= 400 + EPSILON);
+        }
+    }
+
+    @Test
+    public void reTargetCarryingAccelerationDoesNotStepIt() {
+        SCurveProfile profile = new SCurveProfile(120, 400, 3000);
+        profile.plan(0, 0, 0, 90);
+        profile.update(0.1); //mid-ramp, accelerating hard
+        double position = profile.getPosition(), velocity = profile.getVelocity(), acceleration = profile.getAcceleration();
+        assertTrue(acceleration > 100);
+
+        profile.plan(0.1, position, velocity, acceleration, 30);
+        profile.update(0.1);
+        assertEquals(position, profile.getPosition(), EPSILON);
+        assertEquals(velocity, profile.getVelocity(), EPSILON);
+        assertEquals(acceleration, profile.getAcceleration(), EPSILON);
+
+        //no more than the jerk limit from one millisecond to the next, all the way in
+        double previous = acceleration;
+        for (double t = 0.1 + DT; t <= 0.1 + profile.getDuration(); t += DT) {
+            profile.update(t);
+            assertTrue(Math.abs(profile.getAcceleration() - previous) <= 3000 * DT + EPSILON);
+            previous = profile.getAcceleration();
+        }
+        profile.update(0.1 + profile.getDuration());
+        assertEquals(30, profile.getPosition(), EPSILON);
+        assertEquals(0, profile.getVelocity(), EPSILON);
+    }
+
+    @Test
+    public void zeroAccelerationPlanMatchesTheRestPlan() {
+        SCurveProfile rest = new SCurveProfile(1.2, 4, 30), carried = new SCurveProfile(1.2, 4, 30);
+        rest.plan(0, 0.1, 0.3, 0.6);
+        carried.plan(0, 0.1, 0.3, 0, 0.6);
+        assertEquals(rest.getDuration(), carried.getDuration(), EPSILON);
+        for (double t = 0; t <= rest.getDuration(); t += 0.01) {
+            rest.update(t);
+            carried.update(t);
+            assertEquals(rest.getPosition(), carried.getPosition(), EPSILON);
+        }
+    }
+
+    @Test
+    public void timeAtFindsTheFirstCrossing() {
+        SCurveProfile profile = new SCurveProfile(120, 400, 3000);
+        profile.plan(2, 0, 0, 60);
+        double time = profile.timeAt(30);
+        profile.update(time);
+        assertEquals(30, profile.getPosition(), 1e-4);
+        assertTrue(Double.isNaN(profile.timeAt(61)));
+    }
+}
@@ -0,0 +1,51 @@
+package org.firstinspires.ftc.teamcode.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+public class ScratchPoolTest {
+
+    @Test
+    public void handsOutDistinctInstancesWithinAPass() {
+        ScratchPool<Pose> pool = new ScratchPool<>(Pose::new, 4);
+        Pose first = pool.get(), second = pool.get();
+        assertNotSame(first, second);
+    }
+
+    @Test
+    public void resetReusesTheSameInstances() {
+        ScratchPool<Vector2> pool = new ScratchPool<>(() -> new Vector2(0, 0), 2);
+        Vector2 first = pool.get(), second = pool.get();
+        pool.reset();
+        assertSame(first, pool.get());
+        assertSame(second, pool.get());
+    }
+
+    @Test
+    public void growsToTheLargestPassAndThenStops() {
+        int[] made = new int[1];
+        ScratchPool<Pose> pool = new ScratchPool<>(() -> { made[0]++; return new Pose(); }, 2);
+        for (int i = 0; i < 5; i++)
+            pool.get();
+        int capacity = pool.capacity();
+        int allocated = made[0];
+        assertEquals(capacity, allocated);
+
+        for (int pass = 0; pass < 10; pass++) {
+            pool.reset();
+            for (int i = 0; i < 5; i++)
+                pool.get();
+        }
+        assertEquals(capacity, pool.capacity());
+        assertEquals(allocated, made[0]);
+    }
+
+    @Test
+    public void zeroInitialSizeStillWorks() {
+        ScratchPool<Pose> pool = new ScratchPool<>(Pose::new, 0);
+        assertNotSame(pool.get(), pool.get());
+    }
+}
@@ -0,0 +1,138 @@
+package org.firstinspires.ftc.teamcode.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.Random;
+
+/**
+ * Drives a simulated differential drive through a scripted match - a one sided pushing match, both wheels
+ * breaking loose, a glancing hit and a head-on stop - and scores SlipDetector on it.
+ *
+ * The encoders are quantized and fed through VelocityEstimator the way DriveTrain does, and the gyro has
+ * noise, so the false alarms outside the scripted events are as meaningful as the detections inside them.
+ */
+public class SlipDetectorTest {
+
+    private static final double DURATION = 30; //seconds simulated
+    private static final double MIN_LOOP = 0.008, MAX_LOOP = 0.022; //seconds
+    private static final double TRACK_WIDTH = 14; //inches
+    private static final double TICKS_PER_INCH = 30;
+    private static final double GYRO_NOISE = 0.02; //rad/s
+
+    //scripted events - start and end seconds
+    private static final String[] EVENT_NAMES = {"left wheel pushed", "both wheels break loose", "glancing hit", "head-on stop"};
+    private static final double[][] EVENTS = {{5, 7}, {12, 13}, {18, 18.3}, {27.4, 27.7}};
+
+    private static double[] detectedAt;
+    private static double falseAlarmSeconds, minTraction;
+    private static int falseAlarms;
+    private static SlipDetector detector;
+
+    private static int eventAt(double t) {
+        for (int e = 0; e < EVENTS.length; e++)
+            if (t >= EVENTS[e][0] && t < EVENTS[e][1]) return e;
+        return -1;
+    }
+
+    @BeforeClass
+    public static void simulate() {
+        Random random = new Random(6832);
+        detector = new SlipDetector(TRACK_WIDTH);
+        VelocityEstimator leftEstimator = new VelocityEstimator(), rightEstimator = new VelocityEstimator();
+        double leftEncoder = 0, rightEncoder = 0, leftSpin = 0, lastT = 0;
+        detectedAt = new double[EVENTS.length];
+        for (int e = 0; e < EVENTS.length; e++) detectedAt[e] = Double.NaN;
+        minTraction = 1;
+
+        for (double t = 0; t < DURATION; t += MIN_LOOP + random.nextDouble() * (MAX_LOOP - MIN_LOOP)) {
+            double dt = t - lastT;
+            lastT = t;
+            int event = eventAt(t);
+
+            //what the chassis actually does
+            double forward = event == 3 ? 0 : 30 * Math.sin(0.4 * t); //pinned against a wall at full speed
+            double turn = 0.8 * Math.sin(0.9 * t);
+            if (event == 2) turn += 2.5; //knocked sideways for a moment
+
+            //what the wheels do - the slip rides on top of the chassis motion
+            double spinTarget = event == 0 ? 25 : 0;
+            leftSpin += (spinTarget - leftSpin) * Math.min(1, dt / 0.1);
+            double bothSpin = event == 1 ? 30 * Math.min(1, (t - EVENTS[1][0]) / 0.05) : 0;
+            double left = forward - turn * TRACK_WIDTH / 2 + leftSpin + bothSpin;
+            double right = forward + turn * TRACK_WIDTH / 2 + bothSpin;
+            if (event == 2) { //the hit turns the chassis, not the wheels
+                left += 2.5 * TRACK_WIDTH / 2;
+                right -= 2.5 * TRACK_WIDTH / 2;
+            }
+
+            leftEncoder += left * dt;
+            rightEncoder += right * dt;
+            leftEstimator.update(t, Math.floor(leftEncoder * TICKS_PER_INCH));
+            rightEstimator.update(t, Math.floor(rightEncoder * TICKS_PER_INCH));
+            double gyro = turn + random.nextGaussian() * GYRO_NOISE;
+
+            SlipDetector.Event raised = detector.update(dt,
+                    leftEstimator.getVelocity() / TICKS_PER_INCH, rightEstimator.getVelocity() / TICKS_PER_INCH,
+                    leftEstimator.getAcceleration() / TICKS_PER_INCH, rightEstimator.getAcceleration() / TICKS_PER_INCH, gyro);
+            minTraction = Math.min(minTraction, detector.getTractionScale());
+
+            boolean alarm = raised == SlipDetector.Event.COLLISION || detector.isSlipping();
+            //credit detections up to half a second after an event, the statistic needs a moment to settle
+            int credited = event >= 0 ? event : eventAt(t - 0.5);
+            if (alarm && credited >= 0 && Double.isNaN(detectedAt[credited]))
+                detectedAt[credited] = t - EVENTS[credited][0];
+            if (credited < 0) {
+                if (detector.isSlipping()) falseAlarmSeconds += dt;
+                if (raised == SlipDetector.Event.SLIP_STARTED || raised == SlipDetector.Event.COLLISION) falseAlarms++;
+            }
+        }
+    }
+
+    @Test
+    public void everyScriptedEventIsDetectedQuickly() {
+        for (int e = 0; e < EVENTS.length; e++) {
+            assertFalse(EVENT_NAMES[e] + " missed", Double.isNaN(detectedAt[e]));
+            assertTrue(EVENT_NAMES[e] + " detected after " + detectedAt[e] + " s", detectedAt[e] < 0.1);
+        }
+    }
+
+    @Test
+    public void noFalseAlarmsOutsideTheEvents() {
+        assertEquals(0, falseAlarms);
+        //a slip can outlast its credit window by a little while the rms window drains
+        assertTrue("slipping " + falseAlarmSeconds + " s outside the events", falseAlarmSeconds < 0.25);
+    }
+
+    @Test
+    public void tractionIsCutWhileSlippingAndRecovers() {
+        assertEquals(SlipDetector.TRACTION_MIN_SCALE, minTraction, 1e-9);
+        assertEquals(1, detector.getTractionScale(), 1e-9);
+        assertFalse(detector.isSlipping());
+    }
+
+    @Test
+    public void gripLeavesOdometryTrusted() {
+        SlipDetector grip = new SlipDetector(TRACK_WIDTH);
+        for (int i = 0; i < 100; i++)
+            grip.update(0.02, 20 - 0.5 * TRACK_WIDTH / 2, 20 + 0.5 * TRACK_WIDTH / 2, 0, 0, 0.5);
+        assertFalse(grip.isSlipping());
+        assertEquals(1, grip.getOdometryVarianceScale(), 0);
+        assertEquals(0, grip.getYawResidual(), 1e-9);
+    }
+
+    @Test
+    public void resetClearsTheSlip() {
+        SlipDetector slipping = new SlipDetector(TRACK_WIDTH);
+        for (int i = 0; i < 20; i++)
+            slipping.update(0.02, 0, 20, 0, 0, 0); //the encoders say it's spinning, the gyro says it isn't
+        assertTrue(slipping.isSlipping());
+        slipping.reset();
+        assertFalse(slipping.isSlipping());
+        assertEquals(1, slipping.getTractionScale(), 0);
+    }
+}
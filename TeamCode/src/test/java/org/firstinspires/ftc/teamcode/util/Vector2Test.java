@@ -0,0 +1,61 @@
+package org.firstinspires.ftc.teamcode.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+public class Vector2Test {
+
+    private static final double EPSILON = 1e-9;
+
+    @Test
+    public void addAndSubtractLeaveTheOperandsAlone() {
+        Vector2 a = new Vector2(1, 2), b = new Vector2(3, 5);
+        Vector2 sum = a.add(b), difference = b.subtract(a);
+        assertEquals(4, sum.x, EPSILON);
+        assertEquals(7, sum.y, EPSILON);
+        assertEquals(2, difference.x, EPSILON);
+        assertEquals(3, difference.y, EPSILON);
+        assertEquals(1, a.x, EPSILON);
+        assertEquals(2, a.y, EPSILON);
+    }
+
+    @Test
+    public void inPlaceOperationsMatchTheAllocatingOnes() {
+        Vector2 a = new Vector2(1, 2), b = new Vector2(3, 5);
+        Vector2 sum = a.add(b), difference = a.subtract(b);
+
+        Vector2 v = new Vector2(0, 0);
+        assertSame(v, v.set(a).addInPlace(b));
+        assertEquals(sum.x, v.x, EPSILON);
+        assertEquals(sum.y, v.y, EPSILON);
+
+        assertSame(v, v.set(a).subtractInPlace(b));
+        assertEquals(difference.x, v.x, EPSILON);
+        assertEquals(difference.y, v.y, EPSILON);
+
+        assertSame(v, v.set(a).scaleInPlace(-2));
+        assertEquals(-2, v.x, EPSILON);
+        assertEquals(-4, v.y, EPSILON);
+    }
+
+    @Test
+    public void rotateInPlaceIsCounterClockwise() {
+        Vector2 v = new Vector2(1, 0).rotateInPlace(Math.PI / 2);
+        assertEquals(0, v.x, EPSILON);
+        assertEquals(1, v.y, EPSILON);
+
+        v.set(3, 4).rotateInPlace(0.7);
+        assertEquals(5, v.norm(), EPSILON);
+    }
+
+    @Test
+    public void normAndDot() {
+        Vector2 v = new Vector2(3, 4);
+        assertEquals(5, v.norm(), EPSILON);
+        assertEquals(Vector2.magnitude(v), v.norm(), EPSILON);
+        assertEquals(11, v.dot(new Vector2(1, 2)), EPSILON);
+        assertEquals(0, v.dot(new Vector2(-4, 3)), EPSILON);
+    }
+}
@@ -0,0 +1,54 @@
+package org.firstinspires.ftc.teamcode.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+public class Vector3Test {
+
+    private static final double EPSILON = 1e-9;
+
+    @Test
+    public void addAndSubtractLeaveTheOperandsAlone() {
+        Vector3 a = new Vector3(1, 2, 3), b = new Vector3(4, 6, 8);
+        Vector3 sum = a.add(b), difference = b.subtract(a);
+        assertEquals(5, sum.x, EPSILON);
+        assertEquals(8, sum.y, EPSILON);
+        assertEquals(11, sum.z, EPSILON);
+        assertEquals(3, difference.x, EPSILON);
+        assertEquals(4, difference.y, EPSILON);
+        assertEquals(5, difference.z, EPSILON);
+        assertEquals(3, a.z, EPSILON);
+    }
+
+    @Test
+    public void inPlaceOperationsMatchTheAllocatingOnes() {
+        Vector3 a = new Vector3(1, 2, 3), b = new Vector3(4, 6, 8);
+        Vector3 sum = a.add(b), difference = a.subtract(b);
+
+        Vector3 v = new Vector3(0, 0, 0);
+        assertSame(v, v.set(a).addInPlace(b));
+        assertEquals(sum.x, v.x, EPSILON);
+        assertEquals(sum.y, v.y, EPSILON);
+        assertEquals(sum.z, v.z, EPSILON);
+
+        assertSame(v, v.set(a).subtractInPlace(b));
+        assertEquals(difference.x, v.x, EPSILON);
+        assertEquals(difference.y, v.y, EPSILON);
+        assertEquals(difference.z, v.z, EPSILON);
+
+        assertSame(v, v.set(a).scaleInPlace(0.5));
+        assertEquals(0.5, v.x, EPSILON);
+        assertEquals(1, v.y, EPSILON);
+        assertEquals(1.5, v.z, EPSILON);
+    }
+
+    @Test
+    public void normAndDot() {
+        Vector3 v = new Vector3(2, 3, 6);
+        assertEquals(7, v.norm(), EPSILON);
+        assertEquals(Vector3.magnitude(v), v.norm(), EPSILON);
+        assertEquals(2 + 6 + 18, v.dot(new Vector3(1, 2, 3)), EPSILON);
+    }
+}
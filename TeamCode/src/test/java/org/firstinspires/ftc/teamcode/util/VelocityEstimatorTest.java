@@ -0,0 +1,190 @@
+package org.firstinspires.ftc.teamcode.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.Random;
+
+/**
+ * Scores the regression VelocityEstimator against the velocities we used to get, on a simulated encoder.
+ *
+ * The encoder follows a known velocity curve and is read at a jittery loop rate in whole ticks. Each estimate
+ * is scored on its rms error against the true velocity and on its lag - the delay that best lines it up with
+ * the true velocity. The baselines are the hub's velocity (counted over 50 ms, reported in 20 cps steps) and
+ * the median of the last three position differences that Encoder used for overflow correction.
+ */
+public class VelocityEstimatorTest {
+
+    private static final double DURATION = 20; //seconds simulated
+    private static final double MIN_LOOP = 0.008, MAX_LOOP = 0.022; //seconds
+    private static final double HUB_WINDOW = 0.05, HUB_STEP = 20;
+    private static final double MAX_LAG = 0.1, LAG_STEP = 0.001;
+
+    private static final int HUB = 0, MEDIAN = 1, LINE = 2, QUADRATIC = 3;
+    private static double[] rmsError, lag, rmsAfterLag;
+    private static double accelerationRmsError;
+
+    @BeforeClass
+    public static void simulate() {
+        Random random = new Random(6832);
+        int maxSamples = (int) (DURATION / MIN_LOOP) + 1;
+        double[] time = new double[maxSamples];
+        double[][] estimates = new double[4][maxSamples];
+        double accelerationErrorSum = 0;
+        int accelerationErrorCount = 0;
+
+        VelocityEstimator line = new VelocityEstimator(VelocityEstimator.WINDOW, false);
+        VelocityEstimator quadratic = new VelocityEstimator(VelocityEstimator.WINDOW, true);
+        double[] differences = new double[3];
+        int differenceIndex = 0;
+        double lastTime = 0, lastPosition = 0;
+
+        int n = 0;
+        for (double t = 0.2; t < DURATION && n < maxSamples; t += MIN_LOOP + random.nextDouble() * (MAX_LOOP - MIN_LOOP)) {
+            double position = Math.floor(truePosition(t));
+            time[n] = t;
+
+            double hub = (Math.floor(truePosition(t)) - Math.floor(truePosition(t - HUB_WINDOW))) / HUB_WINDOW;
+            estimates[HUB][n] = Math.round(hub / HUB_STEP) * HUB_STEP;
+
+            if (n > 0 && position != lastPosition) {
+                differences[differenceIndex] = (position - lastPosition) / (t - lastTime);
+                differenceIndex = (differenceIndex + 1) % 3;
+                lastPosition = position;
+                lastTime = t;
+            } else if (n == 0) {
+                lastPosition = position;
+                lastTime = t;
+            }
+            estimates[MEDIAN][n] = differences[0] > differences[1]
+                    ? Math.max(differences[1], Math.min(differences[0], differences[2]))
+                    : Math.max(differences[0], Math.min(differences[1], differences[2]));
+
+            line.update(t, position);
+            quadratic.update(t, position);
+            estimates[LINE][n] = line.getVelocity();
+            estimates[QUADRATIC][n] = quadratic.getVelocity();
+            if (n > VelocityEstimator.WINDOW) {
+                double error = quadratic.getAcceleration() - trueAcceleration(t);
+                accelerationErrorSum += error * error;
+                accelerationErrorCount++;
+            }
+            n++;
+        }
+
+        rmsError = new double[estimates.length];
+        lag = new double[estimates.length];
+        rmsAfterLag = new double[estimates.length];
+        for (int e = 0; e < estimates.length; e++) {
+            rmsError[e] = rmsError(time, estimates[e], n, 0);
+            rmsAfterLag[e] = Double.MAX_VALUE;
+            for (double candidate = 0; candidate <= MAX_LAG; candidate += LAG_STEP) {
+                double error = rmsError(time, estimates[e], n, candidate);
+                if (error < rmsAfterLag[e]) {
+                    rmsAfterLag[e] = error;
+                    lag[e] = candidate;
+                }
+            }
+        }
+        accelerationRmsError = Math.sqrt(accelerationErrorSum / accelerationErrorCount);
+    }
+
+    //a slow sweep with a faster wobble on top - counts per second
+    private static double trueVelocity(double t) {
+        return 1500 * Math.sin(Math.PI * t) + 600 * Math.sin(2 * Math.PI * t / 0.7);
+    }
+
+    private static double truePosition(double t) {
+        return 1500 / Math.PI * (1 - Math.cos(Math.PI * t)) + 600 * 0.7 / (2 * Math.PI) * (1 - Math.cos(2 * Math.PI * t / 0.7));
+    }
+
+    private static double trueAcceleration(double t) {
+        return 1500 * Math.PI * Math.cos(Math.PI * t) + 600 * 2 * Math.PI / 0.7 * Math.cos(2 * Math.PI * t / 0.7);
+    }
+
+    private static double rmsError(double[] time, double[] estimate, int n, double lag) {
+        //skip the start while the windows fill
+        double sum = 0;
+        int count = 0;
+        for (int i = 20; i < n; i++) {
+            double error = estimate[i] - trueVelocity(time[i] - lag);
+            sum += error * error;
+            count++;
+        }
+        return Math.sqrt(sum / count);
+    }
+
+    @Test
+    public void quadraticFitBeatsTheHubVelocity() {
+        assertTrue("quadratic " + rmsError[QUADRATIC] + " cps vs hub " + rmsError[HUB], rmsError[QUADRATIC] < rmsError[HUB] / 2);
+        assertTrue("quadratic lag " + lag[QUADRATIC] + " s vs hub " + lag[HUB], lag[QUADRATIC] < lag[HUB] / 4);
+    }
+
+    @Test
+    public void quadraticFitBeatsTheMedianOfDifferences() {
+        assertTrue("quadratic " + rmsError[QUADRATIC] + " cps vs median " + rmsError[MEDIAN], rmsError[QUADRATIC] < rmsError[MEDIAN]);
+    }
+
+    @Test
+    public void quadraticFitHasLessLagThanTheLine() {
+        assertTrue("quadratic lag " + lag[QUADRATIC] + " s vs line " + lag[LINE], lag[QUADRATIC] < lag[LINE]);
+        assertTrue("quadratic " + rmsError[QUADRATIC] + " cps vs line " + rmsError[LINE], rmsError[QUADRATIC] < rmsError[LINE]);
+    }
+
+    @Test
+    public void quadraticFitTracksAcceleration() {
+        //the true acceleration swings about +-10000 cps^2
+        assertTrue("rms acceleration error " + accelerationRmsError, accelerationRmsError < 2500);
+    }
+
+    @Test
+    public void constantVelocityIsExact() {
+        VelocityEstimator estimator = new VelocityEstimator(8, true);
+        for (int i = 0; i < 20; i++)
+            estimator.update(i * 0.01, 100 + 500 * i * 0.01);
+        assertEquals(500, estimator.getVelocity(), 1e-6);
+        assertEquals(0, estimator.getAcceleration(), 1e-6);
+    }
+
+    @Test
+    public void constantAccelerationHasNoLag() {
+        VelocityEstimator estimator = new VelocityEstimator(8, true);
+        double t = 0;
+        for (int i = 0; i < 20; i++, t += 0.013)
+            estimator.update(t, 200 * t * t);
+        t -= 0.013;
+        assertEquals(400 * t, estimator.getVelocity(), 1e-6);
+        assertEquals(400, estimator.getAcceleration(), 1e-6);
+    }
+
+    @Test
+    public void readsInsideOneBulkReadAreIgnored() {
+        VelocityEstimator estimator = new VelocityEstimator(8, true);
+        estimator.update(0, 0);
+        estimator.update(VelocityEstimator.MIN_SAMPLE_INTERVAL / 2, 10);
+        assertEquals(1, estimator.getSampleCount());
+    }
+
+    @Test
+    public void staleSamplesDropOutOfTheFit() {
+        VelocityEstimator estimator = new VelocityEstimator(8, false);
+        for (int i = 0; i < 8; i++)
+            estimator.update(i * 0.01, 1000 * i * 0.01);
+        //stalled loop, then the encoder hasn't moved since - only the newest sample is recent, so no estimate
+        estimator.update(1, 70);
+        assertEquals(0, estimator.getVelocity(), 0);
+    }
+
+    @Test
+    public void resetClearsTheEstimate() {
+        VelocityEstimator estimator = new VelocityEstimator(8, true);
+        for (int i = 0; i < 8; i++)
+            estimator.update(i * 0.01, 1000 * i * 0.01);
+        estimator.reset();
+        assertEquals(0, estimator.getSampleCount());
+        assertEquals(0, estimator.getVelocity(), 0);
+    }
+}